@@ -9,6 +9,7 @@ import org.broadinstitute.hellbender.cmdline.PicardCommandLineProgramExecutor;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.exceptions.PicardNonZeroExitException;
 import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.ClassIndex;
 import org.broadinstitute.hellbender.utils.ClassUtils;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.config.ConfigFactory;
@@ -301,13 +302,9 @@ public class Main {
                                                           final List<Class<? extends CommandLineProgram>> classList,
                                                           final String commandLineName ) {
         /** Get the set of classes that are our command line programs **/
-        final ClassFinder classFinder = new ClassFinder();
-        for (final String pkg : packageList) {
-            classFinder.find(pkg, picard.cmdline.CommandLineProgram.class);
-            classFinder.find(pkg, CommandLineProgram.class);
-        }
+        final Set<Class<?>> toCheck = ClassIndex.findClasses(picard.cmdline.CommandLineProgram.class, packageList);
+        toCheck.addAll(ClassIndex.findClasses(CommandLineProgram.class, packageList));
         String missingAnnotationClasses = "";
-        final Set<Class<?>> toCheck = classFinder.getClasses();
         toCheck.addAll(classList);
         final Map<String, Class<?>> simpleNameToClass = new LinkedHashMap<>();
         for (final Class<?> clazz : toCheck) {
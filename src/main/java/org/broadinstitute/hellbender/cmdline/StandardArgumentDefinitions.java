@@ -39,6 +39,8 @@ public final class StandardArgumentDefinitions {
     public static final String SAMPLE_NAME_LONG_NAME = "sample-name";
     public static final String PEDIGREE_FILE_LONG_NAME = "pedigree";
     public static final String SITES_ONLY_LONG_NAME = "sites-only-vcf-output";
+    public static final String CACHE_FIRST_PASS_LONG_NAME = "cache-first-pass";
+    public static final String FIRST_PASS_CACHE_RECORDS_IN_RAM_LONG_NAME = "first-pass-cache-records-in-ram";
 
     public static final String INPUT_SHORT_NAME = "I";
     public static final String OUTPUT_SHORT_NAME = "O";
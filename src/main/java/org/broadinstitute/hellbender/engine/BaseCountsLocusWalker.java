@@ -0,0 +1,103 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import org.broadinstitute.hellbender.engine.filters.CountingReadFilter;
+import org.broadinstitute.hellbender.utils.IntervalUtils;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.iterators.IntervalLocusIterator;
+import org.broadinstitute.hellbender.utils.iterators.IntervalOverlappingIterator;
+import org.broadinstitute.hellbender.utils.locusiterator.IntervalLocusBaseCountsIterator;
+import org.broadinstitute.hellbender.utils.locusiterator.LocusBaseCounts;
+import org.broadinstitute.hellbender.utils.locusiterator.LocusBaseCountsIterator;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A BaseCountsLocusWalker is a {@link LocusWalker} for tools that only need the counts of the bases at each position,
+ * rather than the reads in the pileup. Instead of an {@link AlignmentContext}, each position is processed as a
+ * {@link LocusBaseCounts}.
+ *
+ * Without downsampling, the counts are collected by a {@link LocusBaseCountsIterator}, which adds the bases of each
+ * read to primitive counters as the read is streamed in, so no pileup is ever built. When {@link #maxDepthPerSample}
+ * requests downsampling, the traversal falls back to the pileups of {@link LocusWalker} and counts them, so the
+ * results of both traversals are the same for the same reads.
+ *
+ * BaseCountsLocusWalker authors must implement {@link #apply(LocusBaseCounts, ReferenceContext, FeatureContext)}, and
+ * should override {@link #getMinimumBaseQuality()} if bases of low quality must not be counted by nucleotide.
+ * {@link #includeNs()} is ignored, since reference skips are never counted.
+ */
+public abstract class BaseCountsLocusWalker extends LocusWalker {
+
+    /**
+     * Returns the minimum quality of the bases counted by nucleotide in the {@link LocusBaseCounts} passed to
+     * {@link #apply(LocusBaseCounts, ReferenceContext, FeatureContext)}; other bases are counted as low quality bases.
+     * Default implementation returns 0 (all bases are counted by nucleotide).
+     */
+    protected int getMinimumBaseQuality() {
+        return 0;
+    }
+
+    /**
+     * Implementation of base counting traversal.
+     *
+     * Uses a {@link LocusBaseCountsIterator} over the filtered and transformed reads unless downsampling is requested,
+     * in which case the pileup-based traversal of {@link LocusWalker} is used.
+     */
+    @Override
+    public void traverse() {
+        if (maxDepthPerSample != 0) {
+            super.traverse();
+            return;
+        }
+        validateEmitEmptyLociParameters();
+
+        final CountingReadFilter countedFilter = makeReadFilter();
+        final Iterator<GATKRead> readIterator = getTransformedReadStream(countedFilter).iterator();
+        final Iterator<LocusBaseCounts> iterator = makeIntervalIterator(new LocusBaseCountsIterator(readIterator, getMinimumBaseQuality(), includeDeletions()));
+
+        iterator.forEachRemaining(counts -> {
+            final SimpleInterval locus = new SimpleInterval(counts);
+            apply(counts, new ReferenceContext(reference, locus), new FeatureContext(features, locus));
+            progressMeter.update(locus);
+        });
+        logger.info(countedFilter.getSummaryLine());
+    }
+
+    // restrict the counts to the intervals, adding empty counts for the positions without reads if requested, as
+    // AlignmentContextIteratorBuilder does for pileups
+    private Iterator<LocusBaseCounts> makeIntervalIterator(final Iterator<LocusBaseCounts> countsIterator) {
+        final SAMSequenceDictionary dictionary = getBestAvailableSequenceDictionary();
+        if (emitEmptyLoci()) {
+            final List<SimpleInterval> intervals = hasIntervals() ? intervalsForTraversal : IntervalUtils.getAllIntervalsForReference(dictionary);
+            return new IntervalLocusBaseCountsIterator(countsIterator, new IntervalLocusIterator(intervals.iterator()), dictionary);
+        } else if (hasIntervals()) {
+            return new IntervalOverlappingIterator<>(countsIterator, intervalsForTraversal, getHeaderForReads().getSequenceDictionary());
+        } else {
+            return countsIterator;
+        }
+    }
+
+    /**
+     * Counts the pileup of an alignment context, for the pileup-based traversal used when downsampling.
+     */
+    @Override
+    public final void apply(final AlignmentContext alignmentContext, final ReferenceContext referenceContext, final FeatureContext featureContext) {
+        apply(LocusBaseCounts.fromPileup(alignmentContext, alignmentContext.getBasePileup(), getMinimumBaseQuality()), referenceContext, featureContext);
+    }
+
+    /**
+     * Process the base counts at an individual position (with optional contextual information). Must be implemented
+     * by tool authors.
+     *
+     * @param baseCounts counts of the bases and deletions of the reads at the current position
+     * @param referenceContext Reference bases spanning the current locus. Will be an empty, but non-null, context object
+     *                         if there is no backing source of reference data (in which case all queries on it will return
+     *                         an empty array/iterator).
+     * @param featureContext Features spanning the current locus. Will be an empty, but non-null, context object
+     *                       if there is no backing source of Feature data (in which case all queries on it will return an
+     *                       empty List).
+     */
+    public abstract void apply(LocusBaseCounts baseCounts, ReferenceContext referenceContext, FeatureContext featureContext);
+}
@@ -5,6 +5,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.runtime.MetricsRegistry;
 
 import java.util.*;
 
@@ -54,6 +55,12 @@ class FeatureCache<CACHED_FEATURE extends Feature> {
      */
     private int numCacheMisses = 0;
 
+    /**
+     * Cache hits and misses summed over all caches, as runtime metrics
+     */
+    private static final MetricsRegistry.Counter CACHE_HITS_METRIC = MetricsRegistry.getDefault().counter("feature-cache.hits");
+    private static final MetricsRegistry.Counter CACHE_MISSES_METRIC = MetricsRegistry.getDefault().counter("feature-cache.misses");
+
     /**
      * Initial capacity of our cache (will grow by doubling if needed)
      */
@@ -155,9 +162,11 @@ class FeatureCache<CACHED_FEATURE extends Feature> {
 
         if ( cacheHit ) {
             ++numCacheHits;
+            CACHE_HITS_METRIC.increment();
         }
         else {
             ++numCacheMisses;
+            CACHE_MISSES_METRIC.increment();
         }
 
         return cacheHit;
@@ -17,11 +17,13 @@ import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.nio.AdaptiveSeekableByteChannelPrefetcher;
 import org.broadinstitute.hellbender.utils.nio.SeekableByteChannelPrefetcher;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.channels.SeekableByteChannel;
+import java.nio.file.FileSystems;
 import java.nio.file.Path;
 import java.util.Iterator;
 import java.util.List;
@@ -117,6 +119,12 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
      */
     private final boolean supportsRandomAccess;
 
+    /**
+     * Number of threads to inflate the blocks of a local block-compressed file on during full traversals,
+     * or 0 to let Tribble inflate them on the thread that reads the Features.
+     */
+    private final int decompressionThreads;
+
     /**
      * Default value for queryLookaheadBases, if none is specified. This is designed to be large enough
      * so that in typical usage (ie., query intervals with gradually increasing start locations) there will
@@ -244,10 +252,33 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
      */
     public FeatureDataSource(final FeatureInput<T> featureInput, final int queryLookaheadBases, final Class<? extends Feature> targetFeatureType,
                              final int cloudPrefetchBuffer, final int cloudIndexPrefetchBuffer, final Path reference) {
+        this(featureInput, queryLookaheadBases, targetFeatureType, cloudPrefetchBuffer, cloudIndexPrefetchBuffer, reference, 0);
+    }
+
+    /**
+     * Creates a FeatureDataSource backed by the provided FeatureInput. We will look ahead the specified number of bases
+     * during queries that produce cache misses.
+     *
+     * @param featureInput a FeatureInput specifying a source of Features
+     * @param queryLookaheadBases look ahead this many bases during queries that produce cache misses
+     * @param targetFeatureType When searching for a {@link FeatureCodec} for this data source, restrict the search to codecs
+     *                          that produce this type of Feature. May be null, which results in an unrestricted search.
+     * @param cloudPrefetchBuffer  MB size of caching/prefetching wrapper for the data, if on Google Cloud (0 to disable).
+     * @param cloudIndexPrefetchBuffer MB size of caching/prefetching wrapper for the index, if on Google Cloud (0 to disable).
+     * @param reference Path to a reference. May be null. Needed only for reading from GenomicsDB.
+     * @param decompressionThreads number of threads to inflate the blocks of a local block-compressed file on during
+     *                             full traversals (0 to inflate them on the thread that reads the Features).
+     */
+    public FeatureDataSource(final FeatureInput<T> featureInput, final int queryLookaheadBases, final Class<? extends Feature> targetFeatureType,
+                             final int cloudPrefetchBuffer, final int cloudIndexPrefetchBuffer, final Path reference,
+                             final int decompressionThreads) {
         Utils.validateArg( queryLookaheadBases >= 0, "Query lookahead bases must be >= 0");
+        Utils.validateArg( decompressionThreads >= 0, "Decompression threads must be >= 0");
         this.featureInput = Utils.nonNull(featureInput, "featureInput must not be null");
 
-        final Function<SeekableByteChannel, SeekableByteChannel> cloudWrapper = (cloudPrefetchBuffer > 0 ? is -> SeekableByteChannelPrefetcher.addPrefetcher(cloudPrefetchBuffer, is) : Function.identity());
+        // the data is prefetched into a pool of blocks, so that the overlapping queries of the lookahead cache
+        // find the blocks they go back to
+        final Function<SeekableByteChannel, SeekableByteChannel> cloudWrapper = (cloudPrefetchBuffer > 0 ? is -> AdaptiveSeekableByteChannelPrefetcher.addPrefetcher(cloudPrefetchBuffer, IOUtils.getPath(featureInput.getFeaturePath()), is) : Function.identity());
         final Function<SeekableByteChannel, SeekableByteChannel> cloudIndexWrapper = (cloudIndexPrefetchBuffer > 0 ? is -> SeekableByteChannelPrefetcher.addPrefetcher(cloudIndexPrefetchBuffer, is) : Function.identity());
 
         // Create a feature reader without requiring an index.  We will require one ourselves as soon as
@@ -274,6 +305,7 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
         this.intervalsForTraversal = null;
         this.queryCache = new FeatureCache<>();
         this.queryLookaheadBases = queryLookaheadBases;
+        this.decompressionThreads = decompressionThreads;
     }
 
     /**
@@ -459,8 +491,16 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
 
         try {
             // Save the iterator returned so that we can close it properly later
-            currentIterator = intervalsForTraversal != null ? new FeatureIntervalIterator<T>(intervalsForTraversal, featureReader, featureInput.getFeaturePath())
-                                                            : featureReader.iterator();
+            if ( intervalsForTraversal != null ) {
+                currentIterator = new FeatureIntervalIterator<T>(intervalsForTraversal, featureReader, featureInput.getFeaturePath());
+            }
+            else if ( canDecompressInParallel() ) {
+                currentIterator = makeParallelBlockCompressedIterator(IOUtils.getPath(featureInput.getFeaturePath()),
+                                                                      getCodecForFeatureInput(featureInput, null), decompressionThreads);
+            }
+            else {
+                currentIterator = featureReader.iterator();
+            }
             return currentIterator;
         }
         catch ( IOException e ) {
@@ -468,6 +508,24 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
         }
     }
 
+    /**
+     * @return true if full traversals should inflate the blocks of our file on a thread pool of our own rather than
+     *         through Tribble. Only local block-compressed files are read this way, since remote inputs are bound by
+     *         fetching rather than by inflation.
+     */
+    private boolean canDecompressInParallel() {
+        final String featurePath = featureInput.getFeaturePath();
+        return decompressionThreads > 0
+                && ! isGenomicsDBPath(featurePath)
+                && TribbleIndexedFeatureReader.hasBlockCompressedExtension(featurePath)
+                && IOUtils.getPath(featurePath).getFileSystem() == FileSystems.getDefault();
+    }
+
+    private static <T extends Feature, SOURCE> CloseableTribbleIterator<T> makeParallelBlockCompressedIterator(
+            final Path featurePath, final FeatureCodec<T, SOURCE> codec, final int decompressionThreads) {
+        return new ParallelBlockCompressedFeatureIterator<>(featurePath, codec, decompressionThreads);
+    }
+
     /**
      * Gets an iterator over all Features in this data source that overlap the provided interval.
      *
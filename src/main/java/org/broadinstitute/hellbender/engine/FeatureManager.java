@@ -8,11 +8,11 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.broadinstitute.barclay.argparser.Argument;
-import org.broadinstitute.barclay.argparser.ClassFinder;
 import org.broadinstitute.barclay.argparser.CommandLineParser;
 import org.broadinstitute.hellbender.cmdline.CommandLineProgram;
 import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.ClassIndex;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.config.ConfigFactory;
 import org.broadinstitute.hellbender.utils.config.GATKConfig;
@@ -61,20 +61,16 @@ public final class FeatureManager implements AutoCloseable {
     private static final Class<FeatureInput> FEATURE_ARGUMENT_CLASS = FeatureInput.class;
 
     /**
-     * At startup, walk through the packages in codec packages, and save any (concrete) FeatureCodecs discovered
-     * in DISCOVERED_CODECS
+     * At startup, walk through the packages in codec packages (using the prebuilt {@link ClassIndex} when available),
+     * and save any (concrete) FeatureCodecs discovered in DISCOVERED_CODECS
      */
     static {
 
         // Get our configuration:
         final GATKConfig config = ConfigFactory.getInstance().getGATKConfig();
 
-        final ClassFinder finder = new ClassFinder();
-        for ( final String codecPackage : config.codec_packages() ) {
-            finder.find(codecPackage, CODEC_BASE_CLASS);
-        }
         // Exclude abstract classes and interfaces from the list of discovered codec classes
-        DISCOVERED_CODECS = Collections.unmodifiableSet(finder.getConcreteClasses());
+        DISCOVERED_CODECS = Collections.unmodifiableSet(ClassIndex.findConcreteClasses(CODEC_BASE_CLASS, config.codec_packages()));
     }
 
     /**
@@ -41,6 +41,8 @@ import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
 import org.broadinstitute.hellbender.utils.read.SAMFileGATKReadWriter;
 import org.broadinstitute.hellbender.utils.reference.ReferenceUtils;
+import org.broadinstitute.hellbender.utils.runtime.MetricsRegistry;
+import org.broadinstitute.hellbender.utils.runtime.MetricsReporter;
 import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
 
 /**
@@ -68,6 +70,18 @@ public abstract class GATKTool extends CommandLineProgram {
     @Argument(fullName = SECONDS_BETWEEN_PROGRESS_UPDATES_NAME, shortName = SECONDS_BETWEEN_PROGRESS_UPDATES_NAME, doc = "Output traversal statistics every time this many seconds elapse", optional = true, common = true)
     private double secondsBetweenProgressUpdates = ProgressMeter.DEFAULT_SECONDS_BETWEEN_UPDATES;
 
+    public static final String RUNTIME_METRICS_OUTPUT_LONG_NAME = "runtime-metrics-output";
+    @Argument(fullName = RUNTIME_METRICS_OUTPUT_LONG_NAME, doc = "Periodically write runtime metrics of the engine and tool (timings, read counts, cache hit rates) to this file", optional = true, common = true)
+    private String runtimeMetricsOutput = null;
+
+    public static final String RUNTIME_METRICS_FORMAT_LONG_NAME = "runtime-metrics-format";
+    @Argument(fullName = RUNTIME_METRICS_FORMAT_LONG_NAME, doc = "Format of the runtime metrics file", optional = true, common = true)
+    private MetricsReporter.Format runtimeMetricsFormat = MetricsReporter.Format.JSON;
+
+    public static final String SECONDS_BETWEEN_RUNTIME_METRICS_UPDATES_LONG_NAME = "seconds-between-runtime-metrics-updates";
+    @Argument(fullName = SECONDS_BETWEEN_RUNTIME_METRICS_UPDATES_LONG_NAME, doc = "Rewrite the runtime metrics file every time this many seconds elapse", optional = true, common = true, minValue = 0.001)
+    private double secondsBetweenRuntimeMetricsUpdates = 60.0;
+
     @ArgumentCollection
     private SequenceDictionaryValidationArgumentCollection seqValidationArguments = getSequenceDictionaryValidationArgumentCollection();
 
@@ -91,6 +105,18 @@ public abstract class GATKTool extends CommandLineProgram {
             doc = "If true, create a a MD5 digest any VCF file created.", optional=true, common = true)
     public boolean createOutputVariantMD5 = false;
 
+    public static final String OUTPUT_COMPRESSION_THREADS_LONG_NAME = "output-compression-threads";
+    @Argument(fullName = OUTPUT_COMPRESSION_THREADS_LONG_NAME,
+            doc = "Number of threads to compress BAM and block-compressed VCF output on (0 to compress on the thread that writes the records). The output is the same either way.",
+            optional = true, common = true, minValue = 0)
+    public int outputCompressionThreads = 0;
+
+    public static final String INPUT_DECOMPRESSION_THREADS_LONG_NAME = "input-decompression-threads";
+    @Argument(fullName = INPUT_DECOMPRESSION_THREADS_LONG_NAME,
+            doc = "Number of threads to decompress local BAM inputs and local block-compressed driving variant or feature files on (0 to decompress on the thread that reads the records).",
+            optional = true, common = true, minValue = 0)
+    public int inputDecompressionThreads = 0;
+
     @Argument(fullName= StandardArgumentDefinitions.LENIENT_LONG_NAME,
             shortName = StandardArgumentDefinitions.LENIENT_SHORT_NAME,
             doc = "Lenient processing of VCF files", common = true, optional = true)
@@ -164,6 +190,11 @@ public abstract class GATKTool extends CommandLineProgram {
      */
     protected ProgressMeter progressMeter;
 
+    /**
+     * Writes the runtime metrics periodically (null if no runtime metrics output was requested)
+     */
+    private MetricsReporter runtimeMetricsReporter;
+
     /**
      * Return the list of GATKCommandLinePluginDescriptors to be used for this tool.
      * Uses the read filter plugin.
@@ -212,9 +243,14 @@ public abstract class GATKTool extends CommandLineProgram {
      public CountingReadFilter makeReadFilter(){
         final GATKReadFilterPluginDescriptor readFilterPlugin =
                 getCommandLineParser().getPluginDescriptor(GATKReadFilterPluginDescriptor.class);
-        return hasReads() ?
+        final CountingReadFilter filter = hasReads() ?
                 readFilterPlugin.getMergedCountingReadFilter(getHeaderForReads()) :
                 new CountingReadFilter(ReadFilterLibrary.ALLOW_ALL_READS);
+        getMetrics().gauge("reads.filtered", filter::getFilteredCount);
+        for (final CountingReadFilter leafFilter : filter.getLeafFilters()) {
+            getMetrics().gauge("reads.filtered." + leafFilter.getName(), leafFilter::getFilteredCount);
+        }
+        return filter;
     }
 
     /**
@@ -383,7 +419,7 @@ public abstract class GATKTool extends CommandLineProgram {
             }
 
             reads = new ReadsDataSource(readArguments.getReadPaths(), readArguments.getReadIndexPaths(), factory, cloudPrefetchBuffer,
-                (cloudIndexPrefetchBuffer < 0 ? cloudPrefetchBuffer : cloudIndexPrefetchBuffer));
+                (cloudIndexPrefetchBuffer < 0 ? cloudPrefetchBuffer : cloudIndexPrefetchBuffer), inputDecompressionThreads);
         }
         else {
             reads = null;
@@ -627,6 +663,9 @@ public abstract class GATKTool extends CommandLineProgram {
     protected void onStartup() {
         super.onStartup();
 
+        // metrics are shared by everything in the JVM, so discard those of any previous tool
+        getMetrics().reset();
+
         loadMasterSequenceDictionary();
 
         initializeReference();
@@ -645,6 +684,7 @@ public abstract class GATKTool extends CommandLineProgram {
 
         progressMeter = new ProgressMeter(secondsBetweenProgressUpdates);
         progressMeter.setRecordLabel(getProgressMeterRecordLabel());
+        getMetrics().gauge("traversal." + getProgressMeterRecordLabel() + ".processed", progressMeter::getNumRecordsProcessed);
     }
 
     /**
@@ -775,7 +815,8 @@ public abstract class GATKTool extends CommandLineProgram {
                 getHeaderForSAMWriter(),
                 preSorted,
                 createOutputBamIndex,
-                createOutputBamMD5
+                createOutputBamMD5,
+                outputCompressionThreads
             )
         );
     }
@@ -815,6 +856,7 @@ public abstract class GATKTool extends CommandLineProgram {
                 outFile,
                 sequenceDictionary,
                 createOutputVariantMD5,
+                outputCompressionThreads,
                 options.toArray(new Options[options.size()]));
     }
 
@@ -988,6 +1030,9 @@ public abstract class GATKTool extends CommandLineProgram {
 
     @Override
     protected final Object doWork() {
+        if ( runtimeMetricsOutput != null ) {
+            runtimeMetricsReporter = new MetricsReporter(getMetrics(), IOUtils.getPath(runtimeMetricsOutput), runtimeMetricsFormat, secondsBetweenRuntimeMetricsUpdates);
+        }
         try {
             onTraversalStart();
             progressMeter.start();
@@ -995,10 +1040,27 @@ public abstract class GATKTool extends CommandLineProgram {
             progressMeter.stop();
             return onTraversalSuccess();
         } finally {
-            closeTool();
+            try {
+                closeTool();
+            } finally {
+                if ( runtimeMetricsReporter != null ) {
+                    runtimeMetricsReporter.close();
+                }
+            }
         }
     }
 
+    /**
+     * Returns the registry of runtime metrics (timings, counts of reads, cache hit rates, etc.) collected by the engine
+     * and by the components used by the tool. Tools may add their own metrics to it. The metrics are written to the file
+     * given by --{@value #RUNTIME_METRICS_OUTPUT_LONG_NAME}, if any.
+     *
+     * @return never {@code null}
+     */
+    public final MetricsRegistry getMetrics() {
+        return MetricsRegistry.getDefault();
+    }
+
     /**
      * This method is called by the GATK framework at the end of the {@link #doWork} template method.
      * It is called regardless of whether the {@link #traverse} has succeeded or not.
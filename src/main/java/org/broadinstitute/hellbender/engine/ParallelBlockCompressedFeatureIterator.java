@@ -0,0 +1,92 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.tribble.CloseableTribbleIterator;
+import htsjdk.tribble.Feature;
+import htsjdk.tribble.FeatureCodec;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.io.ParallelBlockCompressedInputStream;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterator implementation of a full traversal over a block-compressed Feature file that inflates the upcoming
+ * blocks on a pool of threads using a {@link ParallelBlockCompressedInputStream}.
+ *
+ * The Features are decoded on the calling thread by a codec of our own, which reads the header of the file before
+ * the first Feature, as Tribble's readers do.
+ */
+class ParallelBlockCompressedFeatureIterator<T extends Feature, SOURCE> implements CloseableTribbleIterator<T> {
+    private final Path featurePath;
+    private final FeatureCodec<T, SOURCE> codec;
+    private final SOURCE source;
+    private T nextFeature;
+
+    /**
+     * @param featurePath block-compressed file to read
+     * @param codec a codec for the file that hasn't been used to read it yet
+     * @param decompressionThreads number of threads to inflate blocks on. Must be positive.
+     */
+    public ParallelBlockCompressedFeatureIterator( final Path featurePath, final FeatureCodec<T, SOURCE> codec, final int decompressionThreads ) {
+        this.featurePath = Utils.nonNull(featurePath);
+        this.codec = Utils.nonNull(codec);
+        try {
+            source = codec.makeSourceFromStream(new ParallelBlockCompressedInputStream(Files.newByteChannel(featurePath), decompressionThreads));
+            codec.readHeader(source);
+        }
+        catch ( IOException e ) {
+            throw new UserException.CouldNotReadInputFile(featurePath, e);
+        }
+        nextFeature = loadNextFeature();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return nextFeature != null;
+    }
+
+    @Override
+    public T next() {
+        if ( nextFeature == null ) {
+            throw new NoSuchElementException("No more Features in " + featurePath.toUri());
+        }
+
+        final T toReturn = nextFeature;
+        nextFeature = loadNextFeature();
+        return toReturn;
+    }
+
+    /**
+     * @return the next Feature in the file, skipping the lines the codec doesn't decode to a Feature,
+     *         or null if we're out of Features
+     */
+    private T loadNextFeature() {
+        try {
+            while ( ! codec.isDone(source) ) {
+                final T feature = codec.decode(source);
+                if ( feature != null ) {
+                    return feature;
+                }
+            }
+            return null;
+        }
+        catch ( IOException e ) {
+            throw new UserException.CouldNotReadInputFile(featurePath, e);
+        }
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return this;
+    }
+
+    @Override
+    public void close() {
+        nextFeature = null;
+        codec.close(source);
+    }
+}
@@ -318,4 +318,12 @@ public final class ProgressMeter {
         return stopped;
     }
 
+    /**
+     * Returns the number of records processed so far. The count is not synchronized, so it may lag slightly behind
+     * when read from a thread other than the one calling {@link #update}.
+     */
+    public long getNumRecordsProcessed() {
+        return numRecordsProcessed;
+    }
+
 }
@@ -2,9 +2,12 @@ package org.broadinstitute.hellbender.engine;
 
 import com.google.common.annotations.VisibleForTesting;
 import htsjdk.samtools.*;
+import htsjdk.samtools.util.BlockCompressedFilePointerUtil;
+import htsjdk.samtools.util.BlockCompressedStreamConstants;
 import htsjdk.samtools.util.CloseableIterator;
 import htsjdk.samtools.util.IOUtil;
 import java.nio.channels.SeekableByteChannel;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -16,11 +19,14 @@ import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
 import org.broadinstitute.hellbender.utils.iterators.SAMRecordToReadIterator;
 import org.broadinstitute.hellbender.utils.iterators.SamReaderQueryingIterator;
+import org.broadinstitute.hellbender.utils.nio.AdaptiveSeekableByteChannelPrefetcher;
 import org.broadinstitute.hellbender.utils.nio.SeekableByteChannelPrefetcher;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ParallelBAMRecordIterator;
 import org.broadinstitute.hellbender.utils.read.ReadConstants;
 
 import java.io.IOException;
+import java.nio.file.FileSystems;
 import java.nio.file.Path;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -78,6 +84,22 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
      */
     private boolean indicesAvailable;
 
+    /**
+     * Number of threads to inflate the blocks of local BAM files on during traversals and queries, or 0 to let htsjdk
+     * inflate them on the thread that reads the records.
+     */
+    private final int decompressionThreads;
+
+    /**
+     * Validation stringency of our readers, for the reads we decode ourselves when decompressing in parallel.
+     */
+    private final ValidationStringency validationStringency;
+
+    /**
+     * Prefetchers wrapping the data of our remote readers, which we tell about the chunks of upcoming queries
+     */
+    private final Map<SamReader, AdaptiveSeekableByteChannelPrefetcher> prefetchers;
+
     /**
      * Initialize this data source with a single SAM/BAM file and validation stringency SILENT.
      *
@@ -159,11 +181,33 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
     public ReadsDataSource( final List<Path> samPaths, final List<Path> samIndices,
             SamReaderFactory customSamReaderFactory,
             int cloudPrefetchBuffer, int cloudIndexPrefetchBuffer) {
+        this(samPaths, samIndices, customSamReaderFactory, cloudPrefetchBuffer, cloudIndexPrefetchBuffer, 0);
+    }
+
+    /**
+     * Initialize this data source with multiple SAM/BAM/CRAM files, explicit indices for those files,
+     * and a custom SamReaderFactory.
+     *
+     * @param samPaths paths to SAM/BAM/CRAM files, not null
+     * @param samIndices indices for all of the SAM/BAM/CRAM files, in the same order as samPaths. May be null,
+     *                   in which case index paths are inferred automatically.
+     * @param customSamReaderFactory SamReaderFactory to use, if null a default factory with no reference and validation
+     *                               stringency SILENT is used.
+     * @param cloudPrefetchBuffer MB size of caching/prefetching wrapper for the data, if on Google Cloud or HDFS (0 to disable).
+     *                            The data of BAM files is prefetched by an {@link AdaptiveSeekableByteChannelPrefetcher},
+     *                            which is given the chunks of the index that bounded traversals and queries will read.
+     * @param cloudIndexPrefetchBuffer MB size of caching/prefetching wrapper for the index, if on Google Cloud or HDFS (0 to disable).
+     * @param decompressionThreads number of threads to inflate the blocks of local BAM files on (0 to inflate them
+     *                             on the thread that reads the records).
+     */
+    public ReadsDataSource( final List<Path> samPaths, final List<Path> samIndices,
+            SamReaderFactory customSamReaderFactory,
+            int cloudPrefetchBuffer, int cloudIndexPrefetchBuffer, int decompressionThreads) {
         this(samPaths, samIndices, customSamReaderFactory,
-            (cloudPrefetchBuffer > 0 ? is -> SeekableByteChannelPrefetcher.addPrefetcher(cloudPrefetchBuffer, is)
-                                     : Function.identity()),
+            (path, is) -> cloudPrefetchBuffer > 0 ? AdaptiveSeekableByteChannelPrefetcher.addPrefetcher(cloudPrefetchBuffer, path, is) : is,
             (cloudIndexPrefetchBuffer > 0 ? is -> SeekableByteChannelPrefetcher.addPrefetcher(cloudIndexPrefetchBuffer, is)
-                : Function.identity()));
+                : Function.identity()),
+            decompressionThreads);
     }
 
     /**
@@ -182,8 +226,48 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
         SamReaderFactory customSamReaderFactory,
         Function<SeekableByteChannel, SeekableByteChannel> cloudWrapper,
         Function<SeekableByteChannel, SeekableByteChannel> cloudIndexWrapper) {
+        this(samPaths, samIndices, customSamReaderFactory, cloudWrapper, cloudIndexWrapper, 0);
+    }
+
+    /**
+     * Initialize this data source with multiple SAM/BAM/CRAM files, explicit indices for those files,
+     * and a custom SamReaderFactory.
+     *
+     * @param samPaths paths to SAM/BAM/CRAM files, not null
+     * @param samIndices indices for all of the SAM/BAM/CRAM files, in the same order as samPaths. May be null,
+     *                   in which case index paths are inferred automatically.
+     * @param customSamReaderFactory SamReaderFactory to use, if null a default factory with no reference and validation
+     *                               stringency SILENT is used.
+     * @param cloudWrapper caching/prefetching wrapper for the data, if on Google Cloud or HDFS.
+     * @param cloudIndexWrapper caching/prefetching wrapper for the index, if on Google Cloud or HDFS.
+     * @param decompressionThreads number of threads to inflate the blocks of local BAM files on (0 to inflate them
+     *                             on the thread that reads the records).
+     */
+    public ReadsDataSource( final List<Path> samPaths, final List<Path> samIndices,
+        SamReaderFactory customSamReaderFactory,
+        Function<SeekableByteChannel, SeekableByteChannel> cloudWrapper,
+        Function<SeekableByteChannel, SeekableByteChannel> cloudIndexWrapper,
+        int decompressionThreads) {
+        this(samPaths, samIndices, customSamReaderFactory, (path, is) -> cloudWrapper.apply(is), cloudIndexWrapper, decompressionThreads);
+    }
+
+    /**
+     * Initialize this data source with multiple SAM/BAM/CRAM files, explicit indices for those files,
+     * and a custom SamReaderFactory.
+     *
+     * @param cloudWrapper caching/prefetching wrapper for the data of a file, if on Google Cloud or HDFS. If it wraps
+     *                     the data in an {@link AdaptiveSeekableByteChannelPrefetcher}, bounded traversals and queries
+     *                     hint the prefetcher with the chunks of the index they will read.
+     * @see #ReadsDataSource(List, List, SamReaderFactory, Function, Function, int)
+     */
+    private ReadsDataSource( final List<Path> samPaths, final List<Path> samIndices,
+        SamReaderFactory customSamReaderFactory,
+        BiFunction<Path, SeekableByteChannel, SeekableByteChannel> cloudWrapper,
+        Function<SeekableByteChannel, SeekableByteChannel> cloudIndexWrapper,
+        int decompressionThreads) {
         Utils.nonNull(samPaths);
         Utils.nonEmpty(samPaths, "ReadsDataSource cannot be created from empty file list");
+        Utils.validateArg(decompressionThreads >= 0, "the number of decompression threads must be >= 0");
 
         if ( samIndices != null && samPaths.size() != samIndices.size() ) {
             throw new UserException(String.format("Must have the same number of BAM/CRAM/SAM paths and indices. Saw %d BAM/CRAM/SAMs but %d indices",
@@ -192,12 +276,15 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
 
         readers = new LinkedHashMap<>(samPaths.size() * 2);
         backingPaths = new LinkedHashMap<>(samPaths.size() * 2);
+        prefetchers = new HashMap<>(samPaths.size() * 2);
         indicesAvailable = true;
 
         final SamReaderFactory samReaderFactory =
                 customSamReaderFactory == null ?
                     SamReaderFactory.makeDefault().validationStringency(ReadConstants.DEFAULT_READ_VALIDATION_STRINGENCY) :
                     customSamReaderFactory;
+        this.validationStringency = samReaderFactory.validationStringency();
+        this.decompressionThreads = decompressionThreads;
 
         int samCount = 0;
         for ( final Path samPath : samPaths ) {
@@ -209,16 +296,24 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
                 throw new UserException.CouldNotReadInputFile(samPath.toString(), e);
             }
 
+            // remember the prefetcher htsjdk's channel on the data gets wrapped in, if any
+            final List<AdaptiveSeekableByteChannelPrefetcher> dataPrefetcher = new ArrayList<>(1);
             Function<SeekableByteChannel, SeekableByteChannel> wrapper =
-                (BucketUtils.isCloudStorageUrl(samPath)
-                    ? cloudWrapper
+                (isRemote(samPath)
+                    ? is -> {
+                        final SeekableByteChannel wrapped = cloudWrapper.apply(samPath, is);
+                        if ( wrapped instanceof AdaptiveSeekableByteChannelPrefetcher ) {
+                            dataPrefetcher.add((AdaptiveSeekableByteChannelPrefetcher) wrapped);
+                        }
+                        return wrapped;
+                    }
                     : Function.identity());
             // if samIndices==null then we'll guess the index name from the file name.
             // If the file's on the cloud, then the search will only consider locations that are also
             // in the cloud.
             Function<SeekableByteChannel, SeekableByteChannel> indexWrapper =
-                ((samIndices != null && BucketUtils.isCloudStorageUrl(samIndices.get(samCount))
-                 || (samIndices == null && BucketUtils.isCloudStorageUrl(samPath)))
+                ((samIndices != null && isRemote(samIndices.get(samCount))
+                 || (samIndices == null && isRemote(samPath)))
                     ? cloudIndexWrapper
                     : Function.identity());
 
@@ -240,6 +335,9 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
 
             readers.put(reader, null);
             backingPaths.put(reader, samPath);
+            if ( ! dataPrefetcher.isEmpty() ) {
+                prefetchers.put(reader, dataPrefetcher.get(dataPrefetcher.size() - 1));
+            }
             ++samCount;
         }
 
@@ -247,6 +345,13 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
         headerMerger = samPaths.size() > 1 ? createHeaderMerger() : null;
     }
 
+    /**
+     * @return true if the file is on Google Cloud or HDFS, and so is read through the cloud wrappers
+     */
+    private static boolean isRemote( final Path path ) {
+        return BucketUtils.isRemoteStorageUrl(path.toUri().toString());
+    }
+
     /**
      * Are indices available for all files?
      */
@@ -396,18 +501,36 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
 
         // Set up an iterator for each reader, bounded to overlap with the supplied intervals if there are any
         for ( Map.Entry<SamReader, CloseableIterator<SAMRecord>> readerEntry : readers.entrySet() ) {
+            final SamReader reader = readerEntry.getKey();
+            if (prefetchers.containsKey(reader)) {
+                prefetchers.get(reader).clearHints();
+            }
             if (traversalIsBounded) {
-                readerEntry.setValue(
-                        new SamReaderQueryingIterator(
-                                readerEntry.getKey(),
-                                readers.size() > 1 ?
-                                        getIntervalsOverlappingReader(readerEntry.getKey(), queryIntervals) :
-                                        queryIntervals,
-                                queryUnmapped
-                        )
-                );
+                final List<SimpleInterval> readerIntervals = readers.size() > 1 ?
+                        getIntervalsOverlappingReader(reader, queryIntervals) :
+                        queryIntervals;
+                // unmapped reads are few and found through the index metadata, so leave those queries to htsjdk
+                if (canDecompressInParallel(reader) && ! queryUnmapped) {
+                    readerEntry.setValue(
+                            new ParallelBAMRecordIterator(
+                                    backingPaths.get(reader),
+                                    reader.getFileHeader(),
+                                    reader.indexing().getIndex(),
+                                    prepareQueryIntervals(reader, readerIntervals),
+                                    validationStringency,
+                                    decompressionThreads
+                            )
+                    );
+                } else {
+                    if (prefetchers.containsKey(reader) && readerIntervals != null && ! readerIntervals.isEmpty()) {
+                        hintQueryChunks(reader, readerIntervals);
+                    }
+                    readerEntry.setValue(new SamReaderQueryingIterator(reader, readerIntervals, queryUnmapped));
+                }
+            } else if (canDecompressInParallel(reader)) {
+                readerEntry.setValue(new ParallelBAMRecordIterator(backingPaths.get(reader), reader.getFileHeader(), validationStringency, decompressionThreads));
             } else {
-                readerEntry.setValue(readerEntry.getKey().iterator());
+                readerEntry.setValue(reader.iterator());
             }
         }
 
@@ -424,6 +547,53 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
         return new SAMRecordToReadIterator(startingIterator);
     }
 
+    /**
+     * @return true if the blocks of the reader's file should be inflated on our own thread pool rather than by htsjdk.
+     *         Only local BAM files are read this way, since remote inputs are bound by fetching rather than by inflation.
+     */
+    private boolean canDecompressInParallel( final SamReader reader ) {
+        return decompressionThreads > 0
+                && reader.type() == SamReader.Type.BAM_TYPE
+                && backingPaths.get(reader).getFileSystem() == FileSystems.getDefault();
+    }
+
+    /**
+     * Tell the prefetcher of the reader's file about the chunks of the BAM index that a query over the intervals will
+     * read, so that it fetches them ahead of htsjdk instead of the bytes that follow each chunk.
+     *
+     * Chunks end at a virtual file pointer, and we don't know how long the block at the end of a chunk is until we
+     * read it, so the hint covers the largest possible block.
+     */
+    private void hintQueryChunks( final SamReader reader, final List<SimpleInterval> intervals ) {
+        if ( reader.type() != SamReader.Type.BAM_TYPE ) {
+            return;
+        }
+        final AdaptiveSeekableByteChannelPrefetcher prefetcher = prefetchers.get(reader);
+        try {
+            for ( final Chunk chunk : ParallelBAMRecordIterator.getChunksOverlapping(reader.indexing().getIndex(), prepareQueryIntervals(reader, intervals)) ) {
+                final long endBlockAddress = BlockCompressedFilePointerUtil.getBlockAddress(chunk.getChunkEnd());
+                prefetcher.hint(BlockCompressedFilePointerUtil.getBlockAddress(chunk.getChunkStart()),
+                        BlockCompressedFilePointerUtil.getBlockOffset(chunk.getChunkEnd()) > 0 ?
+                                endBlockAddress + BlockCompressedStreamConstants.MAX_COMPRESSED_BLOCK_SIZE :
+                                endBlockAddress);
+            }
+        }
+        catch ( IOException e ) {
+            throw new UserException.CouldNotReadInputFile(backingPaths.get(reader), e);
+        }
+    }
+
+    /**
+     * Convert the intervals to sorted, merged QueryIntervals for a query against the given reader's file
+     */
+    private static QueryInterval[] prepareQueryIntervals( final SamReader reader, final List<SimpleInterval> intervals ) {
+        final SAMSequenceDictionary sequenceDictionary = reader.getFileHeader().getSequenceDictionary();
+        return QueryInterval.optimizeIntervals(
+                intervals.stream()
+                        .map(interval -> IntervalUtils.convertSimpleIntervalToQueryInterval(interval, sequenceDictionary))
+                        .toArray(QueryInterval[]::new));
+    }
+
     /**
      * Reduce the intervals down to only include ones that can actually intersect with this reader
      */
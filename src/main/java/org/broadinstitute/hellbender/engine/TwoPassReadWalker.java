@@ -1,6 +1,9 @@
 package org.broadinstitute.hellbender.engine;
 
 
+import org.broadinstitute.barclay.argparser.Advanced;
+import org.broadinstitute.barclay.argparser.Argument;
+import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.engine.filters.CountingReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary;
@@ -8,10 +11,13 @@ import org.broadinstitute.hellbender.engine.filters.WellformedReadFilter;
 import org.broadinstitute.hellbender.tools.walkers.rnaseq.SplitNCigarReads;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.collections.SpillingRecordCache;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.GATKReadCodec;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 
@@ -30,41 +36,69 @@ import java.util.stream.StreamSupport;
  * each read.  These are analogous to and replace {@link ReadWalker#apply}.  Authors may optionally implement
  * {@link #onTraversalStart} and/or {@link #onTraversalSuccess} and {@link #afterFirstPass} to perform
  * operations between passes. See the {@link SplitNCigarReads} walker for an example.
+ *
+ * With {@code --cache-first-pass}, the filtered and transformed reads of the first pass are cached, in memory up to
+ * {@code --first-pass-cache-records-in-ram} reads and in a temporary file beyond that, and the second pass replays
+ * them from the cache instead of reading the input again. Reads are cached before they are passed to
+ * {@link #firstPassApply}, so changes made to them in the first pass are not seen in the second pass.
  */
 public abstract class TwoPassReadWalker extends ReadWalker {
 
+    @Advanced
+    @Argument(fullName = StandardArgumentDefinitions.CACHE_FIRST_PASS_LONG_NAME,
+            doc = "Cache the reads of the first pass so that the second pass does not read the input again", optional = true)
+    public boolean cacheFirstPass = false;
+
+    @Advanced
+    @Argument(fullName = StandardArgumentDefinitions.FIRST_PASS_CACHE_RECORDS_IN_RAM_LONG_NAME,
+            doc = "Maximum number of reads cached in memory by --" + StandardArgumentDefinitions.CACHE_FIRST_PASS_LONG_NAME +
+                    "; further reads are cached in the temporary directory", optional = true, minValue = 0)
+    public int firstPassCacheRecordsInRam = 100000;
+
     @Override
     public void traverse() {
         // Process each read in the input stream.
         // Supply reference bases spanning each read, if a reference is available.
         final CountingReadFilter countedFilter = makeReadFilter();
 
-        traverseReads(countedFilter, this::firstPassApply);
-        logger.info("Finished first pass through the reads");
-        afterFirstPass();
-        // Need to reinitialize the reads and intervals so they are guaranteed to pass over a file
-        initializeReads();
-        setReadTraversalBounds();
-        logger.info("Starting second pass through the reads");
-        traverseReads(countedFilter, this::secondPassApply);
+        try (final SpillingRecordCache<GATKRead> cache = cacheFirstPass ?
+                new SpillingRecordCache<>(new GATKReadCodec(getHeaderForReads()), firstPassCacheRecordsInRam, TMP_DIR.get(0).toPath()) : null) {
+            Stream<GATKRead> firstPassReads = getTransformedReadStream(countedFilter);
+            if (cache != null) {
+                // cache a copy, since the read may be modified by firstPassApply
+                firstPassReads = firstPassReads.peek(read -> cache.add(read.copy()));
+            }
+            traverseReads(firstPassReads, this::firstPassApply);
+            logger.info("Finished first pass through the reads");
+            afterFirstPass();
+            logger.info("Starting second pass through the reads");
+            if (cache != null) {
+                logger.info(String.format("Replaying %d cached reads (%d from the temporary directory)", cache.size(), cache.getNumSpilledRecords()));
+                traverseReads(StreamSupport.stream(cache.spliterator(), false), this::secondPassApply);
+            } else {
+                // Need to reinitialize the reads and intervals so they are guaranteed to pass over a file
+                initializeReads();
+                setReadTraversalBounds();
+                traverseReads(getTransformedReadStream(countedFilter), this::secondPassApply);
+            }
+        }
         logger.info(countedFilter.getSummaryLine());
     }
 
     /**
-     * Process using the given filter and function.
-     * @param countedFilter a filter to apply to all reads.
+     * Process the given reads with the given function.
+     * @param reads the filtered and transformed reads to process
      * @param f function applied to each read, should produce some useful side effect
      */
-    private void traverseReads(final CountingReadFilter countedFilter, final GATKApply f) {
-        getTransformedReadStream(countedFilter)
-                .forEach(read -> {
-                    final SimpleInterval readInterval = getReadInterval(read);
-                    f.consume(read,
-                            new ReferenceContext(reference, readInterval), // Will create an empty ReferenceContext if reference or readInterval == null
-                            new FeatureContext(features, readInterval));   // Will create an empty FeatureContext if features or readInterval == null
-
-                    progressMeter.update(readInterval);
-                });
+    private void traverseReads(final Stream<GATKRead> reads, final GATKApply f) {
+        reads.forEach(read -> {
+            final SimpleInterval readInterval = getReadInterval(read);
+            f.consume(read,
+                    new ReferenceContext(reference, readInterval), // Will create an empty ReferenceContext if reference or readInterval == null
+                    new FeatureContext(features, readInterval));   // Will create an empty FeatureContext if features or readInterval == null
+
+            progressMeter.update(readInterval);
+        });
     }
 
     /**
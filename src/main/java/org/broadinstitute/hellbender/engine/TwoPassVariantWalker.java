@@ -1,18 +1,40 @@
 package org.broadinstitute.hellbender.engine;
 
 import htsjdk.variant.variantcontext.VariantContext;
+import org.broadinstitute.barclay.argparser.Advanced;
+import org.broadinstitute.barclay.argparser.Argument;
+import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.engine.filters.CountingReadFilter;
 import org.broadinstitute.hellbender.engine.filters.VariantFilter;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.collections.SpillingRecordCache;
+import org.broadinstitute.hellbender.utils.variant.VCFRecordCodec;
 
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 /**
  * A VariantWalker that makes two passes through the variants.
  * This allows the user to store internal states during the first pass, which the user can then
  * process and access during the second pass
+ *
+ * With {@code --cache-first-pass}, the variants that pass the filters in the first pass are cached, in memory up to
+ * {@code --first-pass-cache-records-in-ram} variants and in a temporary file beyond that, and the second pass replays
+ * them from the cache instead of reading and filtering the input again.
  **/
 public abstract class TwoPassVariantWalker extends VariantWalker {
+
+    @Advanced
+    @Argument(fullName = StandardArgumentDefinitions.CACHE_FIRST_PASS_LONG_NAME,
+            doc = "Cache the variants of the first pass so that the second pass does not read the input again", optional = true)
+    public boolean cacheFirstPass = false;
+
+    @Advanced
+    @Argument(fullName = StandardArgumentDefinitions.FIRST_PASS_CACHE_RECORDS_IN_RAM_LONG_NAME,
+            doc = "Maximum number of variants cached in memory by --" + StandardArgumentDefinitions.CACHE_FIRST_PASS_LONG_NAME +
+                    "; further variants are cached in the temporary directory", optional = true, minValue = 0)
+    public int firstPassCacheRecordsInRam = 100000;
+
     /**
      * Overrides the default, single-pass traversal framework of {@link VariantWalkerBase}
      */
@@ -21,17 +43,29 @@ public abstract class TwoPassVariantWalker extends VariantWalker {
         final VariantFilter variantContextFilter = makeVariantFilter();
         final CountingReadFilter readFilter = makeReadFilter();
 
-        // First pass through the variants
-        logger.info("Starting first pass through the variants");
-        traverseVariants(variantContextFilter, readFilter, this::firstPassApply);
-        logger.info("Finished first pass through the variants");
+        try (final SpillingRecordCache<VariantContext> cache = cacheFirstPass ?
+                new SpillingRecordCache<>(new VCFRecordCodec(getHeaderForVariants()), firstPassCacheRecordsInRam, TMP_DIR.get(0).toPath()) : null) {
+            // First pass through the variants
+            logger.info("Starting first pass through the variants");
+            Stream<VariantContext> firstPassVariants = getFilteredVariants(variantContextFilter);
+            if (cache != null) {
+                firstPassVariants = firstPassVariants.peek(cache::add);
+            }
+            traverseVariants(firstPassVariants, readFilter, this::firstPassApply);
+            logger.info("Finished first pass through the variants");
 
-        // Process the data accumulated during the first pass
-        afterFirstPass();
+            // Process the data accumulated during the first pass
+            afterFirstPass();
 
-        // Second pass
-        logger.info("Starting second pass through the variants");
-        traverseVariants(variantContextFilter, readFilter, this::secondPassApply);
+            // Second pass
+            logger.info("Starting second pass through the variants");
+            if (cache != null) {
+                logger.info(String.format("Replaying %d cached variants (%d from the temporary directory)", cache.size(), cache.getNumSpilledRecords()));
+                traverseVariants(StreamSupport.stream(cache.spliterator(), false), readFilter, this::secondPassApply);
+            } else {
+                traverseVariants(getFilteredVariants(variantContextFilter), readFilter, this::secondPassApply);
+            }
+        }
 
         logger.info(readFilter.getSummaryLine());
     }
@@ -66,17 +100,19 @@ public abstract class TwoPassVariantWalker extends VariantWalker {
                                             final ReferenceContext referenceContext,
                                             final FeatureContext featureContext);
 
-    private void traverseVariants(final VariantFilter variantFilter, final CountingReadFilter readFilter, final VariantConsumer variantConsumer){
-        StreamSupport.stream(getSpliteratorForDrivingVariants(), false)
-                .filter(variantFilter)
-                .forEach(variant -> {
-                    final SimpleInterval variantInterval = new SimpleInterval(variant);
-                    variantConsumer.consume(variant,
-                            new ReadsContext(reads, variantInterval, readFilter),
-                            new ReferenceContext(reference, variantInterval),
-                            new FeatureContext(features, variantInterval));
-                    progressMeter.update(variantInterval);
-                });
+    private Stream<VariantContext> getFilteredVariants(final VariantFilter variantFilter) {
+        return StreamSupport.stream(getSpliteratorForDrivingVariants(), false).filter(variantFilter);
+    }
+
+    private void traverseVariants(final Stream<VariantContext> variants, final CountingReadFilter readFilter, final VariantConsumer variantConsumer){
+        variants.forEach(variant -> {
+            final SimpleInterval variantInterval = new SimpleInterval(variant);
+            variantConsumer.consume(variant,
+                    new ReadsContext(reads, variantInterval, readFilter),
+                    new ReferenceContext(reference, variantInterval),
+                    new FeatureContext(features, variantInterval));
+            progressMeter.update(variantInterval);
+        });
     }
 
     @FunctionalInterface
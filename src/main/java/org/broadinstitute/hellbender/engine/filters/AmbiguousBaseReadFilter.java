@@ -40,7 +40,7 @@ public final class AmbiguousBaseReadFilter extends ReadFilter {
     public boolean test(final GATKRead read) {
         final int maxN = maxAmbiguousBases != null ? maxAmbiguousBases : (int) (read.getLength() * maxAmbiguousBaseFraction);
         int numN = 0;
-        for (final byte base : read.getBases()) {
+        for (final byte base : read.getBasesNoCopy()) {
             if (!BaseUtils.isRegularBase(base)) {
                 numN++;
                 if (numN > maxN) {
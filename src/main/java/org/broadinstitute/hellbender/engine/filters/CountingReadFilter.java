@@ -6,6 +6,8 @@ import htsjdk.samtools.SAMFileHeader;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.Utils;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.function.Predicate;
 import java.util.stream.IntStream;
@@ -66,6 +68,14 @@ public class CountingReadFilter extends ReadFilter {
         delegateFilter = null;
     }
 
+    /**
+     * @return the filters that this filter is composed of with and/or operators, or a list containing only this
+     *         filter if it isn't composed of other filters
+     */
+    public List<CountingReadFilter> getLeafFilters() {
+        return Collections.singletonList(this);
+    }
+
     // Return the number of reads filtered by this filter
     public long getFilteredCount() {
         return filteredCount;
@@ -194,6 +204,13 @@ public class CountingReadFilter extends ReadFilter {
             this.rhs.resetFilteredCount();
         }
 
+        @Override
+        public List<CountingReadFilter> getLeafFilters() {
+            final List<CountingReadFilter> leafFilters = new ArrayList<>(lhs.getLeafFilters());
+            leafFilters.addAll(rhs.getLeafFilters());
+            return leafFilters;
+        }
+
         @Override
         public abstract String getName();
     }
@@ -20,6 +20,7 @@ import org.broadinstitute.hellbender.utils.collections.IntervalsSkipList;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.reference.ReferenceBases;
 import org.broadinstitute.hellbender.utils.variant.GATKVariant;
+import org.broadinstitute.hellbender.utils.variant.KnownSitesIndex;
 import scala.Tuple2;
 
 import javax.annotation.Nullable;
@@ -47,7 +48,8 @@ public class AddContextDataToReadSpark {
      * @param reads the coordinate-sorted reads
      * @param referenceSource the reference source
      * @param variants the coordinate-sorted variants
-     * @param variantsPaths the paths to variants files
+     * @param variantsPaths the paths to variants files or known sites indices (see {@link KnownSitesIndex}), which
+     *                      can't be used with the SHUFFLE join strategy
      * @param joinStrategy the strategy to use to join context data to reads
      * @param sequenceDictionary the sequence dictionary for the reads (only used for OVERLAPS_PARTITIONER join strategy, use null otherwise)
      * @param shardSize the maximum size of each shard, in bases (only used for OVERLAPS_PARTITIONER join strategy, use 0 otherwise)
@@ -69,6 +71,9 @@ public class AddContextDataToReadSpark {
             // Join Reads with ReferenceBases
             withVariantsWithRef = BroadcastJoinReadsWithRefBases.addBases(referenceSource, withVariants);
         } else if (joinStrategy.equals(JoinStrategy.SHUFFLE)) {
+            if (variantsPaths != null && variantsPaths.stream().anyMatch(KnownSitesIndex::isKnownSitesIndex)) {
+                throw new UserException.BadInput("Known sites indices can't be used with the " + JoinStrategy.SHUFFLE + " join strategy");
+            }
             // Join Reads and Variants
             JavaPairRDD<GATKRead, Iterable<GATKVariant>> withVariants = ShuffleJoinReadsWithVariants.join(mappedReads, variants);
             // Join Reads with ReferenceBases
@@ -119,15 +124,15 @@ public class AddContextDataToReadSpark {
                 // get reference bases for this shard (padded)
                 SimpleInterval paddedInterval = shard.getInterval().expandWithinContig(shardPadding, sequenceDictionary);
                 ReferenceBases referenceBases = bReferenceSource.getValue().getReferenceBases(paddedInterval);
-                final IntervalsSkipList<GATKVariant> intervalsSkipList = variantsPaths == null ? variantsBroadcast.getValue() :
-                        KnownSitesCache.getVariants(variantsPaths);
+                final java.util.function.Function<SimpleInterval, List<GATKVariant>> overlapQuery = variantsPaths == null ?
+                        variantsBroadcast.getValue()::getOverlapping : KnownSitesCache.getVariants(variantsPaths)::getOverlapping;
                 Iterator<Tuple2<GATKRead, ReadContextData>> transform = Iterators.transform(shard.iterator(), new Function<GATKRead, Tuple2<GATKRead, ReadContextData>>() {
                     @Nullable
                     @Override
                     public Tuple2<GATKRead, ReadContextData> apply(@Nullable GATKRead r) {
                         List<GATKVariant> overlappingVariants;
                         if (SimpleInterval.isValid(r.getContig(), r.getStart(), r.getEnd())) {
-                            overlappingVariants = intervalsSkipList.getOverlapping(new SimpleInterval(r));
+                            overlappingVariants = overlapQuery.apply(new SimpleInterval(r));
                         } else {
                             //Sometimes we have reads that do not form valid intervals (reads that do not consume any ref bases, eg CIGAR 61S90I
                             //In those cases, we'll just say that nothing overlaps the read
@@ -2,11 +2,14 @@ package org.broadinstitute.hellbender.engine.spark;
 
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.variant.vcf.VCFHeaderLine;
+import htsjdk.variant.vcf.VCFSimpleHeaderLine;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.ArgumentCollection;
 import org.broadinstitute.barclay.argparser.CommandLinePluginDescriptor;
+import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.cmdline.GATKPlugin.GATKAnnotationPluginDescriptor;
 import org.broadinstitute.hellbender.cmdline.GATKPlugin.GATKReadFilterPluginDescriptor;
 import org.broadinstitute.hellbender.cmdline.argumentcollections.*;
@@ -25,16 +28,22 @@ import org.broadinstitute.hellbender.tools.walkers.annotator.Annotation;
 import org.broadinstitute.hellbender.utils.SequenceDictionaryUtils;
 import org.broadinstitute.hellbender.utils.SerializableFunction;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadsWriteFormat;
 
 import java.io.IOException;
+import java.time.ZonedDateTime;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Base class for GATK spark tools that accept standard kinds of inputs (reads, reference, and/or intervals).
@@ -108,6 +117,9 @@ public abstract class GATKSparkTool extends SparkCommandLineProgram {
             optional = true)
     protected int numReducers = 0;
 
+    @Argument(fullName = StandardArgumentDefinitions.ADD_OUTPUT_VCF_COMMANDLINE, shortName = StandardArgumentDefinitions.ADD_OUTPUT_VCF_COMMANDLINE, doc = "If true, adds a command line header line to created VCF files.", optional=true, common = true)
+    public boolean addOutputVCFCommandLine = true;
+
     private ReadsSparkSource readsSource;
     private SAMFileHeader readsHeader;
     private String readInput;
@@ -413,6 +425,25 @@ public abstract class GATKSparkTool extends SparkCommandLineProgram {
         return annotationPlugin.getResolvedInstances();
     }
 
+    /**
+     * @return If addOutputVCFCommandLine is true, a set of VCF header lines containing the tool name, version,
+     * date and command line, otherwise an empty set.
+     * @see GATKTool#getDefaultToolVCFHeaderLines()
+     */
+    protected Set<VCFHeaderLine> getDefaultToolVCFHeaderLines() {
+        final Set<VCFHeaderLine> gatkToolHeaderLines = new HashSet<>();
+        if (addOutputVCFCommandLine) {
+            final Map<String, String> simpleHeaderLineMap = new HashMap<>(4);
+            simpleHeaderLineMap.put("ID", this.getClass().getSimpleName());
+            simpleHeaderLineMap.put("Version", getVersion());
+            simpleHeaderLineMap.put("Date", Utils.getDateTimeForDisplay((ZonedDateTime.now())));
+            simpleHeaderLineMap.put("CommandLine", getCommandLine());
+            gatkToolHeaderLines.add(new VCFHeaderLine("source", this.getClass().getSimpleName()));
+            gatkToolHeaderLines.add(new VCFSimpleHeaderLine("GATKCommandLine", simpleHeaderLineMap));
+        }
+        return gatkToolHeaderLines;
+    }
+
     /**
      * Returns the name of the source of reads data. It can be a file name or URL.
      */
@@ -4,8 +4,11 @@ import htsjdk.variant.variantcontext.VariantContext;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.broadinstitute.hellbender.engine.FeatureDataSource;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.collections.IntervalsSkipList;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
 import org.broadinstitute.hellbender.utils.variant.GATKVariant;
+import org.broadinstitute.hellbender.utils.variant.KnownSitesIndex;
 import org.broadinstitute.hellbender.utils.variant.VariantContextVariantAdapter;
 
 import java.util.*;
@@ -14,28 +17,39 @@ import java.util.stream.Collectors;
 /**
  * A cache of known sites by file path, with the property that there is only one copy of each collection of known sites per JVM.
  * This class is an alternative for cases that can't use a Spark broadcast due to its 2GB limitation.
+ *
+ * Paths that end with {@link KnownSitesIndex#FILE_EXTENSION} are memory-mapped as a {@link KnownSitesIndex}, so their
+ * sites are neither parsed nor kept on the heap. Sites from any other paths are loaded into an {@link IntervalsSkipList}.
  */
 class KnownSitesCache {
 
     private static final Logger log = LogManager.getLogger(KnownSitesCache.class);
 
-    private static final Map<List<String>, IntervalsSkipList<GATKVariant>> PATHS_TO_VARIANTS = new HashMap<>();
+    private static final Map<List<String>, KnownSites> PATHS_TO_VARIANTS = new HashMap<>();
 
-    public static synchronized IntervalsSkipList<GATKVariant> getVariants(List<String> paths) {
+    public static synchronized KnownSites getVariants(List<String> paths) {
         if (PATHS_TO_VARIANTS.containsKey(paths)) {
             return PATHS_TO_VARIANTS.get(paths);
         }
-        IntervalsSkipList<GATKVariant> variants = retrieveVariants(paths);
+        KnownSites variants = retrieveVariants(paths);
         PATHS_TO_VARIANTS.put(paths, variants);
         return variants;
     }
 
-    private static IntervalsSkipList<GATKVariant> retrieveVariants(List<String> paths) {
-        return new IntervalsSkipList<>(paths
+    private static KnownSites retrieveVariants(List<String> paths) {
+        final List<KnownSitesIndex> indices = paths.stream()
+                .filter(KnownSitesIndex::isKnownSitesIndex)
+                .map(path -> KnownSitesIndex.open(IOUtils.getPath(path)))
+                .collect(Collectors.toList());
+        final List<String> variantsPaths = paths.stream()
+                .filter(path -> !KnownSitesIndex.isKnownSitesIndex(path))
+                .collect(Collectors.toList());
+        final IntervalsSkipList<GATKVariant> variants = variantsPaths.isEmpty() ? null : new IntervalsSkipList<>(variantsPaths
                 .stream()
                 .map(KnownSitesCache::loadFromFeatureDataSource)
                 .flatMap(Collection::stream)
                 .collect(Collectors.toList()));
+        return new KnownSites(indices, variants);
     }
 
     private static List<GATKVariant> loadFromFeatureDataSource(String path) {
@@ -56,4 +70,35 @@ class KnownSitesCache {
         }
         return wrappedResults;
     }
+
+    /**
+     * The known sites from a list of paths: those from known sites indices, and those loaded from any other files.
+     */
+    static final class KnownSites {
+        private final List<KnownSitesIndex> indices;
+        private final IntervalsSkipList<GATKVariant> variants;
+
+        private KnownSites(final List<KnownSitesIndex> indices, final IntervalsSkipList<GATKVariant> variants) {
+            this.indices = indices;
+            this.variants = variants;
+        }
+
+        /**
+         * @return the known sites that overlap the interval
+         */
+        public List<GATKVariant> getOverlapping(final SimpleInterval interval) {
+            if (indices.isEmpty()) {
+                // no known sites files at all
+                return variants == null ? Collections.emptyList() : variants.getOverlapping(interval);
+            }
+            if (indices.size() == 1 && variants == null) {
+                return indices.get(0).getOverlapping(interval);
+            }
+            final List<GATKVariant> result = variants == null ? new ArrayList<>() : new ArrayList<>(variants.getOverlapping(interval));
+            for (final KnownSitesIndex index : indices) {
+                result.addAll(index.getOverlapping(interval));
+            }
+            return result;
+        }
+    }
 }
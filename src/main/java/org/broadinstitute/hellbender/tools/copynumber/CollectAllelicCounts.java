@@ -9,9 +9,8 @@ import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
 import org.broadinstitute.barclay.help.DocumentedFeature;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.cmdline.programgroups.CoverageAnalysisProgramGroup;
-import org.broadinstitute.hellbender.engine.AlignmentContext;
+import org.broadinstitute.hellbender.engine.BaseCountsLocusWalker;
 import org.broadinstitute.hellbender.engine.FeatureContext;
-import org.broadinstitute.hellbender.engine.LocusWalker;
 import org.broadinstitute.hellbender.engine.ReferenceContext;
 import org.broadinstitute.hellbender.engine.filters.MappingQualityReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
@@ -23,6 +22,7 @@ import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.Metadata;
 import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.MetadataUtils;
 import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.SampleLocatableMetadata;
 import org.broadinstitute.hellbender.utils.Nucleotide;
+import org.broadinstitute.hellbender.utils.locusiterator.LocusBaseCounts;
 
 import java.io.File;
 import java.util.List;
@@ -79,7 +79,7 @@ import java.util.List;
 )
 @DocumentedFeature
 @BetaFeature
-public final class CollectAllelicCounts extends LocusWalker {
+public final class CollectAllelicCounts extends BaseCountsLocusWalker {
     private static final Logger logger = LogManager.getLogger(CollectAllelicCounts.class);
 
     private static final int DEFAULT_MINIMUM_MAPPING_QUALITY = 30;
@@ -108,6 +108,11 @@ public final class CollectAllelicCounts extends LocusWalker {
         return true;
     }
 
+    @Override
+    protected int getMinimumBaseQuality() {
+        return minimumBaseQuality;
+    }
+
     @Override
     public boolean requiresReference() {
         return true;
@@ -147,8 +152,8 @@ public final class CollectAllelicCounts extends LocusWalker {
     }
 
     @Override
-    public void apply(AlignmentContext alignmentContext, ReferenceContext referenceContext, FeatureContext featureContext) {
+    public void apply(LocusBaseCounts baseCounts, ReferenceContext referenceContext, FeatureContext featureContext) {
         final byte refAsByte = referenceContext.getBase();
-        allelicCountCollector.collectAtLocus(Nucleotide.valueOf(refAsByte), alignmentContext.getBasePileup(), alignmentContext.getLocation(), minimumBaseQuality);
+        allelicCountCollector.collectAtLocus(Nucleotide.valueOf(refAsByte), baseCounts);
     }
 }
@@ -10,6 +10,7 @@ import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.BetaFeature;
 import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
 import org.broadinstitute.barclay.help.DocumentedFeature;
+import org.broadinstitute.hdf5.HDF5File;
 import org.broadinstitute.hdf5.HDF5Library;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.cmdline.programgroups.CopyNumberProgramGroup;
@@ -67,6 +68,16 @@ import java.util.stream.Collectors;
  *     a probabilistic model for systematic bias and calling rare and common germline CNVs for samples in the panel.)
  * </p>
  *
+ * <p>
+ *     Samples can be appended to an existing PoN by providing it with {@code count-panel-of-normals}.  The appended samples
+ *     are preprocessed using the intervals, filters, and other statistics determined when the PoN was created,
+ *     and the principal components are updated incrementally, so that the samples already in the PoN are not read or
+ *     processed again.  The filtering, imputation, truncation, and number-of-eigensamples parameters of the PoN are used
+ *     and those given on the command line are ignored.  Because these statistics are not updated, the result differs
+ *     somewhat from a PoN created from all samples at once; it is recommended to periodically recreate the PoN
+ *     from all samples.
+ * </p>
+ *
  * <h3>Inputs</h3>
  *
  * <ul>
@@ -77,6 +88,9 @@ import java.util.stream.Collectors;
  *         (Optional) GC-content annotated-intervals file from {@link AnnotateIntervals}.
  *         Explicit GC-bias correction will be performed on the panel samples and identically for subsequent case samples.
  *     </li>
+ *     <li>
+ *         (Optional) Panel-of-normals file from {@link CreateReadCountPanelOfNormals} to which the samples are appended.
+ *     </li>
  * </ul>
  *
  * <h3>Output</h3>
@@ -109,6 +123,15 @@ import java.util.stream.Collectors;
  *          -O cnv.pon.hdf5
  * </pre>
  *
+ * <pre>
+ *     gatk CreateReadCountPanelOfNormals \
+ *          -I new_sample_1.counts.hdf5 \
+ *          -I new_sample_2.counts.hdf5 \
+ *          ... \
+ *          --count-panel-of-normals cnv.pon.hdf5 \
+ *          -O cnv.updated.pon.hdf5
+ * </pre>
+ *
  * @author Samuel Lee &lt;slee@broadinstitute.org&gt;
  */
 @CommandLineProgramProperties(
@@ -129,6 +152,7 @@ public final class CreateReadCountPanelOfNormals extends SparkCommandLineProgram
     public static final String IMPUTE_ZEROS_LONG_NAME = "do-impute-zeros";
     public static final String EXTREME_OUTLIER_TRUNCATION_PERCENTILE_LONG_NAME = "extreme-outlier-truncation-percentile";
     public static final String MAXIMUM_CHUNK_SIZE = "maximum-chunk-size";
+    public static final String SVD_METHOD_LONG_NAME = "svd-method";
 
     //default values for filtering
     private static final double DEFAULT_MINIMUM_INTERVAL_MEDIAN_PERCENTILE = 10.0;
@@ -160,6 +184,16 @@ public final class CreateReadCountPanelOfNormals extends SparkCommandLineProgram
     )
     private File inputAnnotatedIntervalsFile = null;
 
+    @Argument(
+            doc = "Input HDF5 file containing a panel of normals (output of CreateReadCountPanelOfNormals) to which the samples are appended.  " +
+                    "If provided, the input read-counts files must have the same intervals as the panel of normals, " +
+                    "the annotated intervals of the panel are used for GC correction, and the filtering, imputation, truncation, " +
+                    "and number-of-eigensamples parameters of the panel are used.",
+            fullName = CopyNumberStandardArgument.COUNT_PANEL_OF_NORMALS_FILE_LONG_NAME,
+            optional = true
+    )
+    private File inputPanelOfNormalsFile = null;
+
     @Argument(
             doc = "Output file for the panel of normals.",
             fullName = StandardArgumentDefinitions.OUTPUT_LONG_NAME,
@@ -251,6 +285,18 @@ public final class CreateReadCountPanelOfNormals extends SparkCommandLineProgram
     )
     private int maximumChunkSize = DEFAULT_MAXIMUM_CHUNK_SIZE;
 
+    @Advanced
+    @Argument(
+            doc = "Method for the truncated SVD of the standardized counts.  SPARK uses Spark MLlib.  " +
+                    "RANDOMIZED uses a randomized SVD that only computes the requested number of eigensamples, " +
+                    "which is faster for large panels.  It does not reduce peak heap usage, since the preprocessed " +
+                    "and standardized panel is still held in memory.  " +
+                    "The eigensamples may differ in sign and, slightly, in value between methods.",
+            fullName = SVD_METHOD_LONG_NAME,
+            optional = true
+    )
+    private HDF5SVDReadCountPanelOfNormals.SVDMethod svdMethod = HDF5SVDReadCountPanelOfNormals.SVDMethod.SPARK;
+
     @Override
     protected void runPipeline(final JavaSparkContext ctx) {
         if (!new HDF5Library().load(null)) {  //Note: passing null means using the default temp dir.
@@ -264,6 +310,11 @@ public final class CreateReadCountPanelOfNormals extends SparkCommandLineProgram
         //get sample filenames
         final List<String> sampleFilenames = inputReadCountFiles.stream().map(File::getAbsolutePath).collect(Collectors.toList());
 
+        if (inputPanelOfNormalsFile != null) {
+            appendToPanelOfNormals(sampleFilenames);
+            return;
+        }
+
         //get sequence dictionary and intervals from the first read-counts file to use to validate remaining files
         //(this first file is read again below, which is slightly inefficient but is probably not worth the extra code)
         final File firstReadCountFile = inputReadCountFiles.get(0);
@@ -292,16 +343,39 @@ public final class CreateReadCountPanelOfNormals extends SparkCommandLineProgram
                 sequenceDictionary, readCountMatrix, sampleFilenames, intervals, intervalGCContent,
                 minimumIntervalMedianPercentile, maximumZerosInSamplePercentage, maximumZerosInIntervalPercentage,
                 extremeSampleMedianPercentile, doImputeZeros, extremeOutlierTruncationPercentile, numEigensamplesRequested,
-                maximumChunkSize, ctx);
+                maximumChunkSize, svdMethod, ctx);
 
         logger.info("Panel of normals successfully created.");
     }
 
+    private void appendToPanelOfNormals(final List<String> sampleFilenames) {
+        try (final HDF5File hdf5PanelOfNormalsFile = new HDF5File(inputPanelOfNormalsFile)) {
+            final HDF5SVDReadCountPanelOfNormals panelOfNormals = HDF5SVDReadCountPanelOfNormals.read(hdf5PanelOfNormalsFile);
+            if (inputAnnotatedIntervalsFile != null) {
+                logger.warn(String.format("The GC-content annotations in the panel of normals are used and %s is ignored.",
+                        inputAnnotatedIntervalsFile));
+            }
+
+            //validate input read-counts files against the panel and aggregate as a RealMatrix with dimensions numSamples x numIntervals
+            final List<SimpleInterval> intervals = panelOfNormals.getOriginalIntervals();
+            final RealMatrix readCountMatrix = constructReadCountMatrix(logger, inputReadCountFiles, panelOfNormals.getSequenceDictionary(), intervals);
+
+            logger.info("Appending samples to the panel of normals...");
+            HDF5SVDReadCountPanelOfNormals.append(outputPanelOfNormalsFile, getCommandLine(),
+                    panelOfNormals, readCountMatrix, sampleFilenames, maximumChunkSize);
+        }
+        logger.info("Panel of normals successfully updated.");
+    }
+
     private void validateArguments() {
         Utils.validateArg(inputReadCountFiles.size() == new HashSet<>(inputReadCountFiles).size(),
                 "List of input read-counts files cannot contain duplicates.");
         inputReadCountFiles.forEach(IOUtils::canReadFile);
-        if (numEigensamplesRequested > inputReadCountFiles.size()) {
+        if (inputPanelOfNormalsFile != null) {
+            IOUtils.canReadFile(inputPanelOfNormalsFile);
+            Utils.validateArg(!inputPanelOfNormalsFile.getAbsoluteFile().equals(outputPanelOfNormalsFile.getAbsoluteFile()),
+                    "The output panel of normals must be different from the input panel of normals.");
+        } else if (numEigensamplesRequested > inputReadCountFiles.size()) {
             logger.warn(String.format("Number of eigensamples (%d) is greater than the number of input samples (%d); " +
                             "the number of samples retained after filtering will be used instead.",
                     numEigensamplesRequested, inputReadCountFiles.size()));
@@ -241,6 +241,8 @@ public final class ModelSegments extends CommandLineProgram {
     public static final String NUMBER_OF_BURN_IN_SAMPLES_COPY_RATIO_LONG_NAME = "number-of-burn-in-samples-copy-ratio";
     public static final String NUM_SAMPLES_ALLELE_FRACTION_LONG_NAME = "number-of-samples-allele-fraction";
     public static final String NUM_BURN_IN_ALLELE_FRACTION_LONG_NAME = "number-of-burn-in-samples-allele-fraction";
+    public static final String NUMBER_OF_CHAINS_LONG_NAME = "number-of-chains";
+    public static final String NUMBER_OF_THREADS_LONG_NAME = "number-of-threads";
 
     //smoothing argument names
     public static final String SMOOTHING_CREDIBLE_INTERVAL_THRESHOLD_COPY_RATIO_LONG_NAME = "smoothing-credible-interval-threshold-copy-ratio";
@@ -419,6 +421,24 @@ public final class ModelSegments extends CommandLineProgram {
     )
     private int numBurnInAlleleFraction = 50;
 
+    @Argument(
+            doc = "Number of independent MCMC chains to run for each model.  Each chain generates the specified " +
+                    "number of samples (including burn-in), and the samples of all chains are pooled.",
+            fullName = NUMBER_OF_CHAINS_LONG_NAME,
+            optional = true,
+            minValue = 1
+    )
+    private int numChains = 1;
+
+    @Argument(
+            doc = "Number of threads used to run the MCMC chains and to sample the segment-level parameters of each chain. " +
+                    "Results do not depend on the number of threads.",
+            fullName = NUMBER_OF_THREADS_LONG_NAME,
+            optional = true,
+            minValue = 1
+    )
+    private int numThreads = 1;
+
     @Argument(
             doc = "Number of 10% equal-tailed credible-interval widths to use for copy-ratio segmentation smoothing.",
             fullName = SMOOTHING_CREDIBLE_INTERVAL_THRESHOLD_COPY_RATIO_LONG_NAME,
@@ -503,7 +523,8 @@ public final class ModelSegments extends CommandLineProgram {
         final MultidimensionalModeller modeller = new MultidimensionalModeller(
                 multidimensionalSegments, denoisedCopyRatios, hetAllelicCounts, alleleFractionPrior,
                 numSamplesCopyRatio, numBurnInCopyRatio,
-                numSamplesAlleleFraction, numBurnInAlleleFraction);
+                numSamplesAlleleFraction, numBurnInAlleleFraction,
+                numChains, numThreads);
 
         //write initial segments and parameters to file
         writeModeledSegmentsAndParameterFiles(modeller, BEGIN_FIT_FILE_TAG);
@@ -9,6 +9,7 @@ import org.broadinstitute.hellbender.tools.copynumber.formats.records.AllelicCou
 import org.broadinstitute.hellbender.utils.Nucleotide;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.locusiterator.LocusBaseCounts;
 import org.broadinstitute.hellbender.utils.param.ParamUtils;
 import org.broadinstitute.hellbender.utils.pileup.ReadPileup;
 
@@ -16,6 +17,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.ToLongFunction;
 
 /**
  * Collects reference/alternate allele counts at specified sites.  The alt count is defined as the total count minus the ref count,
@@ -64,10 +66,34 @@ public final class AllelicCountCollector {
                 .filter(r -> r.getQual() >= minBaseQuality)
                 .forEach(r -> nucleotideCounter.add(r.getBase()));
 
-        final int totalBaseCount = BASES.stream().mapToInt(b -> (int) nucleotideCounter.get(b)).sum();  //only include total ACGT counts (exclude N, etc.)
-        final int refReadCount = (int) nucleotideCounter.get(refBase);
+        addAllelicCount(refBase, nucleotideCounter::get, locus);
+    }
+
+    /**
+     * Add counts to this class for a specific locus.
+     *
+     * @param refBase single nucleotide of the reference.  Not {@code null}
+     * @param baseCounts counts of the bases at the locus, which must have been collected with the desired minimum
+     *                   base quality.  Not {@code null}
+     */
+    public void collectAtLocus(final Nucleotide refBase, final LocusBaseCounts baseCounts) {
+        Utils.nonNull(refBase);
+        Utils.nonNull(baseCounts);
+
+        if (!BASES.contains(refBase)) {
+            logger.warn(String.format("The reference position at %s has an unknown base call (value: %s). Skipping...",
+                    new SimpleInterval(baseCounts), refBase.toString()));
+            return;
+        }
+
+        addAllelicCount(refBase, baseCounts::getCount, baseCounts);
+    }
+
+    private void addAllelicCount(final Nucleotide refBase, final ToLongFunction<Nucleotide> baseCounts, final Locatable locus) {
+        final int totalBaseCount = BASES.stream().mapToInt(b -> (int) baseCounts.applyAsLong(b)).sum();  //only include total ACGT counts (exclude N, etc.)
+        final int refReadCount = (int) baseCounts.applyAsLong(refBase);
         final int altReadCount = totalBaseCount - refReadCount;                                         //we take alt = total - ref instead of the actual alt count
-        final Nucleotide altBase = altReadCount == 0 ? Nucleotide.N : inferAltFromPileupBaseCounts(nucleotideCounter, refBase);
+        final Nucleotide altBase = altReadCount == 0 ? Nucleotide.N : inferAltFromPileupBaseCounts(baseCounts, refBase);
 
         allelicCounts.add(new AllelicCount(
                 new SimpleInterval(locus.getContig(), locus.getStart(), locus.getEnd()),
@@ -87,11 +113,11 @@ public final class AllelicCountCollector {
      * Returns the non-ref base with highest count (if there is a tie, the first base in the order given in
      * {@link AllelicCountCollector#BASES} will be returned).
      */
-    private static Nucleotide inferAltFromPileupBaseCounts(final Nucleotide.Counter baseCounts,
+    private static Nucleotide inferAltFromPileupBaseCounts(final ToLongFunction<Nucleotide> baseCounts,
                                                            final Nucleotide refNucleotide) {
         return BASES.stream()
                 .filter(b -> b != refNucleotide)
-                .sorted((b1, b2) -> Long.compare(baseCounts.get(b2), baseCounts.get(b1)))
+                .sorted((b1, b2) -> Long.compare(baseCounts.applyAsLong(b2), baseCounts.applyAsLong(b1)))
                 .findFirst().get();
     }
 }
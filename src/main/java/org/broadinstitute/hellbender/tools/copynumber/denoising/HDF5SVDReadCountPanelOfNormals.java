@@ -5,6 +5,7 @@ import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.SAMTextHeaderCodec;
 import htsjdk.samtools.util.BufferedLineReader;
 import htsjdk.samtools.util.Lazy;
+import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.math3.linear.Array2DRowRealMatrix;
 import org.apache.commons.math3.linear.RealMatrix;
 import org.apache.logging.log4j.LogManager;
@@ -24,11 +25,17 @@ import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
 import org.broadinstitute.hellbender.utils.param.ParamUtils;
 import org.broadinstitute.hellbender.utils.spark.SparkConverter;
+import org.broadinstitute.hellbender.utils.svd.ColumnBlockMatrix;
+import org.broadinstitute.hellbender.utils.svd.IncrementalSVD;
+import org.broadinstitute.hellbender.utils.svd.RandomizedSingularValueDecomposer;
+import org.broadinstitute.hellbender.utils.svd.SVD;
 
 import java.io.File;
 import java.io.StringWriter;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -78,8 +85,28 @@ import java.util.stream.IntStream;
  *     <li>
  *         panel eigensamples: /panel/transposed_eigensamples_samples_by_intervals
  *     </li>
+ *     <li>
+ *         number of eigensamples requested upon panel creation (optional): /update_statistics/number_of_eigensamples_requested
+ *     </li>
+ *     <li>
+ *         maximum percentage of zero-coverage intervals in samples (optional): /update_statistics/maximum_zeros_in_sample_percentage
+ *     </li>
+ *     <li>
+ *         minimum and maximum sample medians (optional): /update_statistics/sample_median_thresholds
+ *     </li>
+ *     <li>
+ *         panel interval values for imputing zero coverage (optional): /update_statistics/interval_zero_imputation_values
+ *     </li>
+ *     <li>
+ *         minimum and maximum values for outlier truncation (optional): /update_statistics/outlier_truncation_thresholds
+ *     </li>
  * </ul>
  * <p>
+ *     The update statistics are those determined by the panel samples during preprocessing;
+ *     they are used by {@link #append} to preprocess samples appended to the panel identically.
+ *     Panels created by earlier versions do not contain them and cannot be appended to.
+ * </p>
+ * <p>
  *     Most attributes are stored as wide matrices (i.e., more columns than rows) when possible.
  *     This avoids a very slow write time in HDF5, since HDF5 writes wide matrices much faster than tall matrices.
  *     See {@link HDF5Utils#writeIntervals} for details on the representation of intervals.
@@ -102,6 +129,22 @@ public final class HDF5SVDReadCountPanelOfNormals implements SVDReadCountPanelOf
     private static final double CURRENT_PON_VERSION = 7.0;
     private static final String PON_VERSION_STRING_FORMAT = "%.1f";
 
+    /**
+     * Methods for the truncated SVD of the standardized panel.
+     */
+    public enum SVDMethod {
+        /**
+         * {@link RowMatrix#computeSVD} in Spark MLlib.
+         */
+        SPARK,
+        /**
+         * {@link RandomizedSingularValueDecomposer}, which only computes the requested number of singular values.
+         * This is a speed option: it avoids the transposed Spark copy of the panel, but the standardized panel it
+         * reads from is still held in memory, so peak memory still grows with the size of the panel.
+         */
+        RANDOMIZED
+    }
+
     private static final String VERSION_PATH = "/version/value";    //note that full path names must include a top-level group name ("version" here)
     private static final String COMMAND_LINE_PATH = "/command_line/value";
     private static final String SEQUENCE_DICTIONARY_PATH = "/sequence_dictionary/value";
@@ -119,6 +162,13 @@ public final class HDF5SVDReadCountPanelOfNormals implements SVDReadCountPanelOf
     private static final String PANEL_EIGENSAMPLE_VECTORS_PATH = PANEL_GROUP_NAME + "/transposed_eigensamples_samples_by_intervals";
     private static final String PANEL_NUM_EIGENSAMPLES_PATH = PANEL_EIGENSAMPLE_VECTORS_PATH + HDF5Utils.NUMBER_OF_ROWS_SUB_PATH;
 
+    private static final String UPDATE_STATISTICS_GROUP_NAME = "/update_statistics";
+    private static final String UPDATE_NUM_EIGENSAMPLES_REQUESTED_PATH = UPDATE_STATISTICS_GROUP_NAME + "/number_of_eigensamples_requested";
+    private static final String UPDATE_MAXIMUM_ZEROS_IN_SAMPLE_PERCENTAGE_PATH = UPDATE_STATISTICS_GROUP_NAME + "/maximum_zeros_in_sample_percentage";
+    private static final String UPDATE_SAMPLE_MEDIAN_THRESHOLDS_PATH = UPDATE_STATISTICS_GROUP_NAME + "/sample_median_thresholds";
+    private static final String UPDATE_INTERVAL_ZERO_IMPUTATION_VALUES_PATH = UPDATE_STATISTICS_GROUP_NAME + "/interval_zero_imputation_values";
+    private static final String UPDATE_OUTLIER_TRUNCATION_THRESHOLDS_PATH = UPDATE_STATISTICS_GROUP_NAME + "/outlier_truncation_thresholds";
+
     private final HDF5File file;
 
     private final Lazy<SAMSequenceDictionary> sequenceDictionary;
@@ -220,6 +270,32 @@ public final class HDF5SVDReadCountPanelOfNormals implements SVDReadCountPanelOf
                 .transpose().getData();
     }
 
+    private String[] getOriginalSampleFilenames() {
+        return file.readStringArray(ORIGINAL_SAMPLE_FILENAMES_PATH);
+    }
+
+    private String[] getPanelSampleFilenames() {
+        return file.readStringArray(PANEL_SAMPLE_FILENAMES_PATH);
+    }
+
+    private boolean hasUpdateStatistics() {
+        return file.isPresent(UPDATE_NUM_EIGENSAMPLES_REQUESTED_PATH);
+    }
+
+    private int getNumEigensamplesRequested() {
+        return (int) file.readDouble(UPDATE_NUM_EIGENSAMPLES_REQUESTED_PATH);
+    }
+
+    private SVDDenoisingUtils.PanelUpdateStatistics getPanelUpdateStatistics() {
+        final double[] sampleMedianThresholds = file.readDoubleArray(UPDATE_SAMPLE_MEDIAN_THRESHOLDS_PATH);
+        final double[] outlierTruncationThresholds = file.readDoubleArray(UPDATE_OUTLIER_TRUNCATION_THRESHOLDS_PATH);
+        return new SVDDenoisingUtils.PanelUpdateStatistics(
+                file.readDouble(UPDATE_MAXIMUM_ZEROS_IN_SAMPLE_PERCENTAGE_PATH),
+                sampleMedianThresholds[0], sampleMedianThresholds[1],
+                file.isPresent(UPDATE_INTERVAL_ZERO_IMPUTATION_VALUES_PATH) ? file.readDoubleArray(UPDATE_INTERVAL_ZERO_IMPUTATION_VALUES_PATH) : null,
+                outlierTruncationThresholds[0], outlierTruncationThresholds[1]);
+    }
+
     /**
      * Create an interface to an HDF5 file.  A version check is performed and a warning message logged if the
      * version number is not up to date.
@@ -240,6 +316,7 @@ public final class HDF5SVDReadCountPanelOfNormals implements SVDReadCountPanelOf
      * The dimensions of {@code originalReadCounts} should be samples x intervals.
      * To reduce memory footprint, {@code originalReadCounts} is modified in place.
      * If {@code intervalGCContent} is null, GC-bias correction will not be performed.
+     * {@code ctx} is only used if {@code svdMethod} is {@link SVDMethod#SPARK}.
      */
     public static void create(final File outFile,
                               final String commandLine,
@@ -256,6 +333,7 @@ public final class HDF5SVDReadCountPanelOfNormals implements SVDReadCountPanelOf
                               final double extremeOutlierTruncationPercentile,
                               final int numEigensamplesRequested,
                               final int maximumChunkSize,
+                              final SVDMethod svdMethod,
                               final JavaSparkContext ctx) {
         try (final HDF5File file = new HDF5File(outFile, HDF5File.OpenMode.CREATE)) {
             logger.info("Creating " + outFile.getAbsolutePath() + "...");
@@ -313,6 +391,9 @@ public final class HDF5SVDReadCountPanelOfNormals implements SVDReadCountPanelOf
             logger.info(String.format("Writing panel interval fractional medians (%d)...", panelIntervalFractionalMedians.length));
             pon.writePanelIntervalFractionalMedians(panelIntervalFractionalMedians);
 
+            logger.info("Writing update statistics...");
+            pon.writeUpdateStatistics(numEigensamplesRequested, preprocessedStandardizedResult.panelUpdateStatistics);
+
             final int numPanelSamples = preprocessedStandardizedResult.preprocessedStandardizedValues.getRowDimension();
             final int numPanelIntervals = preprocessedStandardizedResult.preprocessedStandardizedValues.getColumnDimension();
 
@@ -325,10 +406,27 @@ public final class HDF5SVDReadCountPanelOfNormals implements SVDReadCountPanelOf
             logger.info(String.format("Performing SVD (truncated at %d eigensamples) of standardized counts (transposed to %d x %d)...",
                     numEigensamples, numPanelIntervals, numPanelSamples));
             if (numPanelSamples > 1 && numEigensamples > 0) {
-                final SingularValueDecomposition<RowMatrix, Matrix> svd = SparkConverter.convertRealMatrixToSparkRowMatrix(
-                        ctx, preprocessedStandardizedResult.preprocessedStandardizedValues.transpose(), NUM_SLICES_FOR_SPARK_MATRIX_CONVERSION)
-                        .computeSVD(numEigensamples, true, EPSILON);
-                final double[] singularValues = svd.s().toArray();    //should be in decreasing order (with corresponding matrices below)
+                final double[] singularValues;    //should be in decreasing order (with corresponding matrices below)
+                final double[][] eigensampleVectors;
+                if (svdMethod == SVDMethod.RANDOMIZED) {
+                    //read the panel samples (rows of the in-memory standardized values) as the columns of the transposed matrix
+                    final RealMatrix standardizedValues = preprocessedStandardizedResult.preprocessedStandardizedValues;
+                    final SVD svd = new RandomizedSingularValueDecomposer(numEigensamples).createSVD(
+                            ColumnBlockMatrix.fromColumns(numPanelIntervals, numPanelSamples, standardizedValues::getRow,
+                                    RandomizedSingularValueDecomposer.DEFAULT_BLOCK_SIZE));
+                    singularValues = filterSingularValues(svd.getSingularValues());
+                    eigensampleVectors = singularValues.length == 0
+                            ? null
+                            : svd.getU().getSubMatrix(0, numPanelIntervals - 1, 0, singularValues.length - 1).getData();
+                } else {
+                    final SingularValueDecomposition<RowMatrix, Matrix> svd = SparkConverter.convertRealMatrixToSparkRowMatrix(
+                            ctx, preprocessedStandardizedResult.preprocessedStandardizedValues.transpose(), NUM_SLICES_FOR_SPARK_MATRIX_CONVERSION)
+                            .computeSVD(numEigensamples, true, EPSILON);
+                    singularValues = svd.s().toArray();
+                    eigensampleVectors = singularValues.length == 0
+                            ? null
+                            : SparkConverter.convertSparkRowMatrixToRealMatrix(svd.U(), numPanelIntervals).getData();
+                }
                 if (singularValues.length == 0 || Arrays.stream(singularValues).noneMatch(s -> s > EPSILON)) {
                     //if the panel contains more than one sample, we require that at least one non-negligible singular value is found
                     throw new UserException(String.format("No non-zero singular values were found.  It may be necessary to use stricter parameters for filtering.  " +
@@ -338,7 +436,6 @@ public final class HDF5SVDReadCountPanelOfNormals implements SVDReadCountPanelOf
                     logger.warn(String.format("Attempted to truncate at %d eigensamples, but only %d non-zero singular values were found...",
                             numEigensamples, singularValues.length));
                 }
-                final double[][] eigensampleVectors = SparkConverter.convertSparkRowMatrixToRealMatrix(svd.U(), numPanelIntervals).getData();
 
                 logger.info(String.format("Writing singular values (%d)...", singularValues.length));
                 pon.writeSingularValues(singularValues);
@@ -361,6 +458,136 @@ public final class HDF5SVDReadCountPanelOfNormals implements SVDReadCountPanelOf
         logger.info(String.format("Read-count panel of normals written to %s.", outFile));
     }
 
+    /**
+     * Append samples to an existing panel of normals and write the updated panel to a new HDF5 file.
+     * The dimensions of {@code appendedReadCounts} should be samples x original intervals of the panel;
+     * to reduce memory footprint, it is modified in place.
+     *
+     * <p>
+     *     The appended samples are preprocessed using the panel intervals, interval fractional medians, and update
+     *     statistics that were determined when the panel was created, and the eigensamples are updated incrementally
+     *     by {@link IncrementalSVD}, without preprocessing the samples already in the panel again.  Because medians and
+     *     percentiles cannot be updated exactly without all samples, these quantities are not updated; recreating the
+     *     panel from all samples will give somewhat different results.  The eigensamples are also only exact if the
+     *     panel was not truncated to fewer eigensamples than samples.  The number of eigensamples is the number requested
+     *     upon panel creation, limited by the number of samples in the updated panel.
+     * </p>
+     */
+    public static void append(final File outFile,
+                              final String commandLine,
+                              final HDF5SVDReadCountPanelOfNormals panelOfNormals,
+                              final RealMatrix appendedReadCounts,
+                              final List<String> appendedSampleFilenames,
+                              final int maximumChunkSize) {
+        Utils.nonNull(panelOfNormals);
+        Utils.nonNull(appendedReadCounts);
+        Utils.nonNull(appendedSampleFilenames);
+        if (!panelOfNormals.hasUpdateStatistics()) {
+            throw new UserException.BadInput(String.format("The panel of normals %s does not contain the statistics needed to append samples.  " +
+                    "Please recreate it with the current version of CreateReadCountPanelOfNormals.", panelOfNormals.file.getFile()));
+        }
+        if (panelOfNormals.getNumEigensamples() == 0) {
+            throw new UserException.BadInput(String.format("The panel of normals %s does not contain eigensamples, so samples cannot be appended.  " +
+                    "Please recreate it from all samples.", panelOfNormals.file.getFile()));
+        }
+        Utils.validateArg(appendedReadCounts.getColumnDimension() == panelOfNormals.getOriginalIntervals().size(),
+                "Number of intervals for appended read counts must match the number of original intervals in the panel of normals.");
+        final List<String> originalSampleFilenames = Arrays.asList(panelOfNormals.getOriginalSampleFilenames());
+        final Set<String> originalSampleFilenamesSet = new HashSet<>(originalSampleFilenames);
+        appendedSampleFilenames.stream().filter(originalSampleFilenamesSet::contains).findFirst().ifPresent(f -> {
+            throw new UserException.BadInput(String.format("The sample %s is already in the panel of normals.", f));
+        });
+
+        try (final HDF5File file = new HDF5File(outFile, HDF5File.OpenMode.CREATE)) {
+            logger.info("Creating " + outFile.getAbsolutePath() + "...");
+            final HDF5SVDReadCountPanelOfNormals pon = new HDF5SVDReadCountPanelOfNormals(file);
+
+            logger.info(String.format("Writing version number (" + PON_VERSION_STRING_FORMAT + ")...", CURRENT_PON_VERSION));
+            pon.writeVersion(CURRENT_PON_VERSION);
+
+            logger.info("Writing command line...");
+            pon.writeCommandLine(commandLine);
+
+            logger.info("Writing sequence dictionary...");
+            pon.writeSequenceDictionary(panelOfNormals.getSequenceDictionary());
+
+            final double[][] previousReadCounts = panelOfNormals.getOriginalReadCounts();
+            final double[][] originalReadCounts = Arrays.copyOf(previousReadCounts, previousReadCounts.length + appendedReadCounts.getRowDimension());
+            IntStream.range(0, appendedReadCounts.getRowDimension())
+                    .forEach(sampleIndex -> originalReadCounts[previousReadCounts.length + sampleIndex] = appendedReadCounts.getRow(sampleIndex));
+            logger.info(String.format("Writing original read counts (%d x %d)...",
+                    originalReadCounts[0].length, originalReadCounts.length));
+            pon.writeOriginalReadCountsPath(new Array2DRowRealMatrix(originalReadCounts, false), maximumChunkSize);
+
+            final List<String> allOriginalSampleFilenames = ListUtils.union(originalSampleFilenames, appendedSampleFilenames);
+            logger.info(String.format("Writing original sample filenames (%d)...", allOriginalSampleFilenames.size()));
+            pon.writeOriginalSampleFilenames(allOriginalSampleFilenames);
+
+            logger.info(String.format("Writing original intervals (%d)...", panelOfNormals.getOriginalIntervals().size()));
+            pon.writeOriginalIntervals(panelOfNormals.getOriginalIntervals());
+
+            final double[] intervalGCContent = panelOfNormals.getOriginalIntervalGCContent();
+            if (intervalGCContent != null) {
+                logger.info(String.format("Writing GC-content annotations for original intervals (%d)...", intervalGCContent.length));
+                pon.writeOriginalIntervalGCContent(intervalGCContent);
+            }
+
+            //preprocess and standardize appended read counts using the statistics stored in the panel
+            logger.info("Preprocessing and standardizing appended read counts...");
+            final SVDDenoisingUtils.PanelUpdateStatistics panelUpdateStatistics = panelOfNormals.getPanelUpdateStatistics();
+            final SVDDenoisingUtils.PreprocessedStandardizedResult preprocessedStandardizedResult =
+                    SVDDenoisingUtils.preprocessAndStandardizeAppendedSamples(panelOfNormals, panelUpdateStatistics, appendedReadCounts);
+
+            final List<String> panelSampleFilenames = ListUtils.union(
+                    Arrays.asList(panelOfNormals.getPanelSampleFilenames()),
+                    IntStream.range(0, appendedSampleFilenames.size())
+                            .filter(sampleIndex -> !preprocessedStandardizedResult.filterSamples[sampleIndex])
+                            .mapToObj(appendedSampleFilenames::get).collect(Collectors.toList()));
+            logger.info(String.format("Writing panel sample filenames (%d)...", panelSampleFilenames.size()));
+            pon.writePanelSampleFilenames(panelSampleFilenames);
+
+            logger.info(String.format("Writing panel intervals (%d)...", panelOfNormals.getPanelIntervals().size()));
+            pon.writePanelIntervals(panelOfNormals.getPanelIntervals());
+
+            logger.info(String.format("Writing panel interval fractional medians (%d)...", preprocessedStandardizedResult.panelIntervalFractionalMedians.length));
+            pon.writePanelIntervalFractionalMedians(preprocessedStandardizedResult.panelIntervalFractionalMedians);
+
+            final int numEigensamplesRequested = panelOfNormals.getNumEigensamplesRequested();
+            logger.info("Writing update statistics...");
+            pon.writeUpdateStatistics(numEigensamplesRequested, panelUpdateStatistics);
+
+            final int numPanelIntervals = preprocessedStandardizedResult.preprocessedStandardizedValues.getColumnDimension();
+            final int numEigensamples = Math.min(numEigensamplesRequested, panelSampleFilenames.size());
+            logger.info(String.format("Updating SVD (truncated at %d eigensamples) with %d appended samples...",
+                    numEigensamples, preprocessedStandardizedResult.preprocessedStandardizedValues.getRowDimension()));
+            final IncrementalSVD svd = new IncrementalSVD(
+                    new Array2DRowRealMatrix(panelOfNormals.getEigensampleVectors(), false), panelOfNormals.getSingularValues())
+                    .update(preprocessedStandardizedResult.preprocessedStandardizedValues.transpose(), numEigensamples);
+            final double[] singularValues = filterSingularValues(svd.getSingularValues());
+            final double[][] eigensampleVectors = svd.getU().getSubMatrix(0, numPanelIntervals - 1, 0, singularValues.length - 1).getData();
+
+            logger.info(String.format("Writing singular values (%d)...", singularValues.length));
+            pon.writeSingularValues(singularValues);
+
+            logger.info(String.format("Writing eigensample vectors (transposed to %d x %d)...", eigensampleVectors[0].length, eigensampleVectors.length));
+            pon.writeEigensampleVectors(eigensampleVectors, maximumChunkSize);
+        } catch (final RuntimeException exception) {
+            //if any exceptions encountered, delete partial output and rethrow
+            logger.warn(String.format("Exception encountered during update of panel of normals (%s).  Attempting to delete partial output in %s...",
+                    exception, outFile.getAbsolutePath()));
+            IOUtils.tryDelete(outFile);
+            throw new GATKException("Could not append samples to panel of normals.", exception);
+        }
+        logger.info(String.format("Read-count panel of normals written to %s.", outFile));
+    }
+
+    /**
+     * As in Spark, singular values below {@link #EPSILON} relative to the largest are treated as zero.
+     */
+    private static double[] filterSingularValues(final double[] singularValues) {
+        return Arrays.stream(singularValues).filter(s -> s > EPSILON * singularValues[0]).toArray();
+    }
+
     //PRIVATE WRITERS (write values to HDF5 file)
     //these are private to prevent fields from being written individually, which could leave the file in a bad state
 
@@ -407,6 +634,19 @@ public final class HDF5SVDReadCountPanelOfNormals implements SVDReadCountPanelOf
         file.makeDoubleArray(PANEL_INTERVAL_FRACTIONAL_MEDIANS_PATH, panelIntervalFractionalMedians);
     }
 
+    private void writeUpdateStatistics(final int numEigensamplesRequested,
+                                       final SVDDenoisingUtils.PanelUpdateStatistics panelUpdateStatistics) {
+        file.makeDouble(UPDATE_NUM_EIGENSAMPLES_REQUESTED_PATH, numEigensamplesRequested);
+        file.makeDouble(UPDATE_MAXIMUM_ZEROS_IN_SAMPLE_PERCENTAGE_PATH, panelUpdateStatistics.maximumZerosInSamplePercentage);
+        file.makeDoubleArray(UPDATE_SAMPLE_MEDIAN_THRESHOLDS_PATH,
+                new double[]{panelUpdateStatistics.minimumSampleMedianThreshold, panelUpdateStatistics.maximumSampleMedianThreshold});
+        if (panelUpdateStatistics.intervalZeroImputationValues != null) {
+            file.makeDoubleArray(UPDATE_INTERVAL_ZERO_IMPUTATION_VALUES_PATH, panelUpdateStatistics.intervalZeroImputationValues);
+        }
+        file.makeDoubleArray(UPDATE_OUTLIER_TRUNCATION_THRESHOLDS_PATH,
+                new double[]{panelUpdateStatistics.minimumOutlierTruncationThreshold, panelUpdateStatistics.maximumOutlierTruncationThreshold});
+    }
+
     private void writeSingularValues(final double[] singularValues) {
         file.makeDoubleArray(PANEL_SINGULAR_VALUES_PATH, singularValues);
     }
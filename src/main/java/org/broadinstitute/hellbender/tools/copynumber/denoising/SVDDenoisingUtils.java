@@ -20,6 +20,7 @@ import org.broadinstitute.hellbender.utils.param.ParamUtils;
 
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.IntStream;
 
@@ -45,15 +46,46 @@ public final class SVDDenoisingUtils {
         final double[] panelIntervalFractionalMedians;
         final boolean[] filterSamples;
         final boolean[] filterIntervals;
+        final PanelUpdateStatistics panelUpdateStatistics;
 
         private PreprocessedStandardizedResult(final RealMatrix preprocessedStandardizedValues,
                                                final double[] panelIntervalFractionalMedians,
                                                final boolean[] filterSamples,
-                                               final boolean[] filterIntervals) {
+                                               final boolean[] filterIntervals,
+                                               final PanelUpdateStatistics panelUpdateStatistics) {
             this.preprocessedStandardizedValues = preprocessedStandardizedValues;
             this.panelIntervalFractionalMedians = panelIntervalFractionalMedians;
             this.filterSamples = filterSamples;
             this.filterIntervals = filterIntervals;
+            this.panelUpdateStatistics = panelUpdateStatistics;
+        }
+    }
+
+    /**
+     * Statistics determined by the panel samples during preprocessing that are needed to preprocess samples appended to
+     * the panel identically.  Thresholds for filtering or truncation steps that were skipped are infinite,
+     * and the imputation values are null if zeros were not imputed.
+     */
+    static final class PanelUpdateStatistics {
+        final double maximumZerosInSamplePercentage;
+        final double minimumSampleMedianThreshold;
+        final double maximumSampleMedianThreshold;
+        final double[] intervalZeroImputationValues;
+        final double minimumOutlierTruncationThreshold;
+        final double maximumOutlierTruncationThreshold;
+
+        PanelUpdateStatistics(final double maximumZerosInSamplePercentage,
+                              final double minimumSampleMedianThreshold,
+                              final double maximumSampleMedianThreshold,
+                              final double[] intervalZeroImputationValues,
+                              final double minimumOutlierTruncationThreshold,
+                              final double maximumOutlierTruncationThreshold) {
+            this.maximumZerosInSamplePercentage = maximumZerosInSamplePercentage;
+            this.minimumSampleMedianThreshold = minimumSampleMedianThreshold;
+            this.maximumSampleMedianThreshold = maximumSampleMedianThreshold;
+            this.intervalZeroImputationValues = intervalZeroImputationValues;
+            this.minimumOutlierTruncationThreshold = minimumOutlierTruncationThreshold;
+            this.maximumOutlierTruncationThreshold = maximumOutlierTruncationThreshold;
         }
     }
 
@@ -100,6 +132,89 @@ public final class SVDDenoisingUtils {
         return preprocessedStandardizedResult;
     }
 
+    /**
+     * Preprocess and standardize read counts for samples to be appended to an existing panel of normals,
+     * using the panel intervals, interval fractional medians, and {@code panelUpdateStatistics} determined when the
+     * panel was created, so that the appended samples are transformed identically to the samples already in the panel.
+     * Samples are filtered by the fraction of zero-coverage panel intervals and by their medians;
+     * intervals are not filtered further.
+     * The dimensions of {@code readCounts} should be samples x original intervals; it is modified in place.
+     */
+    static PreprocessedStandardizedResult preprocessAndStandardizeAppendedSamples(final SVDReadCountPanelOfNormals panelOfNormals,
+                                                                                  final PanelUpdateStatistics panelUpdateStatistics,
+                                                                                  final RealMatrix readCounts) {
+        logger.info("Preprocessing read counts...");
+        transformToFractionalCoverage(readCounts);
+        performOptionalGCBiasCorrection(readCounts, panelOfNormals.getOriginalIntervalGCContent());
+
+        final int numSamples = readCounts.getRowDimension();
+        final List<SimpleInterval> originalIntervals = panelOfNormals.getOriginalIntervals();
+        final Set<SimpleInterval> panelIntervals = new HashSet<>(panelOfNormals.getPanelIntervals());
+        final boolean[] filterIntervals = new boolean[originalIntervals.size()];
+        IntStream.range(0, originalIntervals.size())
+                .filter(intervalIndex -> !panelIntervals.contains(originalIntervals.get(intervalIndex)))
+                .forEach(intervalIndex -> filterIntervals[intervalIndex] = true);
+        final int[] panelIntervalIndices = IntStream.range(0, originalIntervals.size()).filter(intervalIndex -> !filterIntervals[intervalIndex]).toArray();
+        final int numPanelIntervals = panelIntervalIndices.length;
+
+        logger.info("Subsetting sample intervals to panel intervals and dividing by interval medians from the panel of normals...");
+        final double[] intervalMedians = panelOfNormals.getPanelIntervalFractionalMedians();
+        final RealMatrix subsetReadCounts = readCounts.getSubMatrix(IntStream.range(0, numSamples).toArray(), panelIntervalIndices);
+        subsetReadCounts.walkInOptimizedOrder(new DefaultRealMatrixChangingVisitor() {
+            @Override
+            public double visit(int sampleIndex, int intervalIndex, double value) {
+                return value / intervalMedians[intervalIndex];
+            }
+        });
+
+        //filter samples using the same criteria as for the panel samples
+        final boolean[] filterSamples = new boolean[numSamples];
+        final int maxZerosInSample = calculateMaximumZerosCount(numPanelIntervals, panelUpdateStatistics.maximumZerosInSamplePercentage);
+        for (int sampleIndex = 0; sampleIndex < numSamples; sampleIndex++) {
+            final double[] values = subsetReadCounts.getRow(sampleIndex);
+            final int numZerosInSample = (int) Arrays.stream(values).filter(value -> value == 0.).count();
+            final double sampleMedian = new Median().evaluate(values);
+            if (numZerosInSample > maxZerosInSample ||
+                    sampleMedian < panelUpdateStatistics.minimumSampleMedianThreshold ||
+                    sampleMedian > panelUpdateStatistics.maximumSampleMedianThreshold) {
+                filterSamples[sampleIndex] = true;
+            }
+        }
+        logger.info(String.format("After filtering, %d out of %d samples remain...", countNumberPassingFilter(filterSamples), numSamples));
+        final int[] panelSampleIndices = IntStream.range(0, numSamples).filter(sampleIndex -> !filterSamples[sampleIndex]).toArray();
+        final RealMatrix preprocessedReadCounts = subsetReadCounts.getSubMatrix(panelSampleIndices, IntStream.range(0, numPanelIntervals).toArray());
+
+        //impute zeros and truncate extreme values using the values determined by the panel
+        final double[] intervalZeroImputationValues = panelUpdateStatistics.intervalZeroImputationValues;
+        preprocessedReadCounts.walkInOptimizedOrder(new DefaultRealMatrixChangingVisitor() {
+            @Override
+            public double visit(int sampleIndex, int intervalIndex, double value) {
+                final double imputedValue = value == 0. && intervalZeroImputationValues != null
+                        ? intervalZeroImputationValues[intervalIndex]
+                        : value;
+                return Math.min(Math.max(imputedValue, panelUpdateStatistics.minimumOutlierTruncationThreshold),
+                        panelUpdateStatistics.maximumOutlierTruncationThreshold);
+            }
+        });
+        logger.info("Appended read counts preprocessed.");
+
+        //standardize in place; each sample is centered on its own median, since the median of sample medians
+        //used to center the panel samples depends on the batch
+        logger.info("Standardizing read counts...");
+        divideBySampleMedianAndTransformToLog2(preprocessedReadCounts);
+        final double[] sampleLog2Medians = MatrixSummaryUtils.getRowMedians(preprocessedReadCounts);
+        preprocessedReadCounts.walkInOptimizedOrder(new DefaultRealMatrixChangingVisitor() {
+            @Override
+            public double visit(int sampleIndex, int intervalIndex, double value) {
+                return value - sampleLog2Medians[sampleIndex];
+            }
+        });
+        logger.info("Appended read counts standardized.");
+
+        return new PreprocessedStandardizedResult(
+                preprocessedReadCounts, intervalMedians, filterSamples, filterIntervals, panelUpdateStatistics);
+    }
+
     /**
      * Perform SVD-based denoising of integer read counts for a single sample using a panel of normals.
      * Only the eigensamples (which are sorted by singular value in decreasing order) specified by
@@ -267,7 +382,11 @@ public final class SVDDenoisingUtils {
         }
 
         //filter samples with extreme medians
+        final double minimumSampleMedianThreshold;
+        final double maximumSampleMedianThreshold;
         if (extremeSampleMedianPercentile == 0.) {
+            minimumSampleMedianThreshold = Double.NEGATIVE_INFINITY;
+            maximumSampleMedianThreshold = Double.POSITIVE_INFINITY;
             logger.info(String.format("A value of 0 was provided for argument %s, so the corresponding filtering step will be skipped...",
                     CreateReadCountPanelOfNormals.EXTREME_SAMPLE_MEDIAN_PERCENTILE_LONG_NAME));
         } else {
@@ -281,8 +400,8 @@ public final class SVDDenoisingUtils {
                             .toArray()))
                     .toArray();
             //calculate percentiles
-            final double minimumSampleMedianThreshold = new Percentile(extremeSampleMedianPercentile).evaluate(sampleMedians);
-            final double maximumSampleMedianThreshold = new Percentile(100. - extremeSampleMedianPercentile).evaluate(sampleMedians);
+            minimumSampleMedianThreshold = new Percentile(extremeSampleMedianPercentile).evaluate(sampleMedians);
+            maximumSampleMedianThreshold = new Percentile(100. - extremeSampleMedianPercentile).evaluate(sampleMedians);
             //filter samples
             IntStream.range(0, numOriginalSamples)
                     .filter(sampleIndex -> sampleMedians[sampleIndex] < minimumSampleMedianThreshold || sampleMedians[sampleIndex] > maximumSampleMedianThreshold)
@@ -305,8 +424,10 @@ public final class SVDDenoisingUtils {
         logHeapUsage();
 
         //impute zeros as median of non-zero values in interval
+        final double[] intervalZeroImputationValues;
         if (!doImputeZeros) {
             logger.info("Skipping imputation of zero-coverage values...");
+            intervalZeroImputationValues = null;
         } else {
             final int numPanelIntervals = panelIntervalIndices.length;
             final double[] intervalNonZeroMedians = IntStream.range(0, numPanelIntervals)
@@ -326,16 +447,21 @@ public final class SVDDenoisingUtils {
             });
             logger.info(String.format("%d zero-coverage values were imputed to the median of the non-zero values in the corresponding interval...",
                     numImputed[0]));
+            intervalZeroImputationValues = intervalNonZeroMedians;
         }
 
         //truncate extreme values to the corresponding percentile
+        final double minimumOutlierTruncationThreshold;
+        final double maximumOutlierTruncationThreshold;
         if (extremeOutlierTruncationPercentile == 0.) {
+            minimumOutlierTruncationThreshold = Double.NEGATIVE_INFINITY;
+            maximumOutlierTruncationThreshold = Double.POSITIVE_INFINITY;
             logger.info(String.format("A value of 0 was provided for argument %s, so the corresponding truncation step will be skipped...",
                     CreateReadCountPanelOfNormals.EXTREME_OUTLIER_TRUNCATION_PERCENTILE_LONG_NAME));
         } else {
             final double[] values = Doubles.concat(preprocessedReadCounts.getData());
-            final double minimumOutlierTruncationThreshold = new Percentile(extremeOutlierTruncationPercentile).evaluate(values);
-            final double maximumOutlierTruncationThreshold = new Percentile(100. - extremeOutlierTruncationPercentile).evaluate(values);
+            minimumOutlierTruncationThreshold = new Percentile(extremeOutlierTruncationPercentile).evaluate(values);
+            maximumOutlierTruncationThreshold = new Percentile(100. - extremeOutlierTruncationPercentile).evaluate(values);
             final int[] numTruncated = {0};  //needs to be effectively final to be used inside visitor
             preprocessedReadCounts.walkInOptimizedOrder(new DefaultRealMatrixChangingVisitor() {
                 @Override
@@ -354,8 +480,11 @@ public final class SVDDenoisingUtils {
             logger.info(String.format("%d values below the %.2f percentile or above the %.2f percentile were truncated to the corresponding value...",
                     numTruncated[0], extremeOutlierTruncationPercentile, 100. - extremeOutlierTruncationPercentile));
         }
+        final PanelUpdateStatistics panelUpdateStatistics = new PanelUpdateStatistics(maximumZerosInSamplePercentage,
+                minimumSampleMedianThreshold, maximumSampleMedianThreshold, intervalZeroImputationValues,
+                minimumOutlierTruncationThreshold, maximumOutlierTruncationThreshold);
         return new PreprocessedStandardizedResult(
-                preprocessedReadCounts, panelIntervalFractionalMedians, filterSamples, filterIntervals);
+                preprocessedReadCounts, panelIntervalFractionalMedians, filterSamples, filterIntervals, panelUpdateStatistics);
     }
 
     private static void logHeapUsage() {
@@ -11,6 +11,7 @@ import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.Metadata;
 import org.broadinstitute.hellbender.utils.IntervalUtils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.tsv.ColumnarTableReader;
 import org.broadinstitute.hellbender.utils.tsv.DataLine;
 import org.broadinstitute.hellbender.utils.tsv.TableColumnCollection;
 
@@ -60,6 +61,22 @@ public abstract class AbstractLocatableCollection<METADATA extends LocatableMeta
         this.overlapDetector = new Lazy<>(() -> OverlapDetector.create(getRecords()));
     }
 
+    /**
+     * Constructor for reading the records in bulk with a {@link ColumnarTableReader}; see {@link AbstractRecordCollection}.
+     *
+     * @throws IllegalArgumentException if records are not sorted according to the {@link SAMSequenceDictionary} contained in the input file
+     */
+    AbstractLocatableCollection(final File inputFile,
+                                final TableColumnCollection mandatoryColumns,
+                                final List<ColumnarTableReader.ColumnType> mandatoryColumnTypes,
+                                final Function<ColumnarTableReader.Table, List<RECORD>> recordsFromColumnsDecoder,
+                                final Function<DataLine, RECORD> recordFromDataLineDecoder,
+                                final BiConsumer<RECORD, DataLine> recordToDataLineEncoder) {
+        super(inputFile, mandatoryColumns, mandatoryColumnTypes, recordsFromColumnsDecoder, recordFromDataLineDecoder, recordToDataLineEncoder);
+        CopyNumberArgumentValidationUtils.validateIntervals(getRecords(), getMetadata().getSequenceDictionary());
+        this.overlapDetector = new Lazy<>(() -> OverlapDetector.create(getRecords()));
+    }
+
     private static <T extends Locatable> List<T> sortRecords(final List<T> records,
                                                              final SAMSequenceDictionary sequenceDictionary) {
         Utils.nonNull(records);
@@ -85,6 +85,42 @@ public abstract class AbstractRecordCollection<METADATA extends Metadata, RECORD
         }
     }
 
+    /**
+     * Constructor given an input file, the mandatory column headers, and the lambdas for reading and writing records.
+     * The mandatory columns are read in parallel into primitive arrays by a {@link ColumnarTableReader},
+     * and the list of records is then decoded from these arrays in bulk. This is much faster than decoding
+     * a {@link DataLine} per record for large files, such as those of read counts.
+     *
+     * @param inputFile                     TSV file; must contain a {@link SAMFileHeader} and mandatory column headers, but can contain no records
+     * @param mandatoryColumns              mandatory columns required to construct collection from a TSV file; cannot be empty
+     * @param mandatoryColumnTypes          types of the mandatory columns, in the same order
+     * @param recordsFromColumnsDecoder     lambda for decoding the list of records from the columns read from a TSV file
+     * @param recordFromDataLineDecoder     lambda for decoding a record from a {@link DataLine} when reading from a TSV file
+     * @param recordToDataLineEncoder       lambda for encoding a record to a {@link DataLine} when writing to a TSV file
+     */
+    AbstractRecordCollection(final File inputFile,
+                             final TableColumnCollection mandatoryColumns,
+                             final List<ColumnarTableReader.ColumnType> mandatoryColumnTypes,
+                             final Function<ColumnarTableReader.Table, List<RECORD>> recordsFromColumnsDecoder,
+                             final Function<DataLine, RECORD> recordFromDataLineDecoder,
+                             final BiConsumer<RECORD, DataLine> recordToDataLineEncoder) {
+        IOUtils.canReadFile(inputFile);
+        this.mandatoryColumns = Utils.nonNull(mandatoryColumns);
+        this.recordFromDataLineDecoder = Utils.nonNull(recordFromDataLineDecoder);
+        this.recordToDataLineEncoder = Utils.nonNull(recordToDataLineEncoder);
+        Utils.nonEmpty(mandatoryColumns.names());
+        Utils.nonNull(recordsFromColumnsDecoder);
+
+        try {
+            metadata = MetadataUtils.fromHeader(readHeader(inputFile), getMetadataType());
+            final ColumnarTableReader.Table columns = new ColumnarTableReader(inputFile.toPath(), RecordCollectionReader.COMMENT_PREFIX,
+                    ColumnarTableReader.columnsToRead(mandatoryColumns.names(), mandatoryColumnTypes)).read();
+            records = ImmutableList.copyOf(recordsFromColumnsDecoder.apply(columns));
+        } catch (final IOException | UncheckedIOException e) {
+            throw new UserException.CouldNotReadInputFile(inputFile, e);
+        }
+    }
+
     public final int size() {
         return records.size();
     }
@@ -162,6 +198,15 @@ public abstract class AbstractRecordCollection<METADATA extends Metadata, RECORD
         return CopyNumberFormatsUtils.formatDouble(value);
     }
 
+    private static SAMFileHeader readHeader(final File file) throws FileNotFoundException {
+        final LineReader lineReader = new BufferedLineReader(new FileInputStream(file));
+        try {
+            return new SAMTextHeaderCodec().decode(lineReader, file.getPath());
+        } finally {
+            lineReader.close();
+        }
+    }
+
     private final class RecordCollectionReader extends TableReader<RECORD> {
         private static final String COMMENT_PREFIX = "@";   //SAMTextHeaderCodec.HEADER_LINE_START; we need TableReader to treat SAM header as comment lines
         private final File file;
@@ -178,8 +223,7 @@ public abstract class AbstractRecordCollection<METADATA extends Metadata, RECORD
         }
 
         private SAMFileHeader getHeader() throws FileNotFoundException {
-            final LineReader lineReader = new BufferedLineReader(new FileInputStream(file));
-            return new SAMTextHeaderCodec().decode(lineReader, getSource());
+            return readHeader(file);
         }
 
         @Override
@@ -4,6 +4,7 @@ import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.util.Locatable;
 import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.Metadata;
 import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.SampleLocatableMetadata;
+import org.broadinstitute.hellbender.utils.tsv.ColumnarTableReader;
 import org.broadinstitute.hellbender.utils.tsv.DataLine;
 import org.broadinstitute.hellbender.utils.tsv.TableColumnCollection;
 
@@ -44,6 +45,20 @@ public abstract class AbstractSampleLocatableCollection<RECORD extends Locatable
         super(inputFile, mandatoryColumns, recordFromDataLineDecoder, recordToDataLineEncoder);
     }
 
+    /**
+     * Constructor for reading the records in bulk with a {@link ColumnarTableReader}; see {@link AbstractRecordCollection}.
+     *
+     * @throws IllegalArgumentException if records are not sorted according to the {@link SAMSequenceDictionary} contained in the input file
+     */
+    AbstractSampleLocatableCollection(final File inputFile,
+                                      final TableColumnCollection mandatoryColumns,
+                                      final List<ColumnarTableReader.ColumnType> mandatoryColumnTypes,
+                                      final Function<ColumnarTableReader.Table, List<RECORD>> recordsFromColumnsDecoder,
+                                      final Function<DataLine, RECORD> recordFromDataLineDecoder,
+                                      final BiConsumer<RECORD, DataLine> recordToDataLineEncoder) {
+        super(inputFile, mandatoryColumns, mandatoryColumnTypes, recordsFromColumnsDecoder, recordFromDataLineDecoder, recordToDataLineEncoder);
+    }
+
     @Override
     protected Metadata.Type getMetadataType() {
         return Metadata.Type.SAMPLE_LOCATABLE;
@@ -4,13 +4,17 @@ import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.SampleLoc
 import org.broadinstitute.hellbender.tools.copynumber.formats.records.AllelicCount;
 import org.broadinstitute.hellbender.utils.Nucleotide;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.tsv.ColumnarTableReader;
 import org.broadinstitute.hellbender.utils.tsv.DataLine;
 import org.broadinstitute.hellbender.utils.tsv.TableColumnCollection;
 
 import java.io.File;
+import java.util.Arrays;
 import java.util.List;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Simple data structure to pass and read/write a List of {@link AllelicCount} objects.
@@ -33,6 +37,33 @@ public final class AllelicCountCollection extends AbstractSampleLocatableCollect
         ALT_NUCLEOTIDE;
 
         static final TableColumnCollection COLUMNS = new TableColumnCollection((Object[]) values());
+        static final List<ColumnarTableReader.ColumnType> COLUMN_TYPES = Arrays.asList(
+                ColumnarTableReader.ColumnType.STRING,
+                ColumnarTableReader.ColumnType.INT,
+                ColumnarTableReader.ColumnType.INT,
+                ColumnarTableReader.ColumnType.INT,
+                ColumnarTableReader.ColumnType.STRING,
+                ColumnarTableReader.ColumnType.STRING);
+    }
+
+    private static final Function<ColumnarTableReader.Table, List<AllelicCount>> ALLELIC_COUNT_RECORDS_FROM_COLUMNS_DECODER = columns -> {
+        final List<String> contigs = columns.getStringLevels(AllelicCountTableColumn.CONTIG.name());
+        final int[] contigIndices = columns.getStringIndices(AllelicCountTableColumn.CONTIG.name());
+        final int[] positions = columns.getInts(AllelicCountTableColumn.POSITION.name());
+        final int[] refReadCounts = columns.getInts(AllelicCountTableColumn.REF_COUNT.name());
+        final int[] altReadCounts = columns.getInts(AllelicCountTableColumn.ALT_COUNT.name());
+        final List<Nucleotide> refNucleotides = decodeNucleotides(columns.getStringLevels(AllelicCountTableColumn.REF_NUCLEOTIDE.name()));
+        final int[] refNucleotideIndices = columns.getStringIndices(AllelicCountTableColumn.REF_NUCLEOTIDE.name());
+        final List<Nucleotide> altNucleotides = decodeNucleotides(columns.getStringLevels(AllelicCountTableColumn.ALT_NUCLEOTIDE.name()));
+        final int[] altNucleotideIndices = columns.getStringIndices(AllelicCountTableColumn.ALT_NUCLEOTIDE.name());
+        return IntStream.range(0, columns.size()).parallel()
+                .mapToObj(i -> new AllelicCount(new SimpleInterval(contigs.get(contigIndices[i]), positions[i], positions[i]),
+                        refReadCounts[i], altReadCounts[i], refNucleotides.get(refNucleotideIndices[i]), altNucleotides.get(altNucleotideIndices[i])))
+                .collect(Collectors.toList());
+    };
+
+    private static List<Nucleotide> decodeNucleotides(final List<String> values) {
+        return values.stream().map(v -> Nucleotide.valueOf(v.getBytes()[0])).collect(Collectors.toList());
     }
     
     private static final Function<DataLine, AllelicCount> ALLELIC_COUNT_RECORD_FROM_DATA_LINE_DECODER = dataLine -> {
@@ -55,7 +86,8 @@ public final class AllelicCountCollection extends AbstractSampleLocatableCollect
                     .append(allelicCount.getAltNucleotide().name());
 
     public AllelicCountCollection(final File inputFile) {
-        super(inputFile, AllelicCountCollection.AllelicCountTableColumn.COLUMNS, ALLELIC_COUNT_RECORD_FROM_DATA_LINE_DECODER, ALLELIC_COUNT_RECORD_TO_DATA_LINE_ENCODER);
+        super(inputFile, AllelicCountCollection.AllelicCountTableColumn.COLUMNS, AllelicCountTableColumn.COLUMN_TYPES,
+                ALLELIC_COUNT_RECORDS_FROM_COLUMNS_DECODER, ALLELIC_COUNT_RECORD_FROM_DATA_LINE_DECODER, ALLELIC_COUNT_RECORD_TO_DATA_LINE_ENCODER);
     }
 
     public AllelicCountCollection(final SampleLocatableMetadata metadata,
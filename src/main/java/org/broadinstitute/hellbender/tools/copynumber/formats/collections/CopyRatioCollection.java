@@ -4,14 +4,17 @@ import htsjdk.samtools.util.OverlapDetector;
 import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.SampleLocatableMetadata;
 import org.broadinstitute.hellbender.tools.copynumber.formats.records.CopyRatio;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.tsv.ColumnarTableReader;
 import org.broadinstitute.hellbender.utils.tsv.DataLine;
 import org.broadinstitute.hellbender.utils.tsv.TableColumnCollection;
 
 import java.io.File;
+import java.util.Arrays;
 import java.util.List;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * @author Samuel Lee &lt;slee@broadinstitute.org&gt;
@@ -28,8 +31,24 @@ public final class CopyRatioCollection extends AbstractSampleLocatableCollection
         LOG2_COPY_RATIO;
 
         static final TableColumnCollection COLUMNS = new TableColumnCollection((Object[]) values());
+        static final List<ColumnarTableReader.ColumnType> COLUMN_TYPES = Arrays.asList(
+                ColumnarTableReader.ColumnType.STRING,
+                ColumnarTableReader.ColumnType.INT,
+                ColumnarTableReader.ColumnType.INT,
+                ColumnarTableReader.ColumnType.DOUBLE);
     }
 
+    private static final Function<ColumnarTableReader.Table, List<CopyRatio>> COPY_RATIO_RECORDS_FROM_COLUMNS_DECODER = columns -> {
+        final List<String> contigs = columns.getStringLevels(CopyRatioTableColumn.CONTIG.name());
+        final int[] contigIndices = columns.getStringIndices(CopyRatioTableColumn.CONTIG.name());
+        final int[] starts = columns.getInts(CopyRatioTableColumn.START.name());
+        final int[] ends = columns.getInts(CopyRatioTableColumn.END.name());
+        final double[] copyRatios = columns.getDoubles(CopyRatioTableColumn.LOG2_COPY_RATIO.name());
+        return IntStream.range(0, columns.size()).parallel()
+                .mapToObj(i -> new CopyRatio(new SimpleInterval(contigs.get(contigIndices[i]), starts[i], ends[i]), copyRatios[i]))
+                .collect(Collectors.toList());
+    };
+
     private static final Function<DataLine, CopyRatio> COPY_RATIO_RECORD_FROM_DATA_LINE_DECODER = dataLine -> {
         final String contig = dataLine.get(CopyRatioTableColumn.CONTIG);
         final int start = dataLine.getInt(CopyRatioTableColumn.START);
@@ -46,7 +65,8 @@ public final class CopyRatioCollection extends AbstractSampleLocatableCollection
                 .append(formatDouble(copyRatio.getLog2CopyRatioValue()));
 
     public CopyRatioCollection(final File inputFile) {
-        super(inputFile, CopyRatioTableColumn.COLUMNS, COPY_RATIO_RECORD_FROM_DATA_LINE_DECODER, COPY_RATIO_RECORD_TO_DATA_LINE_ENCODER);
+        super(inputFile, CopyRatioTableColumn.COLUMNS, CopyRatioTableColumn.COLUMN_TYPES,
+                COPY_RATIO_RECORDS_FROM_COLUMNS_DECODER, COPY_RATIO_RECORD_FROM_DATA_LINE_DECODER, COPY_RATIO_RECORD_TO_DATA_LINE_ENCODER);
     }
 
     public CopyRatioCollection(final SampleLocatableMetadata metadata,
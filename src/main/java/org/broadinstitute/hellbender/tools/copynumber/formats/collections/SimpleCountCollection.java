@@ -7,10 +7,12 @@ import org.broadinstitute.hellbender.tools.copynumber.formats.records.SimpleCoun
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.tsv.ColumnarTableReader;
 import org.broadinstitute.hellbender.utils.tsv.DataLine;
 import org.broadinstitute.hellbender.utils.tsv.TableColumnCollection;
 
 import java.io.File;
+import java.util.Arrays;
 import java.util.List;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
@@ -35,8 +37,24 @@ public final class SimpleCountCollection extends AbstractSampleLocatableCollecti
         COUNT;
 
         static final TableColumnCollection COLUMNS = new TableColumnCollection((Object[]) values());
+        static final List<ColumnarTableReader.ColumnType> COLUMN_TYPES = Arrays.asList(
+                ColumnarTableReader.ColumnType.STRING,
+                ColumnarTableReader.ColumnType.INT,
+                ColumnarTableReader.ColumnType.INT,
+                ColumnarTableReader.ColumnType.INT);
     }
-    
+
+    private static final Function<ColumnarTableReader.Table, List<SimpleCount>> SIMPLE_COUNT_RECORDS_FROM_COLUMNS_DECODER = columns -> {
+        final List<String> contigs = columns.getStringLevels(SimpleCountTableColumn.CONTIG.name());
+        final int[] contigIndices = columns.getStringIndices(SimpleCountTableColumn.CONTIG.name());
+        final int[] starts = columns.getInts(SimpleCountTableColumn.START.name());
+        final int[] ends = columns.getInts(SimpleCountTableColumn.END.name());
+        final int[] counts = columns.getInts(SimpleCountTableColumn.COUNT.name());
+        return IntStream.range(0, columns.size()).parallel()
+                .mapToObj(i -> new SimpleCount(new SimpleInterval(contigs.get(contigIndices[i]), starts[i], ends[i]), counts[i]))
+                .collect(Collectors.toList());
+    };
+
     private static final Function<DataLine, SimpleCount> SIMPLE_COUNT_RECORD_FROM_DATA_LINE_DECODER = dataLine -> {
         final String contig = dataLine.get(SimpleCountTableColumn.CONTIG);
         final int start = dataLine.getInt(SimpleCountTableColumn.START);
@@ -53,7 +71,8 @@ public final class SimpleCountCollection extends AbstractSampleLocatableCollecti
                     .append(simpleCount.getCount());
 
     private SimpleCountCollection(final File inputFile) {
-        super(inputFile, SimpleCountCollection.SimpleCountTableColumn.COLUMNS, SIMPLE_COUNT_RECORD_FROM_DATA_LINE_DECODER, SIMPLE_COUNT_RECORD_TO_DATA_LINE_ENCODER);
+        super(inputFile, SimpleCountCollection.SimpleCountTableColumn.COLUMNS, SimpleCountTableColumn.COLUMN_TYPES,
+                SIMPLE_COUNT_RECORDS_FROM_COLUMNS_DECODER, SIMPLE_COUNT_RECORD_FROM_DATA_LINE_DECODER, SIMPLE_COUNT_RECORD_TO_DATA_LINE_ENCODER);
     }
 
     public SimpleCountCollection(final SampleLocatableMetadata metadata,
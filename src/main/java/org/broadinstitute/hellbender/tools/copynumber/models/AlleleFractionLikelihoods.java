@@ -50,6 +50,7 @@ final class AlleleFractionLikelihoods {
     private static final FunctionCache logGammaCache = new FunctionCache(Gamma::logGamma);
     private static final FunctionCache logCache = new FunctionCache(FastMath::log);
 
+    //synchronized, since minor fractions of different segments may be sampled in parallel
     private static final class FunctionCache extends LinkedHashMap<Double, Double> {
         private static final long serialVersionUID = 19841647L;
         private static final int MAX_SIZE = 100_000;
@@ -60,7 +61,7 @@ final class AlleleFractionLikelihoods {
             this.mappingFunction = mappingFunction;
         }
 
-        Double computeIfAbsent(final Double key) {
+        synchronized Double computeIfAbsent(final Double key) {
             return super.computeIfAbsent(key, mappingFunction);
         }
 
@@ -4,12 +4,13 @@ import org.apache.commons.math3.distribution.BetaDistribution;
 import org.apache.commons.math3.random.RandomGenerator;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.utils.mcmc.ParallelSamplingUtils;
 import org.broadinstitute.hellbender.utils.mcmc.ParameterSampler;
 import org.broadinstitute.hellbender.utils.mcmc.SliceSampler;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.DoubleUnaryOperator;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -47,9 +48,9 @@ final class AlleleFractionSamplers {
             logger.debug("Sampling mean bias...");
             final Function<AlleleFractionGlobalParameters, Double> logLikelihoodEstimate = logLikelihoodFromSubsample(
                     rng, state.minorFractions(), data, NUM_POINTS_GLOBAL_SUBSAMPLE_THRESHOLD);
-            return new SliceSampler(rng,
-                    x -> logLikelihoodEstimate.apply(state.globalParameters().copyWithNewMeanBias(x)),
-                    MIN_MEAN_BIAS, maxMeanBias, meanBiasSliceSamplingWidth)
+            final AlleleFractionGlobalParameters globalParameters = state.globalParameters();
+            final DoubleUnaryOperator logConditionalPDF = x -> logLikelihoodEstimate.apply(globalParameters.copyWithNewMeanBias(x));
+            return new SliceSampler(rng, logConditionalPDF, MIN_MEAN_BIAS, maxMeanBias, meanBiasSliceSamplingWidth)
                     .sample(state.meanBias());
         }
     }
@@ -73,9 +74,9 @@ final class AlleleFractionSamplers {
             logger.debug("Sampling bias variance...");
             final Function<AlleleFractionGlobalParameters, Double> logLikelihoodEstimate = logLikelihoodFromSubsample(
                     rng, state.minorFractions(), data, NUM_POINTS_GLOBAL_SUBSAMPLE_THRESHOLD);
-            return new SliceSampler(rng,
-                    x -> logLikelihoodEstimate.apply(state.globalParameters().copyWithNewBiasVariance(x)),
-                    MIN_BIAS_VARIANCE, maxBiasVariance, biasVarianceSliceSamplingWidth)
+            final AlleleFractionGlobalParameters globalParameters = state.globalParameters();
+            final DoubleUnaryOperator logConditionalPDF = x -> logLikelihoodEstimate.apply(globalParameters.copyWithNewBiasVariance(x));
+            return new SliceSampler(rng, logConditionalPDF, MIN_BIAS_VARIANCE, maxBiasVariance, biasVarianceSliceSamplingWidth)
                     .sample(state.biasVariance());
         }
     }
@@ -99,9 +100,9 @@ final class AlleleFractionSamplers {
             logger.debug("Sampling outlier probability...");
             final Function<AlleleFractionGlobalParameters, Double> logLikelihoodEstimate = logLikelihoodFromSubsample(
                     rng, state.minorFractions(), data, NUM_POINTS_GLOBAL_SUBSAMPLE_THRESHOLD);
-            return new SliceSampler(rng,
-                    x -> logLikelihoodEstimate.apply(state.globalParameters().copyWithNewOutlierProbability(x)),
-                    MIN_OUTLIER_PROBABILITY, maxOutlierProbability, outlierProbabilitySliceSamplingWidth)
+            final AlleleFractionGlobalParameters globalParameters = state.globalParameters();
+            final DoubleUnaryOperator logConditionalPDF = x -> logLikelihoodEstimate.apply(globalParameters.copyWithNewOutlierProbability(x));
+            return new SliceSampler(rng, logConditionalPDF, MIN_OUTLIER_PROBABILITY, maxOutlierProbability, outlierProbabilitySliceSamplingWidth)
                     .sample(state.outlierProbability());
         }
     }
@@ -112,34 +113,40 @@ final class AlleleFractionSamplers {
         private static double MAX_MINOR_FRACTION = 0.5;
         private static final double PRIOR_BETA = 1.;
 
-        private final Function<Double, Double> logPrior;
+        private final BetaDistribution prior;
         private final List<Double> sliceSamplingWidths;
 
         MinorFractionsSampler(final AlleleFractionPrior prior,
                               final List<Double> sliceSamplingWidths) {
-            logPrior = f -> new BetaDistribution(null, prior.getMinorAlleleFractionPriorAlpha(), PRIOR_BETA).logDensity(2 * f);
+            //evaluating the density does not use the random number generator of the distribution, so it can be shared
+            this.prior = new BetaDistribution(null, prior.getMinorAlleleFractionPriorAlpha(), PRIOR_BETA);
             this.sliceSamplingWidths = sliceSamplingWidths;
         }
 
         @Override
         public AlleleFractionState.MinorFractions sample(final RandomGenerator rng, final AlleleFractionState state, final AlleleFractionSegmentedData data) {
-            final List<Double> minorFractions = new ArrayList<>(data.getNumSegments());
-            for (int segment = 0; segment < data.getNumSegments(); segment++) {
-                logger.debug(String.format("Sampling minor fraction for segment %d...", segment));
-                final List<AlleleFractionSegmentedData.IndexedAllelicCount> allelicCountsInSegment =
-                        data.getIndexedAllelicCountsInSegment(segment);
-                if (allelicCountsInSegment.isEmpty()){
-                    minorFractions.add(Double.NaN);
-                } else {
-                    final Function<Double, Double> segmentLogLikelihoodEstimate = segmentLogLikelihoodFromSubsample(
-                            rng, state.globalParameters(), allelicCountsInSegment, NUM_POINTS_SEGMENT_SUBSAMPLE_THRESHOLD);
-                    final SliceSampler sampler = new SliceSampler(rng,
-                            f -> logPrior.apply(f) + segmentLogLikelihoodEstimate.apply(f),
-                            MIN_MINOR_FRACTION, MAX_MINOR_FRACTION, sliceSamplingWidths.get(segment));
-                    minorFractions.add(sampler.sample(state.segmentMinorFraction(segment)));
-                }
+            logger.debug("Sampling minor fractions...");
+            final AlleleFractionGlobalParameters globalParameters = state.globalParameters();
+            return new AlleleFractionState.MinorFractions(ParallelSamplingUtils.sampleInParallel(rng, data.getNumSegments(),
+                    (segmentRng, segment) -> sampleMinorFraction(segmentRng, state, globalParameters, data, segment)));
+        }
+
+        private double sampleMinorFraction(final RandomGenerator rng,
+                                           final AlleleFractionState state,
+                                           final AlleleFractionGlobalParameters globalParameters,
+                                           final AlleleFractionSegmentedData data,
+                                           final int segment) {
+            final List<AlleleFractionSegmentedData.IndexedAllelicCount> allelicCountsInSegment =
+                    data.getIndexedAllelicCountsInSegment(segment);
+            if (allelicCountsInSegment.isEmpty()) {
+                return Double.NaN;
             }
-            return new AlleleFractionState.MinorFractions(minorFractions);
+            final DoubleUnaryOperator segmentLogLikelihoodEstimate = segmentLogLikelihoodFromSubsample(
+                    rng, globalParameters, allelicCountsInSegment, NUM_POINTS_SEGMENT_SUBSAMPLE_THRESHOLD);
+            final DoubleUnaryOperator logConditionalPDF = f -> prior.logDensity(2 * f) + segmentLogLikelihoodEstimate.applyAsDouble(f);
+            final SliceSampler sampler = new SliceSampler(rng, logConditionalPDF,
+                    MIN_MINOR_FRACTION, MAX_MINOR_FRACTION, sliceSamplingWidths.get(segment));
+            return sampler.sample(state.segmentMinorFraction(segment));
         }
     }
 
@@ -172,10 +179,10 @@ final class AlleleFractionSamplers {
         };
     }
 
-    private static Function<Double, Double> segmentLogLikelihoodFromSubsample(final RandomGenerator rng,
-                                                                              final AlleleFractionGlobalParameters parameters,
-                                                                              final List<AlleleFractionSegmentedData.IndexedAllelicCount> allelicCountsInSegment,
-                                                                              final int numPointsSubsampleThreshold) {
+    private static DoubleUnaryOperator segmentLogLikelihoodFromSubsample(final RandomGenerator rng,
+                                                                         final AlleleFractionGlobalParameters parameters,
+                                                                         final List<AlleleFractionSegmentedData.IndexedAllelicCount> allelicCountsInSegment,
+                                                                         final int numPointsSubsampleThreshold) {
         final List<AlleleFractionSegmentedData.IndexedAllelicCount> subsampledAllelicCountsInSegment =
                 subsample(rng, allelicCountsInSegment, numPointsSubsampleThreshold);
         final double scalingFactor = (double) allelicCountsInSegment.size() / subsampledAllelicCountsInSegment.size();
@@ -110,11 +110,28 @@ public final class CopyRatioModeller {
      */
     void fitMCMC(final int numSamples,
                         final int numBurnIn) {
+        fitMCMC(numSamples, numBurnIn, 1, 1);
+    }
+
+    /**
+     * Adds {@code numChains * (numSamples - numBurnIn)} Markov-Chain Monte-Carlo samples of the parameter posteriors
+     * (generated using Gibbs sampling of {@code numChains} independent chains) to the collections held internally.
+     * The current {@link CopyRatioState} held internally is used to initialize each Markov Chain.
+     * @param numSamples    total number of samples per posterior per chain
+     * @param numBurnIn     number of burn-in samples to discard from each chain
+     * @param numChains     number of independent chains
+     * @param numThreads    number of threads used to run the chains and to sample the segment means
+     */
+    void fitMCMC(final int numSamples,
+                 final int numBurnIn,
+                 final int numChains,
+                 final int numThreads) {
         ParamUtils.isPositiveOrZero(numBurnIn, "Number of burn-in samples must be non-negative.");
         Utils.validateArg(numBurnIn < numSamples, "Number of samples must be greater than number of burn-in samples.");
 
         //run MCMC
-        final GibbsSampler<CopyRatioParameter, CopyRatioState, CopyRatioSegmentedData> gibbsSampler = new GibbsSampler<>(numSamples, model);
+        final GibbsSampler<CopyRatioParameter, CopyRatioState, CopyRatioSegmentedData> gibbsSampler = new GibbsSampler<>(numSamples, model, numChains);
+        gibbsSampler.setNumThreads(numThreads);
         gibbsSampler.runMCMC();
 
         //update posterior samples
@@ -6,12 +6,13 @@ import org.apache.commons.math3.util.FastMath;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.broadinstitute.hellbender.utils.MathUtils;
+import org.broadinstitute.hellbender.utils.mcmc.ParallelSamplingUtils;
 import org.broadinstitute.hellbender.utils.mcmc.ParameterSampler;
 import org.broadinstitute.hellbender.utils.mcmc.SliceSampler;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.function.Function;
+import java.util.function.DoubleUnaryOperator;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -58,20 +59,20 @@ final class CopyRatioSamplers {
             final List<CopyRatioSegmentedData.IndexedCopyRatio> indexedCopyRatiosSubsample = subsample(
                     rng, data.getIndexedCopyRatios(), NUM_POINTS_GLOBAL_SUBSAMPLE_THRESHOLD);
             final double scalingFactor = (double) data.getNumPoints() / indexedCopyRatiosSubsample.size();
-            final Function<Double, Double> logConditionalPDF = newVariance -> {
-                final double gaussianLogNormalization = 0.5 * FastMath.log(newVariance);
-                double ll = 0.;
-                for (final CopyRatioSegmentedData.IndexedCopyRatio indexedCopyRatio : indexedCopyRatiosSubsample) {
-                    if (!state.outlierIndicator(indexedCopyRatio.getIndex())) {
-                        ll -= gaussianLogNormalization +
-                                normalTerm(
-                                        indexedCopyRatio.getLog2CopyRatioValue(),
-                                        state.segmentMean(indexedCopyRatio.getSegmentIndex()),
-                                        newVariance);
-                    }
+            //the sum of squared residuals does not depend on the variance, so we compute it only once
+            int numNotOutliers = 0;
+            double sumOfSquaredResiduals = 0.;
+            for (final CopyRatioSegmentedData.IndexedCopyRatio indexedCopyRatio : indexedCopyRatiosSubsample) {
+                if (!state.outlierIndicator(indexedCopyRatio.getIndex())) {
+                    final double residual = indexedCopyRatio.getLog2CopyRatioValue() - state.segmentMean(indexedCopyRatio.getSegmentIndex());
+                    numNotOutliers++;
+                    sumOfSquaredResiduals += residual * residual;
                 }
-                return scalingFactor * ll;
-            };
+            }
+            final int n = numNotOutliers;
+            final double ss = sumOfSquaredResiduals;
+            final DoubleUnaryOperator logConditionalPDF = newVariance ->
+                    -scalingFactor * (n * 0.5 * FastMath.log(newVariance) + ss / (2. * newVariance));
             return new SliceSampler(rng, logConditionalPDF, varianceMin, varianceMax, varianceSliceSamplingWidth).sample(state.variance());
         }
     }
@@ -121,26 +122,47 @@ final class CopyRatioSamplers {
         public CopyRatioState.SegmentMeans sample(final RandomGenerator rng,
                                                   final CopyRatioState state,
                                                   final CopyRatioSegmentedData data) {
-            final List<Double> means = new ArrayList<>(data.getNumSegments());
-            for (int segment = 0; segment < data.getNumSegments(); segment++) {
-                final List<CopyRatioSegmentedData.IndexedCopyRatio> indexedCopyRatiosInSegment = data.getIndexedCopyRatiosInSegment(segment);
-                if (indexedCopyRatiosInSegment.isEmpty()) {
-                    means.add(Double.NaN);
-                } else {
-                    logger.debug(String.format("Sampling mean for segment %d...", segment));
-                    final List<CopyRatioSegmentedData.IndexedCopyRatio> indexedCopyRatiosInSegmentSubsample = subsample(
-                            rng, indexedCopyRatiosInSegment, NUM_POINTS_SEGMENT_SUBSAMPLE_THRESHOLD);
-                    final double scalingFactor = (double) indexedCopyRatiosInSegment.size() / indexedCopyRatiosInSegmentSubsample.size();
-                    final Function<Double, Double> logConditionalPDF = newMean ->
-                            scalingFactor * indexedCopyRatiosInSegmentSubsample.stream()
-                                    .filter(c -> !state.outlierIndicator(c.getIndex()))
-                                    .mapToDouble(c -> -normalTerm(c.getLog2CopyRatioValue(), newMean, state.variance()))
-                                    .sum();
-                    final SliceSampler sampler = new SliceSampler(rng, logConditionalPDF, meanMin, meanMax, meanSliceSamplingWidth);
-                    means.add(sampler.sample(state.segmentMean(segment)));
+            logger.debug("Sampling segment means...");
+            final List<Double> means = ParallelSamplingUtils.sampleInParallel(rng, data.getNumSegments(),
+                    (segmentRng, segment) -> sampleSegmentMean(segmentRng, state, data, segment));
+            return new CopyRatioState.SegmentMeans(means);
+        }
+
+        private double sampleSegmentMean(final RandomGenerator rng,
+                                         final CopyRatioState state,
+                                         final CopyRatioSegmentedData data,
+                                         final int segment) {
+            final List<CopyRatioSegmentedData.IndexedCopyRatio> indexedCopyRatiosInSegment = data.getIndexedCopyRatiosInSegment(segment);
+            if (indexedCopyRatiosInSegment.isEmpty()) {
+                return Double.NaN;
+            }
+            final List<CopyRatioSegmentedData.IndexedCopyRatio> indexedCopyRatiosInSegmentSubsample = subsample(
+                    rng, indexedCopyRatiosInSegment, NUM_POINTS_SEGMENT_SUBSAMPLE_THRESHOLD);
+            final double scalingFactor = (double) indexedCopyRatiosInSegment.size() / indexedCopyRatiosInSegmentSubsample.size();
+            //the sum of squared residuals about a new mean m is given by ss + n * (x - m)^2,
+            //where x and ss are the mean and the sum of squared residuals of the non-outlier points
+            int numNotOutliers = 0;
+            double sum = 0.;
+            for (final CopyRatioSegmentedData.IndexedCopyRatio c : indexedCopyRatiosInSegmentSubsample) {
+                if (!state.outlierIndicator(c.getIndex())) {
+                    numNotOutliers++;
+                    sum += c.getLog2CopyRatioValue();
                 }
             }
-            return new CopyRatioState.SegmentMeans(means);
+            final int n = numNotOutliers;
+            final double mean = n == 0 ? 0. : sum / n;
+            double sumOfSquaredResiduals = 0.;
+            for (final CopyRatioSegmentedData.IndexedCopyRatio c : indexedCopyRatiosInSegmentSubsample) {
+                if (!state.outlierIndicator(c.getIndex())) {
+                    sumOfSquaredResiduals += (c.getLog2CopyRatioValue() - mean) * (c.getLog2CopyRatioValue() - mean);
+                }
+            }
+            final double ss = sumOfSquaredResiduals;
+            final double variance = state.variance();
+            final DoubleUnaryOperator logConditionalPDF = newMean ->
+                    -scalingFactor * (ss + n * (mean - newMean) * (mean - newMean)) / (2. * variance);
+            final SliceSampler sampler = new SliceSampler(rng, logConditionalPDF, meanMin, meanMax, meanSliceSamplingWidth);
+            return sampler.sample(state.segmentMean(segment));
         }
     }
 
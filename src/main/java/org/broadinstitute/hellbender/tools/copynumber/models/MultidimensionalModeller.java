@@ -48,6 +48,8 @@ public final class MultidimensionalModeller {
     private final int numBurnInCopyRatio;
     private final int numSamplesAlleleFraction;
     private final int numBurnInAlleleFraction;
+    private final int numChains;
+    private final int numThreads;
 
     /**
      * Constructs a copy-ratio and allele-fraction modeller, specifying number of total samples
@@ -62,6 +64,26 @@ public final class MultidimensionalModeller {
                                     final int numBurnInCopyRatio,
                                     final int numSamplesAlleleFraction,
                                     final int numBurnInAlleleFraction) {
+        this(multidimensionalSegments, denoisedCopyRatios, allelicCounts, alleleFractionPrior,
+                numSamplesCopyRatio, numBurnInCopyRatio, numSamplesAlleleFraction, numBurnInAlleleFraction, 1, 1);
+    }
+
+    /**
+     * Constructs a copy-ratio and allele-fraction modeller, specifying number of total samples
+     * and number of burn-in samples per chain, number of independent chains, and number of threads
+     * for Markov-Chain Monte Carlo model fitting.  The posterior samples of all chains are pooled.
+     * An initial model fit is performed.
+     */
+    public MultidimensionalModeller(final MultidimensionalSegmentCollection multidimensionalSegments,
+                                    final CopyRatioCollection denoisedCopyRatios,
+                                    final AllelicCountCollection allelicCounts,
+                                    final AlleleFractionPrior alleleFractionPrior,
+                                    final int numSamplesCopyRatio,
+                                    final int numBurnInCopyRatio,
+                                    final int numSamplesAlleleFraction,
+                                    final int numBurnInAlleleFraction,
+                                    final int numChains,
+                                    final int numThreads) {
         Utils.validateArg(Stream.of(
                 Utils.nonNull(multidimensionalSegments).getMetadata(),
                 Utils.nonNull(denoisedCopyRatios).getMetadata(),
@@ -81,6 +103,8 @@ public final class MultidimensionalModeller {
         this.numBurnInCopyRatio = numBurnInCopyRatio;
         this.numSamplesAlleleFraction = numSamplesAlleleFraction;
         this.numBurnInAlleleFraction = numBurnInAlleleFraction;
+        this.numChains = ParamUtils.isPositive(numChains, "Number of chains must be positive.");
+        this.numThreads = ParamUtils.isPositive(numThreads, "Number of threads must be positive.");
         logger.info("Fitting initial model...");
         fitModel();
     }
@@ -97,10 +121,10 @@ public final class MultidimensionalModeller {
         //perform MCMC to generate posterior samples
         logger.info("Fitting copy-ratio model...");
         copyRatioModeller = new CopyRatioModeller(denoisedCopyRatios, currentSegments);
-        copyRatioModeller.fitMCMC(numSamplesCopyRatio, numBurnInCopyRatio);
+        copyRatioModeller.fitMCMC(numSamplesCopyRatio, numBurnInCopyRatio, numChains, numThreads);
         logger.info("Fitting allele-fraction model...");
         alleleFractionModeller = new AlleleFractionModeller(allelicCounts, currentSegments, alleleFractionPrior);
-        alleleFractionModeller.fitMCMC(numSamplesAlleleFraction, numBurnInAlleleFraction);
+        alleleFractionModeller.fitMCMC(numSamplesAlleleFraction, numBurnInAlleleFraction, numChains, numThreads);
 
         //update list of ModeledSegment with new PosteriorSummaries
         modeledSegments.clear();
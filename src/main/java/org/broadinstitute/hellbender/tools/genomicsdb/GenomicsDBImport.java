@@ -95,6 +95,25 @@ import java.util.function.Function;
  *       --reader-threads 5
  *  </pre>
  *
+ *  Import several intervals concurrently, each into its own workspace partition, while keeping the total size of the
+ *  VCF buffers of all running imports within a fixed budget.
+ *
+ *  <pre>
+ *    gatk --java-options "-Xmx8g -Xms8g" \
+ *       GenomicsDBImport \
+ *       --genomicsdb-workspace-path my_database \
+ *       --batch-size 50 \
+ *       -L chr1 -L chr2 -L chr3 \
+ *       --sample-name-map cohort.sample_map \
+ *       --reader-threads 5 \
+ *       --max-num-intervals-to-import-in-parallel 3 \
+ *       --genomicsdb-vcf-buffer-budget 1073741824
+ *  </pre>
+ *
+ *  When more than one interval is given, the workspace path is a directory that contains one complete GenomicsDB
+ *  workspace per interval, named after the interval (for example my_database/chr1_1_248956422). Each of these can be
+ *  queried on its own with gendb://my_database/chr1_1_248956422.
+ *
  *  The sample map is a tab-delimited text file with sample_name--tab--path_to_sample_vcf per line. Using a sample map
  *  saves the tool from having to download the GVCF headers in order to determine the sample names. Sample names in
  *  the sample name map file may have non-tab whitespace, but may not begin or end with whitespace.
@@ -108,7 +127,7 @@ import java.util.function.Function;
  * <h3>Caveats</h3>
  * <ul>
  *     <li>IMPORTANT: The -Xmx value the tool is run with should be less than the total amount of physical memory available by at least a few GB, as the native TileDB library requires additional memory on top of the Java memory. Failure to leave enough memory for the native code can result in confusing error messages!</li>
- *     <li>A single interval must be provided. This means each import is limited to a maximum of one contig</li>
+ *     <li>Each interval is imported as a separate workspace partition, so an interval is limited to a maximum of one contig</li>
  *     <li>Currently, only supports diploid data</li>
  *     <li>Input GVCFs cannot contain multiple entries for a single genomic position</li>
  *     <li>The --genomicsdb-workspace-path must point to a non-existent or empty directory.</li>
@@ -126,6 +145,7 @@ import java.util.function.Function;
 public final class GenomicsDBImport extends GATKTool {
 
     private static final long DEFAULT_VCF_BUFFER_SIZE_PER_SAMPLE = 16*1024L;
+    private static final long MIN_VCF_BUFFER_SIZE_PER_SAMPLE = 1024L;
     private static final long DEFAULT_SEGMENT_SIZE = 1048576L;
     private static final int DEFAULT_ZERO_BATCH_SIZE = 0;
 
@@ -140,6 +160,8 @@ public final class GenomicsDBImport extends GATKTool {
     public static final String SAMPLE_NAME_MAP_LONG_NAME = "sample-name-map";
     public static final String VALIDATE_SAMPLE_MAP_LONG_NAME = "validate-sample-name-map";
     public static final String VCF_INITIALIZER_THREADS_LONG_NAME = "reader-threads";
+    public static final String MAX_NUM_INTERVALS_TO_IMPORT_IN_PARALLEL = "max-num-intervals-to-import-in-parallel";
+    public static final String VCF_BUFFER_BUDGET_ARG_NAME = "genomicsdb-vcf-buffer-budget";
 
     @Argument(fullName = WORKSPACE_ARG_LONG_NAME,
               doc = "Workspace for GenomicsDB. Must be a POSIX file system path, but can be a relative path." +
@@ -169,7 +191,7 @@ public final class GenomicsDBImport extends GATKTool {
                     " Defaults to " + DEFAULT_VCF_BUFFER_SIZE_PER_SAMPLE + " which was empirically determined to work" +
                     " well for many inputs.",
               optional = true,
-              minValue = 1024L,
+              minValue = MIN_VCF_BUFFER_SIZE_PER_SAMPLE,
               minRecommendedValue = 10 * 1024)
     private long vcfBufferSizePerSample = DEFAULT_VCF_BUFFER_SIZE_PER_SAMPLE;
 
@@ -229,9 +251,31 @@ public final class GenomicsDBImport extends GATKTool {
             minValue = 1)
     private int vcfInitializerThreads = 1;
 
+    @Advanced
+    @Argument(fullName = MAX_NUM_INTERVALS_TO_IMPORT_IN_PARALLEL,
+            doc = "Max number of intervals to import in parallel. Each interval is imported into its own workspace " +
+                    "partition; higher values may improve performance, but require more memory and a higher number " +
+                    "of file descriptors open at the same time",
+            optional = true,
+            minValue = 1)
+    private int maxNumIntervalsToImportInParallel = 1;
+
+    @Advanced
+    @Argument(fullName = VCF_BUFFER_BUDGET_ARG_NAME,
+            doc = "Total size in bytes of the buffers used to store variant contexts, shared by all the intervals " +
+                    "being imported at the same time. When set, each running import gets an equal share of this budget " +
+                    "instead of " + VCF_BUFFER_SIZE_ARG_NAME + " bytes per sample in the batch, and that share must be at least " +
+                    MIN_VCF_BUFFER_SIZE_PER_SAMPLE + " bytes per sample in the batch. 0 disables the budget.",
+            optional = true,
+            minValue = 0L)
+    private long vcfBufferBudget = 0L;
+
     //executor service used when vcfInitializerThreads > 1
     private ExecutorService inputPreloadExecutorService;
 
+    //executor service used when maxNumIntervalsToImportInParallel > 1
+    private ExecutorService importExecutorService;
+
     @Override
     public boolean requiresIntervals() { return true; }
 
@@ -256,9 +300,12 @@ public final class GenomicsDBImport extends GATKTool {
     @Override
     public String getProgressMeterRecordLabel() { return "batches"; }
 
-    // Intervals from command line (singleton for now)
+    // Intervals from command line
     private List<ChromosomeInterval> intervals;
 
+    // Workspace partition that each interval is imported into
+    private final Map<ChromosomeInterval, File> intervalToWorkspace = new LinkedHashMap<>();
+
     // Sorted mapping between sample names and corresponding GVCF file name
     //
     // IMPORTANT: This must be sorted or it will result in sample name swaps in the output database.
@@ -274,15 +321,6 @@ public final class GenomicsDBImport extends GATKTool {
     // sequence dictionary created from the merged header
     private SAMSequenceDictionary mergedHeaderSequenceDictionary;
 
-    // Path to vidmap file to be written by GenomicsDBImporter
-    private File vidMapJSONFile;
-
-    // Path to callsetmap file to be written by GenomicsDBImporter
-    private File callsetMapJSONFile;
-
-    // Path to combined VCF header file to be written by GenomicsDBImporter
-    private File vcfHeaderFile;
-
     // GenomicsDB callset map protobuf structure containing all callset names
     // used to write the callset json file on traversal success
     private GenomicsDBCallsetsMapProto.CallsetMappingPB callsetMappingPB;
@@ -297,9 +335,32 @@ public final class GenomicsDBImport extends GATKTool {
         assertVariantPathsOrSampleNameFileWasSpecified();
         initializeHeaderAndSampleMappings();
         initializeIntervals();
+        assertVcfBufferBudgetIsLargeEnough();
         super.onStartup();
     }
 
+    /**
+     * Each running import gets an equal share of the VCF buffer budget, which must hold at least the
+     * minimum buffer for every sample in a batch
+     */
+    private void assertVcfBufferBudgetIsLargeEnough() {
+        if (vcfBufferBudget == 0) {
+            return;
+        }
+        final int sampleCount = sampleNameToVcfPath.size();
+        final int samplesInBatch = batchSize == DEFAULT_ZERO_BATCH_SIZE ? sampleCount : Math.min(batchSize, sampleCount);
+        final long minVcfBufferSize = MIN_VCF_BUFFER_SIZE_PER_SAMPLE * samplesInBatch;
+        final int numConcurrentImports = getNumConcurrentImports();
+        if (vcfBufferBudget / numConcurrentImports < minVcfBufferSize) {
+            throw new CommandLineException.BadArgumentValue(VCF_BUFFER_BUDGET_ARG_NAME, String.valueOf(vcfBufferBudget),
+                    "Each of the " + numConcurrentImports + " intervals imported at the same time would get a buffer of " +
+                    vcfBufferBudget / numConcurrentImports + " bytes, but batches of " + samplesInBatch +
+                    " samples need at least " + minVcfBufferSize + " bytes. Increase --" + VCF_BUFFER_BUDGET_ARG_NAME +
+                    " to at least " + minVcfBufferSize * numConcurrentImports + ", or decrease --" +
+                    MAX_NUM_INTERVALS_TO_IMPORT_IN_PARALLEL + " or --" + BATCHSIZE_ARG_LONG_NAME);
+        }
+    }
+
     private void assertVariantPathsOrSampleNameFileWasSpecified(){
         if ( (variantPaths == null || variantPaths.isEmpty()) && sampleNameMapFile == null) {
             throw new CommandLineException.MissingArgument(StandardArgumentDefinitions.VARIANT_LONG_NAME,
@@ -442,18 +503,32 @@ public final class GenomicsDBImport extends GATKTool {
 
         final File workspaceDir = overwriteOrCreateWorkspace();
 
-        vidMapJSONFile = new File(workspaceDir + "/" + GenomicsDBConstants.DEFAULT_VIDMAP_FILE_NAME);
-        callsetMapJSONFile = new File(workspaceDir + "/" + GenomicsDBConstants.DEFAULT_CALLSETMAP_FILE_NAME);
-        vcfHeaderFile = new File(workspaceDir + "/" + GenomicsDBConstants.DEFAULT_VCFHEADER_FILE_NAME);
+        if (intervals.size() == 1) {
+            intervalToWorkspace.put(intervals.get(0), workspaceDir);
+        } else {
+            // one complete workspace per interval, so that the partitions can be imported independently of each other
+            for (final ChromosomeInterval interval : intervals) {
+                final File partitionDir = new File(workspaceDir, getWorkspacePartitionName(interval));
+                createWorkspace(partitionDir);
+                intervalToWorkspace.put(interval, partitionDir);
+            }
+        }
 
-        logger.info("Vid Map JSON file will be written to " + vidMapJSONFile);
-        logger.info("Callset Map JSON file will be written to " + callsetMapJSONFile);
-        logger.info("Complete VCF Header will be written to " + vcfHeaderFile);
-        logger.info("Importing to array - " + workspace + "/" + GenomicsDBConstants.DEFAULT_ARRAY_NAME);
+        for (final File partitionDir : intervalToWorkspace.values()) {
+            logger.info("Importing to array - " + partitionDir + "/" + GenomicsDBConstants.DEFAULT_ARRAY_NAME);
+        }
 
         //Pass in true here to use the given ordering, since sampleNameToVcfPath is already sorted
         callsetMappingPB = GenomicsDBImporter.generateSortedCallSetMap(new ArrayList<>(sampleNameToVcfPath.keySet()), true);
         initializeInputPreloadExecutorService();
+        initializeImportExecutorService();
+    }
+
+    /**
+     * @return the name of the workspace partition for the given interval, used when importing multiple intervals
+     */
+    static String getWorkspacePartitionName(final ChromosomeInterval interval) {
+        return String.format("%s_%d_%d", interval.getContig(), interval.getStart(), interval.getEnd());
     }
 
     private void initializeInputPreloadExecutorService() {
@@ -468,54 +543,136 @@ public final class GenomicsDBImport extends GATKTool {
         }
     }
 
+    private void initializeImportExecutorService() {
+        final int numConcurrentImports = getNumConcurrentImports();
+        if (numConcurrentImports > 1) {
+            final ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                    .setNameFormat("intervalImporter-thread-%d")
+                    .setDaemon(true)
+                    .build();
+            importExecutorService = Executors.newFixedThreadPool(numConcurrentImports, threadFactory);
+        } else {
+            importExecutorService = null;
+        }
+    }
+
+    private int getNumConcurrentImports() {
+        return Math.min(maxNumIntervalsToImportInParallel, intervals.size());
+    }
+
     /**
      * A complete traversal from start to finish. This method will import all samples
-     * specified in the input GVCF files.
+     * specified in the input GVCF files into every interval.
      */
     @Override
     public void traverse() {
         // Force the progress meter to update after every batch
         progressMeter.setRecordsBetweenTimeChecks(1L);
 
+        if (importExecutorService == null) {
+            intervalToWorkspace.forEach(this::importInterval);
+            return;
+        }
+
+        final List<Future<?>> futures = new ArrayList<>(intervalToWorkspace.size());
+        intervalToWorkspace.forEach((interval, partitionDir) ->
+                futures.add(importExecutorService.submit(() -> importInterval(interval, partitionDir))));
+        for (final Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new GATKException("Interrupted while waiting for GenomicsDB import to complete", e);
+            } catch (final ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new GATKException("GenomicsDB import failed", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Import all samples for a single interval into the given workspace, batch by batch.
+     *
+     * When reader threads are available the readers for batch N+1 are opened and their queries are started while
+     * batch N is being imported, so that the import does not wait on opening the inputs between batches.
+     */
+    private void importInterval(final ChromosomeInterval interval, final File partitionDir) {
         final int sampleCount = sampleNameToVcfPath.size();
         final int updatedBatchSize = (batchSize == DEFAULT_ZERO_BATCH_SIZE) ? sampleCount : batchSize;
         final int totalBatchCount = (sampleCount/updatedBatchSize) + (sampleCount%updatedBatchSize==0 ? 0 : 1);
 
         GenomicsDBImporter importer;
 
-        for (int i = 0, batchCount = 1; i < sampleCount; i += updatedBatchSize, ++batchCount) {
+        Map<String, Future<FeatureReader<VariantContext>>> nextBatchReaders =
+                inputPreloadExecutorService != null ? startFeatureReaderPreload(sampleNameToVcfPath, interval, updatedBatchSize, 0) : null;
+        SortedMap<String, FeatureReader<VariantContext>> sampleToReaderMap = null;
 
-            final SortedMap<String, FeatureReader<VariantContext>> sampleToReaderMap =
-                    inputPreloadExecutorService != null
-                            ? getFeatureReadersInParallel(sampleNameToVcfPath, updatedBatchSize, i)
-                            : getFeatureReadersSerially(sampleNameToVcfPath, updatedBatchSize, i);
+        try {
+            for (int i = 0, batchCount = 1; i < sampleCount; i += updatedBatchSize, ++batchCount) {
 
-            logger.info("Importing batch " + batchCount + " with " + sampleToReaderMap.size() + " samples");
-            final long variantContextBufferSize = vcfBufferSizePerSample * sampleToReaderMap.size();
-            final GenomicsDBImportConfiguration.ImportConfiguration importConfiguration =
-                    createImportConfiguration(workspace, GenomicsDBConstants.DEFAULT_ARRAY_NAME,
-                                              variantContextBufferSize, segmentSize,
-                                              i, (i+updatedBatchSize-1),
-                                              (batchCount == 1)); //Fail if array exists and this is the first batch
+                if (nextBatchReaders != null) {
+                    sampleToReaderMap = getPreloadedFeatureReaders(nextBatchReaders);
+                    nextBatchReaders = null;
+                } else {
+                    sampleToReaderMap = getFeatureReadersSerially(sampleNameToVcfPath, updatedBatchSize, i);
+                }
 
-            try {
-                importer = new GenomicsDBImporter(sampleToReaderMap, mergedHeaderLines, intervals.get(0), validateSampleToReaderMap, importConfiguration);
-            } catch (final IOException e) {
-                throw new UserException("Error initializing GenomicsDBImporter in batch " + batchCount, e);
-            } catch (final IllegalArgumentException iae) {
-                throw new GATKException("Null feature reader found in sampleNameMap file: " + sampleNameMapFile, iae);
+                // start opening the next batch while this one is imported
+                final int nextBatchStart = i + updatedBatchSize;
+                nextBatchReaders = inputPreloadExecutorService != null && nextBatchStart < sampleCount
+                        ? startFeatureReaderPreload(sampleNameToVcfPath, interval, updatedBatchSize, nextBatchStart) : null;
+
+                logger.info("Importing batch " + batchCount + " with " + sampleToReaderMap.size() + " samples into " + interval);
+                final long variantContextBufferSize = getVariantContextBufferSize(sampleToReaderMap.size());
+                final GenomicsDBImportConfiguration.ImportConfiguration importConfiguration =
+                        createImportConfiguration(partitionDir.getAbsolutePath(), GenomicsDBConstants.DEFAULT_ARRAY_NAME,
+                                                  variantContextBufferSize, segmentSize,
+                                                  i, (i+updatedBatchSize-1),
+                                                  (batchCount == 1)); //Fail if array exists and this is the first batch
+
+                try {
+                    importer = new GenomicsDBImporter(sampleToReaderMap, mergedHeaderLines, interval, validateSampleToReaderMap, importConfiguration);
+                } catch (final IOException e) {
+                    throw new UserException("Error initializing GenomicsDBImporter in batch " + batchCount, e);
+                } catch (final IllegalArgumentException iae) {
+                    throw new GATKException("Null feature reader found in sampleNameMap file: " + sampleNameMapFile, iae);
+                }
+                try {
+                    importer.importBatch();
+                } catch (final IOException e) {
+                    throw new UserException("GenomicsDB import failed in batch " + batchCount, e);
+                }
+                closeReaders(sampleToReaderMap);
+                sampleToReaderMap = null;
+                synchronized (progressMeter) {
+                    progressMeter.update(interval);
+                }
+                logger.info("Done importing batch " + batchCount + "/" + totalBatchCount + " for " + interval);
             }
-            try {
-                importer.importBatch();
-            } catch (final IOException e) {
-                throw new UserException("GenomicsDB import failed in batch " + batchCount, e);
+        } finally {
+            // only non-null if a batch failed: don't leak the readers of that batch or of the batch being preloaded
+            if (sampleToReaderMap != null) {
+                closeReadersAfterFailure(sampleToReaderMap.values());
+            }
+            if (nextBatchReaders != null) {
+                closePreloadedFeatureReadersAfterFailure(nextBatchReaders);
             }
-            closeReaders(sampleToReaderMap);
-            progressMeter.update(intervals.get(0));
-            logger.info("Done importing batch " + batchCount + "/" + totalBatchCount);
         }
     }
 
+    /**
+     * @return the size in bytes of the buffer used to store variant contexts for a batch with the given number of samples,
+     *         either the per-sample size times the number of samples or an equal share of the total budget, if one was given
+     */
+    private long getVariantContextBufferSize(final int samplesInBatch) {
+        if (vcfBufferBudget > 0) {
+            return vcfBufferBudget / getNumConcurrentImports();
+        }
+        return vcfBufferSizePerSample * samplesInBatch;
+    }
+
     @Override
     public Object onTraversalSuccess() {
         if (batchSize==DEFAULT_ZERO_BATCH_SIZE) {
@@ -524,7 +681,28 @@ public final class GenomicsDBImport extends GATKTool {
             logger.info("Import of all batches to GenomicsDB completed!");
         }
 
-        // Write the vid and callset map JSON files
+        // Write the vid and callset map JSON files and the header into every workspace partition
+        for (final File partitionDir : intervalToWorkspace.values()) {
+            writeWorkspaceMetadata(partitionDir);
+            if (doConsolidation) {
+                logger.info("GenomicsDB consolidation started for " + partitionDir);
+                GenomicsDBImporter.consolidateTileDBArray(partitionDir.getAbsolutePath(), GenomicsDBConstants.DEFAULT_ARRAY_NAME);
+                logger.info("GenomicsDB consolidation completed for " + partitionDir);
+            }
+        }
+
+        return true;
+    }
+
+    private void writeWorkspaceMetadata(final File workspaceDir) {
+        final File vidMapJSONFile = new File(workspaceDir, GenomicsDBConstants.DEFAULT_VIDMAP_FILE_NAME);
+        final File callsetMapJSONFile = new File(workspaceDir, GenomicsDBConstants.DEFAULT_CALLSETMAP_FILE_NAME);
+        final File vcfHeaderFile = new File(workspaceDir, GenomicsDBConstants.DEFAULT_VCFHEADER_FILE_NAME);
+
+        logger.info("Vid Map JSON file will be written to " + vidMapJSONFile);
+        logger.info("Callset Map JSON file will be written to " + callsetMapJSONFile);
+        logger.info("Complete VCF Header will be written to " + vcfHeaderFile);
+
         try {
             GenomicsDBImporter.writeVidMapJSONFile(vidMapJSONFile.getAbsolutePath(), mergedHeaderLines);
         } catch (final FileNotFoundException fe) {
@@ -540,29 +718,21 @@ public final class GenomicsDBImport extends GATKTool {
         } catch (final FileNotFoundException fe) {
             throw new UserException("Unable to write VCF Header file " + vcfHeaderFile.getAbsolutePath(), fe);
         }
-
-
-        if (doConsolidation) {
-            logger.info("GenomicsDB consolidation started");
-            GenomicsDBImporter.consolidateTileDBArray(workspace, GenomicsDBConstants.DEFAULT_ARRAY_NAME);
-            logger.info("GenomicsDB consolidation completed");
-        }
-
-        return true;
     }
 
     /**
-     * Method to create feature readers for input files or GCS URLs
-     * in the current batch
+     * Method to start creating feature readers for input files or GCS URLs
+     * in a batch, on the reader threads
      *
      * @param sampleNametoPath  Sample name to file name mapping
+     * @param interval  Interval that the readers will be queried over
      * @param batchSize  Current batch size
      * @param lowerSampleIndex  0-based Lower bound of sample index -- inclusive
-     * @return  Feature readers to be imported in the current batch, sorted by sample name
+     * @return  Futures of the feature readers to be imported in the batch, keyed by sample name
      */
-    private SortedMap<String, FeatureReader<VariantContext>> getFeatureReadersInParallel(final SortedMap<String, Path> sampleNametoPath,
-                                                                                   final int batchSize, final int lowerSampleIndex) {
-        final SortedMap<String, FeatureReader<VariantContext>> sampleToReaderMap = new TreeMap<>();
+    private Map<String, Future<FeatureReader<VariantContext>>> startFeatureReaderPreload(final SortedMap<String, Path> sampleNametoPath,
+                                                                                        final ChromosomeInterval interval,
+                                                                                        final int batchSize, final int lowerSampleIndex) {
         logger.info("Starting batch input file preload");
         final Map<String, Future<FeatureReader<VariantContext>>> futures = new LinkedHashMap<>();
         final List<String> sampleNames = new ArrayList<>(sampleNametoPath.keySet());
@@ -571,13 +741,22 @@ public final class GenomicsDBImport extends GATKTool {
             futures.put(sampleName, inputPreloadExecutorService.submit(() -> {
                 final Path variantPath = sampleNametoPath.get(sampleName);
                 try {
-                    return new InitializedQueryWrapper(getReaderFromPath(variantPath), intervals.get(0));
+                    return new InitializedQueryWrapper(getReaderFromPath(variantPath), interval);
                 } catch (final IOException e) {
                     throw new UserException.CouldNotReadInputFile("Couldn't read file: " + variantPath.toUri(), e);
                 }
             }));
         }
+        return futures;
+    }
 
+    /**
+     * Wait for the feature readers of a batch started by {@link #startFeatureReaderPreload} to be initialized
+     *
+     * @return  Feature readers to be imported in the batch, sorted by sample name
+     */
+    private SortedMap<String, FeatureReader<VariantContext>> getPreloadedFeatureReaders(final Map<String, Future<FeatureReader<VariantContext>>> futures) {
+        final SortedMap<String, FeatureReader<VariantContext>> sampleToReaderMap = new TreeMap<>();
         futures.forEach((sampleName, future) -> {
             try {
                 final FeatureReader<VariantContext> reader = future.get();
@@ -689,6 +868,43 @@ public final class GenomicsDBImport extends GATKTool {
         }
     }
 
+    /**
+     * Close the readers of a batch whose import failed, without masking the failure if a reader can't be closed
+     *
+     * @param readers  Readers of the failed batch
+     */
+    private void closeReadersAfterFailure(final Collection<FeatureReader<VariantContext>> readers) {
+        for (final FeatureReader<VariantContext> reader : readers) {
+            try {
+                reader.close();
+            } catch (final IOException e) {
+                logger.warn("FeatureReader close() failed after a failed import", e);
+            }
+        }
+    }
+
+    /**
+     * Wait for the readers of a batch started by {@link #startFeatureReaderPreload} to be initialized and close them,
+     * after the import of the current batch failed. Readers being initialized can't be cancelled without leaking them,
+     * so we wait for them instead.
+     *
+     * @param futures  Futures of the feature readers of the preloaded batch
+     */
+    private void closePreloadedFeatureReadersAfterFailure(final Map<String, Future<FeatureReader<VariantContext>>> futures) {
+        final List<FeatureReader<VariantContext>> readers = new ArrayList<>(futures.size());
+        for (final Future<FeatureReader<VariantContext>> future : futures.values()) {
+            try {
+                readers.add(future.get());
+            } catch (final ExecutionException e) {
+                // the reader was never opened
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        closeReadersAfterFailure(readers);
+    }
+
     /**
      * Input argument "overwriteExistingWorkspace" defaults to false.
      * The tool creates a new workspace if it doesn't exist. Deletes
@@ -704,12 +920,10 @@ public final class GenomicsDBImport extends GATKTool {
         }
 
         if (!workspaceDir.exists()) {
-            final int ret = GenomicsDBImporter.createTileDBWorkspace(workspaceDir.getAbsolutePath());
-            if (ret > 0) {
-                checkIfValidWorkspace(workspaceDir);
-                logger.info("Importing data to GenomicsDB workspace: " + workspaceDir);
-            } else if (ret < 0) {
-                throw new UnableToCreateGenomicsDBWorkspace("Error creating GenomicsDB workspace: " + workspaceDir);
+            if (intervals.size() == 1) {
+                createWorkspace(workspaceDir);
+            } else if (!workspaceDir.mkdirs()) {
+                throw new UnableToCreateGenomicsDBWorkspace("Error creating GenomicsDB workspace directory: " + workspaceDir);
             }
             return workspaceDir;
         } else {
@@ -719,6 +933,16 @@ public final class GenomicsDBImport extends GATKTool {
         }
     }
 
+    private void createWorkspace(final File workspaceDir) {
+        final int ret = GenomicsDBImporter.createTileDBWorkspace(workspaceDir.getAbsolutePath());
+        if (ret > 0) {
+            checkIfValidWorkspace(workspaceDir);
+            logger.info("Importing data to GenomicsDB workspace: " + workspaceDir);
+        } else if (ret < 0) {
+            throw new UnableToCreateGenomicsDBWorkspace("Error creating GenomicsDB workspace: " + workspaceDir);
+        }
+    }
+
     static class UnableToCreateGenomicsDBWorkspace extends UserException {
         private static final long serialVersionUID = 1L;
 
@@ -753,10 +977,6 @@ public final class GenomicsDBImport extends GATKTool {
             final List<SimpleInterval> simpleIntervalList =
                 intervalArgumentCollection.getIntervals(intervalDictionary);
 
-            if (simpleIntervalList.size() > 1) {
-                throw new UserException("More than one interval specified. The tool takes only one");
-            }
-
             for (final SimpleInterval simpleInterval : simpleIntervalList) {
                 intervals.add(new ChromosomeInterval(simpleInterval.getContig(),
                   simpleInterval.getStart(), simpleInterval.getEnd()));
@@ -771,6 +991,9 @@ public final class GenomicsDBImport extends GATKTool {
         if( inputPreloadExecutorService != null) {
             inputPreloadExecutorService.shutdownNow();
         }
+        if( importExecutorService != null) {
+            importExecutorService.shutdownNow();
+        }
     }
 
     /**
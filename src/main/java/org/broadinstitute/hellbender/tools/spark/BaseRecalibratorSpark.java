@@ -115,7 +115,7 @@ public class BaseRecalibratorSpark extends GATKSparkTool {
         return BaseRecalibrator.getStandardBQSRReadFilterList();
     }
 
-    @Argument(doc = "the known variants", fullName = BaseRecalibrator.KNOWN_SITES_ARG_FULL_NAME, optional = false)
+    @Argument(doc = "the known variants, as VCFs or as known sites indices created by CreateKnownSitesIndex", fullName = BaseRecalibrator.KNOWN_SITES_ARG_FULL_NAME, optional = false)
     private List<String> knownVariants;
 
     @Argument(doc = "the join strategy for reference bases and known variants", fullName = "join-strategy", optional = true)
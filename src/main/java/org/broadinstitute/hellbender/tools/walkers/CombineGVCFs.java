@@ -9,6 +9,9 @@ import htsjdk.variant.vcf.VCFConstants;
 import htsjdk.variant.vcf.VCFHeader;
 import htsjdk.variant.vcf.VCFHeaderLine;
 import htsjdk.variant.vcf.VCFStandardHeaderLines;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntRBTreeSet;
+import it.unimi.dsi.fastutil.ints.IntSortedSet;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.ArgumentCollection;
 import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
@@ -158,7 +161,14 @@ public final class CombineGVCFs extends MultiVariantWalkerGroupedOnStart {
         // Note: Precomputing these is really inefficient when large reference blocks are closed with
         // fine band resolution because it results in very large collections of stop sites (tens or hundreds of millions)
         // that must subsequently be sorted.
-        final Set<Integer> sitesToStop = getIntermediateStopSites(intervalToClose, multipleAtWhichToBreakBands);
+        final int start = intervalToClose.getStart();
+        final int end = intervalToClose.getEnd();
+        final IntSortedSet sitesToStop = new IntRBTreeSet();
+        for (final int bandStopSite : getIntermediateStopSites(intervalToClose, multipleAtWhichToBreakBands)) {
+            if (bandStopSite >= start && bandStopSite <= end) {
+                sitesToStop.add(bandStopSite);
+            }
+        }
 
         // If any variant contexts ended (or were spanning deletions) the last context compute where we should stop them
         for (VariantContext vc : variantContextsOverlappingCurrentMerge) {
@@ -167,22 +177,22 @@ public final class CombineGVCFs extends MultiVariantWalkerGroupedOnStart {
             // symbolic alleles to be present in all VariantContext. This might also be the case if we saw a spanning
             // deletion that reads into the current site, as we would expect ReferenceConfidenceVariantContextMerger to
             // insert symbolic alleles for those spanning variants.
+            // Only the part of the variant inside the interval being closed is added, so that long variants that are
+            // closed over many consecutive intervals aren't expanded base by base every time.
             if (vc.getNAlleles() > 2) {
-                for (int i = vc.getStart(); i <= vc.getEnd(); i++ ) {
+                for (int i = Math.max(vc.getStart(), start); i <= Math.min(vc.getEnd(), end); i++ ) {
                     sitesToStop.add(i);
                 }
-            } else if (vc.getEnd() <= intervalToClose.getEnd()) {
+            } else if (vc.getEnd() <= end && vc.getEnd() >= start) {
                 sitesToStop.add(vc.getEnd());
             }
         }
 
-        List<Integer> stoppedLocs = new ArrayList<>(sitesToStop);
-        stoppedLocs.sort(Comparator.naturalOrder());
-
         // For each stopped loc that is within the interval being closed, create a fake QueuedContextState and pass it to endPreviousStats
-        for (int stoppedLoc : stoppedLocs) {
+        for (final IntIterator stoppedLocs = sitesToStop.iterator(); stoppedLocs.hasNext(); ) {
+            final int stoppedLoc = stoppedLocs.nextInt();
             SimpleInterval loc = new SimpleInterval(intervalToClose.getContig(), stoppedLoc, stoppedLoc);
-            if (( stoppedLoc <= intervalToClose.getEnd() && stoppedLoc>= intervalToClose.getStart()) && isWithinInterval(loc)) {
+            if (isWithinInterval(loc)) {
                 byte[] refBases = Arrays.copyOfRange(storedReferenceContext.getBases(), stoppedLoc - storedReferenceContext.getWindow().getStart(), stoppedLoc - storedReferenceContext.getWindow().getStart() + 2);
                 endPreviousStates(loc, refBases, Collections.emptyList(), true);
             }
@@ -0,0 +1,227 @@
+package org.broadinstitute.hellbender.tools.walkers;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFHeader;
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.api.java.function.FlatMapFunction;
+import org.apache.spark.broadcast.Broadcast;
+import org.broadinstitute.barclay.argparser.Argument;
+import org.broadinstitute.barclay.argparser.ArgumentCollection;
+import org.broadinstitute.barclay.argparser.BetaFeature;
+import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
+import org.broadinstitute.barclay.help.DocumentedFeature;
+import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
+import org.broadinstitute.hellbender.cmdline.argumentcollections.DbsnpArgumentCollection;
+import org.broadinstitute.hellbender.cmdline.programgroups.ShortVariantDiscoveryProgramGroup;
+import org.broadinstitute.hellbender.engine.*;
+import org.broadinstitute.hellbender.engine.datasources.ReferenceMultiSource;
+import org.broadinstitute.hellbender.engine.spark.GATKSparkTool;
+import org.broadinstitute.hellbender.engine.spark.datasources.VariantsSparkSink;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.tools.walkers.annotator.Annotation;
+import org.broadinstitute.hellbender.tools.walkers.annotator.StandardAnnotation;
+import org.broadinstitute.hellbender.tools.walkers.annotator.VariantAnnotatorEngine;
+import org.broadinstitute.hellbender.tools.walkers.genotyper.GenotypeCalculationArgumentCollection;
+import org.broadinstitute.hellbender.utils.IntervalUtils;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Perform joint genotyping on one or more samples pre-called with HaplotypeCaller, using Spark to distribute the work.
+ *
+ * <p>This is an implementation of {@link GenotypeGVCFs} using Spark. The genome (or the -L intervals) is divided into
+ * shards of {@code --variant-shard-size} bases, the shards are distributed to the executors, and each executor streams the
+ * combined GVCF records or the GenomicsDB partition for its shards and genotypes them site by site with the same
+ * {@link GenotypeGVCFsEngine} used by the walker. The genotyped sites are then written in sorted order through
+ * {@link VariantsSparkSink}.</p>
+ *
+ * <h3>Input</h3>
+ * <p>
+ * A single indexed multi-sample GVCF created by CombineGVCFs, or a GenomicsDB workspace created by GenomicsDBImport.
+ * The input is read directly by the executors, so it must be on a filesystem that is visible to all of them
+ * (a shared filesystem, HDFS or GCS). A GenomicsDB workspace and the reference FASTA must be on a local or shared
+ * POSIX filesystem.
+ * </p>
+ *
+ * <h3>Output</h3>
+ * <p>
+ * A final VCF in which all samples have been jointly genotyped.
+ * </p>
+ *
+ * <h3>Usage example</h3>
+ * <pre>
+ * gatk GenotypeGVCFsSpark \
+ *   -R Homo_sapiens_assembly38.fasta \
+ *   -V gendb://my_database \
+ *   -O output.vcf.gz \
+ *   -- \
+ *   --spark-runner SPARK --spark-master &lt;master_url&gt;
+ * </pre>
+ *
+ * <h3>Caveats</h3>
+ * <ul>
+ *   <li>Only calls that start within a shard (and therefore within the -L intervals, if given) are emitted, which is the
+ *   behavior of {@link GenotypeGVCFs} with --{@value GenotypeGVCFs#ONLY_OUTPUT_CALLS_STARTING_IN_INTERVALS_FULL_NAME}.</li>
+ *   <li>Writing BCF output is not supported.</li>
+ * </ul>
+ */
+@CommandLineProgramProperties(summary = "Perform joint genotyping on a multi-sample GVCF from CombineGVCFs or a GenomicsDB workspace from GenomicsDBImport, using Spark",
+        oneLineSummary = "Perform joint genotyping on one or more samples pre-called with HaplotypeCaller, using Spark",
+        programGroup = ShortVariantDiscoveryProgramGroup.class)
+@DocumentedFeature
+@BetaFeature
+public final class GenotypeGVCFsSpark extends GATKSparkTool {
+    private static final long serialVersionUID = 1L;
+
+    public static final String VARIANT_SHARD_SIZE_LONG_NAME = "variant-shard-size";
+    public static final String VARIANT_SHARD_PADDING_LONG_NAME = "variant-shard-padding";
+
+    public static final int DEFAULT_VARIANT_SHARD_SIZE = 10000;
+    public static final int DEFAULT_VARIANT_SHARD_PADDING = 1000;
+
+    // NOTE: using a String rather than FeatureInput<VariantContext> here so that this driving source of variants
+    //       is not picked up by the FeatureManager as a side input
+    @Argument(fullName = StandardArgumentDefinitions.VARIANT_LONG_NAME, shortName = StandardArgumentDefinitions.VARIANT_SHORT_NAME,
+            doc = "A combined GVCF or a GenomicsDB workspace (gendb://) containing the samples to genotype", optional = false)
+    public String drivingVariantFile;
+
+    @Argument(fullName = StandardArgumentDefinitions.OUTPUT_LONG_NAME, shortName = StandardArgumentDefinitions.OUTPUT_SHORT_NAME,
+            doc = "Single file to which variants should be written", optional = false)
+    public String output;
+
+    @Argument(fullName = VARIANT_SHARD_SIZE_LONG_NAME, doc = "Maximum size of each variant shard, in bases.", optional = true)
+    public int variantShardSize = DEFAULT_VARIANT_SHARD_SIZE;
+
+    @Argument(fullName = VARIANT_SHARD_PADDING_LONG_NAME, doc = "Each variant shard has this many bases of extra reference context on each side.", optional = true)
+    public int variantShardPadding = DEFAULT_VARIANT_SHARD_PADDING;
+
+    @ArgumentCollection
+    public GenotypeCalculationArgumentCollection genotypeArgs = new GenotypeCalculationArgumentCollection();
+
+    /**
+     * The rsIDs from this file are used to populate the ID column of the output.  Also, the DB INFO flag will be set
+     * when appropriate. Note that dbSNP is not used in any way for the genotyping calculations themselves.
+     */
+    @ArgumentCollection
+    public final DbsnpArgumentCollection dbsnp = new DbsnpArgumentCollection();
+
+    @Override
+    public boolean requiresReference() {
+        return true;
+    }
+
+    @Override
+    public boolean useVariantAnnotations() { return true;}
+
+    @Override
+    public List<Class<? extends Annotation>> getDefaultVariantAnnotationGroups() {
+        return Collections.singletonList(StandardAnnotation.class);
+    }
+
+    @Override
+    protected void runTool(final JavaSparkContext ctx) {
+        final Path referencePath = referenceArguments.getReferencePath();
+        final VCFHeader inputVCFHeader = getInputHeader(drivingVariantFile, referencePath);
+
+        final VariantAnnotatorEngine annotationEngine = new VariantAnnotatorEngine(makeVariantAnnotations(), dbsnp.dbsnp, Collections.emptyList(), false);
+        final GenotypeGVCFsEngine gvcfEngine = new GenotypeGVCFsEngine(annotationEngine, genotypeArgs, false, inputVCFHeader);
+        final VCFHeader outputHeader = gvcfEngine.makeFinalVCFHeader(inputVCFHeader, getDefaultToolVCFHeaderLines(), dbsnp.dbsnp != null);
+
+        final SAMSequenceDictionary sequenceDictionary = getBestAvailableSequenceDictionary();
+        final List<SimpleInterval> intervals = hasIntervals() ? getIntervals() : IntervalUtils.getAllIntervalsForReference(sequenceDictionary);
+        final List<ShardBoundary> shardBoundaries = intervals.stream()
+                .flatMap(interval -> Shard.divideIntervalIntoShards(interval, variantShardSize, variantShardPadding, sequenceDictionary).stream())
+                .collect(Collectors.toList());
+
+        final JavaRDD<VariantContext> variants = genotypeShards(ctx, shardBoundaries, drivingVariantFile,
+                referenceArguments.getReferenceFileName(), inputVCFHeader, sequenceDictionary, annotationEngine, genotypeArgs);
+        try {
+            VariantsSparkSink.writeVariants(ctx, output, variants, outputHeader, false, null, 0, numReducers);
+        } catch (final IOException e) {
+            throw new UserException.CouldNotCreateOutputFile(output, "writing failed", e);
+        }
+    }
+
+    private JavaRDD<VariantContext> genotypeShards(final JavaSparkContext ctx,
+                                                   final List<ShardBoundary> shardBoundaries,
+                                                   final String variantsPath,
+                                                   final String referenceFileName,
+                                                   final VCFHeader inputVCFHeader,
+                                                   final SAMSequenceDictionary sequenceDictionary,
+                                                   final VariantAnnotatorEngine annotationEngine,
+                                                   final GenotypeCalculationArgumentCollection genotypeArgs) {
+        final Broadcast<ReferenceMultiSource> referenceBroadcast = ctx.broadcast(getReference());
+        final Broadcast<FeatureManager> featureManagerBroadcast = features == null ? null : ctx.broadcast(features);
+        final Broadcast<VariantAnnotatorEngine> annotatorEngineBroadcast = ctx.broadcast(annotationEngine);
+        final Broadcast<GenotypeCalculationArgumentCollection> genotypeArgsBroadcast = ctx.broadcast(genotypeArgs);
+        final Broadcast<VCFHeader> headerBroadcast = ctx.broadcast(inputVCFHeader);
+
+        return ctx.parallelize(shardBoundaries, shardBoundaries.size())
+                .mapPartitions(genotypeShardsFunction(variantsPath, referenceFileName, sequenceDictionary, referenceBroadcast,
+                        featureManagerBroadcast, annotatorEngineBroadcast, genotypeArgsBroadcast, headerBroadcast));
+    }
+
+    private static FlatMapFunction<Iterator<ShardBoundary>, VariantContext> genotypeShardsFunction(
+            final String variantsPath,
+            final String referenceFileName,
+            final SAMSequenceDictionary sequenceDictionary,
+            final Broadcast<ReferenceMultiSource> referenceBroadcast,
+            final Broadcast<FeatureManager> featureManagerBroadcast,
+            final Broadcast<VariantAnnotatorEngine> annotatorEngineBroadcast,
+            final Broadcast<GenotypeCalculationArgumentCollection> genotypeArgsBroadcast,
+            final Broadcast<VCFHeader> headerBroadcast) {
+        return shards -> {
+            // GenotypeGVCFsEngine isn't serializable, so construct and reuse one for every partition
+            final GenotypeGVCFsEngine gvcfEngine = new GenotypeGVCFsEngine(annotatorEngineBroadcast.getValue(),
+                    genotypeArgsBroadcast.getValue(), false, headerBroadcast.getValue());
+            final ReferenceMultiSource reference = referenceBroadcast.getValue();
+            final FeatureManager features = featureManagerBroadcast == null ? null : featureManagerBroadcast.getValue();
+
+            // genotyped output is much sparser than the combined input, so we collect it for the whole partition and
+            // close the data source before handing the results back to Spark
+            final List<VariantContext> genotyped = new ArrayList<>();
+            try ( final FeatureDataSource<VariantContext> variantSource = openVariantSource(variantsPath, IOUtils.getPath(referenceFileName)) ) {
+                while ( shards.hasNext() ) {
+                    final ShardBoundary shard = shards.next();
+                    final ReferenceDataSource shardReference = new ReferenceMemorySource(reference.getReferenceBases(shard.getPaddedInterval()), sequenceDictionary);
+                    for ( final VariantContext variant : variantSource.queryAndPrefetch(shard.getInterval()) ) {
+                        // only genotype variants that start in the shard, so that each site is genotyped exactly once
+                        if ( variant.getStart() < shard.getStart() || variant.getStart() > shard.getEnd() ) {
+                            continue;
+                        }
+                        final SimpleInterval variantInterval = new SimpleInterval(variant);
+                        final VariantContext regenotypedVC = gvcfEngine.callRegion(variant,
+                                new ReferenceContext(shardReference, variantInterval),
+                                new FeatureContext(features, variantInterval));
+                        if ( regenotypedVC != null ) {
+                            genotyped.add(regenotypedVC);
+                        }
+                    }
+                }
+            }
+            return genotyped.iterator();
+        };
+    }
+
+    private static VCFHeader getInputHeader(final String variantsPath, final Path referencePath) {
+        try ( final FeatureDataSource<VariantContext> variantSource = openVariantSource(variantsPath, referencePath) ) {
+            final Object header = variantSource.getHeader();
+            if ( !(header instanceof VCFHeader) ) {
+                throw new UserException.BadInput("The input " + variantsPath + " must be a GVCF or a GenomicsDB workspace");
+            }
+            return (VCFHeader) header;
+        }
+    }
+
+    private static FeatureDataSource<VariantContext> openVariantSource(final String variantsPath, final Path referencePath) {
+        return new FeatureDataSource<>(new FeatureInput<>(variantsPath, "variants", Collections.emptyMap()), FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES,
+                VariantContext.class, 0, 0, referencePath);
+    }
+}
@@ -1,6 +1,8 @@
 package org.broadinstitute.hellbender.tools.walkers;
 
 import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SamFiles;
+import htsjdk.samtools.SamReaderFactory;
 import htsjdk.samtools.util.Interval;
 import htsjdk.samtools.util.IntervalList;
 import htsjdk.samtools.util.RuntimeIOException;
@@ -9,16 +11,21 @@ import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
 import org.broadinstitute.barclay.help.DocumentedFeature;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.cmdline.argumentcollections.IntervalArgumentCollection;
+import org.broadinstitute.hellbender.exceptions.UserException;
 import picard.cmdline.programgroups.IntervalsManipulationProgramGroup;
 import org.broadinstitute.hellbender.engine.GATKTool;
 import org.broadinstitute.hellbender.utils.IntervalUtils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.WorkloadBalancedIntervalScatterer;
+import org.broadinstitute.hellbender.utils.read.IndexedReadDensity;
 import org.broadinstitute.hellbender.utils.param.ParamUtils;
 import picard.util.IntervalListScatterer;
 
 import java.io.File;
+import java.nio.file.Path;
 import java.text.DecimalFormat;
 import java.util.List;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 /**
@@ -48,6 +55,23 @@ import java.util.stream.IntStream;
  *    of input intervals is split, but individual intervals are left intact.  This may affect results when using assembly-based callers downstream.
  * </p>
  *
+ * <p>
+ *    By default each file contains a similar number of bases, but the time that a tool such as HaplotypeCaller spends on an
+ *    interval mostly depends on the number of reads it covers.  With --balance-by-read-density, the intervals are instead
+ *    split so that each file covers a similar amount of read data, as estimated from the BAI or CRAI indices of the
+ *    reads given with -I.  The reads themselves are not read, so this is cheap even for large inputs.
+ * </p>
+ *
+ * <pre>
+ * gatk SplitIntervals \
+ *   -R ref_fasta.fa \
+ *   -L intervals.list \
+ *   -I reads.bam \
+ *   --scatter-count 50 \
+ *   --balance-by-read-density \
+ *   -O interval-files-folder
+ * </pre>
+ *
  * */
 @CommandLineProgramProperties(
         summary = "Split intervals into sub-interval files.",
@@ -63,6 +87,8 @@ public class SplitIntervals extends GATKTool {
     public static final String SUBDIVISION_MODE_SHORT_NAME = "mode";
     public static final String SUBDIVISION_MODE_lONG_NAME = "subdivision-mode";
 
+    public static final String BALANCE_BY_READ_DENSITY_LONG_NAME = "balance-by-read-density";
+
 
     @Argument(fullName = SCATTER_COUNT_LONG_NAME, shortName = SCATTER_COUNT_SHORT_NAME,
             doc = "scatter count: number of output interval files to split into", optional = true)
@@ -71,6 +97,14 @@ public class SplitIntervals extends GATKTool {
     @Argument(fullName = SUBDIVISION_MODE_lONG_NAME, shortName = SUBDIVISION_MODE_SHORT_NAME, doc = "How to divide intervals.")
     private IntervalListScatterer.Mode subdivisionMode = IntervalListScatterer.Mode.INTERVAL_SUBDIVISION;
 
+    /**
+     * Balance the output files by the amount of read data of the inputs given with -I, as estimated from their indices,
+     * rather than by base count.  The subdivision mode still determines whether input intervals may be split.
+     */
+    @Argument(fullName = BALANCE_BY_READ_DENSITY_LONG_NAME,
+            doc = "Balance the output files by the density of the input reads estimated from their indices", optional = true)
+    private boolean balanceByReadDensity = false;
+
     @Argument(doc = "The directory into which to write the scattered interval sub-directories.",
             fullName = StandardArgumentDefinitions.OUTPUT_LONG_NAME,
             shortName = StandardArgumentDefinitions.OUTPUT_SHORT_NAME)
@@ -91,15 +125,49 @@ public class SplitIntervals extends GATKTool {
         final List<SimpleInterval> intervals = hasIntervals() ? intervalArgumentCollection.getIntervals(sequenceDictionary)
                 : IntervalUtils.getAllIntervalsForReference(sequenceDictionary);
 
-        final IntervalList intervalList = new IntervalList(sequenceDictionary);
-        intervals.stream().map(si -> new Interval(si.getContig(), si.getStart(), si.getEnd())).forEach(intervalList::add);
-        final IntervalListScatterer scatterer = new IntervalListScatterer(subdivisionMode);
-        final List<IntervalList> scattered = scatterer.scatter(intervalList, scatterCount, false);
+        final List<IntervalList> scattered;
+        if (balanceByReadDensity) {
+            scattered = scatterByReadDensity(intervals, sequenceDictionary);
+        } else {
+            final IntervalList intervalList = new IntervalList(sequenceDictionary);
+            intervals.stream().map(si -> new Interval(si.getContig(), si.getStart(), si.getEnd())).forEach(intervalList::add);
+            final IntervalListScatterer scatterer = new IntervalListScatterer(subdivisionMode);
+            scattered = scatterer.scatter(intervalList, scatterCount, false);
+        }
 
         final DecimalFormat formatter = new DecimalFormat("0000");
         IntStream.range(0, scattered.size()).forEach(n -> scattered.get(n).write(new File(outputDir, formatter.format(n) + "-scattered.intervals")));
     }
 
+    private List<IntervalList> scatterByReadDensity(final List<SimpleInterval> intervals, final SAMSequenceDictionary sequenceDictionary) {
+        if (!hasReads()) {
+            throw new UserException("--" + BALANCE_BY_READ_DENSITY_LONG_NAME + " requires reads inputs (-I).");
+        }
+        SamReaderFactory factory = SamReaderFactory.makeDefault().validationStringency(readArguments.getReadValidationStringency());
+        if (hasReference()) {
+            factory = factory.referenceSequence(referenceArguments.getReferencePath());
+        }
+
+        final IndexedReadDensity density = new IndexedReadDensity();
+        final List<Path> readPaths = readArguments.getReadPaths();
+        final List<Path> indexPaths = readArguments.getReadIndexPaths();
+        for (int i = 0; i < readPaths.size(); i++) {
+            final Path indexPath = indexPaths != null ? indexPaths.get(i) : SamFiles.findIndex(readPaths.get(i));
+            if (indexPath == null) {
+                throw new UserException.MissingIndex(readPaths.get(i).toUri().toString(),
+                        "--" + BALANCE_BY_READ_DENSITY_LONG_NAME + " requires indexed reads inputs.");
+            }
+            density.addIndex(indexPath, factory.getFileHeader(readPaths.get(i)).getSequenceDictionary());
+        }
+
+        final boolean subdivide = subdivisionMode == IntervalListScatterer.Mode.INTERVAL_SUBDIVISION;
+        return WorkloadBalancedIntervalScatterer.scatter(intervals, scatterCount, subdivide, density).stream().map(shard -> {
+            final IntervalList intervalList = new IntervalList(sequenceDictionary);
+            shard.forEach(si -> intervalList.add(new Interval(si.getContig(), si.getStart(), si.getEnd())));
+            return intervalList;
+        }).collect(Collectors.toList());
+    }
+
     @Override
     public void traverse() { }  // no traversal for this tool!
 }
@@ -1,9 +1,10 @@
 package org.broadinstitute.hellbender.tools.walkers.annotator;
 
-import com.google.common.primitives.Doubles;
 import htsjdk.variant.variantcontext.Allele;
 import htsjdk.variant.variantcontext.GenotypesContext;
 import htsjdk.variant.variantcontext.VariantContext;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.doubles.DoubleList;
 import org.broadinstitute.hellbender.engine.ReferenceContext;
 import org.broadinstitute.hellbender.utils.MannWhitneyU;
 import org.broadinstitute.hellbender.utils.QualityUtils;
@@ -33,8 +34,8 @@ public abstract class RankSumTest extends InfoFieldAnnotation implements Annotat
             return Collections.emptyMap();
         }
 
-        final List<Double> refQuals = new ArrayList<>();
-        final List<Double> altQuals = new ArrayList<>();
+        final DoubleList refQuals = new DoubleArrayList();
+        final DoubleList altQuals = new DoubleArrayList();
 
         final int refLoc = vc.getStart();
 
@@ -68,7 +69,7 @@ public abstract class RankSumTest extends InfoFieldAnnotation implements Annotat
         final MannWhitneyU mannWhitneyU = new MannWhitneyU();
 
         // we are testing that set1 (the alt bases) have lower quality scores than set2 (the ref bases)
-        final MannWhitneyU.Result result = mannWhitneyU.test(Doubles.toArray(altQuals), Doubles.toArray(refQuals), MannWhitneyU.TestType.FIRST_DOMINATES);
+        final MannWhitneyU.Result result = mannWhitneyU.test(altQuals.toDoubleArray(), refQuals.toDoubleArray(), MannWhitneyU.TestType.FIRST_DOMINATES);
         final double zScore = result.getZ();
 
         if (Double.isNaN(zScore)) {
@@ -78,7 +79,7 @@ public abstract class RankSumTest extends InfoFieldAnnotation implements Annotat
         }
     }
 
-    protected void fillQualsFromLikelihood(VariantContext vc, ReadLikelihoods<Allele> likelihoods, List<Double> refQuals, List<Double> altQuals, int refLoc) {
+    protected void fillQualsFromLikelihood(VariantContext vc, ReadLikelihoods<Allele> likelihoods, DoubleList refQuals, DoubleList altQuals, int refLoc) {
         for (final ReadLikelihoods<Allele>.BestAllele bestAllele : likelihoods.bestAllelesBreakingTies()) {
             final GATKRead read = bestAllele.read;
             final Allele allele = bestAllele.allele;
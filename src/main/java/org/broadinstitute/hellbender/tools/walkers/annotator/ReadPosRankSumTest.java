@@ -109,8 +109,8 @@ public final class ReadPosRankSumTest extends RankSumTest implements StandardAnn
         // check for hard clips (never consider these bases):
         final CigarElement first = read.getCigarElement(0);
 
-        final byte[] unclippedReadBases = read.getBases();
-        final byte[] unclippedReadQuals = read.getBaseQualities();
+        final byte[] unclippedReadBases = read.getBasesNoCopy();
+        final byte[] unclippedReadQuals = read.getBaseQualitiesNoCopy();
 
         // Do a stricter base clipping than provided by CIGAR string, since this one may be too conservative,
         // and may leave a string of Q2 bases still hanging off the reads.
@@ -148,8 +148,8 @@ public final class ReadPosRankSumTest extends RankSumTest implements StandardAnn
         // check for hard clips (never consider these bases):
         CigarElement last = read.getCigarElement(read.numCigarElements() - 1);
 
-        final byte[] unclippedReadBases = read.getBases();
-        final byte[] unclippedReadQuals = read.getBaseQualities();
+        final byte[] unclippedReadBases = read.getBasesNoCopy();
+        final byte[] unclippedReadQuals = read.getBaseQualitiesNoCopy();
 
         // Do a stricter base clipping than provided by CIGAR string, since this one may be too conservative,
         // and may leave a string of Q2 bases still hanging off the reads.
@@ -1,10 +1,10 @@
 package org.broadinstitute.hellbender.tools.walkers.annotator.allelespecific;
 
-import com.google.common.primitives.Doubles;
 import htsjdk.variant.variantcontext.Allele;
 import htsjdk.variant.variantcontext.GenotypesContext;
 import htsjdk.variant.variantcontext.VariantContext;
-import org.apache.commons.lang.ArrayUtils;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.doubles.DoubleList;
 import org.apache.log4j.Logger;
 import org.broadinstitute.hellbender.engine.ReferenceContext;
 import org.broadinstitute.hellbender.tools.walkers.annotator.*;
@@ -38,8 +38,8 @@ public abstract class AS_RankSumTest extends RankSumTest implements ReducibleAnn
             return Collections.emptyMap();
         }
 
-        final List<Double> refQuals = new ArrayList<>();
-        final List<Double> altQuals = new ArrayList<>();
+        final DoubleList refQuals = new DoubleArrayList();
+        final DoubleList altQuals = new DoubleArrayList();
 
         final int refLoc = vc.getStart();
 
@@ -57,7 +57,7 @@ public abstract class AS_RankSumTest extends RankSumTest implements ReducibleAnn
         final MannWhitneyU mannWhitneyU = new MannWhitneyU();
 
         // we are testing that set1 (the alt bases) have lower quality scores than set2 (the ref bases)
-        final MannWhitneyU.Result result = mannWhitneyU.test(Doubles.toArray(altQuals), Doubles.toArray(refQuals), MannWhitneyU.TestType.FIRST_DOMINATES);
+        final MannWhitneyU.Result result = mannWhitneyU.test(altQuals.toDoubleArray(), refQuals.toDoubleArray(), MannWhitneyU.TestType.FIRST_DOMINATES);
         final double zScore = result.getZ();
 
         if (Double.isNaN(zScore)) {
@@ -325,19 +325,18 @@ public abstract class AS_RankSumTest extends RankSumTest implements ReducibleAnn
             if (!alt.equals(ref, false)) {
                 final MannWhitneyU mannWhitneyU = new MannWhitneyU();
                 //load alts (series 1)
-                final List<Double> alts = new ArrayList<>();
+                final DoubleList alts = new DoubleArrayList();
                 for (final Number qual : perAlleleValues.get(alt)) {
                     alts.add((double) qual.intValue());
                 }
                 //load refs (series 2)
-                final List<Double> refs = new ArrayList<>();
+                final DoubleList refs = new DoubleArrayList();
                 for (final Number qual : perAlleleValues.get(ref)) {
                     refs.add((double) qual.intValue());
                 }
 
                 // we are testing that set1 (the alt bases) have lower quality scores than set2 (the ref bases)
-                final MannWhitneyU.Result result = mannWhitneyU.test(ArrayUtils.toPrimitive(alts.toArray(new Double[alts.size()])),
-                        ArrayUtils.toPrimitive(refs.toArray(new Double[refs.size()])),
+                final MannWhitneyU.Result result = mannWhitneyU.test(alts.toDoubleArray(), refs.toDoubleArray(),
                         MannWhitneyU.TestType.FIRST_DOMINATES);
                 perAltRankSumResults.put(alt, result.getZ());
             }
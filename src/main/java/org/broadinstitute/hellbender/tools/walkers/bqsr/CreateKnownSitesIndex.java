@@ -0,0 +1,72 @@
+package org.broadinstitute.hellbender.tools.walkers.bqsr;
+
+import htsjdk.variant.variantcontext.VariantContext;
+import org.broadinstitute.barclay.argparser.Argument;
+import org.broadinstitute.barclay.argparser.BetaFeature;
+import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
+import org.broadinstitute.barclay.help.DocumentedFeature;
+import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
+import org.broadinstitute.hellbender.engine.FeatureContext;
+import org.broadinstitute.hellbender.engine.ReadsContext;
+import org.broadinstitute.hellbender.engine.ReferenceContext;
+import org.broadinstitute.hellbender.engine.VariantWalker;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.variant.KnownSitesIndex;
+import org.broadinstitute.hellbender.utils.variant.VariantContextVariantAdapter;
+import picard.cmdline.programgroups.ReadDataManipulationProgramGroup;
+
+/**
+ * Converts a VCF of known sites of variation into a compact binary index that the Spark versions of BQSR
+ * (BaseRecalibratorSpark, BQSRPipelineSpark and ReadsPipelineSpark) memory-map instead of loading the VCF into memory
+ * on every executor.
+ *
+ * <p>
+ *     Only the position of each site and whether it is a SNP or an indel are kept, which is all that base quality
+ *     score recalibration needs. The output must have the {@value KnownSitesIndex#FILE_EXTENSION} extension, and must be
+ *     available as a local file at the same path on every executor. Pass it to the Spark tools with --known-sites in
+ *     place of the VCF; indices and VCFs can be mixed.
+ * </p>
+ *
+ * <h3>Usage example</h3>
+ * <pre>
+ * gatk CreateKnownSitesIndex \
+ *     -V dbsnp.vcf.gz \
+ *     -O dbsnp.knownsites
+ * </pre>
+ */
+@CommandLineProgramProperties(
+        summary = "Converts a VCF of known sites into a memory-mapped index for the Spark versions of BQSR",
+        oneLineSummary = "Converts a VCF of known sites into a memory-mapped index for the Spark versions of BQSR",
+        programGroup = ReadDataManipulationProgramGroup.class
+)
+@DocumentedFeature
+@BetaFeature
+public final class CreateKnownSitesIndex extends VariantWalker {
+
+    @Argument(shortName = StandardArgumentDefinitions.OUTPUT_SHORT_NAME,
+            fullName = StandardArgumentDefinitions.OUTPUT_LONG_NAME,
+            doc = "The output known sites index, which must end with " + KnownSitesIndex.FILE_EXTENSION)
+    public String output;
+
+    private KnownSitesIndex.Builder builder;
+
+    @Override
+    public void onTraversalStart() {
+        if (!KnownSitesIndex.isKnownSitesIndex(output)) {
+            throw new UserException.BadInput("The output must end with " + KnownSitesIndex.FILE_EXTENSION + ", but it is " + output);
+        }
+        builder = new KnownSitesIndex.Builder();
+    }
+
+    @Override
+    public void apply(final VariantContext variant, final ReadsContext readsContext, final ReferenceContext referenceContext, final FeatureContext featureContext) {
+        builder.add(VariantContextVariantAdapter.sparkVariantAdapter(variant));
+    }
+
+    @Override
+    public Object onTraversalSuccess() {
+        builder.write(IOUtils.getPath(output));
+        return null;
+    }
+}
@@ -245,6 +245,8 @@ public final class AlleleSubsettingUtils {
     @VisibleForTesting
     static double[] calculateLikelihoodSums(final VariantContext vc, final int defaultPloidy) {
         final double[] likelihoodSums = new double[vc.getNAlleles()];
+        // almost all samples share a ploidy, so reuse the calculator until the ploidy changes
+        GenotypeLikelihoodCalculator calculator = null;
         for ( final Genotype genotype : vc.getGenotypes().iterateInSampleNameOrder() ) {
             final GenotypeLikelihoods gls = genotype.getLikelihoods();
             if (gls == null) {
@@ -255,12 +257,15 @@ public final class AlleleSubsettingUtils {
             final double GLDiffBetweenRefAndBest = glsVector[indexOfMostLikelyGenotype] - glsVector[PL_INDEX_OF_HOM_REF];
             final int ploidy = genotype.getPloidy() > 0 ? genotype.getPloidy() : defaultPloidy;
 
-            final int[] alleleCounts = new GenotypeLikelihoodCalculators()
-                    .getInstance(ploidy, vc.getNAlleles()).genotypeAlleleCountsAt(indexOfMostLikelyGenotype)
-                    .alleleCountsByIndex(vc.getNAlleles() - 1);
+            if (calculator == null || calculator.ploidy() != ploidy) {
+                calculator = GL_CALCS.getInstance(ploidy, vc.getNAlleles());
+            }
+            final GenotypeAlleleCounts alleleCounts = calculator.genotypeAlleleCountsAt(indexOfMostLikelyGenotype);
 
-            for (int allele = 1; allele < alleleCounts.length; allele++) {
-                if (alleleCounts[allele] > 0) {
+            // only the alleles present in the genotype are stored, each exactly once
+            for (int rank = 0; rank < alleleCounts.distinctAlleleCount(); rank++) {
+                final int allele = alleleCounts.alleleIndexAt(rank);
+                if (allele > 0) {
                     likelihoodSums[allele] += GLDiffBetweenRefAndBest;
                 }
             }
@@ -7,6 +7,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Genotype likelihood calculator utility.
@@ -15,19 +16,21 @@ import java.util.Arrays;
  *     This class provide genotype likelihood calculators with any number of alleles able given an arbitrary ploidy and allele
  *     count (number of distinct alleles).
  * </p>
+ *
+ * <p>
+ *     The offset and genotype tables are shared by all instances in the process, so that each engine that creates its
+ *     own instance does not rebuild them. They are never modified once built: when a larger ploidy or allele count is
+ *     requested a larger copy is built and published without locking, so instances may be used from several threads.
+ * </p>
  */
 public final class GenotypeLikelihoodCalculators {
 
     private static final Logger logger = LogManager.getLogger(GenotypeLikelihoodCalculators.class);
 
     /**
-     * The current maximum ploidy supported by the tables.
-     * <p>
-     *     Its initial value indicates the initial capacity of the shared {@link #genotypeTableByPloidy}. Feel free
-     *     to change it to anything reasonable that is non-negative.
-     * </p>
+     * Initial maximum ploidy supported by the shared tables. Feel free to change it to anything reasonable that is non-negative.
      */
-    private int maximumPloidy = 2; // its initial value is the initial capacity of the shared tables.
+    private static final int INITIAL_MAXIMUM_PLOIDY = 2;
 
     /**
      * Maximum possible number of genotypes that this calculator can handle.
@@ -40,32 +43,48 @@ public final class GenotypeLikelihoodCalculators {
     static final int GENOTYPE_COUNT_OVERFLOW = -1;
 
     /**
-     * The current maximum allele index supported by the tables.
-     * <p>
-     *     Its initial value indicates the initial capacity of the shared {@link #alleleFirstGenotypeOffsetByPloidy} table.
-     *     Feel free to change it to anything reasonable that is non-negative.
-     * </p>
+     * Initial maximum allele index supported by the shared tables. Feel free to change it to anything reasonable that is non-negative.
      */
-    private int maximumAllele = 1; // its initial value is the initial capacity of the shared tables.
+    private static final int INITIAL_MAXIMUM_ALLELE = 1;
 
     /**
-     * Shared copy of the offset table as described in {@link #buildGenotypeAlleleCountsTable(int, int, int[][])}.
-     *
-     * This reference holds the largest requested so far in terms of maximum-allele and maximum-ploidy.
+     * Immutable snapshot of the tables shared by all instances, together with the maximum ploidy and allele index they support.
      */
-    private int[][] alleleFirstGenotypeOffsetByPloidy =
-            buildAlleleFirstGenotypeOffsetTable(maximumPloidy, maximumAllele);
+    private static final class GenotypeTables {
+        private final int maximumPloidy;
+        private final int maximumAllele;
+
+        /**
+         * Offset table as described in {@link #buildAlleleFirstGenotypeOffsetTable(int, int)}.
+         */
+        private final int[][] alleleFirstGenotypeOffsetByPloidy;
+
+        /**
+         * Table of genotypes give the ploidy sorted by their index in the likelihood array.
+         *
+         * <p>
+         *  Its format is described in {@link #buildGenotypeAlleleCountsTable(int, int, int[][])}.
+         * </p>
+         */
+        private final GenotypeAlleleCounts[][] genotypeTableByPloidy;
+
+        private GenotypeTables(final int maximumPloidy, final int maximumAllele) {
+            this.maximumPloidy = maximumPloidy;
+            this.maximumAllele = maximumAllele;
+            alleleFirstGenotypeOffsetByPloidy = buildAlleleFirstGenotypeOffsetTable(maximumPloidy, maximumAllele);
+            genotypeTableByPloidy = buildGenotypeAlleleCountsTable(maximumPloidy, maximumAllele, alleleFirstGenotypeOffsetByPloidy);
+        }
 
+        private boolean supports(final int ploidy, final int allele) {
+            return ploidy <= maximumPloidy && allele <= maximumAllele;
+        }
+    }
 
     /**
-     * Shared table of genotypes give the ploidy sorted by their index in the likelihood array.
-     *
-     * <p>
-     *  Its format is described in {@link #buildGenotypeAlleleCountsTable(int, int, int[][])}.
-     * </p>
+     * The largest tables requested so far in terms of maximum-allele and maximum-ploidy.
      */
-    private GenotypeAlleleCounts[][] genotypeTableByPloidy =
-            buildGenotypeAlleleCountsTable(maximumPloidy,maximumAllele,alleleFirstGenotypeOffsetByPloidy);
+    private static final AtomicReference<GenotypeTables> sharedTables =
+            new AtomicReference<>(new GenotypeTables(INITIAL_MAXIMUM_PLOIDY, INITIAL_MAXIMUM_ALLELE));
 
     public GenotypeLikelihoodCalculators(){
 
@@ -266,40 +285,37 @@ public final class GenotypeLikelihoodCalculators {
         }
 
         // At this point the tables must have at least the requested capacity, likely to be much more.
-        return new GenotypeLikelihoodCalculator(ploidy, alleleCount, alleleFirstGenotypeOffsetByPloidy, genotypeTableByPloidy);
+        final GenotypeTables tables = getTables(ploidy, alleleCount);
+        return new GenotypeLikelihoodCalculator(ploidy, alleleCount, tables.alleleFirstGenotypeOffsetByPloidy, tables.genotypeTableByPloidy);
     }
 
     /**
-     * Update of shared tables
+     * Returns the shared tables, expanding them first if they do not support the requested ploidy and allele.
      *
-     * @param requestedMaximumAllele the new requested maximum allele maximum.
-     * @param requestedMaximumPloidy the new requested ploidy maximum.
+     * <p>
+     *     Tables are never modified once published. Expansion builds new tables that support at least the maximum of the
+     *     requested and the current capacities and publishes them with a compare-and-set, retrying if another thread
+     *     published different tables in the meantime.
+     * </p>
+     *
+     * @param requestedMaximumPloidy the requested ploidy maximum.
+     * @param requestedMaximumAllele the requested maximum allele maximum.
      */
-    private void ensureCapacity(final int requestedMaximumAllele, final int requestedMaximumPloidy) {
-
-        final boolean needsToExpandAlleleCapacity = requestedMaximumAllele > maximumAllele;
-        final boolean needsToExpandPloidyCapacity = requestedMaximumPloidy > maximumPloidy;
-
-        // Double check with the lock on to avoid double work.
-        if (!needsToExpandAlleleCapacity && !needsToExpandPloidyCapacity) {
-            return;
-        }
+    private static GenotypeTables getTables(final int requestedMaximumPloidy, final int requestedMaximumAllele) {
+        GenotypeTables current = sharedTables.get();
+        while (!current.supports(requestedMaximumPloidy, requestedMaximumAllele)) {
+            final int newMaximumPloidy = Math.max(current.maximumPloidy, requestedMaximumPloidy);
+            final int newMaximumAllele = Math.max(current.maximumAllele, requestedMaximumAllele);
 
-        final int newMaximumPloidy = Math.max(maximumPloidy, requestedMaximumPloidy);
-        final int newMaximumAllele = Math.max(maximumAllele, requestedMaximumAllele);
+            logger.debug("Expanding capacity ploidy:" + current.maximumPloidy + "->" + newMaximumPloidy + " allele:" +  current.maximumAllele +"->" + newMaximumAllele );
 
-        logger.debug("Expanding capacity ploidy:" + maximumPloidy + "->" + newMaximumPloidy + " allele:" +  maximumAllele +"->" + newMaximumAllele );
-
-        // Update tables first.
-        alleleFirstGenotypeOffsetByPloidy = buildAlleleFirstGenotypeOffsetTable(newMaximumPloidy,newMaximumAllele);
-        genotypeTableByPloidy = buildGenotypeAlleleCountsTable(newMaximumPloidy,newMaximumAllele,alleleFirstGenotypeOffsetByPloidy);
-
-        if (needsToExpandAlleleCapacity) {
-            maximumAllele = requestedMaximumAllele;
-        }
-        if (needsToExpandPloidyCapacity) {
-            maximumPloidy = requestedMaximumPloidy;
+            final GenotypeTables expanded = new GenotypeTables(newMaximumPloidy, newMaximumAllele);
+            if (sharedTables.compareAndSet(current, expanded)) {
+                return expanded;
+            }
+            current = sharedTables.get();
         }
+        return current;
     }
 
     /**
@@ -380,11 +396,33 @@ public final class GenotypeLikelihoodCalculators {
         throw new GATKException("Code should never reach here.");
     }
 
-    private int calculateGenotypeCountUsingTables(int ploidy, int alleleCount) {
+    private static int calculateGenotypeCountUsingTables(int ploidy, int alleleCount) {
         checkPloidyAndMaximumAllele(ploidy, alleleCount);
-        if (ploidy > maximumPloidy || alleleCount > maximumAllele) {
-            ensureCapacity(alleleCount, ploidy);
+        // don't grow the shared tables, possibly by a lot, for a request that is going to fail anyway
+        if (genotypeCountOverflows(ploidy, alleleCount)) {
+            return GENOTYPE_COUNT_OVERFLOW;
+        }
+        return getTables(ploidy, alleleCount).alleleFirstGenotypeOffsetByPloidy[ploidy][alleleCount];
+    }
+
+    /**
+     * Checks whether the number of genotypes, {@code (ploidy + alleleCount - 1) choose (alleleCount - 1)}, is larger
+     * than {@link Integer#MAX_VALUE} without building any table.
+     */
+    private static boolean genotypeCountOverflows(final int ploidy, final int alleleCount) {
+        if (alleleCount == 0) {
+            return false;
+        }
+        final long n = (long) ploidy + alleleCount - 1;
+        final long k = Math.min(alleleCount - 1, ploidy);
+        // after each step result == (n - k + i) choose i, which never decreases with i
+        long result = 1;
+        for (long i = 1; i <= k; i++) {
+            result = result * (n - k + i) / i;
+            if (result > Integer.MAX_VALUE) {
+                return true;
+            }
         }
-        return alleleFirstGenotypeOffsetByPloidy[ploidy][alleleCount];
+        return false;
     }
 }
\ No newline at end of file
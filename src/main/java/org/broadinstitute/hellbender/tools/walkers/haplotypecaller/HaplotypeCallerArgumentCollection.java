@@ -110,6 +110,17 @@ public class HaplotypeCallerArgumentCollection extends AssemblyBasedCallerArgume
             optional = true)
     public boolean disableOptimizations = false;
 
+    /**
+     * By default, loci with several samples are evaluated for activity by running the exact allele frequency
+     * calculation on the ref-vs-any genotype likelihoods of all samples.  If set, the site quality is instead
+     * approximated in closed form from the posterior probability that each sample is homozygous reference, which
+     * is much faster for large cohorts but may change the active regions slightly.  Single-sample runs are not affected.
+     */
+    @Advanced
+    @Argument(fullName = "approximate-active-region-qual", doc = "Approximate the multi-sample site quality used to determine active regions in closed form",
+            optional = true)
+    public boolean approximateActiveRegionQual = false;
+
     @Hidden
     @Argument(fullName = "keep-rg", doc = "Only use reads from this read group when making calls (but use all reads to build the assembly)", optional = true)
     public String keepRG = null;
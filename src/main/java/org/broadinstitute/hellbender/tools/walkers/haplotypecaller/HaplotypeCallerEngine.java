@@ -23,7 +23,6 @@ import org.broadinstitute.hellbender.tools.walkers.annotator.*;
 import org.broadinstitute.hellbender.tools.walkers.genotyper.*;
 import org.broadinstitute.hellbender.tools.walkers.genotyper.afcalc.FixedAFCalculatorProvider;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading.ReadThreadingAssembler;
-import org.broadinstitute.hellbender.utils.MathUtils;
 import org.broadinstitute.hellbender.utils.QualityUtils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
@@ -74,6 +73,9 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
     // the genotyping engine for the isActive() determination
     private MinimalGenotypingEngine activeRegionEvaluationGenotyperEngine = null;
 
+    // computes the isActive() probabilities from the pileups, using the engine above
+    private RefVsAnyActivityEvaluator activityEvaluator = null;
+
     private ReadThreadingAssembler assemblyEngine = null;
 
     private ReadLikelihoodCalculationEngine likelihoodCalculationEngine = null;
@@ -97,12 +99,6 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
 
     public static final byte MIN_TAIL_QUALITY_WITH_ERROR_CORRECTION = 6;
 
-    /**
-     * Minimum (exclusive) average number of high quality bases per soft-clip to consider that a set of soft-clips is a
-     * high quality set.
-     */
-    private static final double AVERAGE_HQ_SOFTCLIPS_HQ_BASES_THRESHOLD = 6.0;
-
     /**
      * Maximum-mininum confidence on a variant to exist to consider the position as a potential variant harbouring locus
      * when looking for active regions.
@@ -133,9 +129,6 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
 
     private static final List<VariantContext> NO_CALLS = Collections.emptyList();
 
-    private static final Allele FAKE_REF_ALLELE = Allele.create("N", true); // used in isActive function to call into UG Engine. Should never appear anywhere in a VCF file
-    private static final Allele FAKE_ALT_ALLELE = Allele.create("<FAKE_ALT>", false); // used in isActive function to call into UG Engine. Should never appear anywhere in a VCF file
-
     /**
      * Create and initialize a new HaplotypeCallerEngine given a collection of HaplotypeCaller arguments, a reads header,
      * and a reference file
@@ -203,6 +196,9 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
 
         referenceConfidenceModel = new ReferenceConfidenceModel(samplesList, readsHeader, hcArgs.indelSizeToEliminateInRefModel, hcArgs.genotypeArgs.numRefIfMissing);
 
+        activityEvaluator = new RefVsAnyActivityEvaluator(readsHeader, samplesList, referenceConfidenceModel,
+                activeRegionEvaluationGenotyperEngine, hcArgs.minBaseQualityScore, hcArgs.approximateActiveRegionQual);
+
         //Allele-specific annotations are not yet supported in the VCF mode
         if (isAlleleSpecificMode(annotationEngine) && isVCFMode()){
            throw new UserException("Allele-specific annotations are not yet supported in the VCF mode");
@@ -334,11 +330,13 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
      *
      * @param outputVCF location to which the vcf should be written
      * @param readsDictionary sequence dictionary for the reads
+     * @param compressionThreads number of threads to compress block-compressed output on, or 0 to compress it on the
+     *                           calling thread
      * @return a VCF or GVCF writer as appropriate, ready to use
      */
     public VariantContextWriter makeVCFWriter( final String outputVCF, final SAMSequenceDictionary readsDictionary,
                                                final boolean createOutputVariantIndex, final boolean  createOutputVariantMD5,
-                                               final boolean sitesOnlyMode ) {
+                                               final boolean sitesOnlyMode, final int compressionThreads ) {
         Utils.nonNull(outputVCF);
         Utils.nonNull(readsDictionary);
 
@@ -350,6 +348,7 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
                 new File(outputVCF),
                 readsDictionary,
                 createOutputVariantMD5,
+                compressionThreads,
                 options.toArray(new Options[options.size()])
         );
 
@@ -457,38 +456,7 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
             return new ActivityProfileState(ref.getInterval(), 0.0);
         }
 
-        final int ploidy = activeRegionEvaluationGenotyperEngine.getConfiguration().genotypeArgs.samplePloidy;
-        final List<Allele> noCall = GATKVariantContextUtils.noCallAlleles(ploidy); // used to noCall all genotypes until the exact model is applied
-
-        final Map<String, AlignmentContext> splitContexts;
-        if (samplesList.numberOfSamples() == 1) {
-            //If we know a priori that there's just one sample, take a shortcut and dont examine each read in the pileup
-            splitContexts = context.splitContextBySampleName(samplesList.getSample(0), readsHeader);
-        } else {
-            splitContexts = context.splitContextBySampleName(readsHeader);
-        }
-
-        final GenotypesContext genotypes = GenotypesContext.create(splitContexts.keySet().size());
-        final MathUtils.RunningAverage averageHQSoftClips = new MathUtils.RunningAverage();
-        for( final Map.Entry<String, AlignmentContext> sample : splitContexts.entrySet() ) {
-            // The ploidy here is not dictated by the sample but by the simple genotyping-engine used to determine whether regions are active or not.
-            final int activeRegionDetectionHackishSamplePloidy = activeRegionEvaluationGenotyperEngine.getConfiguration().genotypeArgs.samplePloidy;
-            final double[] genotypeLikelihoods = referenceConfidenceModel.calcGenotypeLikelihoodsOfRefVsAny(activeRegionDetectionHackishSamplePloidy,sample.getValue().getBasePileup(), ref.getBase(), hcArgs.minBaseQualityScore, averageHQSoftClips).genotypeLikelihoods;
-            genotypes.add( new GenotypeBuilder(sample.getKey()).alleles(noCall).PL(genotypeLikelihoods).make() );
-        }
-
-        final List<Allele> alleles = Arrays.asList(FAKE_REF_ALLELE , FAKE_ALT_ALLELE);
-        final double isActiveProb;
-
-        if (genotypes.size() == 1) {
-            // Faster implementation avoiding the costly and over complicated Exact AFCalculator machinery:
-            // This is the case when doing GVCF output.
-            isActiveProb = activeRegionEvaluationGenotyperEngine.calculateSingleSampleRefVsAnyActiveStateProfileValue(genotypes.get(0).getLikelihoods().getAsVector());
-        } else {
-            final VariantCallContext vcOut = activeRegionEvaluationGenotyperEngine.calculateGenotypes(new VariantContextBuilder("HCisActive!", context.getContig(), context.getLocation().getStart(), context.getLocation().getEnd(), alleles).genotypes(genotypes).make(), GenotypeLikelihoodsCalculationModel.SNP, readsHeader);
-            isActiveProb = vcOut == null ? 0.0 : QualityUtils.qualToProb(vcOut.getPhredScaledQual());
-        }
-        return new ActivityProfileState(ref.getInterval(), isActiveProb, averageHQSoftClips.mean() > AVERAGE_HQ_SOFTCLIPS_HQ_BASES_THRESHOLD ? ActivityProfileState.Type.HIGH_QUALITY_SOFT_CLIPS : ActivityProfileState.Type.NONE, averageHQSoftClips.mean() );
+        return activityEvaluator.evaluate(ref.getInterval(), context.getBasePileup(), ref.getBase());
     }
 
     /**
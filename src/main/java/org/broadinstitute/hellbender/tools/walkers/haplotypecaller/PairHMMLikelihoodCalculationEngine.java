@@ -271,7 +271,7 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
 
             // NOTE -- must clone anything that gets modified here so we don't screw up future uses of the read
             //Using close here is justified - it's an array of primitives.
-            final byte[] readQuals = read.getBaseQualities().clone();
+            final byte[] readQuals = read.getBaseQualitiesNoCopy().clone();
             final byte[] readInsQuals = ReadUtils.getBaseInsertionQualities(read).clone();
             final byte[] readDelQuals = ReadUtils.getBaseDeletionQualities(read).clone();
 
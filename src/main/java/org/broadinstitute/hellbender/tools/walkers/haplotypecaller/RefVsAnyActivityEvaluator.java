@@ -0,0 +1,220 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.GenotypeBuilder;
+import htsjdk.variant.variantcontext.GenotypeLikelihoods;
+import htsjdk.variant.variantcontext.GenotypesContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.tools.walkers.genotyper.GenotypeCalculationArgumentCollection;
+import org.broadinstitute.hellbender.tools.walkers.genotyper.GenotypeLikelihoodsCalculationModel;
+import org.broadinstitute.hellbender.tools.walkers.genotyper.GenotypingEngine;
+import org.broadinstitute.hellbender.tools.walkers.genotyper.MinimalGenotypingEngine;
+import org.broadinstitute.hellbender.tools.walkers.genotyper.VariantCallContext;
+import org.broadinstitute.hellbender.utils.MathUtils;
+import org.broadinstitute.hellbender.utils.QualityUtils;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.activityprofile.ActivityProfileState;
+import org.broadinstitute.hellbender.utils.genotyper.SampleList;
+import org.broadinstitute.hellbender.utils.pileup.PileupElement;
+import org.broadinstitute.hellbender.utils.pileup.ReadPileup;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
+import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
+
+import java.util.*;
+
+/**
+ * Computes the probability that a locus is active (i.e., that it may harbour variation) from its pileup, as
+ * {@link HaplotypeCallerEngine#isActive} does.
+ *
+ * <p>
+ *     Loci where no read that passes the base quality threshold shows evidence against the reference are reported as
+ *     inactive without computing any likelihoods, as long as the priors and the calling confidence of the activity
+ *     genotyping engine guarantee that such loci could never be called (see {@link #canSkipReferenceLoci}).  Other loci are
+ *     split by sample in a single pass over the pileup and evaluated exactly as before, unless the closed-form
+ *     approximation of the multi-sample site quality was requested.
+ * </p>
+ */
+final class RefVsAnyActivityEvaluator {
+
+    /**
+     * Minimum (exclusive) average number of high quality bases per soft-clip to consider that a set of soft-clips is a
+     * high quality set.
+     */
+    private static final double AVERAGE_HQ_SOFTCLIPS_HQ_BASES_THRESHOLD = 6.0;
+
+    /**
+     * Largest heterozygosity for which the prior of each non-reference allele count is below that of the reference,
+     * with some margin, so that a locus without alternative evidence always has a reference maximum a posteriori.
+     */
+    private static final double MAXIMUM_HETEROZYGOSITY_TO_SKIP_REFERENCE_LOCI = 0.01;
+
+    private static final Allele FAKE_REF_ALLELE = Allele.create("N", true); // used in isActive function to call into UG Engine. Should never appear anywhere in a VCF file
+    private static final Allele FAKE_ALT_ALLELE = Allele.create("<FAKE_ALT>", false); // used in isActive function to call into UG Engine. Should never appear anywhere in a VCF file
+    private static final List<Allele> FAKE_ALLELES = Arrays.asList(FAKE_REF_ALLELE, FAKE_ALT_ALLELE);
+
+    private final SAMFileHeader readsHeader;
+    private final SampleList samplesList;
+    private final ReferenceConfidenceModel referenceConfidenceModel;
+    private final MinimalGenotypingEngine genotypingEngine;
+    private final byte minBaseQual;
+    private final int ploidy;
+    private final List<Allele> noCall;
+    private final boolean skipReferenceLoci;
+
+    // per-sample log10 priors of the allele counts; null unless the closed-form site quality is used
+    private final double[] log10SamplePriors;
+    private final double callConfidence;
+
+    /**
+     * @param readsHeader header of the reads, used to find the sample of each read
+     * @param samplesList samples being called
+     * @param referenceConfidenceModel model to compute the ref-vs-any likelihoods of each sample
+     * @param genotypingEngine genotyping engine configured for active region determination
+     * @param minBaseQual bases with this quality or lower are ignored
+     * @param approximateQual whether to approximate the multi-sample site quality in closed form
+     */
+    RefVsAnyActivityEvaluator(final SAMFileHeader readsHeader,
+                              final SampleList samplesList,
+                              final ReferenceConfidenceModel referenceConfidenceModel,
+                              final MinimalGenotypingEngine genotypingEngine,
+                              final byte minBaseQual,
+                              final boolean approximateQual) {
+        this.readsHeader = Utils.nonNull(readsHeader);
+        this.samplesList = Utils.nonNull(samplesList);
+        this.referenceConfidenceModel = Utils.nonNull(referenceConfidenceModel);
+        this.genotypingEngine = Utils.nonNull(genotypingEngine);
+        this.minBaseQual = minBaseQual;
+
+        final GenotypeCalculationArgumentCollection genotypeArgs = genotypingEngine.getConfiguration().genotypeArgs;
+        ploidy = genotypeArgs.samplePloidy;
+        noCall = GATKVariantContextUtils.noCallAlleles(ploidy);
+        skipReferenceLoci = canSkipReferenceLoci(genotypeArgs, minBaseQual);
+        callConfidence = genotypeArgs.STANDARD_CONFIDENCE_FOR_CALLING;
+        log10SamplePriors = approximateQual
+                ? GenotypingEngine.composeAlleleFrequencyPriorProvider(samplesList.numberOfSamples() * ploidy,
+                        genotypeArgs.snpHeterozygosity, genotypeArgs.inputPrior).forTotalPloidy(ploidy)
+                : null;
+    }
+
+    /**
+     * A locus where no counted base differs from the reference has ref-vs-any likelihoods that are highest for the
+     * homozygous-reference genotype in every sample.  That is enough for it never to be called when:
+     * <ul>
+     *     <li>the allele count priors come from the heterozygosity and it is low enough for the reference to have the
+     *     highest prior,</li>
+     *     <li>counted bases have quality 2 or more, so that a matching base always favours the reference, and</li>
+     *     <li>the calling confidence is high enough that the prior probability of variation alone cannot reach it.</li>
+     * </ul>
+     */
+    static boolean canSkipReferenceLoci(final GenotypeCalculationArgumentCollection genotypeArgs, final byte minBaseQual) {
+        return genotypeArgs.inputPrior.isEmpty()
+                && genotypeArgs.snpHeterozygosity <= MAXIMUM_HETEROZYGOSITY_TO_SKIP_REFERENCE_LOCI
+                && genotypeArgs.STANDARD_CONFIDENCE_FOR_CALLING >= 1.0
+                && minBaseQual >= 1;
+    }
+
+    /**
+     * @param interval the locus of the pileup
+     * @param pileup the non-empty pileup at the locus
+     * @param refBase the reference base at the locus
+     * @return the activity profile state of the locus
+     */
+    ActivityProfileState evaluate(final SimpleInterval interval, final ReadPileup pileup, final byte refBase) {
+        if (skipReferenceLoci && !hasAltObservation(pileup, refBase)) {
+            return new ActivityProfileState(interval, 0.0, ActivityProfileState.Type.NONE, 0.0);
+        }
+
+        final Map<String, ReadPileup> samplePileups = samplesList.numberOfSamples() == 1 ?
+                // If we know a priori that there's just one sample, take a shortcut and dont examine each read in the pileup
+                Collections.singletonMap(samplesList.getSample(0), pileup) : splitBySample(pileup);
+
+        final MathUtils.RunningAverage averageHQSoftClips = new MathUtils.RunningAverage();
+        final List<double[]> likelihoods = new ArrayList<>(samplePileups.size());
+        for (final ReadPileup samplePileup : samplePileups.values()) {
+            likelihoods.add(referenceConfidenceModel.calcGenotypeLikelihoodsOfRefVsAny(ploidy, samplePileup, refBase, minBaseQual, averageHQSoftClips).genotypeLikelihoods);
+        }
+
+        final double isActiveProb;
+        if (likelihoods.size() == 1) {
+            // Faster implementation avoiding the costly and over complicated Exact AFCalculator machinery:
+            // This is the case when doing GVCF output.
+            isActiveProb = genotypingEngine.calculateSingleSampleRefVsAnyActiveStateProfileValue(roundToPLs(likelihoods.get(0)));
+        } else if (log10SamplePriors != null) {
+            isActiveProb = approximateMultiSampleActiveProb(likelihoods);
+        } else {
+            final GenotypesContext genotypes = GenotypesContext.create(likelihoods.size());
+            final Iterator<double[]> likelihoodsIterator = likelihoods.iterator();
+            for (final String sample : samplePileups.keySet()) {
+                genotypes.add(new GenotypeBuilder(sample).alleles(noCall).PL(likelihoodsIterator.next()).make());
+            }
+            final VariantCallContext vcOut = genotypingEngine.calculateGenotypes(new VariantContextBuilder("HCisActive!", interval.getContig(), interval.getStart(), interval.getEnd(), FAKE_ALLELES).genotypes(genotypes).make(), GenotypeLikelihoodsCalculationModel.SNP, readsHeader);
+            isActiveProb = vcOut == null ? 0.0 : QualityUtils.qualToProb(vcOut.getPhredScaledQual());
+        }
+        return new ActivityProfileState(interval, isActiveProb, averageHQSoftClips.mean() > AVERAGE_HQ_SOFTCLIPS_HQ_BASES_THRESHOLD ? ActivityProfileState.Type.HIGH_QUALITY_SOFT_CLIPS : ActivityProfileState.Type.NONE, averageHQSoftClips.mean());
+    }
+
+    /**
+     * @return true if any element that would be counted by {@link ReferenceConfidenceModel#calcGenotypeLikelihoodsOfRefVsAny}
+     * is evidence against the reference
+     */
+    private boolean hasAltObservation(final ReadPileup pileup, final byte refBase) {
+        for (final PileupElement p : pileup) {
+            if ((p.isDeletion() || p.getQual() > minBaseQual) && ReferenceConfidenceModel.isAltObservation(p, refBase)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Splits the pileup by sample in a single pass, in the same order as {@link ReadPileup#splitBySample}, so that the
+     * samples are evaluated in the same order as before.
+     */
+    private Map<String, ReadPileup> splitBySample(final ReadPileup pileup) {
+        final Map<String, List<PileupElement>> elementsBySample = new LinkedHashMap<>();
+        for (final PileupElement p : pileup) {
+            final String sample = ReadUtils.getSampleName(p.getRead(), readsHeader);
+            if (sample == null) {
+                throw new UserException.ReadMissingReadGroup(p.getRead());
+            }
+            elementsBySample.computeIfAbsent(sample, s -> new ArrayList<>()).add(p);
+        }
+        // ReadPileup#splitBySample iterates over a hash set of the samples filled in order of appearance,
+        // and returns them in a hash map filled in the order of that set
+        final Set<String> samples = new HashSet<>(elementsBySample.keySet());
+        final Map<String, ReadPileup> pileups = new HashMap<>();
+        for (final String sample : samples) {
+            pileups.put(sample, new ReadPileup(pileup.getLocation(), elementsBySample.get(sample)));
+        }
+        return pileups;
+    }
+
+    /**
+     * Genotypes only keep their likelihoods as PLs, so the likelihoods are rounded as they would be by storing
+     * them in a genotype before they are used to call the locus.
+     */
+    private static double[] roundToPLs(final double[] log10Likelihoods) {
+        return GenotypeLikelihoods.fromPLs(GenotypeLikelihoods.fromLog10Likelihoods(log10Likelihoods).getAsPLs()).getAsVector();
+    }
+
+    /**
+     * Closed-form site quality: the phred-scaled probability that every sample is homozygous reference, each sample's
+     * genotype posterior being computed independently from its likelihoods and the per-sample allele count priors.
+     */
+    private double approximateMultiSampleActiveProb(final List<double[]> likelihoods) {
+        final double[] log10Posteriors = new double[ploidy + 1];
+        double log10ProbAllReference = 0.0;
+        for (final double[] likelihoodsBeforeRounding : likelihoods) {
+            final double[] sampleLikelihoods = roundToPLs(likelihoodsBeforeRounding);
+            for (int ac = 0; ac <= ploidy; ac++) {
+                log10Posteriors[ac] = sampleLikelihoods[ac] + log10SamplePriors[ac];
+            }
+            log10ProbAllReference += log10Posteriors[0] - MathUtils.log10SumLog10(log10Posteriors);
+        }
+        final double qual = -10.0 * log10ProbAllReference + 0.0;
+        return qual >= callConfidence ? QualityUtils.qualToProb(qual) : 0.0;
+    }
+}
@@ -428,8 +428,7 @@ public final class ReferenceConfidenceModel {
     }
 
     private void applyPileupElementRefVsNonRefLikelihoodAndCount(final byte refBase, final int likelihoodCount, final double log10Ploidy, final RefVsAnyResult result, final PileupElement element, final byte qual, final MathUtils.RunningAverage hqSoftClips) {
-        final boolean isAlt = element.getBase() != refBase || element.isDeletion() || element.isBeforeDeletionStart()
-                || element.isAfterDeletionEnd() || element.isBeforeInsertion() || element.isAfterInsertion() || element.isNextToSoftClip();
+        final boolean isAlt = isAltObservation(element, refBase);
         final double referenceLikelihood;
         final double nonRefLikelihood;
         if (isAlt) {
@@ -456,6 +455,15 @@ public final class ReferenceConfidenceModel {
         }
     }
 
+    /**
+     * @return true if the pileup element counts as evidence against the reference in the ref-vs-any likelihoods:
+     * a mismatch, a deletion, or a base next to an indel or a soft-clip
+     */
+    static boolean isAltObservation(final PileupElement element, final byte refBase) {
+        return element.getBase() != refBase || element.isDeletion() || element.isBeforeDeletionStart()
+                || element.isAfterDeletionEnd() || element.isBeforeInsertion() || element.isAfterInsertion() || element.isNextToSoftClip();
+    }
+
     /**
      * Get a list of pileups that span the entire active region span, in order, one for each position
      */
@@ -1155,7 +1155,7 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
     @VisibleForTesting
     void addRead(final GATKRead read, final SAMFileHeader header) {
         final byte[] sequence = read.getBases();
-        final byte[] qualities = read.getBaseQualities();
+        final byte[] qualities = read.getBaseQualitiesNoCopy();
 
         int lastGood = -1;
         for( int end = 0; end <= sequence.length; end++ ) {
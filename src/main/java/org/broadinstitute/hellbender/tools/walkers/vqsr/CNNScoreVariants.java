@@ -1,5 +1,7 @@
 package org.broadinstitute.hellbender.tools.walkers.vqsr;
 
+import htsjdk.samtools.CigarElement;
+import htsjdk.samtools.CigarOperator;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.VariantContextBuilder;
 import htsjdk.variant.variantcontext.writer.VariantContextWriter;
@@ -15,9 +17,9 @@ import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.utils.haplotype.HaplotypeBAMWriter;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
 import  org.broadinstitute.hellbender.utils.io.Resource;
+import org.broadinstitute.hellbender.utils.python.BinaryRecordBuffer;
 import org.broadinstitute.hellbender.utils.python.StreamingPythonScriptExecutor;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
-import org.broadinstitute.hellbender.utils.runtime.AsynchronousStreamWriter;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFHeaderLines;
 import picard.cmdline.programgroups.VariantFilteringProgramGroup;
@@ -115,7 +117,9 @@ public class CNNScoreVariants extends VariantWalker {
     private static final int REF_INDEX = 2;
     private static final int ALT_INDEX = 3;
     private static final int KEY_INDEX = 4;
-    private static final int FIFO_STRING_INITIAL_CAPACITY = 1024;
+    private static final int FIFO_BUFFER_INITIAL_CAPACITY = 1024 * 1024;
+    // read count sent for variants whose reads are not transferred
+    private static final int NO_READS = -1;
     private static final int MAX_READ_BATCH = 4098;
 
     @Argument(fullName = StandardArgumentDefinitions.OUTPUT_LONG_NAME,
@@ -168,11 +172,13 @@ public class CNNScoreVariants extends VariantWalker {
 
     // Create the Python executor. This doesn't actually start the Python process, but verifies that
     // the requestedPython executable exists and can be located.
-    final StreamingPythonScriptExecutor<String> pythonExecutor = new StreamingPythonScriptExecutor<>(true);
+    final StreamingPythonScriptExecutor<BinaryRecordBuffer> pythonExecutor = new StreamingPythonScriptExecutor<>(true);
 
-    private List<String> batchList = new ArrayList<>(inferenceBatchSize);
+    // Variants are encoded as binary records into currentBatch while the previous batch, in writingBatch, is being
+    // written to the FIFO and scored by Python. The two buffers are swapped each time a batch is sent.
+    private BinaryRecordBuffer currentBatch;
+    private BinaryRecordBuffer writingBatch;
 
-    private int curBatchSize = 0;
     private int windowEnd = windowSize / 2;
     private int windowStart = windowSize / 2;
     private boolean waitforBatchCompletion = false;
@@ -231,8 +237,9 @@ public class CNNScoreVariants extends VariantWalker {
 
         // Start the Python process and initialize a stream writer for streaming data to the Python code
         pythonExecutor.start(Collections.emptyList(), enableJournal);
-        pythonExecutor.initStreamWriter(AsynchronousStreamWriter.stringSerializer);
-        batchList = new ArrayList<>(transferBatchSize);
+        pythonExecutor.initStreamWriter(batch -> batch, true);
+        currentBatch = new BinaryRecordBuffer(FIFO_BUFFER_INITIAL_CAPACITY);
+        writingBatch = new BinaryRecordBuffer(FIFO_BUFFER_INITIAL_CAPACITY);
 
         // Execute Python code to open our output file, where it will write the contents of everything it reads
         // from the stream.
@@ -272,31 +279,32 @@ public class CNNScoreVariants extends VariantWalker {
     @Override
     public void apply(final VariantContext variant, final ReadsContext readsContext, final ReferenceContext referenceContext, final FeatureContext featureContext) {
         referenceContext.setWindow(windowStart, windowEnd);
+        currentBatch.startRecord();
+        writeVariant(variant, referenceContext);
         if (tensorType.isReadsRequired()) {
-            transferReadsToPythonViaFifo(variant, readsContext, referenceContext);
+            writeReads(variant, readsContext);
         } else {
-            transferToPythonViaFifo(variant, referenceContext);
+            currentBatch.writeInt(NO_READS);
         }
+        currentBatch.endRecord();
         sendBatchIfReady();
     }
 
-    private void transferToPythonViaFifo(final VariantContext variant, final ReferenceContext referenceContext) {
-        try {
-            final String outDat = String.format("%s\t%s\t%s\t%s\n",
-                    getVariantDataString(variant),
-                    new String(Arrays.copyOfRange(referenceContext.getBases(), 0, windowSize), "UTF-8"),
-                    getVariantInfoString(variant),
-                    variant.isSNP() ? "SNP" : variant.isIndel() ? "INDEL" : "OTHER");
-            batchList.add(outDat);
-            curBatchSize++;
-        } catch (UnsupportedEncodingException e) {
-            throw new GATKException("Trying to make string from reference, but unsupported encoding UTF-8.", e);
-        }
-
+    // The fields written here must be kept in sync with variant_from_fifo_record in the vqsr_cnn Python package
+    private void writeVariant(final VariantContext variant, final ReferenceContext referenceContext) {
+        currentBatch.writeString(variant.getContig());
+        currentBatch.writeInt(variant.getStart());
+        currentBatch.writeString(variant.getReference().getBaseString());
+        currentBatch.writeString(variant.getAlternateAlleles().toString());
+        // the window is shorter than windowSize near the ends of contigs, and is then padded with zeros
+        final byte[] referenceBases = referenceContext.getBases();
+        currentBatch.writeByteArray(referenceBases.length >= windowSize ? referenceBases : Arrays.copyOf(referenceBases, windowSize), 0, windowSize);
+        currentBatch.writeString(getVariantInfoString(variant));
+        currentBatch.writeString(variant.isSNP() ? "SNP" : variant.isIndel() ? "INDEL" : "OTHER");
     }
 
     private void sendBatchIfReady() {
-        if (curBatchSize == transferBatchSize) {
+        if (currentBatch.getRecordCount() == transferBatchSize) {
             if (waitforBatchCompletion == true) {
                 // wait for the last batch to complete before we start a new one
                 pythonExecutor.waitForPreviousBatchCompletion();
@@ -304,76 +312,54 @@ public class CNNScoreVariants extends VariantWalker {
             }
             executePythonCommand();
             waitforBatchCompletion = true;
-            curBatchSize = 0;
-            batchList = new ArrayList<>(transferBatchSize);
+            swapBatches();
         }
     }
 
-    private void transferReadsToPythonViaFifo(final VariantContext variant, final ReadsContext readsContext, final ReferenceContext referenceContext) {
-        StringBuilder sb = new StringBuilder(FIFO_STRING_INITIAL_CAPACITY);
-        try {
-            sb.append(String.format("%s\t%s\t%s\t%s\t",
-                    getVariantDataString(variant),
-                    new String(Arrays.copyOfRange(referenceContext.getBases(), 0, windowSize), "UTF-8"),
-                    getVariantInfoString(variant),
-                    variant.isSNP() ? "SNP" : variant.isIndel() ? "INDEL" : "OTHER"));
-        } catch (UnsupportedEncodingException e) {
-            throw new GATKException("Trying to make string from reference, but unsupported encoding UTF-8.", e);
-        }
-        Iterator<GATKRead> readIt = readsContext.iterator();
-        if (!readIt.hasNext()) {
-            logger.warn("No reads at contig:" + variant.getContig() + " site:" + String.valueOf(variant.getStart()));
-        }
-        while (readIt.hasNext()) {
-            sb.append(GATKReadToString(readIt.next()));
-        }
-        sb.append("\n");
-        batchList.add(sb.toString());
-        curBatchSize++;
-    }
-
-    private String GATKReadToString(GATKRead read) {
-        StringBuilder sb = new StringBuilder(FIFO_STRING_INITIAL_CAPACITY);
-        sb.append(read.getBasesString() + "\t");
-
-        appendQualityBytes(sb, read.getBaseQualities());
-        sb.append(read.getCigar().toString() + "\t");
-        sb.append(read.isReverseStrand() + "\t");
-        sb.append((read.isPaired() ? read.mateIsReverseStrand() : "false") + "\t");
-        sb.append(read.isFirstOfPair() + "\t");
-        sb.append(read.getMappingQuality() + "\t");
-        sb.append(Integer.toString(read.getUnclippedStart()) + "\t");
-        return sb.toString();
+    // the batch being written must be complete before the buffers are swapped, since its buffer is reused
+    private void swapBatches() {
+        final BinaryRecordBuffer sentBatch = currentBatch;
+        currentBatch = writingBatch;
+        writingBatch = sentBatch;
+        currentBatch.reset();
     }
 
-    private void appendQualityBytes(StringBuilder sb, byte[] qualities) {
-        if(qualities.length == 0) {
-            sb.append("\t");
-            return;
+    private void writeReads(final VariantContext variant, final ReadsContext readsContext) {
+        final List<GATKRead> reads = new ArrayList<>();
+        readsContext.iterator().forEachRemaining(reads::add);
+        if (reads.isEmpty()) {
+            logger.warn("No reads at contig:" + variant.getContig() + " site:" + String.valueOf(variant.getStart()));
         }
-
-        for (int i = 0; i < qualities.length - 1; i++) {
-            sb.append(Integer.toString(qualities[i]) + ",");
+        currentBatch.writeInt(reads.size());
+        for (final GATKRead read : reads) {
+            writeRead(read);
         }
-        sb.append(Integer.toString(qualities[qualities.length - 1]) + "\t");
     }
 
-    private String getVariantDataString(final VariantContext variant) {
-        return String.format("%s\t%d\t%s\t%s",
-                variant.getContig(),
-                variant.getStart(),
-                variant.getReference().getBaseString(),
-                variant.getAlternateAlleles().toString()
-        );
+    private void writeRead(final GATKRead read) {
+        currentBatch.writeByteArray(read.getBasesNoCopy());
+        currentBatch.writeByteArray(read.getBaseQualitiesNoCopy());
+        // cigar elements are packed as in BAM records, with the length in the upper 28 bits and the operator below
+        final List<CigarElement> cigarElements = read.getCigarElements();
+        currentBatch.writeInt(cigarElements.size());
+        for (final CigarElement element : cigarElements) {
+            currentBatch.writeInt(element.getLength() << 4 | CigarOperator.enumToBinary(element.getOperator()));
+        }
+        currentBatch.writeBoolean(read.isReverseStrand());
+        currentBatch.writeBoolean(read.isPaired() && read.mateIsReverseStrand());
+        currentBatch.writeBoolean(read.isFirstOfPair());
+        currentBatch.writeInt(read.getMappingQuality());
+        currentBatch.writeInt(read.getUnclippedStart());
     }
 
     private String getVariantInfoString(final VariantContext variant) {
         // Create a string that will easily be parsed as a python dictionary
-        String varInfo = "";
-        for (final String attributeKey : variant.getAttributes().keySet()) {
-            varInfo += attributeKey + "=" + variant.getAttribute(attributeKey).toString().replace(" ", "").replace("[", "").replace("]", "") + ";";
+        final StringBuilder varInfo = new StringBuilder();
+        for (final Map.Entry<String, Object> attribute : variant.getAttributes().entrySet()) {
+            varInfo.append(attribute.getKey()).append('=')
+                    .append(attribute.getValue().toString().replace(" ", "").replace("[", "").replace("]", "")).append(';');
         }
-        return varInfo;
+        return varInfo.toString();
     }
 
     @Override
@@ -381,7 +367,7 @@ public class CNNScoreVariants extends VariantWalker {
         if (waitforBatchCompletion) {
             pythonExecutor.waitForPreviousBatchCompletion();
         }
-        if (curBatchSize > 0) {
+        if (currentBatch.getRecordCount() > 0) {
             executePythonCommand();
             pythonExecutor.waitForPreviousBatchCompletion();
         }
@@ -396,11 +382,11 @@ public class CNNScoreVariants extends VariantWalker {
 
     private void executePythonCommand() {
         final String pythonCommand = String.format(
-                "vqsr_cnn.score_and_write_batch(args, model, tempFile, %d, %d, '%s')",
-                curBatchSize,
+                "vqsr_cnn.score_and_write_batch(args, model, tempFile, %d, %d, '%s', binary=True)",
+                currentBatch.getRecordCount(),
                 inferenceBatchSize,
                 outputTensorsDir) + NL;
-        pythonExecutor.startBatchWrite(pythonCommand, batchList);
+        pythonExecutor.startBatchWrite(pythonCommand, Collections.singletonList(currentBatch));
     }
 
 
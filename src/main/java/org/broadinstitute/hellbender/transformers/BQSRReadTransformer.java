@@ -1,5 +1,7 @@
 package org.broadinstitute.hellbender.transformers;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.primitives.Bytes;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMTag;
 import htsjdk.samtools.SAMUtils;
@@ -16,7 +18,7 @@ import org.broadinstitute.hellbender.utils.recalibration.covariates.ReadCovariat
 import org.broadinstitute.hellbender.utils.recalibration.covariates.StandardCovariateList;
 
 import java.io.File;
-import java.util.Arrays;
+import java.io.Serializable;
 import java.util.Collections;
 import java.util.List;
 
@@ -27,8 +29,6 @@ import static org.broadinstitute.hellbender.utils.recalibration.RecalDatum.MAX_R
 public final class BQSRReadTransformer implements ReadTransformer {
     private static final long serialVersionUID = 1L;
 
-    private final QuantizationInfo quantizationInfo; // histogram containing the map for qual quantization (calculated after recalibration is done)
-    private final RecalibrationTables recalibrationTables;
     private final StandardCovariateList covariates; // list of all covariates to be used in this calculation
     private final SAMFileHeader header;
     
@@ -42,10 +42,13 @@ public final class BQSRReadTransformer implements ReadTransformer {
 
     private static final int BASE_SUBSTITUTION_INDEX = EventType.BASE_SUBSTITUTION.ordinal();
 
-    //Note: varargs allocates a new array every time. We'll pre-allocate one array and reuse it to avoid object allocation for every base of every read.
-    private final RecalDatum[] empiricalQualCovsArgs;
     private final boolean useOriginalBaseQualities;
 
+    //The recalibration tables and the quantization map compiled into primitive lookups, so that recalibrating a base does
+    //not need to look up RecalDatums or compute their empirical qualities
+    private final ReadGroupLookup[] readGroupLookups;
+    private final byte[] quantizedQuals;
+
     private byte[] staticQuantizedMapping;
     private final CovariateKeyCache keyCache;
 
@@ -71,9 +74,7 @@ public final class BQSRReadTransformer implements ReadTransformer {
      */
     private BQSRReadTransformer(final SAMFileHeader header, final RecalibrationTables recalibrationTables, final QuantizationInfo quantizationInfo, final StandardCovariateList covariates, final ApplyBQSRArgumentCollection args) {
         this.header = header;
-        this.recalibrationTables = recalibrationTables;
         this.covariates = covariates;
-        this.quantizationInfo = quantizationInfo;
 
         if (args.quantizationLevels == 0) { // quantizationLevels == 0 means no quantization, preserve the quality scores
             quantizationInfo.noQuantization();
@@ -95,11 +96,87 @@ public final class BQSRReadTransformer implements ReadTransformer {
         totalCovariateCount = covariates.size();
         specialCovariateCount = covariates.numberOfSpecialCovariates();
 
-        //Note: We pre-create the varargs arrays that will be used in the calls. Otherwise we're spending a lot of time allocating those int[] objects
-        empiricalQualCovsArgs = new RecalDatum[totalCovariateCount - specialCovariateCount];
+        readGroupLookups = compileRecalibrationTables(recalibrationTables);
+        quantizedQuals = Bytes.toArray(quantizationInfo.getQuantizedQuals());
         keyCache = new CovariateKeyCache();//one cache per transformer
     }
 
+    /**
+     * The terms of {@link #hierarchicalBayesianQualityEstimate} for the bases of one read group, precomputed from the
+     * recalibration tables.  The estimate for a base is its conditional prior (the global and reported quality terms)
+     * plus the sum of its covariate deltas.
+     */
+    private static final class ReadGroupLookup implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        // conditional prior for reported qualities outside the quality score table
+        private final double defaultConditionalPrior;
+        // conditional prior by reported quality
+        private final double[] conditionalPriors;
+        // covariate deltas by reported quality, then (additional) covariate, then covariate key; null where there is no data
+        private final double[][][] covariateDeltas;
+
+        private ReadGroupLookup(final double defaultConditionalPrior, final double[] conditionalPriors, final int numAdditionalCovariates) {
+            this.defaultConditionalPrior = defaultConditionalPrior;
+            this.conditionalPriors = conditionalPriors;
+            this.covariateDeltas = new double[conditionalPriors.length][numAdditionalCovariates][];
+        }
+    }
+
+    /**
+     * Evaluates every term of {@link #hierarchicalBayesianQualityEstimate} that can be needed by {@link #apply}, using
+     * exactly the same arithmetic so that recalibrated qualities are unchanged.
+     *
+     * @return lookups indexed by read group key, null for read groups without data
+     */
+    private ReadGroupLookup[] compileRecalibrationTables(final RecalibrationTables recalibrationTables) {
+        final NestedIntegerArray<RecalDatum> readGroupTable = recalibrationTables.getReadGroupTable();
+        final NestedIntegerArray<RecalDatum> qualityScoreTable = recalibrationTables.getQualityScoreTable();
+        final int numReadGroups = readGroupTable.getDimensions()[0];
+        final int numQuals = qualityScoreTable.getDimensions()[1];
+        final int numAdditionalCovariates = totalCovariateCount - specialCovariateCount;
+
+        final ReadGroupLookup[] lookups = new ReadGroupLookup[numReadGroups];
+        for (int rgKey = 0; rgKey < numReadGroups; rgKey++) {
+            final RecalDatum empiricalQualRG = readGroupTable.get2Keys(rgKey, BASE_SUBSTITUTION_INDEX);
+            if (empiricalQualRG == null) {
+                continue;
+            }
+            final double epsilon = globalQScorePrior > 0.0 ? globalQScorePrior : empiricalQualRG.getEstimatedQReported();
+            final double globalDeltaQ = empiricalQualRG.getEmpiricalQuality(epsilon) - epsilon;
+            final double[] conditionalPriors = new double[numQuals];
+            for (int qual = 0; qual < numQuals; qual++) {
+                final RecalDatum empiricalQualQS = qualityScoreTable.get3Keys(rgKey, qual, BASE_SUBSTITUTION_INDEX);
+                final double deltaQReported = empiricalQualQS == null ? 0.0 : empiricalQualQS.getEmpiricalQuality(globalDeltaQ + epsilon) - (globalDeltaQ + epsilon);
+                conditionalPriors[qual] = deltaQReported + globalDeltaQ + epsilon;
+            }
+            lookups[rgKey] = new ReadGroupLookup(0.0 + globalDeltaQ + epsilon, conditionalPriors, numAdditionalCovariates);
+        }
+
+        for (int i = specialCovariateCount; i < totalCovariateCount; i++) {
+            final int covariateIndex = i - specialCovariateCount;
+            final List<NestedIntegerArray.Leaf<RecalDatum>> leaves = recalibrationTables.getTable(i).getAllLeaves();
+            // size the delta arrays to the largest key with data
+            for (final NestedIntegerArray.Leaf<RecalDatum> leaf : leaves) {
+                final ReadGroupLookup lookup = lookups[leaf.keys[0]];
+                if (leaf.keys[3] == BASE_SUBSTITUTION_INDEX && lookup != null) {
+                    final double[][] deltas = lookup.covariateDeltas[leaf.keys[1]];
+                    if (deltas[covariateIndex] == null || deltas[covariateIndex].length <= leaf.keys[2]) {
+                        deltas[covariateIndex] = new double[leaf.keys[2] + 1];
+                    }
+                }
+            }
+            for (final NestedIntegerArray.Leaf<RecalDatum> leaf : leaves) {
+                final ReadGroupLookup lookup = lookups[leaf.keys[0]];
+                if (leaf.keys[3] == BASE_SUBSTITUTION_INDEX && lookup != null) {
+                    final double conditionalPrior2 = lookup.conditionalPriors[leaf.keys[1]];
+                    lookup.covariateDeltas[leaf.keys[1]][covariateIndex][leaf.keys[2]] = leaf.value.getEmpiricalQuality(conditionalPrior2) - conditionalPrior2;
+                }
+            }
+        }
+        return lookups;
+    }
+
     /**
      * Constructor using a RecalibrationReport
      *
@@ -136,7 +213,7 @@ public final class BQSRReadTransformer implements ReadTransformer {
 
         if (emitOriginalQuals && ! read.hasAttribute(SAMTag.OQ.name())) { // Save the old qualities if the tag isn't already taken in the read
             try {
-                read.setAttribute(SAMTag.OQ.name(), SAMUtils.phredToFastq(read.getBaseQualities()));
+                read.setAttribute(SAMTag.OQ.name(), SAMUtils.phredToFastq(read.getBaseQualitiesNoCopy()));
             } catch (final IllegalArgumentException e) {
                 throw new MalformedRead(read, "illegal base quality encountered; " + e.getMessage());
             }
@@ -154,18 +231,14 @@ public final class BQSRReadTransformer implements ReadTransformer {
         // the rg key is constant over the whole read, the global deltaQ is too
         final int rgKey = fullReadKeySet[0][0];
 
-        final RecalDatum empiricalQualRG = recalibrationTables.getReadGroupTable().get2Keys(rgKey, BASE_SUBSTITUTION_INDEX);
+        final ReadGroupLookup lookup = rgKey < readGroupLookups.length ? readGroupLookups[rgKey] : null;
 
-        if (empiricalQualRG == null) {
+        if (lookup == null) {
             return read;
         }
         final byte[] quals = read.getBaseQualities();
 
         final int readLength = quals.length;
-        final double epsilon = globalQScorePrior > 0.0 ? globalQScorePrior : empiricalQualRG.getEstimatedQReported();
-
-        final NestedIntegerArray<RecalDatum> qualityScoreTable = recalibrationTables.getQualityScoreTable();
-        final List<Byte> quantizedQuals = quantizationInfo.getQuantizedQuals();
 
         //Note: this loop is under very heavy use in applyBQSR. Keep it slim.
         for (int offset = 0; offset < readLength; offset++) { // recalibrate all bases in the read
@@ -174,20 +247,9 @@ public final class BQSRReadTransformer implements ReadTransformer {
             if (quals[offset] < preserveQLessThan) {
                 continue;
             }
-            Arrays.fill(empiricalQualCovsArgs, null);  //clear the array
-            final int[] keySet = fullReadKeySet[offset];
+            final double recalibratedQualDouble = compiledQualityEstimate(lookup, fullReadKeySet[offset]);
 
-
-            final RecalDatum empiricalQualQS = qualityScoreTable.get3Keys(keySet[0], keySet[1], BASE_SUBSTITUTION_INDEX);
-
-            for (int i = specialCovariateCount; i < totalCovariateCount; i++) {
-                if (keySet[i] >= 0) {
-                    empiricalQualCovsArgs[i - specialCovariateCount] = recalibrationTables.getTable(i).get4Keys(keySet[0], keySet[1], keySet[i], BASE_SUBSTITUTION_INDEX);
-                }
-            }
-            final double recalibratedQualDouble = hierarchicalBayesianQualityEstimate(epsilon, empiricalQualRG, empiricalQualQS, empiricalQualCovsArgs);
-
-            final byte recalibratedQualityScore = quantizedQuals.get(getRecalibratedQual(recalibratedQualDouble));
+            final byte recalibratedQualityScore = quantizedQuals[getRecalibratedQual(recalibratedQualDouble)];
 
             // Bin to static quals
             quals[offset] = staticQuantizedMapping == null ? recalibratedQualityScore : staticQuantizedMapping[recalibratedQualityScore];
@@ -196,6 +258,36 @@ public final class BQSRReadTransformer implements ReadTransformer {
         return read;
     }
 
+    /**
+     * This is {@link #hierarchicalBayesianQualityEstimate} for the substitution keys of one base, with all of the terms
+     * looked up rather than computed.
+     */
+    private double compiledQualityEstimate(final ReadGroupLookup lookup, final int[] keySet) {
+        if (keySet[1] >= lookup.conditionalPriors.length) {
+            return lookup.defaultConditionalPrior;
+        }
+        final double conditionalPrior2 = lookup.conditionalPriors[keySet[1]];
+        final double[][] covariateDeltas = lookup.covariateDeltas[keySet[1]];
+        double deltaQCovariates = 0.0;
+        for (int i = specialCovariateCount; i < totalCovariateCount; i++) {
+            final double[] deltas = covariateDeltas[i - specialCovariateCount];
+            if (keySet[i] >= 0 && deltas != null && keySet[i] < deltas.length) {
+                deltaQCovariates += deltas[keySet[i]];
+            }
+        }
+        return conditionalPrior2 + deltaQCovariates;
+    }
+
+    /**
+     * @return the unrounded recalibrated quality that {@link #apply} computes for a base with the given substitution
+     * keys, or null if the read group has no data and so is left unrecalibrated
+     */
+    @VisibleForTesting
+    Double getRecalibratedQualityEstimate(final int[] keySet) {
+        final ReadGroupLookup lookup = keySet[0] < readGroupLookups.length ? readGroupLookups[keySet[0]] : null;
+        return lookup == null ? null : compiledQualityEstimate(lookup, keySet);
+    }
+
     // recalibrated quality is bound between 1 and MAX_QUAL
     private byte getRecalibratedQual(final double recalibratedQualDouble) {
         return boundQual(fastRound(recalibratedQualDouble), MAX_RECALIBRATED_Q_SCORE);
@@ -0,0 +1,197 @@
+package org.broadinstitute.hellbender.utils;
+
+import htsjdk.tribble.FeatureCodec;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.barclay.argparser.ClassFinder;
+import org.broadinstitute.hellbender.cmdline.CommandLineProgram;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.config.ConfigFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Finds the classes in a package that are assignable to a given type, like {@link ClassFinder}, but using an index
+ * generated at build time when one is available, rather than scanning every entry of the classpath.
+ *
+ * <p>
+ *     The index for a type is a resource under {@link #INDEX_RESOURCE_DIRECTORY} named after the type, listing the packages
+ *     that were scanned followed by the names of the classes that were found.  It is written by {@link #main} when the
+ *     GATK jars are built, so it covers the classes in those jars; packages that are not covered by an index (any package
+ *     other than the exact packages scanned when building it, e.g., the subpackages that hold tools or codecs added at
+ *     runtime by downstream projects), and all packages when running without an
+ *     index (e.g., from the build directory), are scanned with a {@link ClassFinder} as before.
+ * </p>
+ */
+public final class ClassIndex {
+    private static final Logger logger = LogManager.getLogger(ClassIndex.class);
+
+    public static final String INDEX_RESOURCE_DIRECTORY = "META-INF/gatk/class-index/";
+
+    private static final String PACKAGES_HEADER = "#packages:";
+
+    private static final Map<Class<?>, Optional<Index>> LOADED_INDEXES = new ConcurrentHashMap<>();
+
+    private ClassIndex(){}
+
+    /**
+     * Finds the classes assignable to {@code parentType} (including abstract classes, interfaces, and {@code parentType}
+     * itself) in the given packages and their subpackages, as {@link ClassFinder#find} would.
+     *
+     * @param parentType type of the classes to find
+     * @param packageNames packages to search
+     * @return a new, modifiable set of the classes found
+     */
+    public static Set<Class<?>> findClasses(final Class<?> parentType, final List<String> packageNames) {
+        Utils.nonNull(parentType);
+        Utils.nonNull(packageNames);
+        final Index index = LOADED_INDEXES.computeIfAbsent(parentType, t -> Optional.ofNullable(loadIndex(t))).orElse(null);
+        final Set<Class<?>> classes = new LinkedHashSet<>();
+        final ClassFinder finder = new ClassFinder();
+        for (final String packageName : packageNames) {
+            if (index != null && index.covers(packageName)) {
+                classes.addAll(index.getClasses(packageName, getClassLoader()));
+            } else {
+                finder.find(packageName, parentType);
+            }
+        }
+        classes.addAll(finder.getClasses());
+        return classes;
+    }
+
+    /**
+     * @return only the concrete classes among those returned by {@link #findClasses}
+     */
+    public static Set<Class<?>> findConcreteClasses(final Class<?> parentType, final List<String> packageNames) {
+        return findClasses(parentType, packageNames).stream()
+                .filter(ClassFinder::isConcrete)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    /**
+     * Types that are indexed when the GATK jars are built, and the packages in which they are indexed.
+     */
+    private static Map<Class<?>, List<String>> getIndexedTypes() {
+        final List<String> commandLineProgramPackages = Arrays.asList("org.broadinstitute.hellbender", "picard");
+        final Map<Class<?>, List<String>> indexedTypes = new LinkedHashMap<>();
+        indexedTypes.put(CommandLineProgram.class, commandLineProgramPackages);
+        indexedTypes.put(picard.cmdline.CommandLineProgram.class, commandLineProgramPackages);
+        indexedTypes.put(FeatureCodec.class, ConfigFactory.getInstance().getGATKConfig().codec_packages());
+        return indexedTypes;
+    }
+
+    /**
+     * Writes the indexes of the classes on the classpath, for inclusion in the GATK jars.
+     *
+     * @param args a single argument, the directory under which to write the index resources
+     */
+    public static void main(final String[] args) throws IOException {
+        Utils.validateArg(args.length == 1, "Usage: ClassIndex <output directory>");
+        final File indexDirectory = new File(args[0], INDEX_RESOURCE_DIRECTORY);
+        if (!indexDirectory.isDirectory() && !indexDirectory.mkdirs()) {
+            throw new IOException("Could not create the class index directory " + indexDirectory);
+        }
+        for (final Map.Entry<Class<?>, List<String>> indexedType : getIndexedTypes().entrySet()) {
+            final File indexFile = new File(indexDirectory, indexedType.getKey().getName());
+            try (final Writer writer = Files.newBufferedWriter(indexFile.toPath(), StandardCharsets.UTF_8)) {
+                writeIndex(indexedType.getKey(), indexedType.getValue(), writer);
+            }
+        }
+    }
+
+    /**
+     * Scans the given packages for classes assignable to {@code parentType} and writes their index.
+     */
+    static void writeIndex(final Class<?> parentType, final List<String> packageNames, final Writer writer) {
+        final ClassFinder finder = new ClassFinder();
+        packageNames.forEach(packageName -> finder.find(packageName, parentType));
+        final PrintWriter printWriter = new PrintWriter(writer);
+        printWriter.println(PACKAGES_HEADER + String.join(",", packageNames));
+        finder.getClasses().stream().map(Class::getName).sorted().forEach(printWriter::println);
+        printWriter.flush();
+    }
+
+    private static Index loadIndex(final Class<?> parentType) {
+        try (final InputStream stream = getClassLoader().getResourceAsStream(INDEX_RESOURCE_DIRECTORY + parentType.getName())) {
+            if (stream == null) {
+                return null;
+            }
+            return readIndex(new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8)));
+        } catch (final IOException e) {
+            throw new GATKException("Could not read the class index for " + parentType.getName(), e);
+        }
+    }
+
+    static Index readIndex(final BufferedReader reader) throws IOException {
+        final String header = reader.readLine();
+        if (header == null || !header.startsWith(PACKAGES_HEADER)) {
+            throw new GATKException("Class index is missing the header with the indexed packages.");
+        }
+        final List<String> packageNames = Arrays.asList(header.substring(PACKAGES_HEADER.length()).split(","));
+        final List<String> classNames = reader.lines().filter(line -> !line.isEmpty()).collect(Collectors.toList());
+        return new Index(packageNames, classNames);
+    }
+
+    private static ClassLoader getClassLoader() {
+        final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        return contextClassLoader != null ? contextClassLoader : ClassIndex.class.getClassLoader();
+    }
+
+    /**
+     * The names of the classes assignable to a type in a set of packages.
+     */
+    static final class Index {
+        private final List<String> packageNames;
+        private final List<String> classNames;
+
+        private Index(final List<String> packageNames, final List<String> classNames) {
+            this.packageNames = Collections.unmodifiableList(new ArrayList<>(packageNames));
+            this.classNames = Collections.unmodifiableList(new ArrayList<>(classNames));
+        }
+
+        /**
+         * @return true if exactly this package was scanned when building this index; subpackages of a scanned package
+         *         are not covered, since downstream projects may add classes to them
+         */
+        boolean covers(final String packageName) {
+            return packageNames.contains(packageName);
+        }
+
+        /**
+         * Loads the indexed classes in the package and its subpackages, without initializing them.  Classes that are
+         * indexed but cannot be loaded are skipped, as {@link ClassFinder} would skip them.
+         */
+        List<Class<?>> getClasses(final String packageName, final ClassLoader loader) {
+            final List<Class<?>> classes = new ArrayList<>();
+            for (final String className : classNames) {
+                if (className.startsWith(packageName + ".")) {
+                    try {
+                        classes.add(Class.forName(className, false, loader));
+                    } catch (final ClassNotFoundException | LinkageError e) {
+                        logger.warn("Could not load indexed class " + className, e);
+                    }
+                }
+            }
+            return classes;
+        }
+    }
+}
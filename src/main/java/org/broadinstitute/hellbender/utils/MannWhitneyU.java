@@ -250,29 +250,59 @@ public class MannWhitneyU {
 
     /**
      * Rank both groups together and return a TestStatistic object that includes U1, U2 and number of ties for sigma
+     *
+     * Gives the same results as summing the ranks from {@link #calculateRank}, but walks the merged series directly
+     * instead of creating a {@link Rank} for each value, as this is called for every site by the rank sum annotations.
      */
     public TestStatistic calculateU1andU2(final double[] series1, final double[] series2) {
-        RankedData ranked = calculateRank(series1, series2);
-        Rank[] ranks = ranked.getRank();
-        ArrayList<Integer> numOfTies = ranked.getNumOfTies();
-        int lengthOfRanks = ranks.length;
+        Arrays.sort(series1);
+        Arrays.sort(series2);
 
-        double numOfTiesForSigma = transformTies(lengthOfRanks, numOfTies);
+        final int n1 = series1.length;
+        final int n2 = series2.length;
+        final int lengthOfRanks = n1 + n2;
+
+        // Merge the series, remembering which one each value came from
+        final double[] values = new double[lengthOfRanks];
+        final boolean[] isFromSeries1 = new boolean[lengthOfRanks];
+        for (int i = 0, j = 0, r = 0; r < lengthOfRanks; r++) {
+            if (j >= n2 || (i < n1 && series1[i] <= series2[j])) {
+                isFromSeries1[r] = true;
+                values[r] = series1[i++];
+            } else {
+                values[r] = series2[j++];
+            }
+        }
 
-        // Calculate R1 and R2 and U.
+        // Calculate R1 and R2 giving each tie band the average of its ranks, and the ties for sigma
         float r1 = 0, r2 = 0;
-        for (Rank rank : ranks) {
-            if (rank.series == 1) r1 += rank.rank;
-            else r2 += rank.rank;
+        double numOfTiesForSigma = 0.0;
+        for (int i = 0; i < lengthOfRanks; ) {
+            float rank = i + 1;
+            int count = 1;
+            for (int j = i + 1; j < lengthOfRanks && values[j] == values[i]; ++j) {
+                rank += j + 1;
+                ++count;
+            }
+            if (count > 1) {
+                rank /= count;
+                if (count != lengthOfRanks) {
+                    numOfTiesForSigma += Math.pow(count, 3) - count;
+                }
+            }
+            for (int j = i; j < i + count; ++j) {
+                if (isFromSeries1[j]) r1 += rank;
+                else r2 += rank;
+            }
+
+            // Skip forward the right number of items
+            i += count;
         }
 
-        double n1 = series1.length;
-        double n2 = series2.length;
-        double u1 = r1 - ((n1 * (n1 + 1)) / 2);
-        double u2 = r2 - ((n2 * (n2 + 1)) / 2);
+        double u1 = r1 - ((n1 * ((double) n1 + 1)) / 2);
+        double u2 = r2 - ((n2 * ((double) n2 + 1)) / 2);
 
-        TestStatistic result = new TestStatistic(u1, u2, numOfTiesForSigma);
-        return result;
+        return new TestStatistic(u1, u2, numOfTiesForSigma);
     }
 
     public double transformTies(int numOfRanks, ArrayList<Integer> numOfTies) {
@@ -1279,7 +1279,7 @@ public final class MathUtils {
          */
         private static final int CACHE_SIZE = 10_000;
 
-        private static double[] cache = null;
+        private static volatile double[] cache = null;
 
         public static int size() { return CACHE_SIZE; }
 
@@ -1294,11 +1294,13 @@ public final class MathUtils {
             if (cache == null) {//this null check is here to prevent a race condition
                 // when multiple threads want to initialize the cache
                 Log10Cache.expandCache(CACHE_SIZE);
-                cache = new double[CACHE_SIZE];
-                cache[0] = 0.0;
-                for (int k = 1; k < cache.length; k++) {
-                    cache[k] = cache[k - 1] + Log10Cache.get(k);
+                //fill the cache before publishing it, so that other threads never see a partially filled cache
+                final double[] newCache = new double[CACHE_SIZE];
+                newCache[0] = 0.0;
+                for (int k = 1; k < newCache.length; k++) {
+                    newCache[k] = newCache[k - 1] + Log10Cache.get(k);
                 }
+                cache = newCache;
             }
         }
     }
@@ -0,0 +1,187 @@
+package org.broadinstitute.hellbender.utils;
+
+import org.broadinstitute.hellbender.utils.param.ParamUtils;
+import org.broadinstitute.hellbender.utils.read.IndexedReadDensity;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Splits intervals into shards of similar predicted cost rather than similar base count.
+ *
+ * <p>The genome is divided into fixed windows of {@link #WINDOW_SIZE} bases, and each window is assigned a cost by a
+ * cost model, for example the amount of read data estimated by {@link IndexedReadDensity}.  The cost of a window is
+ * assumed to be spread uniformly over its bases, and every base additionally carries a small constant cost so that
+ * regions without reads are not considered free.  Shards are then cut in the order of the input intervals so that each shard gets
+ * an equal share of the total cost.</p>
+ */
+public final class WorkloadBalancedIntervalScatterer {
+
+    /**
+     * Size of the windows for which costs are estimated, the same as that of {@link IndexedReadDensity}.
+     */
+    public static final int WINDOW_SIZE = IndexedReadDensity.WINDOW_SIZE;
+
+    /**
+     * Per-base cost added to every window, as a fraction of the average per-base cost of the input intervals.
+     */
+    public static final double BASE_COST_FRACTION = 0.1;
+
+    private WorkloadBalancedIntervalScatterer() { }
+
+    /**
+     * Splits intervals into at most {@code scatterCount} shards of similar cost.
+     *
+     * @param intervals intervals to split, in the order in which they should be assigned to shards
+     * @param scatterCount maximum number of shards; fewer are returned if there are not enough bases to split
+     * @param subdivide whether intervals may be split across shards; if false, shards only contain whole intervals
+     * @param windowCost cost of each window of {@link #WINDOW_SIZE} bases; must be non-negative
+     * @return the shards, each a list of intervals in input order
+     */
+    public static List<List<SimpleInterval>> scatter(final List<SimpleInterval> intervals, final int scatterCount,
+                                                     final boolean subdivide, final ToDoubleFunction<SimpleInterval> windowCost) {
+        Utils.nonNull(intervals);
+        Utils.nonNull(windowCost);
+        ParamUtils.isPositive(scatterCount, "scatter count must be > 0.");
+
+        final List<Piece> pieces = splitIntoPieces(intervals, windowCost);
+        final double totalCost = pieces.stream().mapToDouble(p -> p.cost).sum();
+        final long totalBases = pieces.stream().mapToLong(p -> p.size()).sum();
+        final double baseCost = totalCost > 0 ? BASE_COST_FRACTION * totalCost / totalBases : 1.0;
+        pieces.forEach(p -> p.cost += baseCost * p.size());
+
+        final List<Piece> units = subdivide ? pieces : mergeIntervals(pieces);
+        return cut(units, scatterCount, subdivide);
+    }
+
+    // a run of bases of one input interval within a single window, with uniform cost per base
+    private static final class Piece {
+        final int intervalIndex;
+        final String contig;
+        final int start;
+        final int end;
+        double cost;
+
+        Piece(final int intervalIndex, final String contig, final int start, final int end, final double cost) {
+            this.intervalIndex = intervalIndex;
+            this.contig = contig;
+            this.start = start;
+            this.end = end;
+            this.cost = cost;
+        }
+
+        int size() {
+            return end - start + 1;
+        }
+
+        Piece head(final int length) {
+            return new Piece(intervalIndex, contig, start, start + length - 1, cost * length / size());
+        }
+
+        Piece tail(final int length) {
+            return new Piece(intervalIndex, contig, end - length + 1, end, cost * length / size());
+        }
+    }
+
+    private static List<Piece> splitIntoPieces(final List<SimpleInterval> intervals, final ToDoubleFunction<SimpleInterval> windowCost) {
+        final Map<SimpleInterval, Double> windowCosts = new HashMap<>();
+        final List<Piece> pieces = new ArrayList<>();
+        for (int i = 0; i < intervals.size(); i++) {
+            final SimpleInterval interval = intervals.get(i);
+            for (int start = interval.getStart(); start <= interval.getEnd(); ) {
+                final int windowStart = ((start - 1) / WINDOW_SIZE) * WINDOW_SIZE + 1;
+                final SimpleInterval window = new SimpleInterval(interval.getContig(), windowStart, windowStart + WINDOW_SIZE - 1);
+                final double cost = windowCosts.computeIfAbsent(window, windowCost::applyAsDouble);
+                Utils.validate(cost >= 0, () -> "negative cost for window " + window);
+                final int end = Math.min(interval.getEnd(), window.getEnd());
+                pieces.add(new Piece(i, interval.getContig(), start, end, cost * (end - start + 1) / WINDOW_SIZE));
+                start = end + 1;
+            }
+        }
+        return pieces;
+    }
+
+    private static List<Piece> mergeIntervals(final List<Piece> pieces) {
+        final List<Piece> merged = new ArrayList<>();
+        for (final Piece piece : pieces) {
+            final Piece last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && last.intervalIndex == piece.intervalIndex) {
+                merged.set(merged.size() - 1, new Piece(last.intervalIndex, last.contig, last.start, piece.end, last.cost + piece.cost));
+            } else {
+                merged.add(piece);
+            }
+        }
+        return merged;
+    }
+
+    // Cuts the units in order into shards.  The target cost of each shard is the remaining cost divided by the
+    // remaining number of shards, so that a single expensive unit does not leave the following shards empty.
+    private static List<List<SimpleInterval>> cut(final List<Piece> units, final int scatterCount, final boolean subdivide) {
+        final List<List<Piece>> shards = new ArrayList<>(scatterCount);
+        double remainingCost = units.stream().mapToDouble(p -> p.cost).sum();
+        List<Piece> current = new ArrayList<>();
+        double currentCost = 0;
+        double target = remainingCost / scatterCount;
+
+        for (Piece unit : units) {
+            while (shards.size() < scatterCount - 1 && currentCost + unit.cost > target) {
+                // the number of bases of the unit that go into the current shard, which must not be left empty
+                final int length;
+                if (subdivide) {
+                    length = Math.max(current.isEmpty() ? 1 : 0, (int) Math.round((target - currentCost) / unit.cost * unit.size()));
+                } else {
+                    // keep the unit in this shard if that brings the shard closer to its target
+                    length = current.isEmpty() || currentCost + unit.cost - target < target - currentCost ? unit.size() : 0;
+                }
+                if (length >= unit.size()) {
+                    break;
+                }
+                if (length > 0) {
+                    final Piece head = unit.head(length);
+                    current.add(head);
+                    currentCost += head.cost;
+                    unit = unit.tail(unit.size() - length);
+                }
+                shards.add(current);
+                remainingCost -= currentCost;
+                current = new ArrayList<>();
+                currentCost = 0;
+                target = remainingCost / (scatterCount - shards.size());
+            }
+            current.add(unit);
+            currentCost += unit.cost;
+        }
+        if (!current.isEmpty()) {
+            shards.add(current);
+        }
+
+        final List<List<SimpleInterval>> result = new ArrayList<>(shards.size());
+        for (final List<Piece> shard : shards) {
+            result.add(toIntervals(shard));
+        }
+        return result;
+    }
+
+    // joins adjacent pieces of the same input interval
+    private static List<SimpleInterval> toIntervals(final List<Piece> shard) {
+        final List<SimpleInterval> intervals = new ArrayList<>();
+        Piece previous = null;
+        int start = 0;
+        for (final Piece piece : shard) {
+            if (previous == null || previous.intervalIndex != piece.intervalIndex || previous.end + 1 != piece.start) {
+                if (previous != null) {
+                    intervals.add(new SimpleInterval(previous.contig, start, previous.end));
+                }
+                start = piece.start;
+            }
+            previous = piece;
+        }
+        if (previous != null) {
+            intervals.add(new SimpleInterval(previous.contig, start, previous.end));
+        }
+        return intervals;
+    }
+}
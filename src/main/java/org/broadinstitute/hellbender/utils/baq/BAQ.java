@@ -17,6 +17,9 @@ import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /*
   The topology of the profile HMM:
@@ -204,17 +207,21 @@ public final class BAQ implements Serializable {
         //System.out.printf("c->bw = %d, bw = %d, l_ref = %d, l_query = %d\n", cb, bw, l_ref, l_query);
 		bw2 = bw * 2 + 1;
 
-        // allocate the forward and backward matrices f[][] and b[][] and the scaling array s[]
-		double[][] f = new double[l_query+1][bw2*3 + 6];
-		double[][] b = new double[l_query+1][bw2*3 + 6];
-		double[] s = new double[l_query+2];
+        // get the forward and backward matrices f[] and b[] and the scaling array s[] of this thread. The matrices
+        // are flat, with row i of the matrix starting at i * rowLength, and cleared up to row l_query.
+		final int rowLength = bw2*3 + 6;
+		final HmmMatrices matrices = HMM_MATRICES.get();
+		matrices.prepare(l_query, rowLength);
+		final double[] f = matrices.forward;
+		final double[] b = matrices.backward;
+		final double[] s = matrices.scaling;
 
 		// initialize transition probabilities
 		double sM, sI, bM, bI;
 		sM = sI = 1. / (2 * l_query + 2);
         bM = (1 - cd) / l_ref; bI = cd / l_ref; // (bM+bI)*l_ref==1
 
-		double[] m = new double[9];
+		final double[] m = matrices.transitions;
 		m[0*3+0] = (1 - cd - cd) * (1 - sM); m[0*3+1] = m[0*3+2] = cd * (1 - sM);
 		m[1*3+0] = (1 - ce) * (1 - sI); m[1*3+1] = ce * (1 - sI); m[1*3+2] = 0.;
 		m[2*3+0] = 1 - ce; m[2*3+1] = 0.; m[2*3+2] = ce;
@@ -222,27 +229,27 @@ public final class BAQ implements Serializable {
 
 		/*** forward ***/
 		// f[0]
-		f[0][set_u(bw, 0, 0)] = s[0] = 1.;
+		f[set_u(bw, 0, 0)] = s[0] = 1.;
 		{ // f[1]
-			double[] fi = f[1];
+			final int fi = rowLength;
 			double sum;
 			int beg = 1, end = l_ref < bw + 1? l_ref : bw + 1, _beg, _end;
 			for (k = beg, sum = 0.; k <= end; ++k) {
 				int u;
                 double e = calcEpsilon(ref[k-1], query[qstart], _iqual[qstart]);
-				u = set_u(bw, 1, k);
-				fi[u+0] = e * bM; fi[u+1] = EI * bI;
-				sum += fi[u] + fi[u+1];
+				u = fi + set_u(bw, 1, k);
+				f[u+0] = e * bM; f[u+1] = EI * bI;
+				sum += f[u] + f[u+1];
 			}
 			// rescale
 			s[1] = sum;
-			_beg = set_u(bw, 1, beg); _end = set_u(bw, 1, end); _end += 2;
-			for (k = _beg; k <= _end; ++k) fi[k] /= sum;
+			_beg = fi + set_u(bw, 1, beg); _end = fi + set_u(bw, 1, end); _end += 2;
+			for (k = _beg; k <= _end; ++k) f[k] /= sum;
 		}
 
 		// f[2..l_query]
 		for (i = 2; i <= l_query; ++i) {
-			double[] fi = f[i], fi1 = f[i-1];
+			final int fi = i * rowLength, fi1 = fi - rowLength;
 			double sum;
 			int beg = 1, end = l_ref, x, _beg, _end;
 			byte qyi = query[qstart+i-1];
@@ -251,24 +258,24 @@ public final class BAQ implements Serializable {
 			for (k = beg, sum = 0.; k <= end; ++k) {
 				int u, v11, v01, v10;
                 double e = calcEpsilon(ref[k-1], qyi, _iqual[qstart+i-1]);
-				u = set_u(bw, i, k); v11 = set_u(bw, i-1, k-1); v10 = set_u(bw, i-1, k); v01 = set_u(bw, i, k-1);
-				fi[u+0] = e * (m[0] * fi1[v11+0] + m[3] * fi1[v11+1] + m[6] * fi1[v11+2]);
-				fi[u+1] = EI * (m[1] * fi1[v10+0] + m[4] * fi1[v10+1]);
-				fi[u+2] = m[2] * fi[v01+0] + m[8] * fi[v01+2];
-				sum += fi[u] + fi[u+1] + fi[u+2];
-				//System.out.println("("+i+","+k+";"+u+"): "+fi[u]+","+fi[u+1]+","+fi[u+2]);
+				u = fi + set_u(bw, i, k); v11 = fi1 + set_u(bw, i-1, k-1); v10 = fi1 + set_u(bw, i-1, k); v01 = fi + set_u(bw, i, k-1);
+				f[u+0] = e * (m[0] * f[v11+0] + m[3] * f[v11+1] + m[6] * f[v11+2]);
+				f[u+1] = EI * (m[1] * f[v10+0] + m[4] * f[v10+1]);
+				f[u+2] = m[2] * f[v01+0] + m[8] * f[v01+2];
+				sum += f[u] + f[u+1] + f[u+2];
 			}
 			// rescale
 			s[i] = sum;
-			_beg = set_u(bw, i, beg); _end = set_u(bw, i, end); _end += 2;
-			for (k = _beg, sum = 1./sum; k <= _end; ++k) fi[k] *= sum;
+			_beg = fi + set_u(bw, i, beg); _end = fi + set_u(bw, i, end); _end += 2;
+			for (k = _beg, sum = 1./sum; k <= _end; ++k) f[k] *= sum;
 		}
 		{ // f[l_query+1]
+			final int fl = l_query * rowLength;
 			double sum;
 			for (k = 1, sum = 0.; k <= l_ref; ++k) {
 				int u = set_u(bw, l_query, k);
 				if (u < 3 || u >= bw2*3+3) continue;
-				sum += f[l_query][u+0] * sM + f[l_query][u+1] * sI;
+				sum += f[fl+u+0] * sM + f[fl+u+1] * sI;
 			}
 			s[l_query+1] = sum; // the last scaling factor
 		}
@@ -277,29 +284,29 @@ public final class BAQ implements Serializable {
 		// b[l_query] (b[l_query+1][0]=1 and thus \tilde{b}[][]=1/s[l_query+1]; this is where s[l_query+1] comes from)
 		for (k = 1; k <= l_ref; ++k) {
 			int u = set_u(bw, l_query, k);
-			double[] bi = b[l_query];
+			final int bi = l_query * rowLength;
 			if (u < 3 || u >= bw2*3+3) continue;
-			bi[u+0] = sM / s[l_query] / s[l_query+1]; bi[u+1] = sI / s[l_query] / s[l_query+1];
+			b[bi+u+0] = sM / s[l_query] / s[l_query+1]; b[bi+u+1] = sI / s[l_query] / s[l_query+1];
 		}
 		// b[l_query-1..1]
 		for (i = l_query - 1; i >= 1; --i) {
 			int beg = 1, end = l_ref, x, _beg, _end;
-			double[] bi = b[i], bi1 = b[i+1];
+			final int bi = i * rowLength, bi1 = bi + rowLength;
 			double y = (i > 1)? 1. : 0.;
 			byte qyi1 = query[qstart+i];
 			x = i - bw; beg = beg > x? beg : x;
 			x = i + bw; end = end < x? end : x;
 			for (k = end; k >= beg; --k) {
 				int u, v11, v01, v10;
-				u = set_u(bw, i, k); v11 = set_u(bw, i+1, k+1); v10 = set_u(bw, i+1, k); v01 = set_u(bw, i, k+1);
-                final double e = (k >= l_ref? 0 : calcEpsilon(ref[k], qyi1, _iqual[qstart+i])) * bi1[v11];
-                bi[u+0] = e * m[0] + EI * m[1] * bi1[v10+1] + m[2] * bi[v01+2]; // bi1[v11] has been folded into e.
-				bi[u+1] = e * m[3] + EI * m[4] * bi1[v10+1];
-				bi[u+2] = (e * m[6] + m[8] * bi[v01+2]) * y;
+				u = bi + set_u(bw, i, k); v11 = bi1 + set_u(bw, i+1, k+1); v10 = bi1 + set_u(bw, i+1, k); v01 = bi + set_u(bw, i, k+1);
+                final double e = (k >= l_ref? 0 : calcEpsilon(ref[k], qyi1, _iqual[qstart+i])) * b[v11];
+                b[u+0] = e * m[0] + EI * m[1] * b[v10+1] + m[2] * b[v01+2]; // b[v11] has been folded into e.
+				b[u+1] = e * m[3] + EI * m[4] * b[v10+1];
+				b[u+2] = (e * m[6] + m[8] * b[v01+2]) * y;
 			}
 			// rescale
-			_beg = set_u(bw, i, beg); _end = set_u(bw, i, end); _end += 2;
-			for (k = _beg, y = 1./s[i]; k <= _end; ++k) bi[k] *= y;
+			_beg = bi + set_u(bw, i, beg); _end = bi + set_u(bw, i, end); _end += 2;
+			for (k = _beg, y = 1./s[i]; k <= _end; ++k) b[k] *= y;
 		}
 
  		double pb;
@@ -310,24 +317,24 @@ public final class BAQ implements Serializable {
 				int u = set_u(bw, 1, k);
                 double e = calcEpsilon(ref[k-1], query[qstart], _iqual[qstart]);
                 if (u < 3 || u >= bw2*3+3) continue;
-				sum += e * b[1][u+0] * bM + EI * b[1][u+1] * bI;
+				sum += e * b[rowLength+u+0] * bM + EI * b[rowLength+u+1] * bI;
 			}
-			pb = b[0][set_u(bw, 0, 0)] = sum / s[0]; // if everything works as is expected, pb == 1.0
+			pb = b[set_u(bw, 0, 0)] = sum / s[0]; // if everything works as is expected, pb == 1.0
 		}
 
         
 		/*** MAP ***/
 		for (i = 1; i <= l_query; ++i) {
 			double sum = 0., max = 0.;
-			final double[] fi = f[i], bi = b[i];
+			final int fi = i * rowLength;
 			int beg = 1, end = l_ref, x, max_k = -1;
 			x = i - bw; beg = beg > x? beg : x;
 			x = i + bw; end = end < x? end : x;
 			for (k = beg; k <= end; ++k) {
-				final int u = set_u(bw, i, k);
+				final int u = fi + set_u(bw, i, k);
 				double z;
-				sum += (z = fi[u+0] * bi[u+0]); if (z > max) { max = z; max_k = (k-1)<<2 | 0; }
-				sum += (z = fi[u+1] * bi[u+1]); if (z > max) { max = z; max_k = (k-1)<<2 | 1; }
+				sum += (z = f[u+0] * b[u+0]); if (z > max) { max = z; max_k = (k-1)<<2 | 0; }
+				sum += (z = f[u+1] * b[u+1]); if (z > max) { max = z; max_k = (k-1)<<2 | 1; }
 			}
 			max /= sum; sum *= s[i]; // if everything works as is expected, sum == 1.0
 			if (state != null) state[qstart+i-1] = max_k;
@@ -335,7 +342,6 @@ public final class BAQ implements Serializable {
 				k = (int)(-4.343 * Math.log(1. - max) + .499); // = 10*log10(1-max)
 				q[qstart+i-1] = (byte)(k > 100? 99 : (k < minBaseQual ? minBaseQual : k));
 			}
-			//System.out.println("("+pb+","+sum+")"+" ("+(i-1)+","+(max_k>>2)+","+(max_k&3)+","+max+")");
 		}
 
 		return 0;
@@ -363,6 +369,38 @@ public final class BAQ implements Serializable {
 		return (k + 1 - x) * 3;
 	}
 
+    // the matrices of hmm_glocal are reused across calls on the same thread, since a BAQ object may be shared by threads
+    private static final ThreadLocal<HmmMatrices> HMM_MATRICES = ThreadLocal.withInitial(HmmMatrices::new);
+
+    /**
+     * Flat forward and backward matrices and scaling array of {@link #hmm_glocal}, which grow to fit the longest
+     * query seen by the thread.
+     */
+    private static final class HmmMatrices {
+        double[] forward = new double[0];
+        double[] backward = new double[0];
+        double[] scaling = new double[0];
+        final double[] transitions = new double[9];
+
+        /**
+         * Make room for the rows 0..l_query of rowLength values each, and clear them, since hmm_glocal relies on
+         * the cells outside of the band being zero.
+         */
+        void prepare(final int l_query, final int rowLength) {
+            final int size = (l_query + 1) * rowLength;
+            if (forward.length < size) {
+                forward = new double[size];
+                backward = new double[size];
+            } else {
+                Arrays.fill(forward, 0, size, 0.);
+                Arrays.fill(backward, 0, size, 0.);
+            }
+            if (scaling.length < l_query + 2) {
+                scaling = new double[l_query + 2];
+            }
+        }
+    }
+
     // ---------------------------------------------------------------------------------------------------------------
     //
     // Actually working with the BAQ tag now
@@ -384,7 +422,7 @@ public final class BAQ implements Serializable {
         // At the i-th read base, BAQi = Qi - (BQi - 64) where Qi is the i-th base quality.
         // so BQi = Qi - BAQi + 64
         final byte[] bqTag = new byte[baq.length];
-        final byte[] baseQualities = read.getBaseQualities();
+        final byte[] baseQualities = read.getBaseQualitiesNoCopy();
         for ( int i = 0; i < bqTag.length; i++) {
             final int bq = baseQualities[i] + 64;
             final int baq_i = baq[i];
@@ -449,7 +487,7 @@ public final class BAQ implements Serializable {
      * @return
      */
     public static byte calcBAQFromTag(GATKRead read, int offset, boolean useRawQualsIfNoBAQTag) {
-        byte rawQual = read.getBaseQualities()[offset];
+        byte rawQual = read.getBaseQuality(offset);
         byte newQual = rawQual;
         byte[] baq = getBAQTag(read);
 
@@ -518,6 +556,76 @@ public final class BAQ implements Serializable {
         }
     }
 
+    /**
+     * Calculate the BAQ of a batch of reads on the same contig, using a single reference window that spans the
+     * windows required by all of the reads (see {@link #getReferenceWindow}), rather than querying the reference once
+     * per read.
+     *
+     * @param reads reads to calculate the BAQ of, all on the contig of window
+     * @param windowBases reference bases spanning window
+     * @param window the reference interval of windowBases
+     * @return the result for each read, in the same order, or null for the reads that cannot be BAQ'ed or whose
+     *         reference window is not inside window
+     */
+    public List<BAQCalculationResult> calcBAQFromHMM(final List<GATKRead> reads, final byte[] windowBases, final SimpleInterval window) {
+        Utils.nonNull(reads);
+        Utils.nonNull(windowBases);
+        Utils.nonNull(window);
+        Utils.validateArg(windowBases.length == window.size(), "the number of reference bases must match the size of the window");
+
+        final List<BAQCalculationResult> results = new ArrayList<>(reads.size());
+        for (final GATKRead read : reads) {
+            Utils.validateArg(read.getContig().equals(window.getContig()), () -> "read " + read.getName() + " is not on the contig of the window " + window);
+            final SimpleInterval readWindow = getReferenceWindowForRead(read, getBandWidth());
+            if (!window.contains(readWindow)) {
+                results.add(null);
+            } else {
+                final int from = readWindow.getStart() - window.getStart();
+                final byte[] ref = Arrays.copyOfRange(windowBases, from, from + readWindow.size());
+                results.add(calcBAQFromHMM(read, ref, readWindow.getStart() - read.getStart()));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Calculate the BAQ of a batch of reads on the same contig, querying refDS once for a window spanning all of them.
+     *
+     * @return the result for each read, in the same order, or null for the reads that cannot be BAQ'ed, including
+     *         those whose reference window extends past the end of the contig, as in {@link #calcBAQFromHMM(GATKRead, ReferenceDataSource)}
+     */
+    public List<BAQCalculationResult> calcBAQFromHMM(final List<GATKRead> reads, final ReferenceDataSource refDS) {
+        Utils.nonNull(reads);
+        Utils.nonNull(refDS);
+        if (reads.isEmpty()) {
+            return new ArrayList<>();
+        }
+        final SimpleInterval window = getReferenceWindow(reads, refDS.getSequenceDictionary().getSequence(reads.get(0).getContig()).getSequenceLength());
+        final ReferenceSequence refSeq = refDS.queryAndPrefetch(window.getContig(), window.getStart(), window.getEnd());
+        return calcBAQFromHMM(reads, refSeq.getBases(), window);
+    }
+
+    /**
+     * Get the smallest interval spanning the reference windows required by BAQ for a batch of reads on the same
+     * contig, truncated to the end of the contig.
+     *
+     * @param reads reads that are going to be input to BAQ, all on the same contig
+     * @param contigLength length of the contig of the reads
+     */
+    public SimpleInterval getReferenceWindow(final List<GATKRead> reads, final int contigLength) {
+        Utils.nonEmpty(reads);
+        final String contig = reads.get(0).getContig();
+        int start = Integer.MAX_VALUE;
+        int end = 0;
+        for (final GATKRead read : reads) {
+            Utils.validateArg(contig.equals(read.getContig()), "all reads in a BAQ batch must be on the same contig");
+            final SimpleInterval readWindow = getReferenceWindowForRead(read, getBandWidth());
+            start = Math.min(start, readWindow.getStart());
+            end = Math.max(end, readWindow.getEnd());
+        }
+        return new SimpleInterval(contig, Math.min(start, contigLength), Math.min(end, contigLength));
+    }
+
     public BAQCalculationResult calcBAQFromHMM(byte[] ref, byte[] query, byte[] quals, int queryStart, int queryEnd ) {
         if ( queryStart < 0 ) throw new GATKException("BUG: queryStart < 0: " + queryStart);
         if ( queryEnd < 0 ) throw new GATKException("BUG: queryEnd < 0: " + queryEnd);
@@ -382,8 +382,8 @@ public final class ClippingOp {
         final byte[] newQuals = new byte[newLength];
         final int copyStart = (start == 0) ? stop + 1 + cigarShift.shiftFromStart : cigarShift.shiftFromStart;
 
-        System.arraycopy(read.getBases(), copyStart, newBases, 0, newLength);
-        System.arraycopy(read.getBaseQualities(), copyStart, newQuals, 0, newLength);
+        System.arraycopy(read.getBasesNoCopy(), copyStart, newBases, 0, newLength);
+        System.arraycopy(read.getBaseQualitiesNoCopy(), copyStart, newQuals, 0, newLength);
 
         final GATKRead hardClippedRead = read.copy();
 
@@ -0,0 +1,199 @@
+package org.broadinstitute.hellbender.utils.collections;
+
+import com.google.common.collect.Iterators;
+import htsjdk.samtools.Defaults;
+import htsjdk.samtools.util.SortingCollection;
+import htsjdk.samtools.util.TempStreamFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.param.ParamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * An append-only cache of records that can be replayed in the order in which they were added. The first
+ * {@code maxRecordsInRam} records are kept in memory; any further records are encoded with a
+ * {@link SortingCollection.Codec} into a temporary file, which is deleted when the cache is closed.
+ *
+ * Records kept in memory are returned as they were added, so callers must not add records that will be modified
+ * afterwards, and should add a copy instead.
+ *
+ * Once {@link #iterator()} has been called no more records can be added, but the records can be replayed any number
+ * of times.
+ *
+ * @param <T> type of the cached records
+ */
+public final class SpillingRecordCache<T> implements Iterable<T>, AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(SpillingRecordCache.class);
+
+    private final SortingCollection.Codec<T> codec;
+    private final int maxRecordsInRam;
+    private final Path tmpDir;
+    private final TempStreamFactory tempStreamFactory = new TempStreamFactory();
+
+    private final List<T> recordsInRam = new ArrayList<>();
+    private Path spillFile;
+    private OutputStream spillStream;
+    private long numSpilledRecords = 0;
+    private boolean doneAdding = false;
+
+    /**
+     * @param codec codec used to encode and decode the records that do not fit in memory
+     * @param maxRecordsInRam maximum number of records to keep in memory
+     * @param tmpDir directory for the temporary file of the records that do not fit in memory
+     */
+    public SpillingRecordCache(final SortingCollection.Codec<T> codec, final int maxRecordsInRam, final Path tmpDir) {
+        this.codec = Utils.nonNull(codec);
+        this.maxRecordsInRam = ParamUtils.isPositiveOrZero(maxRecordsInRam, "maxRecordsInRam must be zero or higher");
+        this.tmpDir = Utils.nonNull(tmpDir);
+    }
+
+    /**
+     * Add a record at the end of the cache.
+     */
+    public void add(final T record) {
+        Utils.nonNull(record);
+        Utils.validate(!doneAdding, "Records cannot be added to the cache after it has been iterated");
+        if (recordsInRam.size() < maxRecordsInRam) {
+            recordsInRam.add(record);
+            return;
+        }
+        if (spillStream == null) {
+            openSpillFile();
+        }
+        codec.encode(record);
+        numSpilledRecords++;
+    }
+
+    /**
+     * @return the number of records in the cache
+     */
+    public long size() {
+        return recordsInRam.size() + numSpilledRecords;
+    }
+
+    /**
+     * @return the number of records that were written to the temporary file
+     */
+    public long getNumSpilledRecords() {
+        return numSpilledRecords;
+    }
+
+    /**
+     * Returns the records in the order in which they were added. Records in the temporary file are decoded as
+     * the iterator reaches them. No more records can be added after this method has been called.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        doneAdding();
+        return spillFile == null ?
+                Collections.unmodifiableList(recordsInRam).iterator() :
+                Iterators.concat(Collections.unmodifiableList(recordsInRam).iterator(), new SpilledRecordIterator());
+    }
+
+    /**
+     * Release the records in memory and delete the temporary file, if any.
+     */
+    @Override
+    public void close() {
+        doneAdding();
+        recordsInRam.clear();
+        if (spillFile != null) {
+            try {
+                Files.deleteIfExists(spillFile);
+            } catch (final IOException e) {
+                logger.warn("Could not delete temporary file " + spillFile.toAbsolutePath(), e);
+            }
+            spillFile = null;
+        }
+    }
+
+    private void openSpillFile() {
+        try {
+            spillFile = Files.createTempFile(tmpDir, "recordCache", ".tmp");
+            spillFile.toFile().deleteOnExit();
+            spillStream = tempStreamFactory.wrapTempOutputStream(Files.newOutputStream(spillFile), Defaults.BUFFER_SIZE);
+        } catch (final IOException e) {
+            throw new UserException.CouldNotCreateOutputFile("Could not create a temporary file in " + tmpDir.toAbsolutePath(), e);
+        }
+        logger.info(String.format("More than %d records added to the cache, spilling the rest to %s", maxRecordsInRam, spillFile.toAbsolutePath()));
+        codec.setOutputStream(spillStream);
+    }
+
+    private void doneAdding() {
+        if (doneAdding) {
+            return;
+        }
+        doneAdding = true;
+        if (spillStream != null) {
+            try {
+                spillStream.close();
+            } catch (final IOException e) {
+                throw new GATKException("Error closing temporary file " + spillFile.toAbsolutePath(), e);
+            }
+            spillStream = null;
+        }
+    }
+
+    /**
+     * Decodes the records in the temporary file, using its own copy of the codec so that several iterators can be
+     * open at the same time.
+     */
+    private final class SpilledRecordIterator implements Iterator<T> {
+        private final SortingCollection.Codec<T> iteratorCodec = codec.clone();
+        private InputStream inputStream;
+        private long numRemaining = numSpilledRecords;
+
+        @Override
+        public boolean hasNext() {
+            return numRemaining > 0;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more records in the cache");
+            }
+            if (inputStream == null) {
+                open();
+            }
+            final T record = iteratorCodec.decode();
+            if (record == null) {
+                throw new GATKException("Unexpected end of temporary file " + spillFile.toAbsolutePath());
+            }
+            if (--numRemaining == 0) {
+                close();
+            }
+            return record;
+        }
+
+        private void open() {
+            try {
+                inputStream = tempStreamFactory.wrapTempInputStream(Files.newInputStream(spillFile), Defaults.BUFFER_SIZE);
+            } catch (final IOException e) {
+                throw new GATKException("Could not open temporary file " + spillFile.toAbsolutePath(), e);
+            }
+            iteratorCodec.setInputStream(inputStream);
+        }
+
+        private void close() {
+            try {
+                inputStream.close();
+            } catch (final IOException e) {
+                throw new GATKException("Error closing temporary file " + spillFile.toAbsolutePath(), e);
+            }
+        }
+    }
+}
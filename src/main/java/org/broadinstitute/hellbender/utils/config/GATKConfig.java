@@ -84,7 +84,7 @@ public interface GATKConfig extends Mutable, Accessible {
 
     @SystemProperty
     @Key("samjdk.use_async_io_write_tribble")
-    @DefaultValue("false")
+    @DefaultValue("true")
     boolean samjdk_use_async_io_write_tribble();
 
     @SystemProperty
@@ -159,4 +159,7 @@ public interface GATKConfig extends Mutable, Accessible {
 
     @DefaultValue("true")
     boolean createOutputBamIndex();
+
+    @DefaultValue("2000")
+    int asyncOutputQueueSize();
 }
@@ -14,6 +14,7 @@ import org.apache.logging.log4j.Logger;
 import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.BaseUtils;
+import org.broadinstitute.hellbender.utils.runtime.MetricsRegistry;
 
 import java.io.FileNotFoundException;
 import java.nio.file.Files;
@@ -58,6 +59,10 @@ public final class CachingIndexedFastaSequenceFile extends IndexedFastaSequenceF
     long cacheHits = 0;
     long cacheMisses = 0;
 
+    // cache hits and misses summed over all readers, as runtime metrics
+    private static final MetricsRegistry.Counter CACHE_HITS_METRIC = MetricsRegistry.getDefault().counter("reference-cache.hits");
+    private static final MetricsRegistry.Counter CACHE_MISSES_METRIC = MetricsRegistry.getDefault().counter("reference-cache.misses");
+
     /** Represents a specific cached sequence, with a specific start and stop, as well as the bases */
     private static class Cache {
         long start = -1, stop = -1;
@@ -289,6 +294,7 @@ public final class CachingIndexedFastaSequenceFile extends IndexedFastaSequenceF
 
         if ( (stop - start) >= cacheSize ) {
             cacheMisses++;
+            CACHE_MISSES_METRIC.increment();
             result = super.getSubsequenceAt(contig, start, stop);
             if ( ! preserveCase ) StringUtil.toUpperCase(result.getBases());
             if ( ! preserveIUPAC ) BaseUtils.convertIUPACtoN(result.getBases(), true, start < 1);
@@ -304,6 +310,7 @@ public final class CachingIndexedFastaSequenceFile extends IndexedFastaSequenceF
 
             if ( start < cache.start || stop > cache.stop || cache.seq == null || cache.seq.getContigIndex() != contigInfo.getSequenceIndex() ) {
                 cacheMisses++;
+                CACHE_MISSES_METRIC.increment();
                 cache.start = Math.max(start - cacheMissBackup, 0);
                 cache.stop  = Math.min(start + cacheSize + cacheMissBackup, contigInfo.getSequenceLength());
                 cache.seq   = super.getSubsequenceAt(contig, cache.start, cache.stop);
@@ -313,6 +320,7 @@ public final class CachingIndexedFastaSequenceFile extends IndexedFastaSequenceF
                 if ( ! preserveIUPAC ) BaseUtils.convertIUPACtoN(cache.seq.getBases(), true, cache.start == 0);
             } else {
                 cacheHits++;
+                CACHE_HITS_METRIC.increment();
             }
 
             // at this point we determine where in the cache we want to extract the requested subsequence
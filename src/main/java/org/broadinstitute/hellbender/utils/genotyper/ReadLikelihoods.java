@@ -91,6 +91,14 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
      */
     private final LikelihoodMatrix<A>[] sampleMatrices;
 
+    /**
+     * Best alleles per sample returned by {@link #bestAllelesBreakingTies}, lazily computed (the elements not the array)
+     * and reset whenever the reads or likelihoods of the sample change.
+     *
+     * <p>Each of the annotations of a variant asks for the best alleles of the same reads, so they are only searched once.</p>
+     */
+    private final List<BestAllele>[] bestAllelesBySampleIndex;
+
     /**
      * Is this container expected to have the per-allele liklihoods calculations filled in.
      */
@@ -138,6 +146,7 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
         setupIndexes(reads, sampleCount, alleleCount);
 
         sampleMatrices = (LikelihoodMatrix<A>[]) new LikelihoodMatrix[sampleCount];
+        bestAllelesBySampleIndex = (List<BestAllele>[]) new List[sampleCount];
     }
 
 
@@ -158,6 +167,7 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
 
         referenceAlleleIndex = findReferenceAllele(alleles);
         sampleMatrices = (LikelihoodMatrix<A>[]) new LikelihoodMatrix[sampleCount];
+        bestAllelesBySampleIndex = (List<BestAllele>[]) new List[sampleCount];
     }
 
     // Add all the indices to alleles, sample and reads in the look-up maps.
@@ -354,6 +364,7 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
             return;
         }
 
+        invalidateBestAlleles();
         for (int s = 0; s < valuesBySampleIndex.length; s++) {
             final double[][] sampleValues = valuesBySampleIndex[s];
             final int readCount = readsBySampleIndex[s].length;
@@ -484,6 +495,7 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
     }
 
     public void changeReads(final Map<GATKRead, GATKRead> readRealignments) {
+        invalidateBestAlleles();
         final int sampleCount = samples.numberOfSamples();
         for (int s = 0; s < sampleCount; s++) {
             final GATKRead[] sampleReads = readsBySampleIndex[s];
@@ -533,6 +545,7 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
         final int newAlleleCount = alleles.numberOfAlleles() + allelesToAdd.size();
 
         alleleList = null;
+        invalidateBestAlleles();
         int referenceIndex = this.referenceAlleleIndex;
 
         @SuppressWarnings("unchecked")
@@ -872,6 +885,7 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
                              final int sampleReadCount, final int newSampleReadCount) {
         final GATKRead[] sampleReads = readsBySampleIndex[sampleIndex] =
                 Arrays.copyOf(readsBySampleIndex[sampleIndex], newSampleReadCount);
+        bestAllelesBySampleIndex[sampleIndex] = null;
 
         int nextReadIndex = sampleReadCount;
         final Object2IntMap<GATKRead> sampleReadIndex = readIndexBySampleIndex[sampleIndex];
@@ -936,6 +950,7 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
         if ( nonRefAlleleIndex < 0) {
             return;
         }
+        invalidateBestAlleles();
         final int alleleCount = alleles.numberOfAlleles();
         final int nonSymbolicAlleleCount = alleleCount - 1;
         // likelihood buffer reused across reads:
@@ -1009,7 +1024,15 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
      * @return never {@code null}, one element per read in the read-likelihoods collection.
      */
     public Collection<BestAllele> bestAllelesBreakingTies() {
-        return IntStream.range(0, numberOfSamples()).boxed().flatMap(n -> bestAllelesBreakingTies(n).stream()).collect(Collectors.toList());
+        final int sampleCount = numberOfSamples();
+        if (sampleCount == 1) {
+            return bestAllelesBreakingTies(0);
+        }
+        final List<BestAllele> result = new ArrayList<>(readCount());
+        for (int s = 0; s < sampleCount; s++) {
+            result.addAll(bestAllelesBreakingTies(s));
+        }
+        return result;
     }
 
     /**
@@ -1037,6 +1060,9 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
      */
     private Collection<BestAllele> bestAllelesBreakingTies(final int sampleIndex) {
         Utils.validIndex(sampleIndex, numberOfSamples());
+        if (bestAllelesBySampleIndex[sampleIndex] != null) {
+            return bestAllelesBySampleIndex[sampleIndex];
+        }
 
         final GATKRead[] sampleReads = readsBySampleIndex[sampleIndex];
         final int readCount = sampleReads.length;
@@ -1045,7 +1071,12 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
             result.add(searchBestAllele(sampleIndex, r, true, true));
         }
 
-        return result;
+        return bestAllelesBySampleIndex[sampleIndex] = Collections.unmodifiableList(result);
+    }
+
+    // Resets the best alleles of all samples after a change in the alleles or likelihoods.
+    private void invalidateBestAlleles() {
+        Arrays.fill(bestAllelesBySampleIndex, null);
     }
 
 
@@ -1250,6 +1281,7 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
         valuesBySampleIndex[sampleIndex] = newSampleValues;
         readsBySampleIndex[sampleIndex] = newSampleReads;
         readListBySampleIndex[sampleIndex] = null; // reset the unmodifiable list.
+        bestAllelesBySampleIndex[sampleIndex] = null;
     }
 
 
@@ -1308,6 +1340,7 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
         valuesBySampleIndex[sampleIndex] = newSampleValues;
         readsBySampleIndex[sampleIndex] = newSampleReads;
         readListBySampleIndex[sampleIndex] = null; // reset the unmodifiable list.
+        bestAllelesBySampleIndex[sampleIndex] = null;
     }
 
 
@@ -1361,6 +1394,7 @@ public class ReadLikelihoods<A extends Allele> implements SampleList, AlleleList
             Utils.validIndex(alleleIndex, valuesBySampleIndex[sampleIndex].length);
             Utils.validIndex(readIndex, valuesBySampleIndex[sampleIndex][alleleIndex].length);
             valuesBySampleIndex[sampleIndex][alleleIndex][readIndex] = value;
+            bestAllelesBySampleIndex[sampleIndex] = null;
         }
 
         @Override
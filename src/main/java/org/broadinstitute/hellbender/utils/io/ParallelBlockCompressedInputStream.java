@@ -0,0 +1,450 @@
+package org.broadinstitute.hellbender.utils.io;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import htsjdk.samtools.Chunk;
+import htsjdk.samtools.util.BlockCompressedFilePointerUtil;
+import htsjdk.samtools.util.BlockCompressedInputStream;
+import htsjdk.samtools.util.BlockCompressedStreamConstants;
+import htsjdk.samtools.util.BlockGunzipper;
+import htsjdk.samtools.util.zip.InflaterFactory;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.param.ParamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * A BGZF input stream that reads ahead of the consumer and inflates the upcoming blocks on a pool of worker threads.
+ *
+ * The compressed blocks are read from the channel in order on the calling thread, and handed to the workers as soon
+ * as they are read, keeping a bounded number of blocks in flight. The stream reads either the whole file from a given
+ * address, or only the blocks spanned by a list of chunks, such as the chunks an index returns for a query, so that
+ * blocks outside of the chunks are never read or inflated.
+ *
+ * Virtual file pointers have the same meaning as those of htsjdk's {@link BlockCompressedInputStream}: at the end of
+ * a block {@link #getFilePointer()} returns the start of the next block in the file, whether or not the next block
+ * is read.
+ */
+public final class ParallelBlockCompressedInputStream extends InputStream {
+
+    // enough blocks in flight to keep every worker busy while the consumer is reading the oldest one
+    private static final int BLOCKS_IN_FLIGHT_PER_THREAD = 2;
+
+    private static final int READ_BUFFER_SIZE = 1024 * 1024;
+
+    private static final byte[] EMPTY_BLOCK = new byte[0];
+
+    private final SeekableByteChannel channel;
+    private final long channelSize;
+    private final ExecutorService inflaterExecutor;
+    private final BlockingQueue<InflateWorkspace> workspaces;
+    private final int maxBlocksInFlight;
+    private final ArrayDeque<PendingBlock> blocksInFlight = new ArrayDeque<>();
+    private final byte[] singleByte = new byte[1];
+
+    // compressed bytes read ahead from the channel, starting at readBufferAddress
+    private final byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+    private long readBufferAddress = 0;
+    private int readBufferLength = 0;
+
+    // the blocks to read are the ones whose addresses lie in [rangeStarts[i], rangeEnds[i]) for some i >= nextRange,
+    // starting from nextAddress
+    private long[] rangeStarts = new long[0];
+    private long[] rangeEnds = new long[0];
+    private int nextRange = 0;
+    private long nextAddress = 0;
+
+    private byte[] currentBlock = EMPTY_BLOCK;
+    private long currentAddress = 0;
+    private int currentCompressedSize = 0;
+    private int currentOffset = 0;
+
+    private boolean closed = false;
+
+    /**
+     * Create a stream that inflates with htsjdk's default inflater factory and reads the whole channel.
+     *
+     * @param channel channel to read the compressed blocks from. Closed when this stream is closed.
+     * @param numThreads number of threads to inflate blocks on. Must be positive.
+     */
+    public ParallelBlockCompressedInputStream(final SeekableByteChannel channel, final int numThreads) throws IOException {
+        this(channel, BlockGunzipper.getDefaultInflaterFactory(), numThreads);
+    }
+
+    /**
+     * @param channel channel to read the compressed blocks from. Closed when this stream is closed.
+     * @param inflaterFactory factory for the inflaters used by the worker threads
+     * @param numThreads number of threads to inflate blocks on. Must be positive.
+     */
+    public ParallelBlockCompressedInputStream(final SeekableByteChannel channel, final InflaterFactory inflaterFactory,
+                                              final int numThreads) throws IOException {
+        this.channel = Utils.nonNull(channel);
+        Utils.nonNull(inflaterFactory);
+        ParamUtils.isPositive(numThreads, "the number of decompression threads must be positive");
+
+        this.channelSize = channel.size();
+        this.maxBlocksInFlight = numThreads * BLOCKS_IN_FLIGHT_PER_THREAD;
+        this.workspaces = new ArrayBlockingQueue<>(numThreads);
+        for (int i = 0; i < numThreads; i++) {
+            workspaces.add(new InflateWorkspace(inflaterFactory));
+        }
+        this.inflaterExecutor = Executors.newFixedThreadPool(numThreads, new ThreadFactoryBuilder()
+                .setNameFormat("bgzfInflater-thread-%d")
+                .setDaemon(true)
+                .build());
+        readFrom(0);
+    }
+
+    /**
+     * Read every block from the one at {@code blockAddress} to the end of the file, and position the stream at the
+     * start of that block.
+     *
+     * @param blockAddress address of a block in the file
+     */
+    public void readFrom(final long blockAddress) throws IOException {
+        Utils.validateArg(blockAddress >= 0, "the block address must not be negative");
+        setRanges(new long[] {blockAddress}, new long[] {Long.MAX_VALUE});
+        seek(BlockCompressedFilePointerUtil.makeFilePointer(blockAddress, 0));
+    }
+
+    /**
+     * Read only the blocks spanned by {@code chunks}, and position the stream at the start of the first chunk. Seeking
+     * to the start of each chunk in turn and reading up to its end reads the blocks the workers have already inflated.
+     *
+     * @param chunks chunks to read, sorted by start and not overlapping, as returned by an index. Can not be null.
+     */
+    public void readChunks(final List<Chunk> chunks) throws IOException {
+        Utils.nonNull(chunks);
+        final List<long[]> ranges = new ArrayList<>(chunks.size());
+        for (final Chunk chunk : chunks) {
+            final long start = BlockCompressedFilePointerUtil.getBlockAddress(chunk.getChunkStart());
+            // the chunk ends before the block holding its end pointer unless the pointer is inside of that block
+            final long end = BlockCompressedFilePointerUtil.getBlockAddress(chunk.getChunkEnd())
+                    + (BlockCompressedFilePointerUtil.getBlockOffset(chunk.getChunkEnd()) > 0 ? 1 : 0);
+            if (end <= start) {
+                continue;
+            }
+            // chunks that end and start in the same block share that block
+            if (!ranges.isEmpty() && start <= ranges.get(ranges.size() - 1)[1]) {
+                final long[] last = ranges.get(ranges.size() - 1);
+                last[1] = Math.max(last[1], end);
+            } else {
+                ranges.add(new long[] {start, end});
+            }
+        }
+        setRanges(ranges.stream().mapToLong(range -> range[0]).toArray(), ranges.stream().mapToLong(range -> range[1]).toArray());
+        if (!chunks.isEmpty()) {
+            seek(chunks.get(0).getChunkStart());
+        }
+    }
+
+    /**
+     * @return the virtual file pointer of the next byte to be read
+     */
+    public long getFilePointer() {
+        // like BlockCompressedInputStream, stay at the start of an empty block
+        if (currentOffset > 0 && currentOffset == currentBlock.length) {
+            return BlockCompressedFilePointerUtil.makeFilePointer(currentAddress + currentCompressedSize, 0);
+        }
+        return BlockCompressedFilePointerUtil.makeFilePointer(currentAddress, currentOffset);
+    }
+
+    /**
+     * Position the stream at a virtual file pointer. Blocks that have already been inflated are reused if the pointer
+     * is in one of them, and the ones before it are dropped. Otherwise the stream reads from the block holding the
+     * pointer, and continues with the blocks of the chunks after it, if any.
+     *
+     * @param filePointer virtual file pointer to read from next
+     */
+    public void seek(final long filePointer) throws IOException {
+        Utils.validate(!closed, "the stream is closed");
+        final long address = BlockCompressedFilePointerUtil.getBlockAddress(filePointer);
+        final int offset = BlockCompressedFilePointerUtil.getBlockOffset(filePointer);
+
+        if (address != currentAddress || currentCompressedSize == 0) {
+            while (!blocksInFlight.isEmpty() && blocksInFlight.peekFirst().address < address) {
+                blocksInFlight.removeFirst().uncompressed.cancel(true);
+            }
+            if (!blocksInFlight.isEmpty() && blocksInFlight.peekFirst().address == address) {
+                nextBlock();
+            } else {
+                discardBlocksInFlight();
+                nextRange = 0;
+                while (nextRange < rangeStarts.length && rangeEnds[nextRange] <= address) {
+                    nextRange++;
+                }
+                nextAddress = address;
+                currentBlock = EMPTY_BLOCK;
+                currentAddress = address;
+                currentCompressedSize = 0;
+                currentOffset = 0;
+                if (offset > 0 || address < channelSize) {
+                    // read the block even if the ranges don't include it, since the caller asked for it
+                    final boolean inRange = nextRange < rangeStarts.length && rangeStarts[nextRange] <= address;
+                    submitBlock(address, !inRange);
+                    nextBlock();
+                }
+            }
+        }
+
+        if (offset > currentBlock.length) {
+            throw new IOException("invalid file pointer: offset " + offset + " is past the end of the block at " + address);
+        }
+        currentOffset = offset;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return read(singleByte, 0, 1) == 1 ? singleByte[0] & 0xFF : -1;
+    }
+
+    @Override
+    public int read(final byte[] buffer, int offset, int length) throws IOException {
+        Utils.validate(!closed, "the stream is closed");
+        int bytesRead = 0;
+        while (length > 0 && ensureAvailable()) {
+            final int bytesToCopy = Math.min(currentBlock.length - currentOffset, length);
+            System.arraycopy(currentBlock, currentOffset, buffer, offset, bytesToCopy);
+            currentOffset += bytesToCopy;
+            offset += bytesToCopy;
+            length -= bytesToCopy;
+            bytesRead += bytesToCopy;
+        }
+        return bytesRead == 0 && length > 0 ? -1 : bytesRead;
+    }
+
+    @Override
+    public int available() throws IOException {
+        Utils.validate(!closed, "the stream is closed");
+        return ensureAvailable() ? currentBlock.length - currentOffset : 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        inflaterExecutor.shutdownNow();
+        workspaces.forEach(InflateWorkspace::end);
+        channel.close();
+    }
+
+    /**
+     * Move to the next block that has any data in it if the current one has been read.
+     *
+     * @return false at the end of the blocks to read
+     */
+    private boolean ensureAvailable() throws IOException {
+        while (currentOffset == currentBlock.length) {
+            fillBlocksInFlight();
+            if (blocksInFlight.isEmpty()) {
+                return false;
+            }
+            nextBlock();
+        }
+        return true;
+    }
+
+    /**
+     * Make the oldest block in flight the current one, waiting for it to be inflated if necessary.
+     */
+    private void nextBlock() throws IOException {
+        final PendingBlock pending = blocksInFlight.removeFirst();
+        currentBlock = getUncompressedBlock(pending.uncompressed);
+        currentAddress = pending.address;
+        currentCompressedSize = pending.compressedSize;
+        currentOffset = 0;
+        fillBlocksInFlight();
+    }
+
+    /**
+     * Read the upcoming blocks of the current range, moving on to the next range at the end of it, until there are
+     * enough blocks in flight.
+     */
+    private void fillBlocksInFlight() throws IOException {
+        while (blocksInFlight.size() < maxBlocksInFlight && nextRange < rangeStarts.length) {
+            if (nextAddress >= rangeEnds[nextRange] || nextAddress >= channelSize) {
+                nextRange++;
+            } else {
+                // skip the gap between the ranges, or between a block read by a seek and the next range
+                submitBlock(Math.max(nextAddress, rangeStarts[nextRange]), false);
+            }
+        }
+    }
+
+    /**
+     * Read the compressed block at {@code address} from the channel and hand it to a worker.
+     *
+     * @param outsideRanges if true the block was requested by a seek outside of the ranges to read
+     */
+    private void submitBlock(final long address, final boolean outsideRanges) throws IOException {
+        final long rangeEnd = !outsideRanges && nextRange < rangeEnds.length ? rangeEnds[nextRange] : address + 1;
+        final byte[] compressed = readCompressedBlock(address, rangeEnd);
+        blocksInFlight.addLast(new PendingBlock(address, compressed.length, inflaterExecutor.submit(() -> inflate(compressed))));
+        nextAddress = address + compressed.length;
+    }
+
+    private byte[] readCompressedBlock(final long address, final long rangeEnd) throws IOException {
+        fillReadBuffer(address, BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH, rangeEnd);
+        final int headerStart = (int) (address - readBufferAddress);
+        if (!isBlockHeader(readBuffer, headerStart)) {
+            throw new IOException("invalid BGZF block header at address " + address);
+        }
+        final int blockSize = unpackUnsignedShort(readBuffer, headerStart + BlockCompressedStreamConstants.BLOCK_LENGTH_OFFSET) + 1;
+        fillReadBuffer(address, blockSize, rangeEnd);
+        final int blockStart = (int) (address - readBufferAddress);
+        return Arrays.copyOfRange(readBuffer, blockStart, blockStart + blockSize);
+    }
+
+    /**
+     * Make sure that the read buffer holds the {@code length} bytes at {@code address}. If it doesn't, refill it from
+     * there with at most the bytes up to the end of the last block that starts before {@code rangeEnd}.
+     */
+    private void fillReadBuffer(final long address, final int length, final long rangeEnd) throws IOException {
+        if (address >= readBufferAddress && address + length <= readBufferAddress + readBufferLength) {
+            return;
+        }
+        final long bytesInRange = Math.min(rangeEnd, channelSize) - address + BlockCompressedStreamConstants.MAX_COMPRESSED_BLOCK_SIZE;
+        final int bytesToRead = (int) Math.min(Math.min(readBuffer.length, channelSize - address), Math.max(bytesInRange, length));
+        final ByteBuffer buffer = ByteBuffer.wrap(readBuffer, 0, Math.max(bytesToRead, 0));
+        channel.position(address);
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            // keep reading until the buffer is full or the channel is exhausted
+        }
+        readBufferAddress = address;
+        readBufferLength = buffer.position();
+        if (readBufferLength < length) {
+            throw new IOException("premature end of file: truncated BGZF block at address " + address);
+        }
+    }
+
+    private static boolean isBlockHeader(final byte[] buffer, final int offset) {
+        return (buffer[offset] & 0xFF) == BlockCompressedStreamConstants.GZIP_ID1
+                && (buffer[offset + 1] & 0xFF) == BlockCompressedStreamConstants.GZIP_ID2
+                && (buffer[offset + 3] & BlockCompressedStreamConstants.GZIP_FLG) != 0
+                && unpackUnsignedShort(buffer, offset + 10) == BlockCompressedStreamConstants.GZIP_XLEN
+                && buffer[offset + 12] == BlockCompressedStreamConstants.BGZF_ID1
+                && buffer[offset + 13] == BlockCompressedStreamConstants.BGZF_ID2;
+    }
+
+    private static int unpackUnsignedShort(final byte[] buffer, final int offset) {
+        return (buffer[offset] & 0xFF) | ((buffer[offset + 1] & 0xFF) << 8);
+    }
+
+    private static int unpackInt(final byte[] buffer, final int offset) {
+        return (buffer[offset] & 0xFF) | ((buffer[offset + 1] & 0xFF) << 8)
+                | ((buffer[offset + 2] & 0xFF) << 16) | ((buffer[offset + 3] & 0xFF) << 24);
+    }
+
+    /**
+     * Replace the blocks to read. The current block is dropped too, so that the blocks are read in order from the
+     * first range on.
+     */
+    private void setRanges(final long[] starts, final long[] ends) {
+        discardBlocksInFlight();
+        rangeStarts = starts;
+        rangeEnds = ends;
+        nextRange = 0;
+        nextAddress = starts.length > 0 ? starts[0] : 0;
+        currentBlock = EMPTY_BLOCK;
+        currentAddress = nextAddress;
+        currentCompressedSize = 0;
+        currentOffset = 0;
+    }
+
+    private void discardBlocksInFlight() {
+        blocksInFlight.forEach(pending -> pending.uncompressed.cancel(true));
+        blocksInFlight.clear();
+    }
+
+    private static byte[] getUncompressedBlock(final Future<byte[]> uncompressed) throws IOException {
+        try {
+            return uncompressed.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for a BGZF block to be decompressed");
+        } catch (final ExecutionException e) {
+            throw new IOException("failed to decompress a BGZF block", e.getCause());
+        }
+    }
+
+    private byte[] inflate(final byte[] compressed) throws InterruptedException, IOException {
+        final InflateWorkspace workspace = workspaces.take();
+        try {
+            return workspace.inflate(compressed);
+        } finally {
+            workspaces.add(workspace);
+        }
+    }
+
+    private static final class PendingBlock {
+        private final long address;
+        private final int compressedSize;
+        private final Future<byte[]> uncompressed;
+
+        private PendingBlock(final long address, final int compressedSize, final Future<byte[]> uncompressed) {
+            this.address = address;
+            this.compressedSize = compressedSize;
+            this.uncompressed = uncompressed;
+        }
+    }
+
+    /**
+     * An inflater and checksum for decompressing one block at a time, mirroring BlockGunzipper.unzipBlock().
+     */
+    private static final class InflateWorkspace {
+        private final Inflater inflater;
+        private final CRC32 crc32 = new CRC32();
+
+        private InflateWorkspace(final InflaterFactory inflaterFactory) {
+            this.inflater = inflaterFactory.makeInflater(true);
+        }
+
+        private byte[] inflate(final byte[] compressed) throws IOException {
+            final int uncompressedSize = unpackInt(compressed, compressed.length - 4);
+            final int expectedCrc = unpackInt(compressed, compressed.length - 8);
+            final int deflatedSize = compressed.length - BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH - BlockCompressedStreamConstants.BLOCK_FOOTER_LENGTH;
+            if (uncompressedSize < 0 || uncompressedSize > BlockCompressedStreamConstants.MAX_COMPRESSED_BLOCK_SIZE || deflatedSize < 0) {
+                throw new IOException("invalid BGZF block sizes");
+            }
+            final byte[] uncompressed = new byte[uncompressedSize];
+            try {
+                inflater.reset();
+                inflater.setInput(compressed, BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH, deflatedSize);
+                final int inflatedSize = inflater.inflate(uncompressed, 0, uncompressedSize);
+                if (inflatedSize != uncompressedSize) {
+                    throw new IOException("did not inflate the expected number of bytes from a BGZF block");
+                }
+            } catch (final DataFormatException e) {
+                throw new IOException("corrupt BGZF block", e);
+            }
+            crc32.reset();
+            crc32.update(uncompressed, 0, uncompressedSize);
+            if ((int) crc32.getValue() != expectedCrc) {
+                throw new IOException("CRC mismatch in a BGZF block");
+            }
+            return uncompressed;
+        }
+
+        private void end() {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package org.broadinstitute.hellbender.utils.io;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import htsjdk.samtools.util.BlockCompressedFilePointerUtil;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.samtools.util.BlockCompressedStreamConstants;
+import htsjdk.samtools.util.zip.DeflaterFactory;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.param.ParamUtils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * A BGZF output stream that deflates its blocks on a pool of worker threads and writes them to the underlying stream
+ * in order.
+ *
+ * Block boundaries, the fallback to stored blocks for incompressible data and the terminator block are the same as
+ * those of htsjdk's {@link BlockCompressedOutputStream}, so given the same compression level and {@link DeflaterFactory}
+ * the output is byte-identical.
+ *
+ * The compressed size of a block is not known until a worker has deflated it, so {@link #getPosition()} returns a
+ * provisional virtual file pointer in which the block address is replaced by the ordinal of the block. Once all of the
+ * blocks before it have been written, {@link #resolve} converts it to the virtual file pointer that
+ * {@link BlockCompressedOutputStream#getFilePointer()} would have returned at the same point. Block addresses are kept
+ * until {@link #releaseBefore} is called, so on-the-fly indexers should resolve positions in order and release the ones
+ * they are done with.
+ */
+public final class ParallelBlockCompressedOutputStream extends OutputStream {
+
+    // enough blocks in flight to keep every worker busy while the oldest block is being written out
+    private static final int BLOCKS_IN_FLIGHT_PER_THREAD = 2;
+
+    private static final int UNCOMPRESSED_BLOCK_SIZE = BlockCompressedStreamConstants.DEFAULT_UNCOMPRESSED_BLOCK_SIZE;
+
+    private final OutputStream out;
+    private final ExecutorService deflaterExecutor;
+    private final BlockingQueue<DeflateWorkspace> workspaces;
+    private final int maxBlocksInFlight;
+
+    private final ArrayDeque<PendingBlock> blocksInFlight = new ArrayDeque<>();
+    private final ArrayDeque<byte[]> freeBuffers = new ArrayDeque<>();
+    private final byte[] singleByte = new byte[1];
+
+    private byte[] uncompressedBuffer = new byte[UNCOMPRESSED_BLOCK_SIZE];
+    private int numUncompressedBytes = 0;
+    private long blocksSubmitted = 0;
+    private long bytesWritten = 0;
+
+    // compressed addresses of the blocks with ordinals firstRetainedBlock .. firstRetainedBlock + numRetainedAddresses - 1
+    private long[] retainedAddresses = new long[64];
+    private long firstRetainedBlock = 0;
+    private int numRetainedAddresses = 1;
+
+    private boolean closed = false;
+
+    /**
+     * Create a stream that uses htsjdk's default compression level and deflater factory, as
+     * {@link BlockCompressedOutputStream} does.
+     *
+     * @param out stream to write the compressed blocks to. Closed when this stream is closed.
+     * @param numThreads number of threads to deflate blocks on. Must be positive.
+     */
+    public ParallelBlockCompressedOutputStream(final OutputStream out, final int numThreads) {
+        this(out, BlockCompressedOutputStream.getDefaultCompressionLevel(), BlockCompressedOutputStream.getDefaultDeflaterFactory(), numThreads);
+    }
+
+    /**
+     * @param out stream to write the compressed blocks to. Closed when this stream is closed.
+     * @param compressionLevel deflate compression level, 0 to 9
+     * @param deflaterFactory factory for the deflaters used by the worker threads
+     * @param numThreads number of threads to deflate blocks on. Must be positive.
+     */
+    public ParallelBlockCompressedOutputStream(final OutputStream out, final int compressionLevel,
+                                               final DeflaterFactory deflaterFactory, final int numThreads) {
+        this.out = Utils.nonNull(out);
+        Utils.nonNull(deflaterFactory);
+        ParamUtils.inRange(compressionLevel, Deflater.NO_COMPRESSION, Deflater.BEST_COMPRESSION, "compression level must be between 0 and 9");
+        ParamUtils.isPositive(numThreads, "the number of compression threads must be positive");
+
+        this.maxBlocksInFlight = numThreads * BLOCKS_IN_FLIGHT_PER_THREAD;
+        this.workspaces = new ArrayBlockingQueue<>(numThreads);
+        for (int i = 0; i < numThreads; i++) {
+            workspaces.add(new DeflateWorkspace(deflaterFactory, compressionLevel));
+        }
+        this.deflaterExecutor = Executors.newFixedThreadPool(numThreads, new ThreadFactoryBuilder()
+                .setNameFormat("bgzfDeflater-thread-%d")
+                .setDaemon(true)
+                .build());
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        singleByte[0] = (byte) b;
+        write(singleByte, 0, 1);
+    }
+
+    @Override
+    public void write(final byte[] bytes, int offset, int length) throws IOException {
+        Utils.validate(!closed, "the stream is closed");
+        while (length > 0) {
+            final int bytesToCopy = Math.min(uncompressedBuffer.length - numUncompressedBytes, length);
+            System.arraycopy(bytes, offset, uncompressedBuffer, numUncompressedBytes, bytesToCopy);
+            numUncompressedBytes += bytesToCopy;
+            offset += bytesToCopy;
+            length -= bytesToCopy;
+            // like BlockCompressedOutputStream, end the block as soon as it is full
+            if (numUncompressedBytes == uncompressedBuffer.length) {
+                submitBlock();
+            }
+        }
+    }
+
+    /**
+     * Ends the current block, as {@link BlockCompressedOutputStream#flush()} does, and waits for all of the blocks
+     * written so far to be deflated and written to the underlying stream.
+     */
+    @Override
+    public void flush() throws IOException {
+        Utils.validate(!closed, "the stream is closed");
+        if (numUncompressedBytes > 0) {
+            submitBlock();
+        }
+        writeCompletedBlocks(0);
+        out.flush();
+    }
+
+    /**
+     * Flushes the stream, writes the BGZF terminator block and closes the underlying stream.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            flush();
+            out.write(BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK);
+            out.close();
+        } finally {
+            closed = true;
+            deflaterExecutor.shutdownNow();
+            // after a failure workers may still be deflating blocks, and they return their workspaces when they finish,
+            // so the deflaters can only be ended once all of the workers are done
+            if (awaitDeflaterTermination()) {
+                workspaces.forEach(DeflateWorkspace::end);
+            }
+        }
+    }
+
+    /**
+     * @return true if all of the workers have finished, false if we were interrupted while waiting for them
+     */
+    private boolean awaitDeflaterTermination() {
+        try {
+            return deflaterExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * @return the provisional virtual file pointer of the next byte to be written, in which the block address is the
+     * ordinal of the current block
+     */
+    public long getPosition() {
+        return BlockCompressedFilePointerUtil.makeFilePointer(blocksSubmitted, numUncompressedBytes);
+    }
+
+    /**
+     * @param position a provisional virtual file pointer returned by {@link #getPosition()}, not yet released
+     * @return true if the address of the block containing {@code position} is known
+     */
+    public boolean isResolved(final long position) {
+        return BlockCompressedFilePointerUtil.getBlockAddress(position) < firstRetainedBlock + numRetainedAddresses;
+    }
+
+    /**
+     * @param position a resolved provisional virtual file pointer returned by {@link #getPosition()}, not yet released
+     * @return the virtual file pointer of {@code position} in the compressed output
+     */
+    public long resolve(final long position) {
+        final long ordinal = BlockCompressedFilePointerUtil.getBlockAddress(position);
+        Utils.validateArg(ordinal >= firstRetainedBlock, () -> "the address of block " + ordinal + " has been released");
+        Utils.validateArg(isResolved(position), () -> "the address of block " + ordinal + " is not known yet");
+        return BlockCompressedFilePointerUtil.makeFilePointer(retainedAddresses[(int) (ordinal - firstRetainedBlock)],
+                BlockCompressedFilePointerUtil.getBlockOffset(position));
+    }
+
+    /**
+     * Stop retaining the addresses of the blocks before the one containing {@code position}. Positions in those blocks
+     * can no longer be resolved.
+     *
+     * @param position a provisional virtual file pointer returned by {@link #getPosition()}
+     */
+    public void releaseBefore(final long position) {
+        final long ordinal = BlockCompressedFilePointerUtil.getBlockAddress(position);
+        final int numReleased = (int) Math.min(Math.max(ordinal - firstRetainedBlock, 0), numRetainedAddresses);
+        if (numReleased > 0) {
+            System.arraycopy(retainedAddresses, numReleased, retainedAddresses, 0, numRetainedAddresses - numReleased);
+            numRetainedAddresses -= numReleased;
+            firstRetainedBlock += numReleased;
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        final byte[] block = uncompressedBuffer;
+        final int length = numUncompressedBytes;
+        blocksInFlight.addLast(new PendingBlock(block, deflaterExecutor.submit(() -> deflate(block, length))));
+        blocksSubmitted++;
+
+        uncompressedBuffer = freeBuffers.isEmpty() ? new byte[UNCOMPRESSED_BLOCK_SIZE] : freeBuffers.removeFirst();
+        numUncompressedBytes = 0;
+        writeCompletedBlocks(maxBlocksInFlight);
+    }
+
+    /**
+     * Write blocks in order until at most {@code maxRemaining} blocks are in flight and the oldest one, if any, is
+     * still being deflated.
+     */
+    private void writeCompletedBlocks(final int maxRemaining) throws IOException {
+        while (blocksInFlight.size() > maxRemaining || (!blocksInFlight.isEmpty() && blocksInFlight.peekFirst().compressed.isDone())) {
+            final PendingBlock pending = blocksInFlight.removeFirst();
+            final byte[] compressed = getCompressedBlock(pending.compressed);
+            out.write(compressed);
+            bytesWritten += compressed.length;
+            retainAddress(bytesWritten);
+            freeBuffers.addLast(pending.uncompressed);
+        }
+    }
+
+    private static byte[] getCompressedBlock(final Future<byte[]> compressed) throws IOException {
+        try {
+            return compressed.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for a BGZF block to be compressed");
+        } catch (final ExecutionException e) {
+            throw new IOException("failed to compress a BGZF block", e.getCause());
+        }
+    }
+
+    private void retainAddress(final long address) {
+        if (numRetainedAddresses == retainedAddresses.length) {
+            retainedAddresses = Arrays.copyOf(retainedAddresses, retainedAddresses.length * 2);
+        }
+        retainedAddresses[numRetainedAddresses++] = address;
+    }
+
+    private byte[] deflate(final byte[] uncompressed, final int length) throws InterruptedException {
+        final DeflateWorkspace workspace = workspaces.take();
+        try {
+            return workspace.deflate(uncompressed, length);
+        } finally {
+            workspaces.add(workspace);
+        }
+    }
+
+    private static final class PendingBlock {
+        private final byte[] uncompressed;
+        private final Future<byte[]> compressed;
+
+        private PendingBlock(final byte[] uncompressed, final Future<byte[]> compressed) {
+            this.uncompressed = uncompressed;
+            this.compressed = compressed;
+        }
+    }
+
+    /**
+     * Deflaters and buffers for compressing one block at a time, mirroring BlockCompressedOutputStream.deflateBlock().
+     */
+    private static final class DeflateWorkspace {
+        private final Deflater deflater;
+        private final Deflater noCompressionDeflater;
+        private final CRC32 crc32 = new CRC32();
+        private final byte[] compressedBuffer =
+                new byte[BlockCompressedStreamConstants.MAX_COMPRESSED_BLOCK_SIZE - BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH];
+
+        private DeflateWorkspace(final DeflaterFactory deflaterFactory, final int compressionLevel) {
+            this.deflater = deflaterFactory.makeDeflater(compressionLevel, true);
+            this.noCompressionDeflater = deflaterFactory.makeDeflater(Deflater.NO_COMPRESSION, true);
+        }
+
+        private byte[] deflate(final byte[] uncompressed, final int length) {
+            deflater.reset();
+            deflater.setInput(uncompressed, 0, length);
+            deflater.finish();
+            int compressedSize = deflater.deflate(compressedBuffer, 0, compressedBuffer.length);
+
+            // if the compressed data does not fit in a block, store it uncompressed, which always fits
+            if (!deflater.finished()) {
+                noCompressionDeflater.reset();
+                noCompressionDeflater.setInput(uncompressed, 0, length);
+                noCompressionDeflater.finish();
+                compressedSize = noCompressionDeflater.deflate(compressedBuffer, 0, compressedBuffer.length);
+                if (!noCompressionDeflater.finished()) {
+                    throw new IllegalStateException("a BGZF block does not fit in the compressed buffer without compression");
+                }
+            }
+
+            crc32.reset();
+            crc32.update(uncompressed, 0, length);
+
+            final int blockSize = compressedSize + BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH + BlockCompressedStreamConstants.BLOCK_FOOTER_LENGTH;
+            final ByteBuffer block = ByteBuffer.allocate(blockSize).order(ByteOrder.LITTLE_ENDIAN);
+            block.put((byte) BlockCompressedStreamConstants.GZIP_ID1)
+                    .put((byte) BlockCompressedStreamConstants.GZIP_ID2)
+                    .put((byte) BlockCompressedStreamConstants.GZIP_CM_DEFLATE)
+                    .put((byte) BlockCompressedStreamConstants.GZIP_FLG)
+                    .putInt(0) // modification time
+                    .put((byte) BlockCompressedStreamConstants.GZIP_XFL)
+                    .put((byte) BlockCompressedStreamConstants.GZIP_OS_UNKNOWN)
+                    .putShort((short) BlockCompressedStreamConstants.GZIP_XLEN)
+                    .put((byte) BlockCompressedStreamConstants.BGZF_ID1)
+                    .put((byte) BlockCompressedStreamConstants.BGZF_ID2)
+                    .putShort((short) BlockCompressedStreamConstants.BGZF_LEN)
+                    .putShort((short) (blockSize - 1))
+                    .put(compressedBuffer, 0, compressedSize)
+                    .putInt((int) crc32.getValue())
+                    .putInt(length);
+            return block.array();
+        }
+
+        private void end() {
+            deflater.end();
+            noCompressionDeflater.end();
+        }
+    }
+}
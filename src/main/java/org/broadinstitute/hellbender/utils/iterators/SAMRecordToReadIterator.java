@@ -4,6 +4,7 @@ package org.broadinstitute.hellbender.utils.iterators;
 import htsjdk.samtools.SAMRecord;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.SAMRecordToGATKReadAdapter;
+import org.broadinstitute.hellbender.utils.runtime.MetricsRegistry;
 
 import java.util.Iterator;
 
@@ -11,6 +12,8 @@ import java.util.Iterator;
  * Wraps a SAMRecord iterator within an iterator of GATKReads.
  */
 public final class SAMRecordToReadIterator implements Iterator<GATKRead>, Iterable<GATKRead> {
+    private static final MetricsRegistry.Counter READS_DECODED = MetricsRegistry.getDefault().counter("reads.decoded");
+
     private final Iterator<SAMRecord> samIterator;
 
     public SAMRecordToReadIterator( final Iterator<SAMRecord> samIterator ) {
@@ -24,7 +27,9 @@ public final class SAMRecordToReadIterator implements Iterator<GATKRead>, Iterab
 
     @Override
     public GATKRead next() {
-        return new SAMRecordToGATKReadAdapter(samIterator.next());
+        final GATKRead read = new SAMRecordToGATKReadAdapter(samIterator.next());
+        READS_DECODED.increment();
+        return read;
     }
 
     @Override
@@ -0,0 +1,156 @@
+package org.broadinstitute.hellbender.utils.iterators;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.variant.variantcontext.VariantContext;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Merges several iterators of VariantContexts, each sorted in coordinate order, into a single iterator over all of
+ * them in coordinate order.
+ *
+ * This does the same job as htsjdk's MergingIterator with a VariantContextComparator, but the sort key (contig index
+ * and start) of the next record from every source is computed once and kept in a primitive array, and the heap over
+ * the sources is an array of source indices. Maintaining the heap over hundreds of sources therefore neither looks up
+ * contig names nor calls back into the records. Only the contig and start of each record are read, so the genotypes
+ * of records decoded lazily from a VCF are not parsed by the merge.
+ *
+ * Records with the same contig and start are returned in the order in which they were read from their sources, so
+ * a source that was waiting at a position is not overtaken by another source that only just reached it. This is the
+ * order in which htsjdk's MergingIterator returns them for two sources.
+ */
+public final class VariantContextMergingIterator implements CloseableIterator<VariantContext> {
+
+    private final List<CloseableIterator<VariantContext>> sources;
+    private final SAMSequenceDictionary dictionary;
+
+    // next record and its sort key, for each source
+    private final VariantContext[] nextRecords;
+    private final long[] nextKeys;
+
+    // order in which the next records were read, to break ties between records at the same position
+    private final long[] readOrder;
+    private long recordsRead;
+
+    // contig of the last record read from each source and its index in the dictionary
+    private final String[] lastContigs;
+    private final int[] lastContigIndices;
+
+    // binary min-heap of the indices of the sources that still have records
+    private final int[] heap;
+    private int heapSize;
+
+    /**
+     * @param sources iterators to merge, each sorted in coordinate order according to dictionary
+     * @param dictionary sequence dictionary that defines the order of the contigs
+     */
+    public VariantContextMergingIterator(final List<CloseableIterator<VariantContext>> sources, final SAMSequenceDictionary dictionary) {
+        Utils.nonNull(sources, "sources must not be null");
+        Utils.nonNull(dictionary, "dictionary must not be null");
+
+        this.sources = new ArrayList<>(sources);
+        this.dictionary = dictionary;
+        final int numSources = this.sources.size();
+        nextRecords = new VariantContext[numSources];
+        nextKeys = new long[numSources];
+        readOrder = new long[numSources];
+        lastContigs = new String[numSources];
+        lastContigIndices = new int[numSources];
+        heap = new int[numSources];
+
+        for (int source = 0; source < numSources; source++) {
+            if (advance(source)) {
+                heap[heapSize++] = source;
+            }
+        }
+        for (int i = heapSize / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return heapSize > 0;
+    }
+
+    @Override
+    public VariantContext next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("hasNext should be called before next");
+        }
+        final int source = heap[0];
+        final VariantContext result = nextRecords[source];
+        if (!advance(source)) {
+            heap[0] = heap[--heapSize];
+        }
+        if (heapSize > 0) {
+            siftDown(0);
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        sources.forEach(CloseableIterator::close);
+        heapSize = 0;
+    }
+
+    /**
+     * Read the next record of a source and compute its sort key.
+     *
+     * @return false if the source is exhausted
+     */
+    private boolean advance(final int source) {
+        final CloseableIterator<VariantContext> iterator = sources.get(source);
+        if (!iterator.hasNext()) {
+            nextRecords[source] = null;
+            return false;
+        }
+        final VariantContext vc = iterator.next();
+        nextRecords[source] = vc;
+        nextKeys[source] = ((long) getContigIndex(source, vc.getContig()) << 32) | vc.getStart();
+        readOrder[source] = recordsRead++;
+        return true;
+    }
+
+    private int getContigIndex(final int source, final String contig) {
+        // the records of a source are grouped by contig, so this is nearly always the contig of the previous record
+        if (contig != lastContigs[source] && !contig.equals(lastContigs[source])) {
+            final int contigIndex = dictionary.getSequenceIndex(contig);
+            if (contigIndex == -1) {
+                throw new UserException("Found a variant on contig " + contig + ", which is not in the sequence dictionary of the inputs");
+            }
+            lastContigs[source] = contig;
+            lastContigIndices[source] = contigIndex;
+        }
+        return lastContigIndices[source];
+    }
+
+    private boolean comesBefore(final int source, final int otherSource) {
+        return nextKeys[source] < nextKeys[otherSource] || (nextKeys[source] == nextKeys[otherSource] && readOrder[source] < readOrder[otherSource]);
+    }
+
+    private void siftDown(int position) {
+        final int source = heap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && comesBefore(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!comesBefore(heap[child], source)) {
+                break;
+            }
+            heap[position] = heap[child];
+            position = child;
+        }
+        heap[position] = source;
+    }
+}
@@ -0,0 +1,58 @@
+package org.broadinstitute.hellbender.utils.locusiterator;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import org.broadinstitute.hellbender.utils.IntervalUtils;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.iterators.IntervalLocusIterator;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Returns the {@link LocusBaseCounts} of every position of a set of intervals, including the positions without any
+ * reads, whose counts are empty. This is the counterpart of {@link IntervalAlignmentContextIterator} for
+ * {@link LocusBaseCountsIterator}.
+ */
+public final class IntervalLocusBaseCountsIterator implements Iterator<LocusBaseCounts> {
+    private final Iterator<LocusBaseCounts> countsIterator;
+    private final IntervalLocusIterator intervalLocusIterator;
+    private final SAMSequenceDictionary dictionary;
+
+    // next counts from countsIterator that have not been returned or skipped yet
+    private LocusBaseCounts pendingCounts;
+
+    /**
+     * @param countsIterator counts of the covered positions, in coordinate order
+     * @param intervalLocusIterator the positions to return
+     * @param dictionary reference or best available dictionary, to order the contigs
+     */
+    public IntervalLocusBaseCountsIterator(final Iterator<LocusBaseCounts> countsIterator, final IntervalLocusIterator intervalLocusIterator, final SAMSequenceDictionary dictionary) {
+        this.countsIterator = Utils.nonNull(countsIterator);
+        this.intervalLocusIterator = Utils.nonNull(intervalLocusIterator);
+        this.dictionary = Utils.nonNull(dictionary);
+        pendingCounts = countsIterator.hasNext() ? countsIterator.next() : null;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return intervalLocusIterator.hasNext();
+    }
+
+    @Override
+    public LocusBaseCounts next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final SimpleInterval locus = intervalLocusIterator.next();
+        while (pendingCounts != null && IntervalUtils.compareLocatables(pendingCounts, locus, dictionary) < 0) {
+            pendingCounts = countsIterator.hasNext() ? countsIterator.next() : null;
+        }
+        if (pendingCounts != null && pendingCounts.getContig().equals(locus.getContig()) && pendingCounts.getStart() == locus.getStart()) {
+            final LocusBaseCounts result = pendingCounts;
+            pendingCounts = countsIterator.hasNext() ? countsIterator.next() : null;
+            return result;
+        }
+        return LocusBaseCounts.empty(locus);
+    }
+}
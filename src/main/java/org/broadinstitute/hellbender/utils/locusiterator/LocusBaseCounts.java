@@ -0,0 +1,186 @@
+package org.broadinstitute.hellbender.utils.locusiterator;
+
+import htsjdk.samtools.util.Locatable;
+import org.broadinstitute.hellbender.utils.Nucleotide;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.param.ParamUtils;
+import org.broadinstitute.hellbender.utils.pileup.PileupElement;
+import org.broadinstitute.hellbender.utils.pileup.ReadPileup;
+
+import java.util.Arrays;
+
+/**
+ * Counts of the bases, deletions and base qualities of the reads at a single position of the reference: a compact
+ * summary of a pileup for tools that only tally bases.
+ *
+ * Bases are counted by {@link Nucleotide}, and only if their quality is at least the minimum base quality the counts
+ * were collected with. Bases with lower quality are only counted in {@link #getLowQualityCount()}.
+ *
+ * Counts are produced either from reads directly, by {@link LocusBaseCountsIterator}, or from a pileup, by
+ * {@link #fromPileup}. Both give the same counts for the same reads.
+ */
+public final class LocusBaseCounts implements Locatable {
+
+    static final int NUM_NUCLEOTIDES = Nucleotide.values().length;
+
+    // ordinal of the nucleotide of each base byte, including negative bytes, which are invalid nucleotides
+    private static final byte[] BASE_TO_NUCLEOTIDE_ORDINAL = new byte[256];
+
+    static {
+        for (int base = 0; base < 256; base++) {
+            BASE_TO_NUCLEOTIDE_ORDINAL[base] = (byte) (base <= Byte.MAX_VALUE ? Nucleotide.valueOf((byte) base) : Nucleotide.INVALID).ordinal();
+        }
+    }
+
+    private final String contig;
+    private final int position;
+    private final int[] counts;
+    private final long[] qualitySums;
+    private final int lowQualityCount;
+    private final int deletionCount;
+
+    LocusBaseCounts(final String contig, final int position, final int[] counts, final long[] qualitySums,
+                    final int lowQualityCount, final int deletionCount) {
+        this.contig = contig;
+        this.position = position;
+        this.counts = counts;
+        this.qualitySums = qualitySums;
+        this.lowQualityCount = lowQualityCount;
+        this.deletionCount = deletionCount;
+    }
+
+    /**
+     * @param locus a single position of the reference
+     * @return counts with no bases or deletions at locus
+     */
+    public static LocusBaseCounts empty(final Locatable locus) {
+        Utils.nonNull(locus);
+        return new LocusBaseCounts(locus.getContig(), locus.getStart(), new int[NUM_NUCLEOTIDES], new long[NUM_NUCLEOTIDES], 0, 0);
+    }
+
+    /**
+     * Counts the bases and deletions of a pileup.
+     *
+     * @param locus the position of the pileup
+     * @param pileup the pileup to count
+     * @param minBaseQuality bases with lower quality are counted as low quality bases rather than by nucleotide
+     * @return the counts of the pileup
+     */
+    public static LocusBaseCounts fromPileup(final Locatable locus, final ReadPileup pileup, final int minBaseQuality) {
+        Utils.nonNull(locus);
+        Utils.nonNull(pileup);
+        ParamUtils.isPositiveOrZero(minBaseQuality, "Minimum base quality must be zero or higher.");
+
+        final int[] counts = new int[NUM_NUCLEOTIDES];
+        final long[] qualitySums = new long[NUM_NUCLEOTIDES];
+        int lowQualityCount = 0;
+        int deletionCount = 0;
+        for (final PileupElement element : pileup) {
+            if (element.isDeletion()) {
+                deletionCount++;
+            } else if (element.getQual() >= minBaseQuality) {
+                final int nucleotide = nucleotideOrdinal(element.getBase());
+                counts[nucleotide]++;
+                qualitySums[nucleotide] += element.getQual();
+            } else {
+                lowQualityCount++;
+            }
+        }
+        return new LocusBaseCounts(locus.getContig(), locus.getStart(), counts, qualitySums, lowQualityCount, deletionCount);
+    }
+
+    /**
+     * @return the ordinal of the {@link Nucleotide} of a base
+     */
+    static int nucleotideOrdinal(final byte base) {
+        return BASE_TO_NUCLEOTIDE_ORDINAL[base & 0xFF];
+    }
+
+    @Override
+    public String getContig() {
+        return contig;
+    }
+
+    @Override
+    public int getStart() {
+        return position;
+    }
+
+    @Override
+    public int getEnd() {
+        return position;
+    }
+
+    /**
+     * @return the number of bases of this nucleotide with at least the minimum base quality
+     */
+    public int getCount(final Nucleotide nucleotide) {
+        return counts[nucleotide.ordinal()];
+    }
+
+    /**
+     * @return the sum of the qualities of the bases counted by {@link #getCount}
+     */
+    public long getQualitySum(final Nucleotide nucleotide) {
+        return qualitySums[nucleotide.ordinal()];
+    }
+
+    /**
+     * @return the number of bases with at least the minimum base quality, of any nucleotide
+     */
+    public int getBaseCount() {
+        int total = 0;
+        for (final int count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * @return the number of bases with less than the minimum base quality
+     */
+    public int getLowQualityCount() {
+        return lowQualityCount;
+    }
+
+    /**
+     * @return the number of reads with a deletion at this position
+     */
+    public int getDeletionCount() {
+        return deletionCount;
+    }
+
+    /**
+     * @return the number of reads with a base or a deletion at this position
+     */
+    public int getDepth() {
+        return getBaseCount() + lowQualityCount + deletionCount;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final LocusBaseCounts that = (LocusBaseCounts) o;
+        return position == that.position && lowQualityCount == that.lowQualityCount && deletionCount == that.deletionCount
+                && contig.equals(that.contig) && Arrays.equals(counts, that.counts) && Arrays.equals(qualitySums, that.qualitySums);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = contig.hashCode();
+        result = 31 * result + position;
+        result = 31 * result + Arrays.hashCode(counts);
+        result = 31 * result + deletionCount;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s:%d counts=%s lowQuality=%d deletions=%d", contig, position, Arrays.toString(counts), lowQualityCount, deletionCount);
+    }
+}
@@ -0,0 +1,241 @@
+package org.broadinstitute.hellbender.utils.locusiterator;
+
+import htsjdk.samtools.CigarElement;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.param.ParamUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Iterates over the positions of the reference covered by a stream of coordinate-sorted reads, returning the
+ * {@link LocusBaseCounts} of each position.
+ *
+ * This is a lightweight alternative to {@link LocusIteratorByState} for tools that only count bases. Instead of
+ * keeping an {@link AlignmentStateMachine} per read and building a pileup of {@link org.broadinstitute.hellbender.utils.pileup.PileupElement}s
+ * at every position, each read is walked along its cigar once, as soon as it is read, and its bases are added to
+ * primitive counters in a ring buffer indexed by reference position. The counts of a position are returned as soon as
+ * the next read starts after it, so memory use depends on the length of the reads rather than on the depth.
+ *
+ * The counts are the same as those of the pileups produced by {@link LocusIteratorByState} without downsampling:
+ * bases of aligned (M, = and X) cigar elements and deletions are counted, and bases inside the adaptor of the read
+ * are not. Deletions are counted only if requested, reference skips (N) are never counted, and a position is returned
+ * only if it has at least one base or counted deletion.
+ */
+public final class LocusBaseCountsIterator implements Iterator<LocusBaseCounts> {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Iterator<GATKRead> reads;
+    private final int minBaseQuality;
+    private final boolean includeDeletions;
+
+    // counts of the positions not returned yet; position p is kept in slot p & mask
+    private int mask;
+    private int[] counts;
+    private long[] qualitySums;
+    private int[] depths;
+    private int[] lowQualityCounts;
+    private int[] deletionCounts;
+
+    private String contig;
+    private final Set<String> finishedContigs = new HashSet<>();
+    private int lastReadStart;
+    // next position to return or skip, and the last position with counts
+    private int nextPosition;
+    private int lastCountedPosition;
+
+    private GATKRead nextRead;
+    private LocusBaseCounts nextCounts;
+
+    /**
+     * @param reads coordinate-sorted reads to count; unmapped reads are skipped
+     * @param minBaseQuality bases with lower quality are counted as low quality bases rather than by nucleotide
+     * @param includeDeletions whether to count deletions
+     */
+    public LocusBaseCountsIterator(final Iterator<GATKRead> reads, final int minBaseQuality, final boolean includeDeletions) {
+        this.reads = Utils.nonNull(reads, "reads cannot be null");
+        this.minBaseQuality = ParamUtils.isPositiveOrZero(minBaseQuality, "Minimum base quality must be zero or higher.");
+        this.includeDeletions = includeDeletions;
+        allocate(INITIAL_CAPACITY);
+        nextRead = fetchNextRead();
+        nextCounts = advance();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return nextCounts != null;
+    }
+
+    @Override
+    public LocusBaseCounts next() {
+        if (nextCounts == null) {
+            throw new NoSuchElementException("No more loci");
+        }
+        final LocusBaseCounts result = nextCounts;
+        nextCounts = advance();
+        return result;
+    }
+
+    private LocusBaseCounts advance() {
+        while (true) {
+            // no read after the next one can cover a position before its start
+            final int flushEnd = nextRead == null || !nextRead.getContig().equals(contig) ?
+                    lastCountedPosition : Math.min(lastCountedPosition, nextRead.getStart() - 1);
+            while (nextPosition <= flushEnd) {
+                final int position = nextPosition++;
+                final int slot = position & mask;
+                if (depths[slot] == 0 && deletionCounts[slot] == 0) {
+                    continue;
+                }
+                final LocusBaseCounts result = makeCounts(slot, position);
+                clear(slot);
+                return result;
+            }
+            if (nextRead == null) {
+                return null;
+            }
+            addRead(nextRead);
+            nextRead = fetchNextRead();
+        }
+    }
+
+    private GATKRead fetchNextRead() {
+        while (reads.hasNext()) {
+            final GATKRead read = reads.next();
+            if (!read.isUnmapped()) {
+                return read;
+            }
+        }
+        return null;
+    }
+
+    private void addRead(final GATKRead read) {
+        final int start = read.getStart();
+        if (!read.getContig().equals(contig)) {
+            if (contig != null) {
+                finishedContigs.add(contig);
+            }
+            if (finishedContigs.contains(read.getContig())) {
+                throw new UserException.BadInput("Reads are not coordinate sorted: found read " + read.getName() + " on contig " + read.getContig() + " after reads on other contigs");
+            }
+            contig = read.getContig();
+            nextPosition = start;
+            lastCountedPosition = start - 1;
+        } else if (start < lastReadStart) {
+            throw new UserException.BadInput("Reads are not coordinate sorted: found read " + read.getName() + " at " + contig + ":" + start + " after a read starting at " + lastReadStart);
+        } else if (nextPosition > lastCountedPosition) {
+            // nothing is waiting to be returned, so skip directly to the start of the read
+            nextPosition = start;
+        }
+        lastReadStart = start;
+        ensureCapacity(read.getEnd() - nextPosition + 1);
+
+        final byte[] bases = read.getBasesNoCopy();
+        final byte[] quals = read.getBaseQualitiesNoCopy();
+        final int adaptorBoundary = read.getAdaptorBoundary();
+        int position = start;
+        int offset = 0;
+        for (final CigarElement element : read.getCigarElements()) {
+            final int length = element.getLength();
+            switch (element.getOperator()) {
+                case M: case EQ: case X:
+                    for (int i = 0; i < length; i++, position++, offset++) {
+                        if (!ReadUtils.isBaseInsideAdaptor(read, adaptorBoundary, position)) {
+                            addBase(position & mask, bases[offset], quals[offset]);
+                        }
+                    }
+                    break;
+                case D:
+                    for (int i = 0; i < length; i++, position++) {
+                        if (includeDeletions && !ReadUtils.isBaseInsideAdaptor(read, adaptorBoundary, position)) {
+                            deletionCounts[position & mask]++;
+                        }
+                    }
+                    break;
+                case N:
+                    position += length;
+                    break;
+                case I: case S:
+                    offset += length;
+                    break;
+                default:
+                    break;
+            }
+        }
+        lastCountedPosition = Math.max(lastCountedPosition, position - 1);
+    }
+
+    private void addBase(final int slot, final byte base, final byte qual) {
+        depths[slot]++;
+        if (qual >= minBaseQuality) {
+            final int index = slot * LocusBaseCounts.NUM_NUCLEOTIDES + LocusBaseCounts.nucleotideOrdinal(base);
+            counts[index]++;
+            qualitySums[index] += qual;
+        } else {
+            lowQualityCounts[slot]++;
+        }
+    }
+
+    private LocusBaseCounts makeCounts(final int slot, final int position) {
+        final int from = slot * LocusBaseCounts.NUM_NUCLEOTIDES;
+        final int to = from + LocusBaseCounts.NUM_NUCLEOTIDES;
+        return new LocusBaseCounts(contig, position, Arrays.copyOfRange(counts, from, to), Arrays.copyOfRange(qualitySums, from, to),
+                lowQualityCounts[slot], deletionCounts[slot]);
+    }
+
+    private void clear(final int slot) {
+        final int from = slot * LocusBaseCounts.NUM_NUCLEOTIDES;
+        final int to = from + LocusBaseCounts.NUM_NUCLEOTIDES;
+        Arrays.fill(counts, from, to, 0);
+        Arrays.fill(qualitySums, from, to, 0);
+        depths[slot] = 0;
+        lowQualityCounts[slot] = 0;
+        deletionCounts[slot] = 0;
+    }
+
+    private void allocate(final int capacity) {
+        mask = capacity - 1;
+        counts = new int[capacity * LocusBaseCounts.NUM_NUCLEOTIDES];
+        qualitySums = new long[capacity * LocusBaseCounts.NUM_NUCLEOTIDES];
+        depths = new int[capacity];
+        lowQualityCounts = new int[capacity];
+        deletionCounts = new int[capacity];
+    }
+
+    /**
+     * Grows the ring buffer, keeping the counts of the positions not returned yet, so that it holds at least
+     * numPositions positions starting at {@link #nextPosition}.
+     */
+    private void ensureCapacity(final int numPositions) {
+        if (numPositions <= mask + 1) {
+            return;
+        }
+        int capacity = mask + 1;
+        while (capacity < numPositions) {
+            capacity *= 2;
+        }
+        final int oldMask = mask;
+        final int[] oldCounts = counts;
+        final long[] oldQualitySums = qualitySums;
+        final int[] oldDepths = depths;
+        final int[] oldLowQualityCounts = lowQualityCounts;
+        final int[] oldDeletionCounts = deletionCounts;
+        allocate(capacity);
+        for (int position = nextPosition; position <= lastCountedPosition; position++) {
+            final int oldSlot = position & oldMask;
+            final int slot = position & mask;
+            System.arraycopy(oldCounts, oldSlot * LocusBaseCounts.NUM_NUCLEOTIDES, counts, slot * LocusBaseCounts.NUM_NUCLEOTIDES, LocusBaseCounts.NUM_NUCLEOTIDES);
+            System.arraycopy(oldQualitySums, oldSlot * LocusBaseCounts.NUM_NUCLEOTIDES, qualitySums, slot * LocusBaseCounts.NUM_NUCLEOTIDES, LocusBaseCounts.NUM_NUCLEOTIDES);
+            depths[slot] = oldDepths[oldSlot];
+            lowQualityCounts[slot] = oldLowQualityCounts[oldSlot];
+            deletionCounts[slot] = oldDeletionCounts[oldSlot];
+        }
+    }
+}
@@ -11,28 +11,37 @@ import org.broadinstitute.hellbender.utils.param.ParamUtils;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.stream.Collectors;
 
 /**
  * Implements Gibbs sampling of a multivariate probability density function.
  * See GibbsSamplerSingleGaussianUnitTest and GibbsSamplerCopyRatioUnitTest for examples of use.
  *
+ * <p>
+ *     Several independent chains, each initialized with the state of the model and seeded differently, may be run;
+ *     the samples of all chains (each with its own burn-in discarded) are then pooled.  The chains are run as tasks
+ *     of a {@link ForkJoinPool} with {@code numThreads} threads, which are also used by samplers that sample
+ *     conditionally independent parameters in parallel (see {@link ParallelSamplingUtils}).  The first chain is
+ *     seeded identically regardless of the number of chains, and the samples do not depend on the number of threads.
+ * </p>
+ *
  * @author Samuel Lee &lt;slee@broadinstitute.org&gt;
  */
 public final class GibbsSampler<V extends Enum<V> & ParameterEnum, S extends ParameterizedState<V>, T extends DataCollection> {
     private static final int RANDOM_SEED = 42;
-    private static final RandomGenerator rng =
-            RandomGeneratorFactory.createRandomGenerator(new Random(RANDOM_SEED));
 
     private static final Logger logger = LogManager.getLogger(GibbsSampler.class);
     private static final int NUMBER_OF_SAMPLES_PER_LOG_ENTRY = 25;
 
     private final int numSamples;
     private int numSamplesPerLogEntry;
+    private int numThreads = 1;
 
-    private final ParameterizedModel<V, S, T> model;
+    private final List<ParameterizedModel<V, S, T>> chainModels;
 
-    private final List<S> samples;
+    private final List<List<S>> chainSamples;
 
     private boolean isMCMCRunComplete = false;
 
@@ -44,13 +53,34 @@ public final class GibbsSampler<V extends Enum<V> & ParameterEnum, S extends Par
      * @param model         {@link ParameterizedModel} to be sampled
      */
     public GibbsSampler(final int numSamples, final ParameterizedModel<V, S, T> model) {
+        this(numSamples, model, 1);
+    }
+
+    /**
+     * Constructs a GibbsSampler given the total number of samples per chain (including burn-in), a
+     * {@link ParameterizedModel}, and the number of independent chains to run.  Each chain is initialized with
+     * the {@link ParameterizedState} held by the model, which is taken to be the first sample of each chain;
+     * the first chain updates the model itself, while the others update copies.  Number of samples per log entry
+     * will be set to the default.
+     * @param numSamples    total number of samples per chain; must be positive
+     * @param model         {@link ParameterizedModel} to be sampled
+     * @param numChains     number of independent chains; must be positive
+     */
+    public GibbsSampler(final int numSamples, final ParameterizedModel<V, S, T> model, final int numChains) {
         ParamUtils.isPositive(numSamples, "Number of samples must be positive.");
+        ParamUtils.isPositive(numChains, "Number of chains must be positive.");
         Utils.validateArg(model.getUpdateMethod() == ParameterizedModel.UpdateMethod.GIBBS, "ParameterizedModel must be constructed to update using Gibbs sampling.");
         this.numSamples = numSamples;
-        this.model = model;
         numSamplesPerLogEntry = NUMBER_OF_SAMPLES_PER_LOG_ENTRY;
-        samples = new ArrayList<>(numSamples);
-        samples.add(model.state());
+        chainModels = new ArrayList<>(numChains);
+        chainSamples = new ArrayList<>(numChains);
+        for (int chain = 0; chain < numChains; chain++) {
+            final ParameterizedModel<V, S, T> chainModel = chain == 0 ? model : model.copy();
+            chainModels.add(chainModel);
+            final List<S> samples = new ArrayList<>(numSamples);
+            samples.add(chainModel.state());
+            chainSamples.add(samples);
+        }
     }
 
     /**
@@ -63,26 +93,53 @@ public final class GibbsSampler<V extends Enum<V> & ParameterEnum, S extends Par
     }
 
     /**
-     * Runs the Monte Carlo Markov Chain, using the state of the model provided in the constructor to initialize.
+     * Changes the number of threads used to run the chains and to sample conditionally independent parameters.
+     * @param numThreads    number of threads; must be positive
+     */
+    public void setNumThreads(final int numThreads) {
+        ParamUtils.isPositive(numThreads, "Number of threads must be positive.");
+        this.numThreads = numThreads;
+    }
+
+    /**
+     * Runs the Monte Carlo Markov Chains, using the state of the model provided in the constructor to initialize.
      * Progress is logged according to {@code numSamplesPerLogEntry}.
      */
     public void runMCMC() {
-        rng.setSeed(RANDOM_SEED);
         logger.info("Starting MCMC sampling.");
+        final ForkJoinPool pool = new ForkJoinPool(numThreads);
+        try {
+            final List<ForkJoinTask<?>> chainTasks = new ArrayList<>(chainModels.size());
+            for (int chain = 0; chain < chainModels.size(); chain++) {
+                final int c = chain;
+                chainTasks.add(pool.submit(() -> runChain(c)));
+            }
+            chainTasks.forEach(ForkJoinTask::join);
+        } finally {
+            pool.shutdown();
+        }
+        logger.info("MCMC sampling complete.");
+        isMCMCRunComplete = true;
+    }
+
+    private void runChain(final int chain) {
+        final RandomGenerator rng = RandomGeneratorFactory.createRandomGenerator(new Random(RANDOM_SEED + chain));
+        final ParameterizedModel<V, S, T> model = chainModels.get(chain);
+        final List<S> samples = chainSamples.get(chain);
+        final String chainLabel = chainModels.size() == 1 ? "" : String.format("Chain %d of %d: ", chain + 1, chainModels.size());
         for (int sample = 1; sample < numSamples; sample++) {
             if (sample % numSamplesPerLogEntry == 0) {
-                logger.info(sample + " of " + numSamples + " samples generated.");
+                logger.info(chainLabel + sample + " of " + numSamples + " samples generated.");
             }
             model.update(rng);
             samples.add(model.state());
         }
-        logger.info(numSamples + " of " + numSamples + " samples generated.");
-        logger.info("MCMC sampling complete.");
-        isMCMCRunComplete = true;
+        logger.info(chainLabel + numSamples + " of " + numSamples + " samples generated.");
     }
 
     /**
-     * Returns a list of samples for a specified model parameter, discarding the first {@code numBurnIn} samples.
+     * Returns a list of samples for a specified model parameter, discarding the first {@code numBurnIn} samples
+     * of each chain.  The samples of all chains are pooled, in order of chain.
      * @param parameterName         name of parameter
      * @param parameterValueClass   class of parameter value
      * @param numBurnIn             number of burn-in samples to discard from beginning of chain
@@ -95,7 +152,9 @@ public final class GibbsSampler<V extends Enum<V> & ParameterEnum, S extends Par
         if (!isMCMCRunComplete) {
             runMCMC();
         }
-        return samples.stream().map(s -> s.get(parameterName, parameterValueClass)).collect(Collectors.toList())
-                .subList(numBurnIn, numSamples);
+        return chainSamples.stream()
+                .flatMap(samples -> samples.subList(numBurnIn, numSamples).stream())
+                .map(s -> s.get(parameterName, parameterValueClass))
+                .collect(Collectors.toList());
     }
 }
\ No newline at end of file
@@ -0,0 +1,57 @@
+package org.broadinstitute.hellbender.utils.mcmc;
+
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.random.Well19937c;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.param.ParamUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Contains methods for sampling parameters that are conditionally independent given the rest of a
+ * {@link ParameterizedState} (e.g., segment-level parameters in a segmented model) in parallel.
+ *
+ * Each parameter is sampled with its own {@link Well19937c} generator, seeded with a single value drawn from the
+ * generator passed by the {@link GibbsSampler} together with the index of the parameter, so that the samples do not
+ * depend on the number of threads or on the order in which the parameters are sampled.  Parallel streams are used, so the parameters are sampled
+ * in the {@link java.util.concurrent.ForkJoinPool} of the calling thread (see {@link GibbsSampler#setNumThreads}),
+ * or in the common pool otherwise.
+ */
+public final class ParallelSamplingUtils {
+    private ParallelSamplingUtils() {
+    }
+
+    /**
+     * Samples a single parameter, given its index and a random number generator to use for it.
+     */
+    @FunctionalInterface
+    public interface IndexedParameterSampler {
+        double sample(final RandomGenerator rng, final int index);
+    }
+
+    /**
+     * Samples {@code numParameters} conditionally independent parameters in parallel.
+     * @param rng               random number generator used to seed the generators of each parameter
+     * @param numParameters     number of parameters to sample
+     * @param sampler           samples the parameter with a given index
+     * @return                  samples of the parameters, in order of index
+     */
+    public static List<Double> sampleInParallel(final RandomGenerator rng,
+                                                final int numParameters,
+                                                final IndexedParameterSampler sampler) {
+        Utils.nonNull(rng);
+        ParamUtils.isPositiveOrZero(numParameters, "Number of parameters must be non-negative.");
+        Utils.nonNull(sampler);
+        final long seed = rng.nextLong();
+        final double[] samples = new double[numParameters];
+        IntStream.range(0, numParameters).parallel().forEach(i ->
+                samples[i] = sampler.sample(new Well19937c(new int[]{(int) (seed >>> 32), (int) seed, i}), i));
+        final List<Double> result = new ArrayList<>(numParameters);
+        for (final double sample : samples) {
+            result.add(sample);
+        }
+        return result;
+    }
+}
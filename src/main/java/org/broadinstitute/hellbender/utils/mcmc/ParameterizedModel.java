@@ -106,6 +106,25 @@ public final class ParameterizedModel<V1 extends Enum<V1> & ParameterEnum, S1 ex
         updateMethod = UpdateMethod.GIBBS;
     }
 
+    //Constructor for copy
+    private ParameterizedModel(final ParameterizedModel<V1, S1, T1> model) {
+        state = model.state();
+        dataCollection = model.dataCollection;
+        samplerMap = model.samplerMap;
+        updateMethod = model.updateMethod;
+    }
+
+    /**
+     * Returns a model with a copy of the {@link ParameterizedState} held internally, which shares the
+     * {@link DataCollection} and {@link ParameterSampler}s of this model.  The two models can then be updated
+     * independently (e.g., to run several Markov chains in parallel), provided that the samplers do not hold any
+     * mutable state.
+     * @return  copy of this model
+     */
+    protected ParameterizedModel<V1, S1, T1> copy() {
+        return new ParameterizedModel<>(this);
+    }
+
     /**
      * Returns a copy of the {@link ParameterizedState} held internally.
      * @return  copy of the {@link ParameterizedState} held internally
@@ -8,12 +8,17 @@ import org.broadinstitute.hellbender.utils.param.ParamUtils;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.DoubleUnaryOperator;
 import java.util.function.Function;
 
 /**
  * Implements slice sampling of a continuous, univariate, unnormalized probability density function,
  * which is assumed to be unimodal.  See Neal 2003 at https://projecteuclid.org/euclid.aos/1056562461 for details.
  *
+ * The log probability density function may be given either as a {@link DoubleUnaryOperator} or as a
+ * {@link Function}; the former avoids boxing on each of the (many) evaluations performed per sample, and should be
+ * preferred in performance-sensitive code.
+ *
  * @author Samuel Lee &lt;slee@broadinstitute.org&gt;
  */
 public final class SliceSampler {
@@ -22,7 +27,7 @@ public final class SliceSampler {
     private static final double EPSILON = 1E-10;
 
     private final RandomGenerator rng;
-    private final Function<Double, Double> logPDF;
+    private final DoubleUnaryOperator logPDF;
     private final double xMin;
     private final double xMax;
     private final double width;
@@ -37,7 +42,7 @@ public final class SliceSampler {
      * @param xMax     maximum allowed value of the random variable
      * @param width    step width for slice expansion
      */
-    public SliceSampler(final RandomGenerator rng, final Function<Double, Double> logPDF,
+    public SliceSampler(final RandomGenerator rng, final DoubleUnaryOperator logPDF,
                         final double xMin, final double xMax, final double width) {
         Utils.nonNull(rng);
         Utils.nonNull(logPDF);
@@ -51,6 +56,20 @@ public final class SliceSampler {
         exponentialDistribution = new ExponentialDistribution(rng, 1.);
     }
 
+    /**
+     * Creates a new sampler, given a random number generator, a continuous, univariate, unimodal, unnormalized
+     * log probability density function, hard limits on the random variable, and a step width.
+     * @param rng      random number generator
+     * @param logPDF   continuous, univariate, unimodal log probability density function (up to additive constant)
+     * @param xMin     minimum allowed value of the random variable
+     * @param xMax     maximum allowed value of the random variable
+     * @param width    step width for slice expansion
+     */
+    public SliceSampler(final RandomGenerator rng, final Function<Double, Double> logPDF,
+                        final double xMin, final double xMax, final double width) {
+        this(rng, toDoubleUnaryOperator(logPDF), xMin, xMax, width);
+    }
+
     /**
      * Creates a new sampler, given a random number generator, a continuous, univariate, unimodal, unnormalized
      * log probability density function, and a step width.
@@ -58,10 +77,26 @@ public final class SliceSampler {
      * @param logPDF   continuous, univariate, unimodal log probability density function (up to additive constant)
      * @param width    step width for slice expansion
      */
-    public SliceSampler(final RandomGenerator rng, final Function<Double, Double> logPDF, final double width) {
+    public SliceSampler(final RandomGenerator rng, final DoubleUnaryOperator logPDF, final double width) {
         this(rng, logPDF, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, width);
     }
 
+    /**
+     * Creates a new sampler, given a random number generator, a continuous, univariate, unimodal, unnormalized
+     * log probability density function, and a step width.
+     * @param rng      random number generator
+     * @param logPDF   continuous, univariate, unimodal log probability density function (up to additive constant)
+     * @param width    step width for slice expansion
+     */
+    public SliceSampler(final RandomGenerator rng, final Function<Double, Double> logPDF, final double width) {
+        this(rng, toDoubleUnaryOperator(logPDF), width);
+    }
+
+    private static DoubleUnaryOperator toDoubleUnaryOperator(final Function<Double, Double> logPDF) {
+        Utils.nonNull(logPDF);
+        return logPDF::apply;
+    }
+
     /**
      * Generate a single sample from the probability density function, given an initial value to use in slice construction.
      * @param xInitial      initial value to use in slice construction; must be in [xMin, xMax]
@@ -77,7 +112,7 @@ public final class SliceSampler {
 
         //randomly pick height of slice from uniform distribution under PDF
         //(equivalently, from exponential distribution under logPDF)
-        final double logSliceHeight = logPDF.apply(xSample) - exponentialDistribution.sample();
+        final double logSliceHeight = logPDF.applyAsDouble(xSample) - exponentialDistribution.sample();
 
         //randomly position slice with given width so that it brackets xSample; position is uniformly distributed
         double xLeft = xSample - width * rng.nextDouble();
@@ -85,15 +120,15 @@ public final class SliceSampler {
 
         int k = MAXIMUM_NUMBER_OF_DOUBLINGS;
         //expand slice by doubling until it brackets logPDF
-        double logPDFLeft = xLeft > xMin ? logPDF.apply(xLeft) : Double.NEGATIVE_INFINITY;
-        double logPDFRight = xRight < xMax ? logPDF.apply(xRight) : Double.NEGATIVE_INFINITY;
+        double logPDFLeft = xLeft > xMin ? logPDF.applyAsDouble(xLeft) : Double.NEGATIVE_INFINITY;
+        double logPDFRight = xRight < xMax ? logPDF.applyAsDouble(xRight) : Double.NEGATIVE_INFINITY;
         while (k > 0 && ((logSliceHeight < logPDFLeft || logSliceHeight < logPDFRight))) {
             if (rng.nextBoolean()) {
                 xLeft = xLeft - (xRight - xLeft);
-                logPDFLeft = xLeft > xMin ? logPDF.apply(xLeft) : Double.NEGATIVE_INFINITY;
+                logPDFLeft = xLeft > xMin ? logPDF.applyAsDouble(xLeft) : Double.NEGATIVE_INFINITY;
             } else {
                 xRight = xRight + (xRight - xLeft);
-                logPDFRight = xRight < xMax ? logPDF.apply(xRight) : Double.NEGATIVE_INFINITY;
+                logPDFRight = xRight < xMax ? logPDF.applyAsDouble(xRight) : Double.NEGATIVE_INFINITY;
             }
             k--;
         }
@@ -104,7 +139,7 @@ public final class SliceSampler {
         int numIterations = 1;
         double xProposed = rng.nextDouble() * (xRight - xLeft) + xLeft;
         while (numIterations <= MAXIMUM_NUMBER_OF_SLICE_SAMPLINGS) {
-            final double logPDFProposed = xMin < xProposed && xProposed < xMax ? logPDF.apply(xProposed) : Double.NEGATIVE_INFINITY;
+            final double logPDFProposed = xMin < xProposed && xProposed < xMax ? logPDF.applyAsDouble(xProposed) : Double.NEGATIVE_INFINITY;
             if (logSliceHeight < logPDFProposed) {
                 break;
             }
@@ -0,0 +1,587 @@
+package org.broadinstitute.hellbender.utils.nio;
+
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.runtime.MetricsRegistry;
+import shaded.cloud_nio.com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UnknownFormatConversionException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AdaptiveSeekableByteChannelPrefetcher wraps an existing SeekableByteChannel to add prefetching into a pool of
+ * blocks that are fetched on background threads.
+ *
+ * Unlike {@link SeekableByteChannelPrefetcher}, which keeps two fixed-size buffers and refetches whenever the
+ * caller goes back or jumps ahead, this prefetcher:
+ * <ul>
+ *   <li>keeps up to a fixed number of blocks and evicts the least recently used one, so going back to data that
+ *       was read recently (as overlapping index queries do) is a hit;</li>
+ *   <li>adapts the size of the blocks it fetches to the access pattern: blocks start small, double in size while
+ *       the caller keeps reading sequentially, and shrink back after a jump;</li>
+ *   <li>accepts hints about the regions that will be read next, such as the chunks a BAM index returns for a query,
+ *       and fetches those regions ahead of the caller instead of the bytes that follow the current block;</li>
+ *   <li>fetches several blocks at once, each on its own channel, when it is given a way to open more channels on
+ *       the same file.</li>
+ * </ul>
+ *
+ * Its statistics are also added to the "prefetcher.*" metrics of the {@link MetricsRegistry}, which sum over all
+ * prefetchers.
+ */
+public final class AdaptiveSeekableByteChannelPrefetcher implements SeekableByteChannel {
+
+    // number of blocks in the pool of a prefetcher made by addPrefetcher
+    public static final int DEFAULT_BLOCK_COUNT = 16;
+    // number of blocks fetched at once by a prefetcher made by addPrefetcher
+    public static final int DEFAULT_FETCH_THREADS = 4;
+    // size of the blocks fetched after a jump
+    public static final int DEFAULT_MIN_BLOCK_SIZE = 64 * 1024;
+
+    private static final AtomicInteger prefetcherCount = new AtomicInteger();
+
+    private static final MetricsRegistry.Counter BYTES_READ_METRIC = MetricsRegistry.getDefault().counter("prefetcher.bytes-read");
+    private static final MetricsRegistry.Counter BYTES_RETURNED_METRIC = MetricsRegistry.getDefault().counter("prefetcher.bytes-returned");
+    private static final MetricsRegistry.Counter HITS_METRIC = MetricsRegistry.getDefault().counter("prefetcher.hits");
+    private static final MetricsRegistry.Counter NEAR_HITS_METRIC = MetricsRegistry.getDefault().counter("prefetcher.near-hits");
+    private static final MetricsRegistry.Counter MISSES_METRIC = MetricsRegistry.getDefault().counter("prefetcher.misses");
+    private static final MetricsRegistry.Counter GOING_BACK_METRIC = MetricsRegistry.getDefault().counter("prefetcher.going-back");
+    private static final MetricsRegistry.Counter READS_PAST_END_METRIC = MetricsRegistry.getDefault().counter("prefetcher.reads-past-end");
+    private static final MetricsRegistry.Counter HINTED_FETCHES_METRIC = MetricsRegistry.getDefault().counter("prefetcher.hinted-fetches");
+    private static final MetricsRegistry.Histogram FETCH_SIZE_METRIC = MetricsRegistry.getDefault().histogram("prefetcher.fetch-size");
+    private static final MetricsRegistry.Timer WAITING_METRIC = MetricsRegistry.getDefault().timer("prefetcher.waiting-for-data");
+
+    private final SeekableByteChannel chan;
+    // opens more channels on the same file for parallel fetches, or null to fetch on chan only
+    private final Callable<SeekableByteChannel> channelOpener;
+    private final int fetchThreads;
+    private final int blockCount;
+    private final int minBlockSize;
+    private final int maxBlockSize;
+    private final long size;
+    private final ExecutorService exec;
+
+    // every channel we opened, including chan, and the ones that aren't in use by a fetch
+    private final List<SeekableByteChannel> channels = new ArrayList<>();
+    private final BlockingQueue<SeekableByteChannel> idleChannels = new LinkedBlockingQueue<>();
+
+    // the pool of fetched or fetching blocks, by start position. Blocks never overlap.
+    private final TreeMap<Long, Block> blocks = new TreeMap<>();
+    // hinted regions, as {start, end}, whose bytes haven't been fetched yet
+    private final ArrayDeque<long[]> hints = new ArrayDeque<>();
+    // end of the last hinted region: we don't read ahead until the caller gets there
+    private long hintedEnd = -1;
+
+    // size of the next block we fetch outside of the hinted regions
+    private int blockSize;
+    // the block the previous read returned data from
+    private Block lastBlock = null;
+    // increases with every use of a block, to find the least recently used one
+    private long useCount = 0;
+    // where we pretend to be, wrt returning bytes from read()
+    private long position = 0;
+    // the furthest position we returned bytes up to
+    private long furthestPosition = 0;
+    private volatile boolean open;
+
+    // statistics, for profiling (see SeekableByteChannelPrefetcher)
+    public long bytesReturned = 0;
+    public long bytesRead = 0;
+    public long nbHit = 0;
+    public long nbNearHit = 0;
+    public long nbMiss = 0;
+    public long nbGoingBack = 0;
+    public long nbReadsPastEnd = 0;
+    // number of blocks fetched because of a hint
+    public long nbHintedFetches = 0;
+
+    /**
+     * A block of the file, which is ready once its future is done.
+     */
+    private static final class Block {
+        final long start;
+        final int length;
+        final Future<ByteBuffer> future;
+        long lastUsed;
+        // whether the caller has read from this block, or moved past it without reading it
+        boolean used = false;
+
+        Block(final long start, final int length, final Future<ByteBuffer> future, final long lastUsed) {
+            this.start = start;
+            this.length = length;
+            this.future = future;
+            this.lastUsed = lastUsed;
+        }
+
+        long end() {
+            return start + length;
+        }
+
+        boolean contains(final long position) {
+            return position >= start && position < end();
+        }
+    }
+
+    /**
+     * Wraps the provided SeekableByteChannel within an AdaptiveSeekableByteChannelPrefetcher that keeps
+     * {@link #DEFAULT_BLOCK_COUNT} blocks of up to bufferSizeMB in total, and that opens more channels on path to
+     * fetch {@link #DEFAULT_FETCH_THREADS} blocks at once.
+     *
+     * @param bufferSizeMB total size of the blocks in MB
+     * @param path file that channel reads from
+     * @param channel channel to wrap in the prefetcher
+     * @return wrapped channel
+     */
+    public static SeekableByteChannel addPrefetcher(final int bufferSizeMB, final Path path, final SeekableByteChannel channel) {
+        Utils.nonNull(path);
+        final int maxBlockSize = Math.max(DEFAULT_MIN_BLOCK_SIZE, (int) Math.min(Integer.MAX_VALUE, bufferSizeMB * 1024L * 1024L / DEFAULT_BLOCK_COUNT));
+        try {
+            return new AdaptiveSeekableByteChannelPrefetcher(channel, () -> Files.newByteChannel(path),
+                    DEFAULT_FETCH_THREADS, DEFAULT_BLOCK_COUNT, DEFAULT_MIN_BLOCK_SIZE, maxBlockSize);
+        } catch (IOException ex) {
+            throw new GATKException("Unable to initialize the prefetcher: " + ex);
+        }
+    }
+
+    /**
+     * @param chan channel to wrap, which is closed when the prefetcher is closed
+     * @param channelOpener opens another channel on the file chan reads from, so that several blocks can be fetched
+     *                      at once. May be null, in which case fetchThreads must be 1 and all fetches go through chan.
+     *                      The channels it opens are closed when the prefetcher is closed.
+     * @param fetchThreads maximum number of blocks fetched at once
+     * @param blockCount maximum number of blocks kept, at least 2
+     * @param minBlockSize size of the blocks fetched after a jump
+     * @param maxBlockSize maximum size of the blocks fetched, reached after sequential reads
+     */
+    public AdaptiveSeekableByteChannelPrefetcher(final SeekableByteChannel chan, final Callable<SeekableByteChannel> channelOpener,
+                                                 final int fetchThreads, final int blockCount,
+                                                 final int minBlockSize, final int maxBlockSize) throws IOException {
+        Utils.nonNull(chan);
+        Utils.validateArg(!(chan instanceof SeekableByteChannelPrefetcher) && !(chan instanceof AdaptiveSeekableByteChannelPrefetcher),
+                "Cannot put two prefetchers on the same channel.");
+        Utils.validateArg(chan.isOpen(), "channel must be open");
+        Utils.validateArg(fetchThreads > 0, "fetchThreads must be positive");
+        Utils.validateArg(channelOpener != null || fetchThreads == 1, "Cannot fetch on several threads without a way to open channels");
+        Utils.validateArg(blockCount >= 2, "blockCount must be at least 2");
+        Utils.validateArg(minBlockSize > 0 && minBlockSize <= maxBlockSize, "block sizes must be positive, with minBlockSize <= maxBlockSize");
+        this.chan = chan;
+        this.channelOpener = channelOpener;
+        this.fetchThreads = fetchThreads;
+        this.blockCount = blockCount;
+        this.minBlockSize = minBlockSize;
+        this.maxBlockSize = maxBlockSize;
+        this.blockSize = minBlockSize;
+        this.size = chan.size();
+        channels.add(chan);
+        idleChannels.add(chan);
+        this.open = true;
+        exec = Executors.newFixedThreadPool(fetchThreads, new ThreadFactoryBuilder()
+                .setNameFormat("nio-adaptive-prefetcher-" + prefetcherCount.getAndIncrement() + "-thread-%d")
+                .setDaemon(true)
+                .build());
+    }
+
+    public String getStatistics() {
+        try {
+            double returnedPct = (bytesRead > 0 ? (100.0 * bytesReturned / bytesRead) : 100.0);
+            return String
+                .format("Bytes read: %12d\n  returned: %12d ( %3.2f %% )", bytesRead, bytesReturned,
+                    returnedPct)
+                + String.format("\nReads past the end: %3d", nbReadsPastEnd)
+                + String.format("\nMisses going back before the furthest read: %3d", nbGoingBack)
+                + String.format("\nHinted fetches: %12d", nbHintedFetches)
+                + String
+                .format("\nCache\n hits:      %12d\n near-hits: %12d\n misses:    %12d", nbHit,
+                    nbNearHit, nbMiss);
+        } catch (UnknownFormatConversionException x) {
+            // let's not crash the whole program, instead just return no info
+            return "(error while formatting statistics)";
+        }
+    }
+
+    /**
+     * Adds a region that will be read after the regions already hinted, and starts fetching it ahead of the caller.
+     *
+     * While there are hinted regions the caller hasn't reached the end of, we don't read ahead past the current
+     * block, since the hints tell which bytes will be read next better than the past reads do.
+     *
+     * @param start position of the first byte of the region
+     * @param end position after the last byte of the region
+     */
+    public synchronized void hint(final long start, final long end) throws IOException {
+        if (!open) throw new ClosedChannelException();
+        Utils.validateArg(start >= 0 && start <= end, "invalid region");
+        final long clippedEnd = Math.min(end, size);
+        if (start >= clippedEnd) {
+            return;
+        }
+        final long[] last = hints.peekLast();
+        if (last != null && start >= last[0] && start <= last[1]) {
+            last[1] = Math.max(last[1], clippedEnd);
+        } else {
+            hints.addLast(new long[] {start, clippedEnd});
+        }
+        hintedEnd = Math.max(hintedEnd, clippedEnd);
+        fetchHintedRegions();
+    }
+
+    /**
+     * Forgets the hinted regions that haven't been fetched yet, and goes back to reading ahead of the caller.
+     */
+    public synchronized void clearHints() {
+        hints.clear();
+        hintedEnd = -1;
+    }
+
+    /**
+     * Reads a sequence of bytes from this channel into the given buffer.
+     *
+     * <p> Bytes are read starting at this channel's current position, and
+     * then the position is updated with the number of bytes actually read.
+     *
+     * @param dst buffer to write into
+     */
+    @Override
+    public synchronized int read(final ByteBuffer dst) throws IOException {
+        if (!open) throw new ClosedChannelException();
+        if (position >= size) {
+            nbReadsPastEnd++;
+            READS_PAST_END_METRIC.increment();
+            return -1;
+        }
+        if (!dst.hasRemaining()) {
+            return 0;
+        }
+
+        final boolean newBlock = lastBlock == null || !lastBlock.contains(position);
+        if (newBlock) {
+            // grow the blocks while the caller reads on from where the previous block ended, start over after a jump
+            blockSize = lastBlock != null && position == lastBlock.end() ? (int) Math.min(2L * blockSize, maxBlockSize) : minBlockSize;
+        }
+        final Block block = getBlock(position);
+        final ByteBuffer src = waitFor(block);
+        block.lastUsed = ++useCount;
+        block.used = true;
+        lastBlock = block;
+
+        // src.position is how far the fetch filled the buffer, which is short of the block's length at EOF
+        final int offset = (int) (position - block.start);
+        final int availableToCopy = src.position() - offset;
+        if (availableToCopy <= 0) {
+            // the file is shorter than it was when we opened it
+            nbReadsPastEnd++;
+            READS_PAST_END_METRIC.increment();
+            return -1;
+        }
+        final int bytesToCopy = Math.min(availableToCopy, dst.remaining());
+        dst.put(src.array(), offset, bytesToCopy);
+        position += bytesToCopy;
+        furthestPosition = Math.max(furthestPosition, position);
+        bytesReturned += bytesToCopy;
+        BYTES_RETURNED_METRIC.add(bytesToCopy);
+
+        if (newBlock) {
+            // prefetched blocks the caller has moved past without reading won't be read, so they can be evicted
+            for (final Block b : blocks.headMap(block.start).values()) {
+                b.used = true;
+            }
+            if (!hints.isEmpty()) {
+                fetchHintedRegions();
+            } else if (position >= hintedEnd) {
+                readAhead(block);
+            }
+        }
+        return bytesToCopy;
+    }
+
+    /**
+     * @return the block containing position, which is fetched now if we don't have it
+     */
+    private Block getBlock(final long position) {
+        final Block block = findBlock(position);
+        if (block == null) {
+            nbMiss++;
+            MISSES_METRIC.increment();
+            if (position < furthestPosition) {
+                nbGoingBack++;
+                GOING_BACK_METRIC.increment();
+            }
+            // if every block is still being fetched we keep one more than blockCount until the next eviction
+            makeRoom(false);
+            return fetch(position, blockSize);
+        } else if (block.future.isDone()) {
+            nbHit++;
+            HITS_METRIC.increment();
+        } else {
+            nbNearHit++;
+            NEAR_HITS_METRIC.increment();
+        }
+        return block;
+    }
+
+    /**
+     * Make sure the blocks that follow the given one are fetched or being fetched: one block until the caller reads
+     * sequentially, then as many blocks as we can fetch at once.
+     */
+    private void readAhead(final Block current) {
+        final int count = blockSize > minBlockSize ? fetchThreads : 1;
+        long cursor = current.end();
+        for (int i = 0; i < count && cursor < size; i++) {
+            Block next = findBlock(cursor);
+            if (next == null) {
+                if (!makeRoom(true)) {
+                    return;
+                }
+                next = fetch(cursor, blockSize);
+            }
+            cursor = next.end();
+        }
+    }
+
+    /**
+     * Fetch the hinted regions in order, keeping up to half of the blocks for the hinted data the caller hasn't
+     * read yet, and the rest for the data it has read recently.
+     */
+    private void fetchHintedRegions() {
+        final int maxUnused = Math.max(1, blockCount / 2);
+        int unused = (int) blocks.values().stream().filter(b -> !b.used).count();
+        while (!hints.isEmpty() && unused < maxUnused) {
+            final long[] region = hints.peekFirst();
+            final Block existing = findBlock(region[0]);
+            if (existing != null) {
+                region[0] = existing.end();
+            } else {
+                if (!makeRoom(true)) {
+                    return;
+                }
+                final Block block = fetch(region[0], (int) Math.min(maxBlockSize, region[1] - region[0]));
+                nbHintedFetches++;
+                HINTED_FETCHES_METRIC.increment();
+                unused++;
+                region[0] = block.end();
+            }
+            if (region[0] >= region[1]) {
+                hints.removeFirst();
+            }
+        }
+    }
+
+    /**
+     * @return the block containing position, or null if we don't have it
+     */
+    private Block findBlock(final long position) {
+        final Map.Entry<Long, Block> entry = blocks.floorEntry(position);
+        return entry != null && entry.getValue().contains(position) ? entry.getValue() : null;
+    }
+
+    /**
+     * Evict the least recently used blocks that are done fetching until there's room for one more block. Blocks the
+     * caller hasn't read yet are only evicted to make room for a block the caller is waiting for, and the block at
+     * the current position is never evicted.
+     *
+     * @return whether there's room for one more block
+     */
+    private boolean makeRoom(final boolean forPrefetch) {
+        while (blocks.size() >= blockCount) {
+            Block victim = null;
+            for (final Block b : blocks.values()) {
+                if (b.future.isDone() && (b.used || !forPrefetch) && !b.contains(position)
+                        && (victim == null || b.lastUsed < victim.lastUsed)) {
+                    victim = b;
+                }
+            }
+            if (victim == null) {
+                return false;
+            }
+            blocks.remove(victim.start);
+        }
+        return true;
+    }
+
+    /**
+     * Start fetching a block at start, up to the next block we have or to the end of the file.
+     * There must not be a block containing start already.
+     */
+    private Block fetch(final long start, final int maxLength) {
+        long end = Math.min(size, start + maxLength);
+        final Long nextStart = blocks.higherKey(start);
+        if (nextStart != null) {
+            end = Math.min(end, nextStart);
+        }
+        final int length = (int) (end - start);
+        final Block block = new Block(start, length, exec.submit(() -> readBlock(start, length)), ++useCount);
+        blocks.put(start, block);
+        bytesRead += length;
+        BYTES_READ_METRIC.add(length);
+        FETCH_SIZE_METRIC.record(length);
+        return block;
+    }
+
+    private ByteBuffer waitFor(final Block block) throws IOException {
+        if (block.future.isDone()) {
+            return getFetched(block);
+        }
+        final long start = System.nanoTime();
+        try {
+            return getFetched(block);
+        } finally {
+            WAITING_METRIC.recordSince(start);
+        }
+    }
+
+    private ByteBuffer getFetched(final Block block) throws IOException {
+        try {
+            return block.future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for data at position " + block.start);
+        } catch (ExecutionException e) {
+            // don't keep the failed block around, so that a retry fetches it again
+            blocks.remove(block.start);
+            if (lastBlock == block) {
+                lastBlock = null;
+            }
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+    }
+
+    // runs on a fetching thread
+    private ByteBuffer readBlock(final long start, final int length) throws IOException, InterruptedException {
+        final ByteBuffer buf = ByteBuffer.allocate(length);
+        final SeekableByteChannel channel = borrowChannel();
+        try {
+            channel.position(start);
+            // read until buffer is full, or EOF
+            while (buf.hasRemaining() && channel.read(buf) >= 0) {}
+        } finally {
+            idleChannels.add(channel);
+        }
+        return buf;
+    }
+
+    /**
+     * @return a channel no other fetch is using, opening one if we haven't opened one per fetching thread yet
+     */
+    private SeekableByteChannel borrowChannel() throws IOException, InterruptedException {
+        final SeekableByteChannel idle = idleChannels.poll();
+        if (idle != null) {
+            return idle;
+        }
+        synchronized (channels) {
+            if (channels.size() < fetchThreads) {
+                if (!open) throw new ClosedChannelException();
+                final SeekableByteChannel opened;
+                try {
+                    opened = channelOpener.call();
+                } catch (IOException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IOException("Unable to open another channel for the prefetcher", e);
+                }
+                channels.add(opened);
+                return opened;
+            }
+        }
+        return idleChannels.take();
+    }
+
+    /**
+     * Writing isn't supported.
+     */
+    @Override
+    public int write(final ByteBuffer src) throws IOException {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public synchronized long position() throws IOException {
+        if (!open) throw new ClosedChannelException();
+        return position;
+    }
+
+    /**
+     * Sets this channel's position. Setting the position past the end is legal, and later reads return end-of-file.
+     */
+    @Override
+    public synchronized SeekableByteChannel position(final long newPosition) throws IOException {
+        if (!open) throw new ClosedChannelException();
+        Utils.validateArg(newPosition >= 0, "position must not be negative");
+        position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        if (!open) throw new ClosedChannelException();
+        return size;
+    }
+
+    /**
+     * Not supported.
+     */
+    @Override
+    public SeekableByteChannel truncate(final long size) throws IOException {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Closes this channel, the wrapped channel and the channels opened for parallel fetches. Fetches in progress are
+     * interrupted.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (open) {
+            open = false;
+            // stop accepting work, interrupt fetching threads.
+            exec.shutdownNow();
+            try {
+                // give fetching threads a bit of time to process the interruption.
+                exec.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                // Restore interrupted status
+                Thread.currentThread().interrupt();
+            }
+            blocks.clear();
+            hints.clear();
+            lastBlock = null;
+            IOException failure = null;
+            synchronized (channels) {
+                for (final SeekableByteChannel channel : channels) {
+                    try {
+                        channel.close();
+                    } catch (IOException e) {
+                        failure = e;
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+}
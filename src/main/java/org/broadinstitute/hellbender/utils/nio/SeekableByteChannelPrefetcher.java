@@ -3,6 +3,7 @@ package org.broadinstitute.hellbender.utils.nio;
 import com.google.common.base.Stopwatch;
 import java.util.concurrent.ThreadFactory;
 import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.runtime.MetricsRegistry;
 
 import java.io.Closeable;
 import java.io.IOException;
@@ -75,6 +76,15 @@ public final class SeekableByteChannelPrefetcher implements SeekableByteChannel
     // issues.
     private static final boolean trackTime = false;
 
+    // the same statistics summed over all prefetchers, as runtime metrics
+    private static final MetricsRegistry.Counter BYTES_READ_METRIC = MetricsRegistry.getDefault().counter("prefetcher.bytes-read");
+    private static final MetricsRegistry.Counter BYTES_RETURNED_METRIC = MetricsRegistry.getDefault().counter("prefetcher.bytes-returned");
+    private static final MetricsRegistry.Counter HITS_METRIC = MetricsRegistry.getDefault().counter("prefetcher.hits");
+    private static final MetricsRegistry.Counter NEAR_HITS_METRIC = MetricsRegistry.getDefault().counter("prefetcher.near-hits");
+    private static final MetricsRegistry.Counter MISSES_METRIC = MetricsRegistry.getDefault().counter("prefetcher.misses");
+    private static final MetricsRegistry.Counter GOING_BACK_METRIC = MetricsRegistry.getDefault().counter("prefetcher.going-back");
+    private static final MetricsRegistry.Counter READS_PAST_END_METRIC = MetricsRegistry.getDefault().counter("prefetcher.reads-past-end");
+
     /**
      * Wraps the provided SeekableByteChannel within a SeekableByteChannelPrefetcher, using the provided buffer size
      *
@@ -218,12 +228,14 @@ public final class SeekableByteChannelPrefetcher implements SeekableByteChannel
         if (full.size() < BUF_COUNT) {
             fetching = new WorkUnit(chan, bufSize, blockIndex);
             bytesRead += bufSize;
+            BYTES_READ_METRIC.add(bufSize);
             fetching.futureBuf = exec.submit(fetching);
         } else {
             // reuse the oldest full buffer
             fetching = full.remove(0);
             fetching.resetForIndex(blockIndex);
             bytesRead += bufSize;
+            BYTES_READ_METRIC.add(bufSize);
             fetching.futureBuf = exec.submit(fetching);
         }
     }
@@ -237,6 +249,7 @@ public final class SeekableByteChannelPrefetcher implements SeekableByteChannel
             if (w.blockIndex == blockIndex) {
                 ensureFetching(blockIndex+1);
                 nbHit++;
+                HITS_METRIC.increment();
                 return w.buf;
             } else if (w.blockIndex > blockIndex) {
                 goingBack = true;
@@ -246,6 +259,7 @@ public final class SeekableByteChannelPrefetcher implements SeekableByteChannel
             // user is asking for a block with a lower index than we've already fetched -
             // in other words they are not following the expected pattern of increasing indexes.
             nbGoingBack++;
+            GOING_BACK_METRIC.increment();
         }
         if (null == fetching) {
             ensureFetching(blockIndex);
@@ -258,11 +272,13 @@ public final class SeekableByteChannelPrefetcher implements SeekableByteChannel
         if (candidate.blockIndex == blockIndex) {
             // this is who we were waiting for
             nbNearHit++;
+            NEAR_HITS_METRIC.increment();
             ensureFetching(blockIndex+1);
             return buf;
         } else {
             // wrong block. Let's fetch the right one now.
             nbMiss++;
+            MISSES_METRIC.increment();
             ensureFetching(blockIndex);
             candidate = fetching;
             buf = candidate.getBuf();
@@ -311,6 +327,7 @@ public final class SeekableByteChannelPrefetcher implements SeekableByteChannel
             if (null == src) {
                 // the caller is asking for a block past EOF
                 nbReadsPastEnd++;
+                READS_PAST_END_METRIC.increment();
                 return -1; // EOF
             }
             Stopwatch copyingData;
@@ -331,6 +348,7 @@ public final class SeekableByteChannelPrefetcher implements SeekableByteChannel
             if (availableToCopy < 0) {
                 // the caller is asking to read past the end of the file
                 nbReadsPastEnd++;
+                READS_PAST_END_METRIC.increment();
                 return -1; // EOF
             }
             if (availableToCopy < bytesToCopy) {
@@ -342,6 +360,7 @@ public final class SeekableByteChannelPrefetcher implements SeekableByteChannel
                 msCopyingData += copyingData.elapsed(TimeUnit.MILLISECONDS);
             }
             bytesReturned += bytesToCopy;
+            BYTES_RETURNED_METRIC.add(bytesToCopy);
             if (availableToCopy == 0) {
                 // EOF
                 return -1;
@@ -12,6 +12,7 @@ import org.broadinstitute.hellbender.utils.genotyper.LikelihoodMatrix;
 import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
+import org.broadinstitute.hellbender.utils.runtime.MetricsRegistry;
 
 import java.io.Closeable;
 import java.util.Arrays;
@@ -136,6 +137,7 @@ public abstract class PairHMM implements Closeable{
     //profiling information
     protected static Boolean doProfiling = true;
     protected static long pairHMMComputeTime = 0;
+    protected static final MetricsRegistry.Timer COMPUTE_LIKELIHOODS_METRIC = MetricsRegistry.getDefault().timer("pairhmm.compute-likelihoods");
     protected long threadLocalPairHMMComputeTimeDiff = 0;
     protected long startTime = 0;
 
@@ -232,8 +234,8 @@ public abstract class PairHMM implements Closeable{
         int idx = 0;
         int readIndex = 0;
         for(final GATKRead read : processedReads){
-            final byte[] readBases = read.getBases();
-            final byte[] readQuals = read.getBaseQualities();
+            final byte[] readBases = read.getBasesNoCopy();
+            final byte[] readQuals = read.getBaseQualitiesNoCopy();
             final byte[] readInsQuals = ReadUtils.getBaseInsertionQualities(read);
             final byte[] readDelQuals = ReadUtils.getBaseDeletionQualities(read);
             final byte[] overallGCP = gcp.get(read);
@@ -256,6 +258,7 @@ public abstract class PairHMM implements Closeable{
             {
                 pairHMMComputeTime += threadLocalPairHMMComputeTimeDiff;
             }
+            COMPUTE_LIKELIHOODS_METRIC.record(threadLocalPairHMMComputeTimeDiff);
         }
     }
 
@@ -166,6 +166,7 @@ public final class VectorLoglessPairHMM extends LoglessPairHMM {
         if (doProfiling) {
             threadLocalPairHMMComputeTimeDiff = (System.nanoTime() - startTime);
             pairHMMComputeTime += threadLocalPairHMMComputeTimeDiff;
+            COMPUTE_LIKELIHOODS_METRIC.record(threadLocalPairHMMComputeTimeDiff);
             pairHMMSetupTime += threadLocalSetupTimeDiff;
         }
     }
@@ -0,0 +1,122 @@
+package org.broadinstitute.hellbender.utils.python;
+
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A reusable buffer of length-prefixed binary records, for streaming data to Python through the data FIFO of a
+ * {@link StreamingPythonScriptExecutor} initialized with binary framing. The records are read on the Python side by
+ * {@code tool.readDataFIFORecord()} in the {@code gatktool} Python package.
+ *
+ * Each record is a little-endian 32 bit length followed by that many bytes of fields. Fields are written as:
+ *
+ *  - ints: 4 bytes, little-endian
+ *  - booleans: 1 byte, 0 or 1
+ *  - byte arrays and strings: an int length followed by the raw bytes (strings are UTF-8 encoded)
+ *
+ * Since the buffer is a {@link ByteArrayOutputStream}, a buffer holding many records can be written to the FIFO in a
+ * single write, and it can be cleared with {@link #reset()} and reused for the next batch without reallocation.
+ */
+public final class BinaryRecordBuffer extends ByteArrayOutputStream {
+    private static final int INT_SIZE = 4;
+    private static final int NO_RECORD = -1;
+
+    // offset of the length prefix of the record being written, or NO_RECORD
+    private int recordStart = NO_RECORD;
+    private int recordCount = 0;
+
+    /**
+     * @param initialCapacity initial size of the buffer, in bytes
+     */
+    public BinaryRecordBuffer(final int initialCapacity) {
+        super(initialCapacity);
+    }
+
+    /**
+     * Start a new record. The previous record must have been ended with {@link #endRecord()}.
+     */
+    public void startRecord() {
+        Utils.validate(recordStart == NO_RECORD, "The previous record has not been ended");
+        recordStart = count;
+        writeInt(0); // length placeholder, filled in by endRecord
+    }
+
+    /**
+     * End the current record, filling in its length prefix.
+     */
+    public void endRecord() {
+        Utils.validate(recordStart != NO_RECORD, "No record has been started");
+        putInt(recordStart, count - recordStart - INT_SIZE);
+        recordStart = NO_RECORD;
+        recordCount++;
+    }
+
+    /**
+     * @return the number of complete records in the buffer
+     */
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    public void writeInt(final int value) {
+        ensureCapacity(count + INT_SIZE);
+        putInt(count, value);
+        count += INT_SIZE;
+    }
+
+    public void writeBoolean(final boolean value) {
+        write(value ? 1 : 0);
+    }
+
+    /**
+     * Write a byte array, preceded by its length.
+     */
+    public void writeByteArray(final byte[] bytes) {
+        Utils.nonNull(bytes);
+        writeByteArray(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Write a range of a byte array, preceded by its length.
+     */
+    public void writeByteArray(final byte[] bytes, final int offset, final int length) {
+        Utils.nonNull(bytes);
+        writeInt(length);
+        write(bytes, offset, length);
+    }
+
+    /**
+     * Write the UTF-8 bytes of a string, preceded by their length.
+     */
+    public void writeString(final String value) {
+        Utils.nonNull(value);
+        writeByteArray(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Discard all records, including any partially written record, keeping the allocated buffer.
+     */
+    @Override
+    public synchronized void reset() {
+        super.reset();
+        recordStart = NO_RECORD;
+        recordCount = 0;
+    }
+
+    private void putInt(final int offset, final int value) {
+        buf[offset] = (byte) value;
+        buf[offset + 1] = (byte) (value >>> 8);
+        buf[offset + 2] = (byte) (value >>> 16);
+        buf[offset + 3] = (byte) (value >>> 24);
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (capacity > buf.length) {
+            final byte[] newBuf = new byte[Math.max(capacity, buf.length * 2)];
+            System.arraycopy(buf, 0, newBuf, 0, count);
+            buf = newBuf;
+        }
+    }
+}
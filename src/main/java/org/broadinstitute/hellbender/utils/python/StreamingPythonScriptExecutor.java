@@ -59,7 +59,7 @@ public class StreamingPythonScriptExecutor<T> extends PythonExecutorBase {
     private final static String PYTHON_IMPORT_GATK = "from gatktool import tool" + NL;
     private final static String PYTHON_INITIALIZE_GATK = "tool.initializeGATK('%s')" + NL;
     private final static String PYTHON_TERMINATE_GATK = "tool.terminateGATK()" + NL;
-    private final static String PYTHON_INITIALIZE_DATA_FIFO = "tool.initializeDataFIFO('%s')" + NL;
+    private final static String PYTHON_INITIALIZE_DATA_FIFO = "tool.initializeDataFIFO('%s', binary=%s)" + NL;
     private final static String PYTHON_CLOSE_DATA_FIFO = "tool.closeDataFIFO()" + NL;
     private final static String PYTHON_SEND_ACK_REQUEST = "tool.sendAck()" + NL;
 
@@ -222,11 +222,28 @@ public class StreamingPythonScriptExecutor<T> extends PythonExecutorBase {
 
     /**
      * Obtain a stream writer that serializes and writes batches of items of type {@code T} on a background thread.
+     * The data FIFO is read as text by Python, one line at a time, using {@code tool.readDataFIFO()}.
      * @param itemSerializer {@code Function} that  accepts items of type {@code T} and converts them to a
      *                                       {@code ByteArrayOutputStream} that is subsequently written to the stream
      * @return An {@link AsynchronousStreamWriter}
      */
     public void initStreamWriter(final Function<T, ByteArrayOutputStream> itemSerializer) {
+        initStreamWriter(itemSerializer, false);
+    }
+
+    /**
+     * Obtain a stream writer that serializes and writes batches of items of type {@code T} on a background thread.
+     *
+     * With binary framing, the data FIFO is opened in binary mode by Python, and the serialized items must consist
+     * of length-prefixed records as written by {@link BinaryRecordBuffer}, which are read one record at a time using
+     * {@code tool.readDataFIFORecord()}. Since a {@link BinaryRecordBuffer} is a {@code ByteArrayOutputStream},
+     * the serializer for a batch of buffers can be {@code Function.identity()}.
+     *
+     * @param itemSerializer {@code Function} that  accepts items of type {@code T} and converts them to a
+     *                                       {@code ByteArrayOutputStream} that is subsequently written to the stream
+     * @param binaryFraming true if the stream consists of binary records rather than lines of text
+     */
+    public void initStreamWriter(final Function<T, ByteArrayOutputStream> itemSerializer, final boolean binaryFraming) {
         Utils.nonNull(itemSerializer, "An item serializer must be provided for the async writer service");
 
         dataTransferFIFOFile = spController.createDataFIFO();
@@ -234,7 +251,8 @@ public class StreamingPythonScriptExecutor<T> extends PythonExecutorBase {
         // Open the FIFO for writing. Opening a FIFO for read or write will block until there is a reader/writer
         // on the other end, so before we open it, send a non blocking, ASYNCHRONOUS command to the Python process
         // to open the FIFO for reading. The Python process will then block until we open the FIFO below.
-        sendAsynchronousCommand(String.format(PYTHON_INITIALIZE_DATA_FIFO, dataTransferFIFOFile.getAbsolutePath()));
+        sendAsynchronousCommand(String.format(PYTHON_INITIALIZE_DATA_FIFO, dataTransferFIFOFile.getAbsolutePath(),
+                binaryFraming ? "True" : "False"));
         try {
             dataTransferFIFOWriter = new FileOutputStream(dataTransferFIFOFile);
             asyncWriter = spController.getAsynchronousStreamWriter(dataTransferFIFOWriter, itemSerializer);
@@ -401,7 +401,7 @@ public final class AlignmentUtils {
         if ( read.getCigar() == null ) // the read is unmapped
             return 0;
 
-        final byte[] qual = read.getBaseQualities();
+        final byte[] qual = read.getBaseQualitiesNoCopy();
 
         int numHQSoftClips = 0;
         int alignPos = 0;
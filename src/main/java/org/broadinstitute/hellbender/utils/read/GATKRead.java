@@ -289,7 +289,7 @@ public interface GATKRead extends Locatable {
      *         if the read is empty.
      */
     default String getBasesString() {
-        return isEmpty() ? ReadConstants.NULL_SEQUENCE_STRING : StringUtil.bytesToString(getBases());
+        return isEmpty() ? ReadConstants.NULL_SEQUENCE_STRING : StringUtil.bytesToString(getBasesNoCopy());
     }
 
     /**
@@ -0,0 +1,53 @@
+package org.broadinstitute.hellbender.utils.read;
+
+import htsjdk.samtools.BAMRecordCodec;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.util.SortingCollection;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A {@link SortingCollection.Codec} for {@link GATKRead}s, which encodes reads as BAM records using a
+ * {@link BAMRecordCodec}. Decoded reads are {@link SAMRecordToGATKReadAdapter}s.
+ */
+public final class GATKReadCodec implements SortingCollection.Codec<GATKRead> {
+    private final SAMFileHeader header;
+    private final BAMRecordCodec bamRecordCodec;
+
+    /**
+     * @param header header of the reads, used to encode and decode their contigs and read groups
+     */
+    public GATKReadCodec(final SAMFileHeader header) {
+        this.header = Utils.nonNull(header);
+        this.bamRecordCodec = new BAMRecordCodec(header);
+    }
+
+    @Override
+    public void setOutputStream(final OutputStream os) {
+        bamRecordCodec.setOutputStream(os);
+    }
+
+    @Override
+    public void setInputStream(final InputStream is) {
+        bamRecordCodec.setInputStream(is);
+    }
+
+    @Override
+    public void encode(final GATKRead read) {
+        bamRecordCodec.encode(read.convertToSAMRecord(header));
+    }
+
+    @Override
+    public GATKRead decode() {
+        final SAMRecord record = bamRecordCodec.decode();
+        return record == null ? null : new SAMRecordToGATKReadAdapter(record);
+    }
+
+    @Override
+    public GATKReadCodec clone() {
+        return new GATKReadCodec(header);
+    }
+}
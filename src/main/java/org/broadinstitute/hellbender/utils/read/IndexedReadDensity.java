@@ -0,0 +1,194 @@
+package org.broadinstitute.hellbender.utils.read;
+
+import htsjdk.samtools.CRAMCRAIIndexer;
+import htsjdk.samtools.GenomicIndexUtil;
+import htsjdk.samtools.LinearIndex;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.cram.CRAIEntry;
+import htsjdk.samtools.cram.CRAIIndex;
+import htsjdk.samtools.util.BinaryCodec;
+import htsjdk.samtools.util.RuntimeEOFException;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Estimates the amount of read data along the genome from BAI or CRAI indices, without reading the reads themselves.
+ *
+ * <p>The genome is divided into windows of {@link #WINDOW_SIZE} bases, the size of the smallest bins of the BAI
+ * binning scheme, and each window is assigned the number of compressed bytes of the reads that the indices place in
+ * it.  For BAI indices these are the chunks of the bin of the window, plus a share of the chunks of the larger bins
+ * containing it, which hold the reads spanning window boundaries; for CRAI indices, the size of each slice is spread
+ * over the bases it spans.  Estimates from several indices are added up.</p>
+ */
+public final class IndexedReadDensity implements ToDoubleFunction<SimpleInterval> {
+
+    /**
+     * Size of the windows for which the read data is estimated.
+     */
+    public static final int WINDOW_SIZE = 1 << LinearIndex.BAM_LIDX_SHIFT;
+
+    private static final byte[] BAI_MAGIC = {'B', 'A', 'I', 1};
+    private static final int FIRST_WINDOW_BIN = GenomicIndexUtil.LEVEL_STARTS[GenomicIndexUtil.LEVEL_STARTS.length - 1];
+    private static final int LAST_WINDOW_BIN = GenomicIndexUtil.MAX_BINS - 2;
+
+    /**
+     * Typical ratio of uncompressed to compressed size of a BGZF block, used to convert offsets within blocks.
+     */
+    private static final double ESTIMATED_COMPRESSION_RATIO = 3.0;
+
+    private final Map<String, double[]> bytesByContig = new HashMap<>();
+
+    /**
+     * Adds the read data of an index.
+     *
+     * @param indexPath a BAI or CRAI index; CRAI indices are recognized by their extension
+     * @param dictionary sequence dictionary of the indexed reads file, to which the index refers by sequence index
+     */
+    public void addIndex(final Path indexPath, final SAMSequenceDictionary dictionary) {
+        Utils.nonNull(indexPath);
+        Utils.nonNull(dictionary);
+        try (final InputStream in = new BufferedInputStream(Files.newInputStream(indexPath))) {
+            if (indexPath.toString().endsWith(CRAIIndex.CRAI_INDEX_SUFFIX)) {
+                addCRAI(in, dictionary);
+            } else {
+                addBAI(in, dictionary, indexPath);
+            }
+        } catch (final IOException | RuntimeEOFException e) {
+            throw new UserException.CouldNotReadInputFile(indexPath, e);
+        }
+    }
+
+    /**
+     * @return the estimated number of compressed bytes of read data in the window containing the start of the interval
+     */
+    @Override
+    public double applyAsDouble(final SimpleInterval interval) {
+        final double[] bytes = bytesByContig.get(interval.getContig());
+        final int window = (interval.getStart() - 1) / WINDOW_SIZE;
+        return bytes == null || window >= bytes.length ? 0.0 : bytes[window];
+    }
+
+    private void addBAI(final InputStream in, final SAMSequenceDictionary dictionary, final Path indexPath) {
+        final BinaryCodec codec = new BinaryCodec(in);
+        final byte[] magic = new byte[BAI_MAGIC.length];
+        codec.readBytes(magic);
+        if (!Arrays.equals(magic, BAI_MAGIC)) {
+            throw new UserException.MalformedFile(indexPath, "Not a BAI index");
+        }
+        final int numReferences = codec.readInt();
+        for (int ref = 0; ref < numReferences; ref++) {
+            final double[] bytes = ref < dictionary.size() ? windowsFor(dictionary.getSequence(ref)) : null;
+            final double[] leafBytes = new double[bytes == null ? 0 : bytes.length];
+            final List<int[]> parentBins = new ArrayList<>();
+            final List<Double> parentBinBytes = new ArrayList<>();
+            final int numBins = codec.readInt();
+            for (int i = 0; i < numBins; i++) {
+                final int bin = codec.readInt();
+                final int numChunks = codec.readInt();
+                double binBytes = 0;
+                for (int j = 0; j < numChunks; j++) {
+                    binBytes += estimateCompressedSize(codec.readLong(), codec.readLong());
+                }
+                if (bytes == null || bin > LAST_WINDOW_BIN) {
+                    continue;
+                }
+                final int[] windows = binWindows(bin);
+                if (windows[0] >= leafBytes.length) {
+                    continue;
+                } else if (bin >= FIRST_WINDOW_BIN) {
+                    leafBytes[windows[0]] += binBytes;
+                } else {
+                    parentBins.add(windows);
+                    parentBinBytes.add(binBytes);
+                }
+            }
+            // skip the linear index
+            final int numIntervals = codec.readInt();
+            for (int i = 0; i < numIntervals; i++) {
+                codec.readLong();
+            }
+
+            if (bytes != null) {
+                addLeafAndParentBins(bytes, leafBytes, parentBins, parentBinBytes);
+            }
+        }
+    }
+
+    // Reads in bins larger than a window span window boundaries.  They are spread over the windows of their bin in
+    // proportion to the reads of the windows themselves, or evenly if there are none.
+    private static void addLeafAndParentBins(final double[] bytes, final double[] leafBytes,
+                                             final List<int[]> parentBins, final List<Double> parentBinBytes) {
+        final double[] cumulativeLeafBytes = new double[leafBytes.length + 1];
+        for (int w = 0; w < leafBytes.length; w++) {
+            cumulativeLeafBytes[w + 1] = cumulativeLeafBytes[w] + leafBytes[w];
+            bytes[w] += leafBytes[w];
+        }
+        for (int i = 0; i < parentBins.size(); i++) {
+            final int first = parentBins.get(i)[0];
+            final int last = Math.min(parentBins.get(i)[1], leafBytes.length - 1);
+            final double binBytes = parentBinBytes.get(i);
+            final double binLeafBytes = cumulativeLeafBytes[last + 1] - cumulativeLeafBytes[first];
+            for (int w = first; w <= last; w++) {
+                bytes[w] += binLeafBytes > 0 ? binBytes * leafBytes[w] / binLeafBytes : binBytes / (last - first + 1);
+            }
+        }
+    }
+
+    // the first and last windows of a bin of the BAI binning scheme
+    private static int[] binWindows(final int bin) {
+        int level = GenomicIndexUtil.LEVEL_STARTS.length - 1;
+        while (GenomicIndexUtil.LEVEL_STARTS[level] > bin) {
+            level--;
+        }
+        final int windowsPerBin = 1 << (3 * (GenomicIndexUtil.LEVEL_STARTS.length - 1 - level));
+        final int first = (bin - GenomicIndexUtil.LEVEL_STARTS[level]) * windowsPerBin;
+        return new int[]{first, first + windowsPerBin - 1};
+    }
+
+    private void addCRAI(final InputStream in, final SAMSequenceDictionary dictionary) {
+        for (final CRAIEntry entry : CRAMCRAIIndexer.readIndex(in).getCRAIEntries()) {
+            if (entry.sequenceId < 0 || entry.sequenceId >= dictionary.size() || entry.alignmentSpan <= 0) {
+                continue;
+            }
+            final double[] bytes = windowsFor(dictionary.getSequence(entry.sequenceId));
+            final int start = Math.max(1, entry.alignmentStart);
+            final int end = start + entry.alignmentSpan - 1;
+            final double bytesPerBase = (double) entry.sliceSize / entry.alignmentSpan;
+            for (int windowStart = ((start - 1) / WINDOW_SIZE) * WINDOW_SIZE + 1; windowStart <= end; windowStart += WINDOW_SIZE) {
+                final int window = (windowStart - 1) / WINDOW_SIZE;
+                if (window >= bytes.length) {
+                    break;
+                }
+                final int overlap = Math.min(end, windowStart + WINDOW_SIZE - 1) - Math.max(start, windowStart) + 1;
+                bytes[window] += bytesPerBase * overlap;
+            }
+        }
+    }
+
+    private double[] windowsFor(final SAMSequenceRecord contig) {
+        return bytesByContig.computeIfAbsent(contig.getSequenceName(), name -> new double[(contig.getSequenceLength() - 1) / WINDOW_SIZE + 1]);
+    }
+
+    /**
+     * Estimates the number of compressed bytes between two BGZF virtual file offsets.
+     */
+    static double estimateCompressedSize(final long startOffset, final long endOffset) {
+        final long blocks = (endOffset >>> 16) - (startOffset >>> 16);
+        final int withinBlock = (int) (endOffset & 0xFFFF) - (int) (startOffset & 0xFFFF);
+        return Math.max(0.0, blocks + withinBlock / ESTIMATED_COMPRESSION_RATIO);
+    }
+}
@@ -0,0 +1,164 @@
+package org.broadinstitute.hellbender.utils.read;
+
+import htsjdk.samtools.BAMFileSpan;
+import htsjdk.samtools.BAMIndex;
+import htsjdk.samtools.BAMIndexer;
+import htsjdk.samtools.BAMRecordCodec;
+import htsjdk.samtools.Chunk;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFileSource;
+import htsjdk.samtools.SAMFileWriterImpl;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.util.BinaryCodec;
+import htsjdk.samtools.util.IOUtil;
+import htsjdk.samtools.util.Md5CalculatingOutputStream;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.io.ParallelBlockCompressedOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+
+/**
+ * A BAM writer that deflates its BGZF blocks on a pool of threads using a {@link ParallelBlockCompressedOutputStream}.
+ *
+ * Records are encoded on the calling thread exactly as htsjdk's BAMFileWriter encodes them, so the BAM and its index
+ * are byte-identical to the ones htsjdk writes with the same compression level and deflater factory. Since the address
+ * of a block is only known after the blocks before it have been deflated, records are added to the on-the-fly index
+ * once their positions are resolved rather than as they are written.
+ */
+public final class ParallelBAMFileWriter extends SAMFileWriterImpl {
+
+    private static final byte[] BAM_MAGIC = "BAM\1".getBytes(StandardCharsets.US_ASCII);
+
+    private final Path outputPath;
+    private final ParallelBlockCompressedOutputStream outputStream;
+    private final BinaryCodec outputBinaryCodec;
+    private final BAMIndexer bamIndexer;
+    private final ArrayDeque<PendingRecord> unindexedRecords = new ArrayDeque<>();
+    private BAMRecordCodec bamRecordCodec;
+
+    /**
+     * @param outputPath BAM file to write. Can not be null.
+     * @param header header of the output. Can not be null.
+     * @param presorted if true then the records must already be sorted to match the header sort order
+     * @param createIndex if true a .bai index is created. Requires a coordinate-sorted header.
+     * @param createMD5 if true an MD5 file is created
+     * @param compressionThreads number of threads to deflate blocks on. Must be positive.
+     */
+    public ParallelBAMFileWriter(final Path outputPath, final SAMFileHeader header, final boolean presorted,
+                                 final boolean createIndex, final boolean createMD5, final int compressionThreads) {
+        this.outputPath = Utils.nonNull(outputPath);
+        Utils.nonNull(header);
+        Utils.validateArg(!createIndex || header.getSortOrder() == SAMFileHeader.SortOrder.coordinate,
+                "index creation requires a coordinate-sorted header");
+
+        try {
+            OutputStream os = IOUtil.maybeBufferOutputStream(Files.newOutputStream(outputPath));
+            if (createMD5) {
+                os = new Md5CalculatingOutputStream(os, outputPath.resolveSibling(outputPath.getFileName() + ".md5"));
+            }
+            outputStream = new ParallelBlockCompressedOutputStream(os, compressionThreads);
+            bamIndexer = createIndex ? new BAMIndexer(Files.newOutputStream(getIndexPath(outputPath)), header) : null;
+        } catch (final IOException e) {
+            throw new UserException.CouldNotCreateOutputFile(outputPath.toUri().toString(), "could not open the output for writing", e);
+        }
+        outputBinaryCodec = new BinaryCodec(outputStream);
+
+        setSortOrder(header.getSortOrder(), presorted);
+        setHeader(header);
+    }
+
+    /**
+     * @return the path htsjdk would write the .bai index of {@code bamPath} to
+     */
+    private static Path getIndexPath(final Path bamPath) {
+        return bamPath.resolveSibling(IOUtils.replaceExtension(bamPath.getFileName().toString(), BAMIndex.BAMIndexSuffix));
+    }
+
+    @Override
+    protected void writeHeader(final String textHeader) {
+        outputBinaryCodec.writeBytes(BAM_MAGIC);
+        outputBinaryCodec.writeString(textHeader, true, false);
+        outputBinaryCodec.writeInt(getFileHeader().getSequenceDictionary().size());
+        for (final SAMSequenceRecord sequenceRecord : getFileHeader().getSequenceDictionary().getSequences()) {
+            outputBinaryCodec.writeString(sequenceRecord.getSequenceName(), true, true);
+            outputBinaryCodec.writeInt(sequenceRecord.getSequenceLength());
+        }
+    }
+
+    @Override
+    protected void writeAlignment(final SAMRecord alignment) {
+        if (bamRecordCodec == null) {
+            bamRecordCodec = new BAMRecordCodec(getFileHeader());
+            bamRecordCodec.setOutputStream(outputStream, getFilename());
+        }
+        final long start = outputStream.getPosition();
+        bamRecordCodec.encode(alignment);
+        if (bamIndexer != null) {
+            unindexedRecords.addLast(new PendingRecord(makeIndexingRecord(alignment), start, outputStream.getPosition()));
+        }
+        indexResolvedRecords();
+    }
+
+    @Override
+    protected void finish() {
+        outputBinaryCodec.close();
+        if (bamIndexer != null) {
+            indexResolvedRecords();
+            Utils.validate(unindexedRecords.isEmpty(), "all of the records should have been indexed");
+            bamIndexer.finish();
+        }
+    }
+
+    @Override
+    protected String getFilename() {
+        return outputPath.toUri().toString();
+    }
+
+    /**
+     * Add the records whose positions in the output are known to the index, in the order they were written, and
+     * release the block addresses that are no longer needed.
+     */
+    private void indexResolvedRecords() {
+        while (!unindexedRecords.isEmpty() && outputStream.isResolved(unindexedRecords.peekFirst().end)) {
+            final PendingRecord pending = unindexedRecords.removeFirst();
+            final Chunk chunk = new Chunk(outputStream.resolve(pending.start), outputStream.resolve(pending.end));
+            pending.record.setFileSource(new SAMFileSource(null, new BAMFileSpan(chunk)));
+            bamIndexer.processAlignment(pending.record);
+        }
+        outputStream.releaseBefore(unindexedRecords.isEmpty() ? outputStream.getPosition() : unindexedRecords.peekFirst().start);
+    }
+
+    /**
+     * The record is indexed after the caller may have modified or reused it, so keep a copy of the fields BAMIndexer
+     * reads instead.
+     */
+    private SAMRecord makeIndexingRecord(final SAMRecord alignment) {
+        final SAMRecord record = new SAMRecord(getFileHeader());
+        record.setFlags(alignment.getFlags());
+        record.setReferenceIndex(alignment.getReferenceIndex());
+        record.setAlignmentStart(alignment.getAlignmentStart());
+        record.setCigar(alignment.getCigar());
+        record.setIndexingBin(alignment.getIndexingBin());
+        return record;
+    }
+
+    private static final class PendingRecord {
+        private final SAMRecord record;
+        private final long start;
+        private final long end;
+
+        private PendingRecord(final SAMRecord record, final long start, final long end) {
+            this.record = record;
+            this.start = start;
+            this.end = end;
+        }
+    }
+}
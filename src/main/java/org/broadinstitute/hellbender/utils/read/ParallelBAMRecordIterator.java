@@ -0,0 +1,246 @@
+package org.broadinstitute.hellbender.utils.read;
+
+import htsjdk.samtools.BAMFileSpan;
+import htsjdk.samtools.BAMIndex;
+import htsjdk.samtools.BAMRecordCodec;
+import htsjdk.samtools.Chunk;
+import htsjdk.samtools.QueryInterval;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMUtils;
+import htsjdk.samtools.SAMValidationError;
+import htsjdk.samtools.ValidationStringency;
+import htsjdk.samtools.util.BinaryCodec;
+import htsjdk.samtools.util.CloseableIterator;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.io.ParallelBlockCompressedInputStream;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * An iterator over the records of a BAM file that inflates the upcoming BGZF blocks on a pool of threads using a
+ * {@link ParallelBlockCompressedInputStream}, and decodes the records on the calling thread.
+ *
+ * Iterates either over every record in the file, or over the records overlapping a set of intervals. In the latter
+ * case only the blocks of the chunks the index returns for the intervals are read, and the records are filtered as
+ * htsjdk's BAMFileReader filters the records of an overlapping query, so both return the same records in the same
+ * order.
+ */
+public final class ParallelBAMRecordIterator implements CloseableIterator<SAMRecord> {
+
+    private static final byte[] BAM_MAGIC = "BAM\1".getBytes(StandardCharsets.US_ASCII);
+
+    private final Path bamPath;
+    private final ParallelBlockCompressedInputStream inputStream;
+    private final BAMRecordCodec bamRecordCodec;
+    private final ValidationStringency validationStringency;
+
+    // null when iterating over the whole file
+    private final List<Chunk> chunks;
+    private final QueryInterval[] intervals;
+    private int nextChunk = 0;
+    private long chunkEnd = -1;
+    private int intervalIndex = 0;
+
+    private long recordIndex = 0;
+    private SAMRecord nextRecord;
+
+    /**
+     * Iterate over every record in a BAM file.
+     *
+     * @param bamPath BAM file to read. Can not be null.
+     * @param header header of the BAM file, as read by htsjdk. Can not be null.
+     * @param validationStringency how to handle invalid records
+     * @param decompressionThreads number of threads to inflate blocks on. Must be positive.
+     */
+    public ParallelBAMRecordIterator(final Path bamPath, final SAMFileHeader header,
+                                     final ValidationStringency validationStringency, final int decompressionThreads) {
+        this(bamPath, header, validationStringency, decompressionThreads, null, null);
+    }
+
+    /**
+     * Iterate over the records of an indexed BAM file that overlap a set of intervals.
+     *
+     * @param bamPath BAM file to read. Can not be null.
+     * @param header header of the BAM file, as read by htsjdk. Can not be null.
+     * @param index index of the BAM file. Can not be null.
+     * @param intervals intervals to query, optimized with {@link QueryInterval#optimizeIntervals}. Can not be null.
+     * @param validationStringency how to handle invalid records
+     * @param decompressionThreads number of threads to inflate blocks on. Must be positive.
+     */
+    public ParallelBAMRecordIterator(final Path bamPath, final SAMFileHeader header, final BAMIndex index,
+                                     final QueryInterval[] intervals, final ValidationStringency validationStringency,
+                                     final int decompressionThreads) {
+        this(bamPath, header, validationStringency, decompressionThreads,
+                getChunksOverlapping(index, intervals), intervals);
+    }
+
+    private ParallelBAMRecordIterator(final Path bamPath, final SAMFileHeader header,
+                                      final ValidationStringency validationStringency, final int decompressionThreads,
+                                      final List<Chunk> chunks, final QueryInterval[] intervals) {
+        this.bamPath = Utils.nonNull(bamPath);
+        Utils.nonNull(header);
+        this.validationStringency = Utils.nonNull(validationStringency);
+        this.chunks = chunks;
+        this.intervals = intervals;
+
+        try {
+            inputStream = new ParallelBlockCompressedInputStream(Files.newByteChannel(bamPath), decompressionThreads);
+            if (chunks == null) {
+                skipHeader();
+            } else {
+                inputStream.readChunks(chunks);
+            }
+        } catch (final IOException e) {
+            throw new UserException.CouldNotReadInputFile(bamPath, e);
+        }
+        bamRecordCodec = new BAMRecordCodec(header);
+        bamRecordCodec.setInputStream(inputStream);
+        nextRecord = advance();
+    }
+
+    /**
+     * @param index index of a BAM file. Can not be null.
+     * @param intervals intervals to query, optimized with {@link QueryInterval#optimizeIntervals}. Can not be null.
+     * @return the chunks of the index spanning the records that overlap {@code intervals}, merged as BAMFileReader
+     * merges them, in file order
+     */
+    public static List<Chunk> getChunksOverlapping(final BAMIndex index, final QueryInterval[] intervals) {
+        Utils.nonNull(index);
+        Utils.nonNull(intervals);
+        final BAMFileSpan[] spans = Arrays.stream(intervals)
+                .map(interval -> index.getSpanOverlapping(interval.referenceIndex, interval.start, interval.end))
+                .filter(Objects::nonNull)
+                .toArray(BAMFileSpan[]::new);
+        if (spans.length == 0) {
+            return Collections.emptyList();
+        }
+        final List<Chunk> chunks = new ArrayList<>(BAMFileSpan.merge(spans).getChunks());
+        Collections.sort(chunks);
+        return chunks;
+    }
+
+    private void skipHeader() {
+        final BinaryCodec headerCodec = new BinaryCodec(inputStream);
+        final byte[] magic = new byte[BAM_MAGIC.length];
+        headerCodec.readBytes(magic);
+        if (!Arrays.equals(magic, BAM_MAGIC)) {
+            throw new UserException.MalformedFile(bamPath, "invalid BAM file header");
+        }
+        headerCodec.readBytes(new byte[headerCodec.readInt()]);
+        final int sequenceCount = headerCodec.readInt();
+        for (int i = 0; i < sequenceCount; i++) {
+            // name, including its null terminator, and length
+            headerCodec.readBytes(new byte[headerCodec.readInt()]);
+            headerCodec.readInt();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return nextRecord != null;
+    }
+
+    @Override
+    public SAMRecord next() {
+        if (nextRecord == null) {
+            throw new NoSuchElementException("no more records in " + bamPath.toUri());
+        }
+        final SAMRecord record = nextRecord;
+        nextRecord = advance();
+        return record;
+    }
+
+    @Override
+    public void close() {
+        nextRecord = null;
+        try {
+            inputStream.close();
+        } catch (final IOException e) {
+            throw new UserException.CouldNotReadInputFile(bamPath, e);
+        }
+    }
+
+    private SAMRecord advance() {
+        while (true) {
+            final SAMRecord record = intervals == null ? bamRecordCodec.decode() : decodeFromChunks();
+            if (record == null) {
+                return null;
+            }
+            if (intervals != null) {
+                final boolean overlaps = overlapsCurrentInterval(record);
+                if (intervalIndex == intervals.length) {
+                    return null;
+                } else if (!overlaps) {
+                    continue;
+                }
+            }
+            validate(record);
+            return record;
+        }
+    }
+
+    /**
+     * Decode the next record of the current chunk, moving on to the next chunk at the end of the current one.
+     */
+    private SAMRecord decodeFromChunks() {
+        try {
+            while (inputStream.getFilePointer() >= chunkEnd) {
+                if (nextChunk == chunks.size()) {
+                    return null;
+                }
+                final Chunk chunk = chunks.get(nextChunk++);
+                inputStream.seek(chunk.getChunkStart());
+                chunkEnd = chunk.getChunkEnd();
+            }
+        } catch (final IOException e) {
+            throw new UserException.CouldNotReadInputFile(bamPath, e);
+        }
+        return bamRecordCodec.decode();
+    }
+
+    /**
+     * Move past the intervals that end before {@code record}, as htsjdk's multiple interval query filter does.
+     *
+     * @return true if {@code record} overlaps the current interval
+     */
+    private boolean overlapsCurrentInterval(final SAMRecord record) {
+        // an unmapped read placed with its mate occupies the position of the mate
+        final int alignmentEnd = record.getReadUnmappedFlag() && record.getAlignmentStart() != SAMRecord.NO_ALIGNMENT_START ?
+                record.getAlignmentStart() : record.getAlignmentEnd();
+        while (intervalIndex < intervals.length) {
+            final QueryInterval interval = intervals[intervalIndex];
+            // an interval end of 0 or less means the end of the reference sequence
+            final int intervalEnd = interval.end <= 0 ? Integer.MAX_VALUE : interval.end;
+            if (interval.referenceIndex < record.getReferenceIndex()
+                    || (interval.referenceIndex == record.getReferenceIndex() && intervalEnd < record.getAlignmentStart())) {
+                intervalIndex++;
+            } else {
+                return interval.referenceIndex == record.getReferenceIndex() && alignmentEnd >= interval.start;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Validate the record as BAMFileReader does. Some fields are decoded lazily, so the record keeps the stringency.
+     */
+    private void validate(final SAMRecord record) {
+        recordIndex++;
+        record.setValidationStringency(validationStringency);
+        if (validationStringency != ValidationStringency.SILENT) {
+            final List<SAMValidationError> validationErrors = record.isValid();
+            SAMUtils.processValidationErrors(validationErrors, recordIndex, validationStringency);
+        }
+    }
+}
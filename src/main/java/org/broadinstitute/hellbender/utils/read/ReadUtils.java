@@ -31,6 +31,10 @@ import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.BaseUtils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.config.ConfigFactory;
+import org.broadinstitute.hellbender.utils.config.GATKConfig;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.param.ParamUtils;
 import org.broadinstitute.hellbender.utils.read.markduplicates.LibraryIdGenerator;
 import org.broadinstitute.hellbender.utils.recalibration.EventType;
 
@@ -130,10 +134,10 @@ public final class ReadUtils {
      */
     public static String getBaseQualityString( final GATKRead read ) {
         Utils.nonNull(read);
-        if ( Arrays.equals(SAMRecord.NULL_QUALS, read.getBaseQualities()) ) {
+        if ( Arrays.equals(SAMRecord.NULL_QUALS, read.getBaseQualitiesNoCopy()) ) {
             return SAMRecord.NULL_QUALS_STRING;
         }
-        return SAMUtils.phredToFastq(read.getBaseQualities());
+        return SAMUtils.phredToFastq(read.getBaseQualitiesNoCopy());
     }
 
     /**
@@ -934,7 +938,7 @@ public final class ReadUtils {
      * @return the reverse complement of the read bases
      */
     public static String getBasesReverseComplement(final GATKRead read) {
-        return getBasesReverseComplement(read.getBases());
+        return getBasesReverseComplement(read.getBasesNoCopy());
     }
 
     /**
@@ -1117,6 +1121,11 @@ public final class ReadUtils {
     /**
      * Create a common SAMFileWriter for use with GATK tools.
      *
+     * If {@code samjdk.use_async_io_write_samtools} is set (the default), encoding, compression and indexing run on a
+     * background thread behind a queue of at most {@link GATKConfig#asyncOutputQueueSize()} reads, which blocks the
+     * caller when full. Errors on the background thread are rethrown by the next call to {@code addAlignment} or by
+     * {@code close}.
+     *
      * @param outputPath - if this file has a .cram extension then a reference is required. Can not be null.
      * @param referenceFile - the reference source to use. Can not be null if a output file has a .cram extension.
      * @param header - header to be used for the output writer
@@ -1133,9 +1142,39 @@ public final class ReadUtils {
         final boolean preSorted,
         boolean createOutputBamIndex,
         final boolean createMD5)
+    {
+        return createCommonSAMWriter(outputPath, referenceFile, header, preSorted, createOutputBamIndex, createMD5, 0);
+    }
+
+    /**
+     * Create a common SAMFileWriter for use with GATK tools.
+     *
+     * If {@code compressionThreads} is positive and the output is a BAM file, its BGZF blocks are deflated on that many
+     * threads by a {@link ParallelBAMFileWriter}, and encoding runs on the calling thread. The output is the same as
+     * that of the htsjdk writer, which is used otherwise.
+     *
+     * @param outputPath - if this file has a .cram extension then a reference is required. Can not be null.
+     * @param referenceFile - the reference source to use. Can not be null if a output file has a .cram extension.
+     * @param header - header to be used for the output writer
+     * @param preSorted - if true then the records must already be sorted to match the header sort order
+     * @param createOutputBamIndex - if true an index will be created for .BAM and .CRAM files
+     * @param createMD5 - if true an MD5 file will be created
+     * @param compressionThreads - number of threads to deflate BAM output on, or 0 to use the htsjdk writer
+     *
+     * @return SAMFileWriter
+     */
+    public static SAMFileWriter createCommonSAMWriter(
+        final Path outputPath,
+        final File referenceFile,
+        final SAMFileHeader header,
+        final boolean preSorted,
+        boolean createOutputBamIndex,
+        final boolean createMD5,
+        final int compressionThreads)
     {
         Utils.nonNull(outputPath);
         Utils.nonNull(header);
+        ParamUtils.isPositiveOrZero(compressionThreads, "the number of compression threads must not be negative");
 
         if (createOutputBamIndex && header.getSortOrder() != SAMFileHeader.SortOrder.coordinate) {
             logger.warn("Skipping index file creation for: " +
@@ -1143,7 +1182,16 @@ public final class ReadUtils {
             createOutputBamIndex = false;
         }
 
-        final SAMFileWriterFactory factory = new SAMFileWriterFactory().setCreateIndex(createOutputBamIndex).setCreateMd5File(createMD5);
+        if (compressionThreads > 0 && IOUtils.isBamFileName(outputPath.toString())) {
+            return new ParallelBAMFileWriter(outputPath, header.clone(), preSorted, createOutputBamIndex, createMD5, compressionThreads);
+        }
+
+        final GATKConfig config = ConfigFactory.getInstance().getGATKConfig();
+        final SAMFileWriterFactory factory = new SAMFileWriterFactory()
+                .setCreateIndex(createOutputBamIndex)
+                .setCreateMd5File(createMD5)
+                .setUseAsyncIo(config.samjdk_use_async_io_write_samtools())
+                .setAsyncOutputBufferSize(config.asyncOutputQueueSize());
         return ReadUtils.createCommonSAMWriterFromFactory(factory, outputPath, referenceFile, header, preSorted);
     }
 
@@ -1247,7 +1295,21 @@ public final class ReadUtils {
      * @return whether or not the base is in the adaptor
      */
     public static boolean isBaseInsideAdaptor(final GATKRead read, long basePos) {
-        final int adaptorBoundary = read.getAdaptorBoundary();
+        return isBaseInsideAdaptor(read, read.getAdaptorBoundary(), basePos);
+    }
+
+    /**
+     * is this base inside the adaptor of the read, given the adaptor boundary of the read?
+     *
+     * Same as {@link #isBaseInsideAdaptor(GATKRead, long)}, for callers that test many bases of the same read and
+     * compute its adaptor boundary only once.
+     *
+     * @param read the read to test
+     * @param adaptorBoundary the adaptor boundary of the read, as returned by {@link GATKRead#getAdaptorBoundary()}
+     * @param basePos base position in REFERENCE coordinates (not read coordinates)
+     * @return whether or not the base is in the adaptor
+     */
+    public static boolean isBaseInsideAdaptor(final GATKRead read, final int adaptorBoundary, long basePos) {
         if (adaptorBoundary == CANNOT_COMPUTE_ADAPTOR_BOUNDARY || read.getFragmentLength() > DEFAULT_ADAPTOR_SIZE)
             return false;
 
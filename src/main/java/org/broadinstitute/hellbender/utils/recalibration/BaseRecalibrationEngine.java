@@ -306,8 +306,8 @@ public final class BaseRecalibrationEngine implements Serializable {
         if (recalArgs.defaultBaseQualities < 0) {
             return read;
         }
-        byte[] reads = read.getBases();
-        byte[] quals = read.getBaseQualities();
+        byte[] reads = read.getBasesNoCopy();
+        byte[] quals = read.getBaseQualitiesNoCopy();
         if (quals == null || quals.length < reads.length) {
             byte[] new_quals = new byte[reads.length];
             Arrays.fill(new_quals, recalArgs.defaultBaseQualities);
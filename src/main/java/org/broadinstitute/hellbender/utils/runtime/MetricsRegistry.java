@@ -0,0 +1,311 @@
+package org.broadinstitute.hellbender.utils.runtime;
+
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Registry of named, low-overhead runtime metrics (counters, timers, histograms and gauges) for profiling production
+ * runs without attaching a profiler.
+ *
+ * Hot-path code obtains its metrics once, typically in a static field, from the registry returned by
+ * {@link #getDefault()}, and then updates them without any locking:
+ *
+ * <pre>
+ *     private static final MetricsRegistry.Timer ALIGN_TIME = MetricsRegistry.getDefault().timer("smith-waterman.align");
+ *     ...
+ *     final long start = System.nanoTime();
+ *     ...
+ *     ALIGN_TIME.recordSince(start);
+ * </pre>
+ *
+ * Counters, timers and histograms stay registered for the lifetime of the JVM, and {@link #reset()} only zeroes them,
+ * so references held in static fields stay valid. Gauges read values kept by other objects, such as the counts of a
+ * read filter, so they are tied to those objects and are dropped by {@link #reset()}.
+ *
+ * The current value of every metric is available as a {@link #snapshot()}, which {@link MetricsReporter} writes out
+ * periodically. The registry of the running tool is exposed by {@link org.broadinstitute.hellbender.engine.GATKTool#getMetrics()}.
+ */
+public final class MetricsRegistry {
+
+    private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+    private final Map<String, Metric> metrics = new ConcurrentHashMap<>();
+
+    /**
+     * @return the registry shared by the engine and all tools in this JVM
+     */
+    public static MetricsRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @return the counter with this name, which is created if necessary
+     */
+    public Counter counter(final String name) {
+        return getOrCreate(name, Counter.class, Counter::new);
+    }
+
+    /**
+     * @return the timer with this name, which is created if necessary
+     */
+    public Timer timer(final String name) {
+        return getOrCreate(name, Timer.class, Timer::new);
+    }
+
+    /**
+     * @return the histogram with this name, which is created if necessary
+     */
+    public Histogram histogram(final String name) {
+        return getOrCreate(name, Histogram.class, Histogram::new);
+    }
+
+    /**
+     * Registers a gauge that reports the current value of a supplier, replacing any gauge with the same name.
+     *
+     * @param name name of the gauge
+     * @param value supplier of the value of the gauge, which must be cheap and safe to call from any thread
+     */
+    public void gauge(final String name, final LongSupplier value) {
+        Utils.nonNull(value);
+        metrics.compute(Utils.nonEmpty(name), (n, previous) -> {
+            if (previous != null && !(previous instanceof Gauge)) {
+                throw new GATKException("Metric " + name + " is already registered as a " + previous.getType());
+            }
+            return new Gauge(value);
+        });
+    }
+
+    /**
+     * Zeroes all counters, timers and histograms, and removes all gauges.
+     */
+    public void reset() {
+        metrics.values().removeIf(metric -> metric instanceof Gauge);
+        metrics.values().forEach(Metric::reset);
+    }
+
+    /**
+     * @return the current values of all metrics, by metric name in alphabetical order
+     */
+    public SortedMap<String, MetricValue> snapshot() {
+        final SortedMap<String, MetricValue> snapshot = new TreeMap<>();
+        metrics.forEach((name, metric) -> snapshot.put(name, new MetricValue(metric.getType(), metric.getFields())));
+        return snapshot;
+    }
+
+    private <T extends Metric> T getOrCreate(final String name, final Class<T> type, final Supplier<T> constructor) {
+        final Metric metric = metrics.computeIfAbsent(Utils.nonEmpty(name), n -> constructor.get());
+        if (metric.getClass() != type) {
+            throw new GATKException("Metric " + name + " is already registered as a " + metric.getType());
+        }
+        return type.cast(metric);
+    }
+
+    /**
+     * The type and fields (e.g. count, sum) of a metric at the time of a snapshot.
+     */
+    public static final class MetricValue {
+        private final String type;
+        private final LinkedHashMap<String, Long> fields;
+
+        private MetricValue(final String type, final LinkedHashMap<String, Long> fields) {
+            this.type = type;
+            this.fields = fields;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        /**
+         * @return the values of the fields of the metric, in a fixed order for each type of metric
+         */
+        public Map<String, Long> getFields() {
+            return Collections.unmodifiableMap(fields);
+        }
+    }
+
+    private abstract static class Metric {
+        abstract String getType();
+
+        abstract LinkedHashMap<String, Long> getFields();
+
+        abstract void reset();
+    }
+
+    /**
+     * A count of events, which can be incremented from several threads at once.
+     */
+    public static final class Counter extends Metric {
+        private final LongAdder count = new LongAdder();
+
+        private Counter() { }
+
+        public void increment() {
+            count.increment();
+        }
+
+        public void add(final long value) {
+            count.add(value);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        @Override
+        String getType() {
+            return "counter";
+        }
+
+        @Override
+        LinkedHashMap<String, Long> getFields() {
+            final LinkedHashMap<String, Long> fields = new LinkedHashMap<>();
+            fields.put("count", getCount());
+            return fields;
+        }
+
+        @Override
+        void reset() {
+            count.reset();
+        }
+    }
+
+    /**
+     * Distribution of non-negative values, kept as counts in power-of-two buckets, so that recording a value is a few
+     * atomic additions regardless of how many values have been recorded. Percentiles are reported as the upper bound
+     * of the bucket that contains them, so they are accurate to within a factor of two.
+     */
+    public static class Histogram extends Metric {
+        // bucket i holds the values whose highest set bit is bit i - 1, i.e. values in [2^(i-1), 2^i); bucket 0 holds 0
+        private static final int NUM_BUCKETS = Long.SIZE + 1;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        private Histogram() { }
+
+        /**
+         * Records a value. Negative values are recorded as 0.
+         */
+        public void record(final long value) {
+            final long nonNegativeValue = Math.max(value, 0);
+            buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(nonNegativeValue));
+            count.increment();
+            sum.add(nonNegativeValue);
+            max.accumulate(nonNegativeValue);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getSum() {
+            return sum.sum();
+        }
+
+        public long getMax() {
+            return max.get();
+        }
+
+        /**
+         * @param quantile between 0 and 1
+         * @return an upper bound of the given quantile of the recorded values, which is at most twice the true value,
+         *         or 0 if no values have been recorded
+         */
+        public long getQuantileUpperBound(final double quantile) {
+            Utils.validateArg(quantile >= 0 && quantile <= 1, "quantile must be between 0 and 1");
+            final long total = getCount();
+            if (total == 0) {
+                return 0;
+            }
+            final long rank = Math.max(1, (long) Math.ceil(quantile * total));
+            long seen = 0;
+            for (int i = 0; i < NUM_BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    return i == 0 ? 0 : Math.min(getMax(), i == Long.SIZE ? Long.MAX_VALUE : (1L << i) - 1);
+                }
+            }
+            return getMax();
+        }
+
+        @Override
+        String getType() {
+            return "histogram";
+        }
+
+        @Override
+        LinkedHashMap<String, Long> getFields() {
+            final LinkedHashMap<String, Long> fields = new LinkedHashMap<>();
+            fields.put("count", getCount());
+            fields.put("sum", getSum());
+            fields.put("max", getMax());
+            fields.put("p50", getQuantileUpperBound(0.5));
+            fields.put("p90", getQuantileUpperBound(0.9));
+            fields.put("p99", getQuantileUpperBound(0.99));
+            return fields;
+        }
+
+        @Override
+        void reset() {
+            for (int i = 0; i < NUM_BUCKETS; i++) {
+                buckets.set(i, 0);
+            }
+            count.reset();
+            sum.reset();
+            max.reset();
+        }
+    }
+
+    /**
+     * A histogram of durations in nanoseconds.
+     */
+    public static final class Timer extends Histogram {
+        private Timer() { }
+
+        /**
+         * Records the time elapsed since startNanos, a value of {@link System#nanoTime()}.
+         */
+        public void recordSince(final long startNanos) {
+            record(System.nanoTime() - startNanos);
+        }
+
+        @Override
+        String getType() {
+            return "timer";
+        }
+    }
+
+    private static final class Gauge extends Metric {
+        private final LongSupplier value;
+
+        private Gauge(final LongSupplier value) {
+            this.value = value;
+        }
+
+        @Override
+        String getType() {
+            return "gauge";
+        }
+
+        @Override
+        LinkedHashMap<String, Long> getFields() {
+            final LinkedHashMap<String, Long> fields = new LinkedHashMap<>();
+            fields.put("value", value.getAsLong());
+            return fields;
+        }
+
+        @Override
+        void reset() { }
+    }
+}
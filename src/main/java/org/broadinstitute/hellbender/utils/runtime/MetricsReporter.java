@@ -0,0 +1,159 @@
+package org.broadinstitute.hellbender.utils.runtime;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically writes a snapshot of the metrics of a {@link MetricsRegistry} to a file, replacing the previous
+ * snapshot, so that the file always holds the most recent values of all metrics while a tool runs, and their final
+ * values once it is closed.
+ *
+ * Snapshots are written either as JSON:
+ * <pre>
+ *     {"timestamp": 1530000000000, "elapsedMilliseconds": 60000, "metrics": {
+ *       "reads.decoded": {"type": "counter", "count": 1500000},
+ *       ...
+ *     }}
+ * </pre>
+ * or as a TSV table with one line per field of each metric and the columns name, type, field and value.
+ *
+ * The snapshot is written to a temporary file first and then moved over the output, so readers never see a partial
+ * snapshot.
+ */
+public final class MetricsReporter implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(MetricsReporter.class);
+
+    /**
+     * Formats in which snapshots can be written.
+     */
+    public enum Format {
+        JSON,
+        TSV
+    }
+
+    private final MetricsRegistry registry;
+    private final Path output;
+    private final Format format;
+    private final long startTimeMs;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Starts writing snapshots.
+     *
+     * @param registry the metrics to write
+     * @param output file to which snapshots are written
+     * @param format format of the snapshots
+     * @param secondsBetweenUpdates time between snapshots, must be positive
+     */
+    public MetricsReporter(final MetricsRegistry registry, final Path output, final Format format, final double secondsBetweenUpdates) {
+        this.registry = Utils.nonNull(registry);
+        this.output = Utils.nonNull(output);
+        this.format = Utils.nonNull(format);
+        Utils.validateArg(secondsBetweenUpdates > 0, "secondsBetweenUpdates must be positive");
+        startTimeMs = System.currentTimeMillis();
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long periodMs = Math.max(1, (long) (secondsBetweenUpdates * 1000));
+        scheduler.scheduleAtFixedRate(this::writePeriodicSnapshot, periodMs, periodMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the periodic updates and writes a final snapshot.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writeSnapshot();
+    }
+
+    private void writePeriodicSnapshot() {
+        try {
+            writeSnapshot();
+        } catch (final UserException e) {
+            // a failed periodic update must not kill the scheduler; the final snapshot is written (or fails) on close
+            logger.warn("Unable to write metrics: " + e.getMessage());
+        }
+    }
+
+    private synchronized void writeSnapshot() {
+        final String snapshot = formatSnapshot(registry.snapshot(), format, System.currentTimeMillis(), System.currentTimeMillis() - startTimeMs);
+        try {
+            final Path temp = output.resolveSibling(output.getFileName() + ".tmp");
+            Files.write(temp, snapshot.getBytes("UTF-8"));
+            Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING);
+        } catch (final IOException e) {
+            throw new UserException.CouldNotCreateOutputFile(output.toString(), "could not write metrics", e);
+        }
+    }
+
+    /**
+     * Formats a snapshot of a registry.
+     *
+     * @param snapshot the metrics, as returned by {@link MetricsRegistry#snapshot()}
+     * @param format format to use
+     * @param timestampMs time of the snapshot, in milliseconds since the epoch
+     * @param elapsedMs time since metrics started being collected
+     * @return the formatted snapshot
+     */
+    static String formatSnapshot(final SortedMap<String, MetricsRegistry.MetricValue> snapshot, final Format format, final long timestampMs, final long elapsedMs) {
+        final StringWriter text = new StringWriter();
+        try (final PrintWriter out = new PrintWriter(text)) {
+            if (format == Format.JSON) {
+                out.printf("{\"timestamp\": %d, \"elapsedMilliseconds\": %d, \"metrics\": {", timestampMs, elapsedMs);
+                boolean first = true;
+                for (final Map.Entry<String, MetricsRegistry.MetricValue> metric : snapshot.entrySet()) {
+                    out.print(first ? "\n" : ",\n");
+                    first = false;
+                    out.printf("  %s: {\"type\": %s", jsonString(metric.getKey()), jsonString(metric.getValue().getType()));
+                    metric.getValue().getFields().forEach((field, value) -> out.printf(", %s: %d", jsonString(field), value));
+                    out.print("}");
+                }
+                out.print("\n}}\n");
+            } else {
+                out.print("name\ttype\tfield\tvalue\n");
+                for (final Map.Entry<String, MetricsRegistry.MetricValue> metric : snapshot.entrySet()) {
+                    metric.getValue().getFields().forEach((field, value) ->
+                            out.printf("%s\t%s\t%s\t%d\n", metric.getKey(), metric.getValue().getType(), field, value));
+                }
+            }
+        }
+        return text.toString();
+    }
+
+    private static String jsonString(final String value) {
+        final StringBuilder result = new StringBuilder(value.length() + 2).append('"');
+        for (final char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                result.append('\\').append(c);
+            } else if (c < 0x20) {
+                result.append(String.format("\\u%04x", (int) c));
+            } else {
+                result.append(c);
+            }
+        }
+        return result.append('"').toString();
+    }
+}
@@ -10,6 +10,7 @@ import org.broadinstitute.gatk.nativebindings.smithwaterman.SWOverhangStrategy;
 import org.broadinstitute.gatk.nativebindings.smithwaterman.SWParameters;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.read.AlignmentUtils;
+import org.broadinstitute.hellbender.utils.runtime.MetricsRegistry;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -20,6 +21,7 @@ import java.util.List;
 public final class SWNativeAlignerWrapper implements SmithWatermanAligner {
     private final SWAlignerNativeBinding aligner;
     private long totalComputeTime = 0;
+    private static final MetricsRegistry.Timer ALIGN_METRIC = MetricsRegistry.getDefault().timer("smith-waterman.native.align");
 
     public SWNativeAlignerWrapper(final SWAlignerNativeBinding aligner) {
         this.aligner = aligner;
@@ -54,7 +56,9 @@ public final class SWNativeAlignerWrapper implements SmithWatermanAligner {
             alignmentResult =  new SWNativeResultWrapper(alignment);
         }
 
-        totalComputeTime += System.nanoTime() - startTime;
+        final long computeTime = System.nanoTime() - startTime;
+        totalComputeTime += computeTime;
+        ALIGN_METRIC.record(computeTime);
         return alignmentResult;
     }
 
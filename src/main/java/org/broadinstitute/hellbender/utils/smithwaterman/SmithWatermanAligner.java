@@ -3,9 +3,12 @@ package org.broadinstitute.hellbender.utils.smithwaterman;
 import org.broadinstitute.gatk.nativebindings.smithwaterman.SWOverhangStrategy;
 import org.broadinstitute.gatk.nativebindings.smithwaterman.SWParameters;
 import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Supplier;
 
 /**
@@ -28,6 +31,24 @@ public interface SmithWatermanAligner extends Closeable {
      */
     SmithWatermanAlignment align(final byte[] ref, final byte[] alt, SWParameters parameters, SWOverhangStrategy overhangStrategy);
 
+    /**
+     *  perform Smith-Waterman alignments of each of several alts against the same ref
+     *
+     * @param ref bases to align to, values must be the byte equivalent of uppercase chars
+     * @param alts sequences of bases to align against ref, values must be the byte equivalent of uppercase chars
+     * @param parameters a set of weights to use when performing the alignments
+     * @param overhangStrategy how to treat overhangs during alignment
+     * @return the alignments, in the same order as {@code alts}
+     */
+    default List<SmithWatermanAlignment> alignAll(final byte[] ref, final List<byte[]> alts, final SWParameters parameters, final SWOverhangStrategy overhangStrategy) {
+        Utils.nonNull(alts);
+        final List<SmithWatermanAlignment> alignments = new ArrayList<>(alts.size());
+        for (final byte[] alt : alts) {
+            alignments.add(align(ref, alt, parameters, overhangStrategy));
+        }
+        return alignments;
+    }
+
     /**
      * Implementations may optionally implement close in order to release any resources that they are holding.
      *
@@ -6,7 +6,9 @@ import htsjdk.samtools.CigarOperator;
 import org.broadinstitute.gatk.nativebindings.smithwaterman.SWOverhangStrategy;
 import org.broadinstitute.gatk.nativebindings.smithwaterman.SWParameters;
 import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.param.ParamUtils;
 import org.broadinstitute.hellbender.utils.read.AlignmentUtils;
+import org.broadinstitute.hellbender.utils.runtime.MetricsRegistry;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -22,8 +24,22 @@ import java.util.List;
  * ************************************************************************
  */
 public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
-    private static final SmithWatermanJavaAligner ALIGNER = new SmithWatermanJavaAligner();
+    private static final int NO_BAND = -1;
+
+    private static final SmithWatermanJavaAligner ALIGNER = new SmithWatermanJavaAligner(NO_BAND);
     private long totalComputeTime = 0;
+    private static final MetricsRegistry.Timer ALIGN_METRIC = MetricsRegistry.getDefault().timer("smith-waterman.java.align");
+    private static final MetricsRegistry.Counter BAND_FALLBACK_METRIC = MetricsRegistry.getDefault().counter("smith-waterman.java.band-fallbacks");
+
+    private static final int MATRIX_MIN_CUTOFF = (int) -1.0e8;   // never let matrix elements drop below this cutoff
+    private static final int LOW_INIT_VALUE = Integer.MIN_VALUE / 2;    // below any score that can be computed, used for cells outside the band
+
+    // workspaces up to this number of matrix cells are kept per thread for reuse; larger alignments allocate their own
+    private static final int MAXIMUM_RETAINED_WORKSPACE_CELLS = 1 << 22;
+    private static final ThreadLocal<Workspace> WORKSPACE = ThreadLocal.withInitial(Workspace::new);
+
+    // maximum distance from the diagonals spanned by the ends of the sequences that an alignment may reach, or NO_BAND
+    private final int maximumEditDistance;
 
     /**
      * return the stateless singleton instance of SmithWatermanJavaAligner
@@ -32,6 +48,19 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
         return ALIGNER;
     }
 
+    /**
+     * Return an aligner that only fills the cells of the Smith-Waterman matrix within {@code maximumEditDistance} diagonals
+     * of the diagonals connecting the corners of the matrix, which is much faster when the sequences are long and similar.
+     * Alignments are identical to those of {@link #getInstance} as long as the best alignment lies within the band; whenever
+     * the banded alignment reaches the edge of the band, the sequences are realigned with the full matrix.
+     *
+     * @param maximumEditDistance expected maximum number of indel bases between the sequences, must be non-negative
+     */
+    public static SmithWatermanJavaAligner getBandedInstance(final int maximumEditDistance) {
+        ParamUtils.isPositiveOrZero(maximumEditDistance, "Maximum edit distance must be non-negative.");
+        return new SmithWatermanJavaAligner(maximumEditDistance);
+    }
+
     /**
      * The state of a trace step through the matrix
      */
@@ -42,11 +71,42 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
         CLIP
     }
 
+    /**
+     * Reusable Smith-Waterman and back track matrices, stored row-major in flat arrays of {@code nrow * ncol} elements,
+     * along with the gap bookkeeping arrays.  Only the cells visited by an alignment are (re)initialized.
+     */
+    private static final class Workspace {
+        private int[] sw = new int[0];
+        private int[] btrack = new int[0];
+        private int[] bestGapV = new int[0];
+        private int[] gapSizeV = new int[0];
+        private int[] bestGapH = new int[0];
+        private int[] gapSizeH = new int[0];
+
+        private void ensureCapacity(final int nrow, final int ncol) {
+            final int numCells = nrow * ncol;
+            if (sw.length < numCells) {
+                sw = new int[numCells];
+                btrack = new int[numCells];
+            }
+            if (bestGapV.length < ncol + 1) {
+                bestGapV = new int[ncol + 1];
+                gapSizeV = new int[ncol + 1];
+            }
+            if (bestGapH.length < nrow + 1) {
+                bestGapH = new int[nrow + 1];
+                gapSizeH = new int[nrow + 1];
+            }
+        }
+    }
+
     /**
      * Create a new SW pairwise aligner, this has no state so instead of creating new instances, we create a singleton which is
-     * accessible via {@link #getInstance}
+     * accessible via {@link #getInstance}; banded aligners are created via {@link #getBandedInstance}
      */
-    private SmithWatermanJavaAligner(){}
+    private SmithWatermanJavaAligner(final int maximumEditDistance) {
+        this.maximumEditDistance = maximumEditDistance;
+    }
 
     /**
      * Aligns the alternate sequence to the reference sequence
@@ -84,65 +144,92 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
             // run full Smith-Waterman
             final int n = reference.length+1;
             final int m = alternate.length+1;
-            final int[][] sw = new int[n][m];
-            final int[][] btrack=new int[n][m];
-
-            calculateMatrix(reference, alternate, sw, btrack, overhangStrategy, parameters);
-            alignmentResult = calculateCigar(sw, btrack, overhangStrategy); // length of the segment (continuous matches, insertions or deletions)
+            Utils.validateArg((long) n * m <= Integer.MAX_VALUE - 8, "Sequences are too long for the Smith-Waterman calculation");
+            final Workspace workspace = (long) n * m <= MAXIMUM_RETAINED_WORKSPACE_CELLS ? WORKSPACE.get() : new Workspace();
+            workspace.ensureCapacity(n, m);
+
+            SWPairwiseAlignmentResult bandedResult = null;
+            if (maximumEditDistance != NO_BAND) {
+                // diagonals are indexed by j - i; the band spans the diagonals of both the top-left and the bottom-right corners
+                final int bandLow = Math.min(0, alternate.length - reference.length) - maximumEditDistance;
+                final int bandHigh = Math.max(0, alternate.length - reference.length) + maximumEditDistance;
+                calculateMatrix(reference, alternate, workspace, n, m, bandLow, bandHigh, overhangStrategy, parameters);
+                bandedResult = calculateCigar(workspace, n, m, bandLow, bandHigh, overhangStrategy);
+                if (bandedResult == null) {
+                    BAND_FALLBACK_METRIC.increment();
+                }
+            }
+            if (bandedResult != null) {
+                alignmentResult = bandedResult;
+            } else {
+                calculateMatrix(reference, alternate, workspace, n, m, -n, m, overhangStrategy, parameters);
+                alignmentResult = calculateCigar(workspace, n, m, -n, m, overhangStrategy); // length of the segment (continuous matches, insertions or deletions)
+            }
         }
 
-        totalComputeTime += System.nanoTime() - startTime;
+        final long computeTime = System.nanoTime() - startTime;
+        totalComputeTime += computeTime;
+        ALIGN_METRIC.record(computeTime);
         return alignmentResult;
     }
 
     /**
-     * Calculates the SW matrices for the given sequences
+     * Calculates the SW matrices for the given sequences, restricted to the cells on the diagonals {@code j - i} in
+     * [{@code bandLow}, {@code bandHigh}]; the remaining cells that may be read are set to a score below any computed one.
      * @param reference  ref sequence
      * @param alternate  alt sequence
-     * @param sw         the Smith-Waterman matrix to populate
-     * @param btrack     the back track matrix to populate
+     * @param workspace  the workspace holding the Smith-Waterman and back track matrices to populate
+     * @param nrow       number of rows of the matrices, reference.length+1
+     * @param ncol       number of columns of the matrices, alternate.length+1
+     * @param bandLow    lowest diagonal to compute
+     * @param bandHigh   highest diagonal to compute
      * @param overhangStrategy    the strategy to use for dealing with overhangs
      * @param parameters the set of weights to use to configure the alignment
      */
-    private static void calculateMatrix(final byte[] reference, final byte[] alternate, final int[][] sw, final int[][] btrack,
+    private static void calculateMatrix(final byte[] reference, final byte[] alternate, final Workspace workspace,
+                                        final int nrow, final int ncol, final int bandLow, final int bandHigh,
                                         final SWOverhangStrategy overhangStrategy, final SWParameters parameters) {
         if ( reference.length == 0 || alternate.length == 0 ) {
             throw new IllegalArgumentException("Non-null, non-empty sequences are required for the Smith-Waterman calculation");
         }
 
-        final int ncol = sw[0].length;//alternate.length+1; formerly m
-        final int nrow = sw.length;// reference.length+1; formerly n
+        final int[] sw = workspace.sw;
+        final int[] btrack = workspace.btrack;
 
-        final int MATRIX_MIN_CUTOFF = (int) -1.0e8;   // never let matrix elements drop below this cutoff
-
-        final int lowInitValue= Integer.MIN_VALUE/2;
-        final int[] best_gap_v = new int[ncol+1];
-        Arrays.fill(best_gap_v, lowInitValue);
-        final int[] gap_size_v = new int[ncol+1];
-        final int[] best_gap_h = new int[nrow+1];
-        Arrays.fill(best_gap_h, lowInitValue);
-        final int[] gap_size_h = new int[nrow+1];
+        final int[] best_gap_v = workspace.bestGapV;
+        Arrays.fill(best_gap_v, 0, ncol+1, LOW_INIT_VALUE);
+        final int[] gap_size_v = workspace.gapSizeV;
+        Arrays.fill(gap_size_v, 0, ncol+1, 0);
+        final int[] best_gap_h = workspace.bestGapH;
+        Arrays.fill(best_gap_h, 0, nrow+1, LOW_INIT_VALUE);
+        final int[] gap_size_h = workspace.gapSizeH;
+        Arrays.fill(gap_size_h, 0, nrow+1, 0);
 
         // we need to initialize the SW matrix with gap penalties if we want to keep track of indels at the edges of alignments
         if ( overhangStrategy == SWOverhangStrategy.INDEL || overhangStrategy == SWOverhangStrategy.LEADING_INDEL ) {
             // initialize the first row
-            final int[] topRow=sw[0];
-            topRow[1]= parameters.getGapOpenPenalty();
+            sw[0] = 0;
+            sw[1]= parameters.getGapOpenPenalty();
             int currentValue = parameters.getGapOpenPenalty();
-            for ( int i = 2; i < topRow.length; i++ ) {
+            for ( int j = 2; j < ncol; j++ ) {
                 currentValue += parameters.getGapExtendPenalty();
-                topRow[i]=currentValue;
+                sw[j]=currentValue;
             }
             // initialize the first column
-            sw[1][0]= parameters.getGapOpenPenalty();
+            sw[ncol]= parameters.getGapOpenPenalty();
             currentValue = parameters.getGapOpenPenalty();
-            for ( int i = 2; i < sw.length; i++ ) {
+            for ( int i = 2; i < nrow; i++ ) {
                 currentValue += parameters.getGapExtendPenalty();
-                sw[i][0]=currentValue;
+                sw[i*ncol]=currentValue;
+            }
+        } else {
+            Arrays.fill(sw, 0, ncol, 0);
+            for ( int i = 1; i < nrow; i++ ) {
+                sw[i*ncol] = 0;
             }
         }
         // build smith-waterman matrix and keep backtrack info:
-        int[] curRow=sw[0];
+        int curRow = 0;
 
         //access is pricey if done enough times so we extract those out
         final int w_open = parameters.getGapOpenPenalty();
@@ -150,18 +237,23 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
         final int w_match = parameters.getMatchValue();
         final int w_mismatch = parameters.getMismatchPenalty();
 
-        //array length checks are expensive in tight loops so extract the length out
-        for ( int i = 1, sw_length = sw.length; i < sw_length ; i++ ) {
+        int jStart = 1;
+        int jEnd = ncol - 1;
+        for ( int i = 1; i < nrow ; i++ ) {
             final byte a_base = reference[i-1]; // letter in a at the current pos
-            final int[] lastRow=curRow;
-            curRow=sw[i];
-            final int[] curBackTrackRow=btrack[i];
+            final int lastRow=curRow;
+            curRow += ncol;
+
+            jStart = Math.max(1, i + bandLow);
+            jEnd = Math.min(ncol - 1, i + bandHigh);
+            if ( jStart > 1 ) {
+                sw[curRow + jStart - 1] = LOW_INIT_VALUE;
+            }
 
-            //array length checks are expensive in tight loops so extract the length out
-            for ( int j = 1, curRow_length = curRow.length; j < curRow_length; j++) {
+            for ( int j = jStart; j <= jEnd; j++) {
                 final byte b_base = alternate[j-1]; // letter in b at the current pos
                 // in other words, step_diag = sw[i-1][j-1] + wd(a_base,b_base);
-                final int step_diag = lastRow[j-1] + (a_base == b_base ? w_match : w_mismatch);
+                final int step_diag = sw[lastRow + j-1] + (a_base == b_base ? w_match : w_mismatch);
 
                 // optimized "traversal" of all the matrix cells above the current one (i.e. traversing
                 // all 'step down' events that would end in the current cell. The optimized code
@@ -169,7 +261,7 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
                 // the optimization works ONLY for linear w(k)=wopen+(k-1)*wextend!!!!
 
                 // if a gap (length 1) was just opened above, this is the cost of arriving to the current cell:
-                int prev_gap = lastRow[j] + w_open;
+                int prev_gap = sw[lastRow + j] + w_open;
                 best_gap_v[j] += w_extend; // for the gaps that were already opened earlier, extending them by 1 costs w_extend
                 if (  prev_gap > best_gap_v[j]  ) {
                     // opening a gap just before the current cell results in better score than extending by one
@@ -191,7 +283,7 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
                 // does exactly the same thing as the commented out loop below. IMPORTANT:
                 // the optimization works ONLY for linear w(k)=wopen+(k-1)*wextend!!!!
 
-                prev_gap =curRow[j-1]  + w_open; // what would it cost us to open length 1 gap just to the left from current cell
+                prev_gap = sw[curRow + j-1]  + w_open; // what would it cost us to open length 1 gap just to the left from current cell
                 best_gap_h[i] += w_extend; // previous best gap would cost us that much if extended by another base
                 if ( prev_gap > best_gap_h[i] ) {
                     // newly opened gap is better (score-wise) than any previous gap with the same row index i; since
@@ -210,19 +302,29 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
                                                 && (step_diag >= step_right);
 
                 if ( diagHighestOrEqual ) {
-                    curRow[j]= Math.max(MATRIX_MIN_CUTOFF, step_diag);
-                    curBackTrackRow[j]=0;
+                    sw[curRow + j]= Math.max(MATRIX_MIN_CUTOFF, step_diag);
+                    btrack[curRow + j]=0;
                 }
                 else if(step_right>=step_down) { //moving right is the highest
-                    curRow[j]= Math.max(MATRIX_MIN_CUTOFF, step_right);
-                    curBackTrackRow[j]=-ki; // negative = horizontal
+                    sw[curRow + j]= Math.max(MATRIX_MIN_CUTOFF, step_right);
+                    btrack[curRow + j]=-ki; // negative = horizontal
                 }
                 else  {
-                    curRow[j]= Math.max(MATRIX_MIN_CUTOFF, step_down);
-                    curBackTrackRow[j]= kd; // positive=vertical
+                    sw[curRow + j]= Math.max(MATRIX_MIN_CUTOFF, step_down);
+                    btrack[curRow + j]= kd; // positive=vertical
                 }
             }
+
+            // the cell just past the band is read by the next row, and the rightmost column is searched by the traceback
+            if ( jEnd < ncol - 1 ) {
+                sw[curRow + jEnd + 1] = LOW_INIT_VALUE;
+                sw[curRow + ncol - 1] = LOW_INIT_VALUE;
+            }
         }
+
+        // the bottom-most row is searched by the traceback
+        Arrays.fill(sw, curRow + 1, curRow + jStart, LOW_INIT_VALUE);
+        Arrays.fill(sw, curRow + jEnd + 1, curRow + ncol, LOW_INIT_VALUE);
     }
 
     /*
@@ -251,17 +353,26 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
     /**
      * Calculates the CIGAR for the alignment from the back track matrix
      *
-     * @param sw                   the Smith-Waterman matrix to use
-     * @param btrack               the back track matrix to use
+     * @param workspace            the workspace holding the Smith-Waterman and back track matrices to use
+     * @param nrow                 number of rows of the matrices
+     * @param ncol                 number of columns of the matrices
+     * @param bandLow              lowest diagonal that was computed
+     * @param bandHigh             highest diagonal that was computed
      * @param overhangStrategy    the strategy to use for dealing with overhangs
-     * @return non-null SWPairwiseAlignmentResult object
+     * @return SWPairwiseAlignmentResult object, or null if the alignment reaches the edge of a band that excludes part of the matrix
      */
-    private static SWPairwiseAlignmentResult calculateCigar(final int[][] sw, final int[][] btrack, final SWOverhangStrategy overhangStrategy) {
+    private static SWPairwiseAlignmentResult calculateCigar(final Workspace workspace, final int nrow, final int ncol,
+                                                            final int bandLow, final int bandHigh, final SWOverhangStrategy overhangStrategy) {
+        final int[] sw = workspace.sw;
+        final int[] btrack = workspace.btrack;
+
         // p holds the position we start backtracking from; we will be assembling a cigar in the backwards order
         int p1 = 0, p2 = 0;
 
-        final int refLength = sw.length-1;
-        final int altLength = sw[0].length-1;
+        final int refLength = nrow-1;
+        final int altLength = ncol-1;
+        final boolean lowEdgeIsBand = bandLow > -refLength;
+        final boolean highEdgeIsBand = bandHigh < altLength;
 
         int maxscore = Integer.MIN_VALUE; // sw scores are allowed to be negative
         int segment_length = 0; // length of the segment (continuous matches, insertions or deletions)
@@ -277,8 +388,8 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
             //excluding high scoring local alignments
             p2=altLength;
 
-            for(int i=1;i<sw.length;i++)  {
-               final int curScore = sw[i][altLength];
+            for(int i=1;i<nrow;i++)  {
+               final int curScore = sw[i*ncol + altLength];
                if (curScore >= maxscore ) {
                     p1 = i;
                     maxscore = curScore;
@@ -286,9 +397,9 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
             }
             // now look for a larger score on the bottom-most row
             if ( overhangStrategy != SWOverhangStrategy.LEADING_INDEL ) {
-                final int[] bottomRow=sw[refLength];
-                for ( int j = 1 ; j < bottomRow.length; j++) {
-                    final int curScore=bottomRow[j];
+                final int bottomRow=refLength*ncol;
+                for ( int j = 1 ; j < ncol; j++) {
+                    final int curScore=sw[bottomRow + j];
                     // data_offset is the offset of [n][j]
                     if ( curScore > maxscore ||
                             (curScore == maxscore && Math.abs(refLength - j) < Math.abs(p1 - p2) ) ) {
@@ -311,7 +422,10 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
 
         State state = State.MATCH;
         do {
-            final int btr = btrack[p1][p2];
+            if ( (lowEdgeIsBand && p2 - p1 == bandLow) || (highEdgeIsBand && p2 - p1 == bandHigh) ) {
+                return null;
+            }
+            final int btr = btrack[p1*ncol + p2];
             final State new_state;
             int step_length = 1;
             if ( btr > 0 ) {
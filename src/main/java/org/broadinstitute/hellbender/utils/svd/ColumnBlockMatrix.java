@@ -0,0 +1,81 @@
+package org.broadinstitute.hellbender.utils.svd;
+
+import org.apache.commons.math3.linear.RealMatrix;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.param.ParamUtils;
+
+import java.util.function.IntFunction;
+
+/**
+ * A matrix that is only accessed by streaming over blocks of consecutive columns, so that it never needs to be held
+ * in memory as a whole. Each pass over the matrix may load its columns again, e.g. from the files of the samples
+ * whose data make up the columns.
+ */
+public interface ColumnBlockMatrix {
+
+    @FunctionalInterface
+    interface ColumnBlockConsumer {
+        /**
+         * @param firstColumnIndex  index of the first column of the block
+         * @param columns           the columns of the block; {@code columns[j]} is column {@code firstColumnIndex + j},
+         *                          and should not be modified or kept after the call returns
+         */
+        void accept(final int firstColumnIndex, final double[][] columns);
+    }
+
+    int getRowDimension();
+
+    int getColumnDimension();
+
+    /**
+     * Calls the consumer on consecutive blocks of columns, in order, until all columns have been visited.
+     */
+    void forEachColumnBlock(final ColumnBlockConsumer consumer);
+
+    /**
+     * @return a view of an in-memory matrix
+     */
+    static ColumnBlockMatrix of(final RealMatrix matrix, final int blockSize) {
+        Utils.nonNull(matrix);
+        return fromColumns(matrix.getRowDimension(), matrix.getColumnDimension(), matrix::getColumn, blockSize);
+    }
+
+    /**
+     * @param numRows       number of rows of the matrix
+     * @param numColumns    number of columns of the matrix
+     * @param columnLoader  returns column j of the matrix, which must have {@code numRows} elements;
+     *                      it is called once per column on each pass over the matrix
+     * @param blockSize     maximum number of columns held in memory at once
+     */
+    static ColumnBlockMatrix fromColumns(final int numRows, final int numColumns, final IntFunction<double[]> columnLoader,
+                                         final int blockSize) {
+        ParamUtils.isPositive(numRows, "Number of rows must be positive.");
+        ParamUtils.isPositive(numColumns, "Number of columns must be positive.");
+        Utils.nonNull(columnLoader);
+        ParamUtils.isPositive(blockSize, "Block size must be positive.");
+        return new ColumnBlockMatrix() {
+            @Override
+            public int getRowDimension() {
+                return numRows;
+            }
+
+            @Override
+            public int getColumnDimension() {
+                return numColumns;
+            }
+
+            @Override
+            public void forEachColumnBlock(final ColumnBlockConsumer consumer) {
+                for (int first = 0; first < numColumns; first += blockSize) {
+                    final double[][] columns = new double[Math.min(blockSize, numColumns - first)][];
+                    for (int j = 0; j < columns.length; j++) {
+                        columns[j] = columnLoader.apply(first + j);
+                        Utils.validate(columns[j].length == numRows,
+                                () -> String.format("Columns must have %d elements.", numRows));
+                    }
+                    consumer.accept(first, columns);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,160 @@
+package org.broadinstitute.hellbender.utils.svd;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.SingularValueDecomposition;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.param.ParamUtils;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Left singular vectors and singular values of a matrix that can be updated when columns are appended to the matrix,
+ * without access to the columns already decomposed (Brand, Linear Algebra and its Applications 415:20, 2006).
+ *
+ * <p>
+ *     Given the decomposition U S of a matrix A and new columns C, the part of C outside the span of U is orthonormalized
+ *     to Q with coefficients R, and the small matrix [[S, U<sup>T</sup> C], [0, R]] is decomposed exactly as U' S' V'<sup>T</sup>.
+ *     The updated left singular vectors are [U Q] U' and the updated singular values are S'.  The right singular
+ *     vectors are not tracked.  The update is exact if U spans the columns of A (i.e., if no singular values were
+ *     truncated); otherwise, the truncated part of A is not represented and the result is an approximation.
+ * </p>
+ */
+public final class IncrementalSVD {
+    // residuals with norms below this fraction of the norm of the new column are linearly dependent on the basis
+    private static final double ORTHOGONALIZATION_TOLERANCE = 1E-12;
+
+    private final RealMatrix u;
+    private final double[] singularValues;
+
+    /**
+     * @param u                 matrix with orthonormal columns (the left singular vectors), with dimensions {@code M x K}
+     * @param singularValues    the {@code K} singular values, in decreasing order
+     */
+    public IncrementalSVD(final RealMatrix u, final double[] singularValues) {
+        Utils.nonNull(u);
+        Utils.nonNull(singularValues);
+        Utils.validateArg(u.getColumnDimension() == singularValues.length,
+                "Number of left singular vectors must match the number of singular values.");
+        this.u = u;
+        this.singularValues = singularValues;
+    }
+
+    /**
+     * @return the left singular vectors, with dimensions {@code M x K}
+     */
+    public RealMatrix getU() {
+        return u;
+    }
+
+    /**
+     * @return the singular values, in decreasing order
+     */
+    public double[] getSingularValues() {
+        return singularValues;
+    }
+
+    /**
+     * Returns the decomposition of the matrix with {@code newColumns} appended, truncated to at most {@code maximumRank}
+     * singular values.  This instance is not modified.
+     *
+     * @param newColumns    matrix with dimensions {@code M x B} containing the columns to append
+     * @param maximumRank   maximum number of singular values to retain
+     */
+    public IncrementalSVD update(final RealMatrix newColumns,
+                                 final int maximumRank) {
+        Utils.nonNull(newColumns);
+        ParamUtils.isPositive(maximumRank, "Maximum rank must be positive.");
+        final int numRows = u.getRowDimension();
+        Utils.validateArg(newColumns.getRowDimension() == numRows,
+                "New columns must have the same number of rows as the left singular vectors.");
+        final int rank = singularValues.length;
+        final int numNewColumns = newColumns.getColumnDimension();
+
+        //vectors are stored as arrays of length numRows
+        final double[][] basis = u.transpose().getData();
+        final double[][] residuals = newColumns.transpose().getData();
+        final double[] newColumnNorms = Arrays.stream(residuals).mapToDouble(c -> Math.sqrt(dot(c, c))).toArray();
+
+        //project out the current basis (twice, to make up for the loss of orthogonality in a single pass)
+        final double[][] projections = new double[numNewColumns][rank];
+        IntStream.range(0, numNewColumns).parallel().forEach(j -> {
+            for (int pass = 0; pass < 2; pass++) {
+                for (int k = 0; k < rank; k++) {
+                    final double projection = dot(basis[k], residuals[j]);
+                    projections[j][k] += projection;
+                    subtract(residuals[j], projection, basis[k]);
+                }
+            }
+        });
+
+        //orthonormalize the residuals by modified Gram-Schmidt; residuals dependent on the others are set to zero
+        final double[][] r = new double[numNewColumns][numNewColumns];
+        for (int j = 0; j < numNewColumns; j++) {
+            for (int pass = 0; pass < 2; pass++) {
+                for (int i = 0; i < j; i++) {
+                    final double projection = dot(residuals[i], residuals[j]);
+                    r[i][j] += projection;
+                    subtract(residuals[j], projection, residuals[i]);
+                }
+            }
+            final double norm = Math.sqrt(dot(residuals[j], residuals[j]));
+            if (norm == 0. || norm <= ORTHOGONALIZATION_TOLERANCE * newColumnNorms[j]) {
+                Arrays.fill(residuals[j], 0.);
+            } else {
+                r[j][j] = norm;
+                for (int i = 0; i < numRows; i++) {
+                    residuals[j][i] /= norm;
+                }
+            }
+        }
+
+        //decompose the small matrix [[S, U^T C], [0, R]]
+        final int dimension = rank + numNewColumns;
+        final double[][] k = new double[dimension][dimension];
+        for (int i = 0; i < rank; i++) {
+            k[i][i] = singularValues[i];
+            for (int j = 0; j < numNewColumns; j++) {
+                k[i][rank + j] = projections[j][i];
+            }
+        }
+        for (int i = 0; i < numNewColumns; i++) {
+            System.arraycopy(r[i], 0, k[rank + i], rank, numNewColumns);
+        }
+        final SingularValueDecomposition svd = new SingularValueDecomposition(new Array2DRowRealMatrix(k, false));
+        final int newRank = Math.min(maximumRank, dimension);
+        final double[] newSingularValues = Arrays.copyOf(svd.getSingularValues(), newRank);
+        final RealMatrix rotation = svd.getU();
+
+        //rotate the extended basis [U Q]
+        final double[][] newU = new double[numRows][newRank];
+        IntStream.range(0, numRows).parallel().forEach(i -> {
+            for (int c = 0; c < newRank; c++) {
+                double sum = 0.;
+                for (int b = 0; b < rank; b++) {
+                    sum += basis[b][i] * rotation.getEntry(b, c);
+                }
+                for (int b = 0; b < numNewColumns; b++) {
+                    sum += residuals[b][i] * rotation.getEntry(rank + b, c);
+                }
+                newU[i][c] = sum;
+            }
+        });
+        return new IncrementalSVD(new Array2DRowRealMatrix(newU, false), newSingularValues);
+    }
+
+    private static double dot(final double[] x, final double[] y) {
+        double sum = 0.;
+        for (int i = 0; i < x.length; i++) {
+            sum += x[i] * y[i];
+        }
+        return sum;
+    }
+
+    private static void subtract(final double[] x, final double scale, final double[] y) {
+        for (int i = 0; i < x.length; i++) {
+            x[i] -= scale * y[i];
+        }
+    }
+}
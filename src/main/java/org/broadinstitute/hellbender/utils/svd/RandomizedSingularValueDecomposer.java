@@ -0,0 +1,255 @@
+package org.broadinstitute.hellbender.utils.svd;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.SingularValueDecomposition;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.random.Well19937c;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.param.ParamUtils;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Truncated SVD by randomized range finding (Halko, Martinsson and Tropp, SIAM Review 53:217, 2011).
+ *
+ * <p>
+ *     Only the requested number of singular values and vectors are computed. The matrix is projected onto a random
+ *     subspace of slightly larger dimension, the projection is refined by a few power iterations, and the SVD of the
+ *     small projected matrix is computed exactly. The matrix is only accessed through products with it and its
+ *     transpose, each of which is a single pass over its columns, so that it can be given as a {@link ColumnBlockMatrix}
+ *     streamed from disk: memory use is then proportional to the number of rows plus the number of columns,
+ *     times the number of singular values, rather than to the size of the matrix.
+ * </p>
+ * <p>
+ *     Results are deterministic for a given random seed. The singular vectors are only defined up to sign.
+ * </p>
+ */
+public final class RandomizedSingularValueDecomposer implements SingularValueDecomposer {
+    private static final Logger logger = LogManager.getLogger(RandomizedSingularValueDecomposer.class);
+
+    public static final int DEFAULT_OVERSAMPLING = 10;
+    public static final int DEFAULT_NUMBER_OF_POWER_ITERATIONS = 2;
+    public static final int DEFAULT_BLOCK_SIZE = 64;
+    public static final long DEFAULT_RANDOM_SEED = 1729;
+
+    // vectors with norms below this fraction of their norm before orthogonalization are linearly dependent on the others
+    private static final double ORTHOGONALIZATION_TOLERANCE = 1E-12;
+
+    private final int numSingularValues;
+    private final int oversampling;
+    private final int numPowerIterations;
+    private final long randomSeed;
+
+    /**
+     * @param numSingularValues number of singular values and vectors to compute
+     */
+    public RandomizedSingularValueDecomposer(final int numSingularValues) {
+        this(numSingularValues, DEFAULT_OVERSAMPLING, DEFAULT_NUMBER_OF_POWER_ITERATIONS, DEFAULT_RANDOM_SEED);
+    }
+
+    /**
+     * @param numSingularValues     number of singular values and vectors to compute
+     * @param oversampling          number of dimensions of the random subspace beyond the number of singular values
+     * @param numPowerIterations    number of power iterations, which improve accuracy when the singular values decay slowly,
+     *                              at the cost of two passes over the matrix each
+     * @param randomSeed            seed for the random subspace
+     */
+    public RandomizedSingularValueDecomposer(final int numSingularValues,
+                                             final int oversampling,
+                                             final int numPowerIterations,
+                                             final long randomSeed) {
+        this.numSingularValues = ParamUtils.isPositive(numSingularValues, "Number of singular values must be positive.");
+        this.oversampling = ParamUtils.isPositiveOrZero(oversampling, "Oversampling must be non-negative.");
+        this.numPowerIterations = ParamUtils.isPositiveOrZero(numPowerIterations, "Number of power iterations must be non-negative.");
+        this.randomSeed = randomSeed;
+    }
+
+    /**
+     * Create a truncated SVD of an in-memory matrix.
+     *
+     * @param m matrix that is not {@code null}
+     * @return SVD instance that is never {@code null}
+     */
+    @Override
+    public SVD createSVD(final RealMatrix m) {
+        Utils.nonNull(m, "Cannot create SVD on a null matrix.");
+        return createSVD(ColumnBlockMatrix.of(m, DEFAULT_BLOCK_SIZE));
+    }
+
+    /**
+     * Create a truncated SVD of a matrix that is streamed by blocks of columns.
+     * The number of singular values returned is the minimum of that requested and the dimensions of the matrix.
+     * The pseudoinverse is only computed if requested.
+     *
+     * @param m matrix that is not {@code null}
+     * @return SVD instance that is never {@code null}
+     */
+    public SVD createSVD(final ColumnBlockMatrix m) {
+        Utils.nonNull(m, "Cannot create SVD on a null matrix.");
+        final int numRows = m.getRowDimension();
+        final int numColumns = m.getColumnDimension();
+        final int rank = Math.min(numSingularValues, Math.min(numRows, numColumns));
+        final int subspaceDimension = Math.min(rank + oversampling, Math.min(numRows, numColumns));
+
+        //matrices with subspaceDimension columns are stored transposed, as arrays of their columns
+        logger.info(String.format("Computing randomized SVD (truncated at %d singular values) of %d x %d matrix...", rank, numRows, numColumns));
+        final RandomGenerator rng = new Well19937c(randomSeed);
+        final double[][] randomProjection = new double[subspaceDimension][numColumns];
+        for (final double[] column : randomProjection) {
+            for (int j = 0; j < numColumns; j++) {
+                column[j] = rng.nextGaussian();
+            }
+        }
+        double[][] rangeBasis = orthonormalize(multiply(m, randomProjection));
+        for (int iteration = 0; iteration < numPowerIterations; iteration++) {
+            logger.info(String.format("Power iteration %d of %d...", iteration + 1, numPowerIterations));
+            rangeBasis = orthonormalize(multiply(m, orthonormalize(multiplyTransposed(m, rangeBasis))));
+        }
+
+        //the matrix projected onto the basis of its approximate range, which has subspaceDimension rows
+        final double[][] basis = rangeBasis;
+        final double[][] projected = multiplyTransposed(m, basis);
+        final SingularValueDecomposition projectedSVD = new SingularValueDecomposition(new Array2DRowRealMatrix(projected, false));
+        final double[] singularValues = Arrays.copyOf(projectedSVD.getSingularValues(), rank);
+        final RealMatrix projectedU = projectedSVD.getU();
+
+        //U is the basis times the left singular vectors of the projected matrix
+        final double[][] u = new double[numRows][rank];
+        IntStream.range(0, numRows).parallel().forEach(i -> {
+            for (int r = 0; r < rank; r++) {
+                double sum = 0.;
+                for (int c = 0; c < subspaceDimension; c++) {
+                    sum += basis[c][i] * projectedU.getEntry(c, r);
+                }
+                u[i][r] = sum;
+            }
+        });
+        final RealMatrix v = projectedSVD.getV().getSubMatrix(0, numColumns - 1, 0, rank - 1);
+        return new TruncatedSVD(new Array2DRowRealMatrix(u, false), singularValues, v);
+    }
+
+    /**
+     * @param coefficients  transposed matrix with as many columns as the matrix m, stored as an array of its rows
+     * @return the product of m and the transpose of coefficients, stored as an array of its columns
+     */
+    private static double[][] multiply(final ColumnBlockMatrix m, final double[][] coefficients) {
+        final double[][] result = new double[coefficients.length][m.getRowDimension()];
+        m.forEachColumnBlock((firstColumnIndex, columns) ->
+                IntStream.range(0, result.length).parallel().forEach(c -> {
+                    final double[] resultColumn = result[c];
+                    for (int j = 0; j < columns.length; j++) {
+                        final double coefficient = coefficients[c][firstColumnIndex + j];
+                        final double[] column = columns[j];
+                        for (int i = 0; i < column.length; i++) {
+                            resultColumn[i] += coefficient * column[i];
+                        }
+                    }
+                }));
+        return result;
+    }
+
+    /**
+     * @param vectors   vectors with as many elements as the matrix m has rows
+     * @return the product of the transpose of m and the matrix whose columns are vectors, stored as an array of its columns
+     */
+    private static double[][] multiplyTransposed(final ColumnBlockMatrix m, final double[][] vectors) {
+        final double[][] result = new double[vectors.length][m.getColumnDimension()];
+        m.forEachColumnBlock((firstColumnIndex, columns) ->
+                IntStream.range(0, columns.length).parallel().forEach(j -> {
+                    for (int c = 0; c < vectors.length; c++) {
+                        result[c][firstColumnIndex + j] = dot(vectors[c], columns[j]);
+                    }
+                }));
+        return result;
+    }
+
+    /**
+     * Orthonormalizes the vectors in place by modified Gram-Schmidt, repeated once to make up for the loss of orthogonality
+     * in a single pass. Vectors that are linearly dependent on the previous ones are set to zero.
+     */
+    private static double[][] orthonormalize(final double[][] vectors) {
+        for (int c = 0; c < vectors.length; c++) {
+            final double[] vector = vectors[c];
+            final double originalNorm = Math.sqrt(dot(vector, vector));
+            for (int pass = 0; pass < 2; pass++) {
+                for (int previous = 0; previous < c; previous++) {
+                    final double projection = dot(vectors[previous], vector);
+                    final double[] previousVector = vectors[previous];
+                    for (int i = 0; i < vector.length; i++) {
+                        vector[i] -= projection * previousVector[i];
+                    }
+                }
+            }
+            final double norm = Math.sqrt(dot(vector, vector));
+            if (norm <= ORTHOGONALIZATION_TOLERANCE * originalNorm || norm == 0.) {
+                Arrays.fill(vector, 0.);
+            } else {
+                for (int i = 0; i < vector.length; i++) {
+                    vector[i] /= norm;
+                }
+            }
+        }
+        return vectors;
+    }
+
+    private static double dot(final double[] x, final double[] y) {
+        double sum = 0.;
+        for (int i = 0; i < x.length; i++) {
+            sum += x[i] * y[i];
+        }
+        return sum;
+    }
+
+    /**
+     * The pseudoinverse has the dimensions of the transposed matrix, so it is only computed if requested.
+     */
+    private static final class TruncatedSVD implements SVD {
+        private final RealMatrix u;
+        private final double[] singularValues;
+        private final RealMatrix v;
+        private RealMatrix pinv;
+
+        private TruncatedSVD(final RealMatrix u, final double[] singularValues, final RealMatrix v) {
+            this.u = u;
+            this.singularValues = singularValues;
+            this.v = v;
+        }
+
+        @Override
+        public RealMatrix getV() {
+            return v;
+        }
+
+        @Override
+        public RealMatrix getU() {
+            return u;
+        }
+
+        @Override
+        public double[] getSingularValues() {
+            return singularValues;
+        }
+
+        @Override
+        public synchronized RealMatrix getPinv() {
+            if (pinv == null) {
+                //singular values below the tolerance used by Apache Commons Math are treated as zero
+                final double tolerance = Math.max(u.getRowDimension(), v.getRowDimension()) *
+                        (singularValues.length == 0 ? 0. : singularValues[0]) * Math.ulp(1.);
+                final RealMatrix scaledV = v.copy();
+                for (int r = 0; r < singularValues.length; r++) {
+                    final double inverse = singularValues[r] > tolerance ? 1. / singularValues[r] : 0.;
+                    for (int j = 0; j < scaledV.getRowDimension(); j++) {
+                        scaledV.multiplyEntry(j, r, inverse);
+                    }
+                }
+                pinv = scaledV.multiply(u.transpose());
+            }
+            return pinv;
+        }
+    }
+}
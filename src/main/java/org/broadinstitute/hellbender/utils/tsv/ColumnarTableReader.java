@@ -0,0 +1,692 @@
+package org.broadinstitute.hellbender.utils.tsv;
+
+import com.opencsv.CSVParser;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.param.ParamUtils;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Reads selected columns of a tab-separated table directly into primitive arrays.
+ *
+ * <p>
+ *     The input follows the same format as that of {@link TableReader}: comment lines, then a header line with the
+ *     column names, then data lines; data lines that repeat the header are skipped. Rather than building a
+ *     {@link DataLine} of {@link String}s per line, the data region of the file is split into line-aligned chunks that
+ *     are parsed in parallel, each value being decoded straight from the bytes of the file into the array of its column:
+ * </p>
+ * <ul>
+ *     <li>{@link ColumnType#INT} and {@link ColumnType#DOUBLE} columns are decoded into {@code int[]} and {@code double[]},
+ *     with the same results as {@link Integer#parseInt(String)} and {@link Double#parseDouble(String)}.</li>
+ *     <li>{@link ColumnType#STRING} columns are decoded into an {@code int[]} of indices into the list of distinct values
+ *     of the column, in order of first appearance. This suits columns with few distinct values, such as contig names,
+ *     which are then shared by all records.</li>
+ * </ul>
+ * <p>
+ *     Lines with quote or escape characters are split with the same parser as {@link TableReader}, so the results do not
+ *     depend on the reader used.
+ * </p>
+ */
+public final class ColumnarTableReader {
+    /**
+     * Target number of bytes parsed by each task.
+     */
+    static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    private static final byte NEW_LINE = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+    private static final byte COLUMN_SEPARATOR = (byte) TableUtils.COLUMN_SEPARATOR;
+    private static final int TAIL_READ_SIZE = 4096;
+    private static final int HEADER_BUFFER_SIZE = 64 * 1024;
+
+    // significands of up to 15 digits and powers of ten up to 10^22 are exact doubles, so that a single multiplication
+    // or division is correctly rounded and gives the same result as Double.parseDouble
+    private static final int MAX_EXACT_DOUBLE_DIGITS = 15;
+    private static final double[] EXACT_POWERS_OF_TEN = IntStream.rangeClosed(0, 22).mapToDouble(i -> Double.parseDouble("1e" + i)).toArray();
+    // ints with up to 9 digits cannot overflow
+    private static final int MAX_EXACT_INT_DIGITS = 9;
+
+    public enum ColumnType {
+        STRING, INT, DOUBLE
+    }
+
+    private final Path path;
+    private final String commentPrefix;
+    private final List<String> columnNames;
+    private final List<ColumnType> columnTypes;
+    private final int chunkSize;
+
+    // set when reading the header
+    private TableColumnCollection columns;
+    private byte[] headerLine;
+    private int[] columnIndices;
+
+    /**
+     * @param path            input table
+     * @param commentPrefix   prefix of comment lines, which may appear anywhere in the table
+     * @param columnsToRead   names and types of the columns to read, in the order in which they will be returned;
+     *                        the header of the table must contain all of these columns
+     */
+    public ColumnarTableReader(final Path path, final String commentPrefix, final Map<String, ColumnType> columnsToRead) {
+        this(path, commentPrefix, columnsToRead, DEFAULT_CHUNK_SIZE);
+    }
+
+    ColumnarTableReader(final Path path, final String commentPrefix, final Map<String, ColumnType> columnsToRead, final int chunkSize) {
+        this.path = Utils.nonNull(path);
+        this.commentPrefix = Utils.nonEmpty(commentPrefix, "Comment prefix cannot be empty.");
+        Utils.nonEmpty(Utils.nonNull(columnsToRead).keySet(), "At least one column must be read.");
+        this.columnNames = Collections.unmodifiableList(new ArrayList<>(columnsToRead.keySet()));
+        this.columnTypes = Collections.unmodifiableList(new ArrayList<>(columnsToRead.values()));
+        columnTypes.forEach(Utils::nonNull);
+        this.chunkSize = ParamUtils.isPositive(chunkSize, "Chunk size must be positive.");
+    }
+
+    /**
+     * Convenience method for the common case of a map of columns that keeps the order in which they are given.
+     */
+    public static Map<String, ColumnType> columnsToRead(final List<String> names, final List<ColumnType> types) {
+        Utils.validateArg(names.size() == types.size(), "There must be one type per column.");
+        final Map<String, ColumnType> result = new LinkedHashMap<>();
+        IntStream.range(0, names.size()).forEach(i -> result.put(names.get(i), types.get(i)));
+        Utils.validateArg(result.size() == names.size(), "Column names must be distinct.");
+        return result;
+    }
+
+    /**
+     * Reads the requested columns of all data lines.
+     *
+     * @throws IOException if the file cannot be read
+     * @throws UserException.BadInput if the header is missing or lacks a requested column, or a data line is malformed
+     */
+    public Table read() throws IOException {
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long dataStart = readHeader(channel);
+            final long size = channel.size();
+            final int numChunks = (int) Math.max(1, (size - dataStart + chunkSize - 1) / chunkSize);
+            final List<Chunk> chunks;
+            try {
+                chunks = IntStream.range(0, numChunks).parallel()
+                        .mapToObj(i -> {
+                            final long start = dataStart + (size - dataStart) * i / numChunks;
+                            final long end = dataStart + (size - dataStart) * (i + 1) / numChunks;
+                            return parseChunk(channel, dataStart, start, end);
+                        })
+                        .collect(Collectors.toList());
+            } catch (final UncheckedIOWrapper e) {
+                throw e.getCause();
+            }
+            return new Table(columns, columnNames, columnTypes, chunks);
+        }
+    }
+
+    /**
+     * Reads the comment lines and the header line at the start of the file.
+     *
+     * @return the offset of the first line after the header
+     */
+    private long readHeader(final FileChannel channel) throws IOException {
+        // the channel is closed by the caller, and positional reads of the chunks do not depend on its position
+        final InputStream input = new BufferedInputStream(Channels.newInputStream(channel), HEADER_BUFFER_SIZE);
+        final ByteArrayBuilder line = new ByteArrayBuilder(256);
+        long offset = 0;
+        long lineNumber = 0;
+        while (true) {
+            line.length = 0;
+            int b;
+            while ((b = input.read()) != -1 && b != NEW_LINE) {
+                line.add((byte) b);
+            }
+            if (b == -1 && line.length == 0) {
+                throw formatException(lineNumber, "premature end of table: header line not found");
+            }
+            offset += line.length + (b == -1 ? 0 : 1);
+            lineNumber++;
+            final byte[] bytes = line.trimmedBytes();
+            final String text = new String(bytes, StandardCharsets.UTF_8);
+            if (!text.startsWith(commentPrefix)) {
+                final String[] names = requiresCSVParsing(bytes, 0, bytes.length) ?
+                        newCSVParser().parseLine(text) : text.split(TableUtils.COLUMN_SEPARATOR_STRING, -1);
+                TableColumnCollection.checkNames(names, UserException.BadInput::new);
+                columns = new TableColumnCollection(names);
+                TableUtils.checkMandatoryColumns(columns, new TableColumnCollection(columnNames), UserException.BadInput::new);
+                headerLine = bytes;
+                columnIndices = columnNames.stream().mapToInt(columns::indexOf).toArray();
+                return offset;
+            }
+        }
+    }
+
+    /**
+     * Parses the lines that start in [start, end). The first line of a chunk other than the first is the line that
+     * starts after the first new line at or after start - 1, and the last line is read beyond end if needed.
+     */
+    private Chunk parseChunk(final FileChannel channel, final long dataStart, final long start, final long end) {
+        try {
+            final long readStart = start == dataStart ? start : start - 1;
+            final ByteArrayBuilder bytes = new ByteArrayBuilder((int) (end - readStart) + TAIL_READ_SIZE);
+            bytes.read(channel, readStart, (int) (end - readStart));
+            int lineStart = 0;
+            if (readStart != start) {
+                while (lineStart < bytes.length && bytes.bytes[lineStart] != NEW_LINE) {
+                    lineStart++;
+                }
+                lineStart++;
+            }
+            // complete the last line
+            long tailOffset = end;
+            while (bytes.length == 0 || bytes.bytes[bytes.length - 1] != NEW_LINE) {
+                final int numRead = bytes.read(channel, tailOffset, TAIL_READ_SIZE);
+                if (numRead <= 0) {
+                    break;
+                }
+                tailOffset += numRead;
+                final int newLine = bytes.indexOf(NEW_LINE, bytes.length - numRead);
+                if (newLine >= 0) {
+                    bytes.length = newLine + 1;
+                    break;
+                }
+            }
+            final int lastLineStartLimit = (int) (end - readStart);
+            final Chunk chunk = new Chunk(columnTypes, columns.columnCount(), Math.max(16, (lastLineStartLimit - lineStart) / 32));
+            while (lineStart < lastLineStartLimit && lineStart < bytes.length) {
+                int lineEnd = bytes.indexOf(NEW_LINE, lineStart);
+                final int next = lineEnd < 0 ? bytes.length : lineEnd + 1;
+                lineEnd = lineEnd < 0 ? bytes.length : lineEnd;
+                if (lineEnd > lineStart && bytes.bytes[lineEnd - 1] == CARRIAGE_RETURN) {
+                    lineEnd--;
+                }
+                parseLine(bytes.bytes, lineStart, lineEnd, chunk, channel, readStart);
+                lineStart = next;
+            }
+            return chunk;
+        } catch (final IOException e) {
+            throw new UncheckedIOWrapper(e);
+        }
+    }
+
+    private void parseLine(final byte[] bytes, final int from, final int to, final Chunk chunk,
+                           final FileChannel channel, final long chunkOffset) throws IOException {
+        if (startsWith(bytes, from, to, commentPrefix) || isHeaderLine(bytes, from, to)) {
+            return;
+        }
+        if (requiresCSVParsing(bytes, from, to)) {
+            parseQuotedLine(new String(bytes, from, to - from, StandardCharsets.UTF_8), chunk, channel, chunkOffset + from);
+            return;
+        }
+        // locate the start and end of every field
+        final int numColumns = columns.columnCount();
+        final int[] fieldBounds = chunk.fieldBounds;
+        int field = 0;
+        fieldBounds[0] = from;
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == COLUMN_SEPARATOR) {
+                if (++field >= numColumns) {
+                    break;
+                }
+                fieldBounds[2 * field - 1] = i;
+                fieldBounds[2 * field] = i + 1;
+            }
+        }
+        if (field != numColumns - 1) {
+            final int numValues = new String(bytes, from, to - from, StandardCharsets.UTF_8).split(TableUtils.COLUMN_SEPARATOR_STRING, -1).length;
+            throw formatException(lineNumber(channel, chunkOffset + from), String.format("mismatch between number of values in line (%d) and number of columns (%d)", numValues, numColumns));
+        }
+        fieldBounds[2 * numColumns - 1] = to;
+        for (int c = 0; c < columnIndices.length; c++) {
+            final int index = columnIndices[c];
+            addValue(chunk, c, bytes, fieldBounds[2 * index], fieldBounds[2 * index + 1], channel, chunkOffset + from);
+        }
+        chunk.size++;
+    }
+
+    private void parseQuotedLine(final String line, final Chunk chunk, final FileChannel channel, final long lineOffset) throws IOException {
+        final String[] values = newCSVParser().parseLine(line);
+        if (values.length > 0 && values[0].startsWith(commentPrefix) || columns.matchesExactly(values)) {
+            return;
+        }
+        if (values.length != columns.columnCount()) {
+            throw formatException(lineNumber(channel, lineOffset), String.format("mismatch between number of values in line (%d) and number of columns (%d)", values.length, columns.columnCount()));
+        }
+        for (int c = 0; c < columnIndices.length; c++) {
+            final byte[] value = values[columnIndices[c]].getBytes(StandardCharsets.UTF_8);
+            addValue(chunk, c, value, 0, value.length, channel, lineOffset);
+        }
+        chunk.size++;
+    }
+
+    private void addValue(final Chunk chunk, final int column, final byte[] bytes, final int from, final int to,
+                          final FileChannel channel, final long lineOffset) throws IOException {
+        switch (columnTypes.get(column)) {
+            case STRING:
+                chunk.addString(column, bytes, from, to);
+                break;
+            case INT:
+                final long intValue = parseInt(bytes, from, to);
+                if (intValue == Long.MIN_VALUE) {
+                    throw formatException(lineNumber(channel, lineOffset), String.format("expected int value for column %s but found %s",
+                            columnNames.get(column), new String(bytes, from, to - from, StandardCharsets.UTF_8)));
+                }
+                chunk.addInt(column, (int) intValue);
+                break;
+            case DOUBLE:
+                final double doubleValue = parseDouble(bytes, from, to);
+                if (Double.isNaN(doubleValue) && !isNaNLiteral(bytes, from, to)) {
+                    throw formatException(lineNumber(channel, lineOffset), String.format("expected double value for column %s but found %s",
+                            columnNames.get(column), new String(bytes, from, to - from, StandardCharsets.UTF_8)));
+                }
+                chunk.addDouble(column, doubleValue);
+                break;
+            default:
+                throw new IllegalStateException("Unknown column type: " + columnTypes.get(column));
+        }
+    }
+
+    /**
+     * @return the value of the field, as given by {@link Integer#parseInt(String)}, or {@link Long#MIN_VALUE} if it is not an int
+     */
+    static long parseInt(final byte[] bytes, final int from, final int to) {
+        int i = from;
+        final boolean negative = i < to && bytes[i] == '-';
+        if (i < to && (bytes[i] == '-' || bytes[i] == '+')) {
+            i++;
+        }
+        final int numDigits = to - i;
+        if (numDigits > 0 && numDigits <= MAX_EXACT_INT_DIGITS) {
+            int value = 0;
+            for (; i < to; i++) {
+                final int digit = bytes[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    return Long.MIN_VALUE;
+                }
+                value = 10 * value + digit;
+            }
+            return negative ? -value : value;
+        }
+        try {
+            return Integer.parseInt(new String(bytes, from, to - from, StandardCharsets.UTF_8));
+        } catch (final NumberFormatException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * @return the value of the field, as given by {@link Double#parseDouble(String)}, or {@link Double#NaN} if it is not a double
+     */
+    static double parseDouble(final byte[] bytes, final int from, final int to) {
+        int i = from;
+        final boolean negative = i < to && bytes[i] == '-';
+        if (i < to && (bytes[i] == '-' || bytes[i] == '+')) {
+            i++;
+        }
+        long significand = 0;
+        int numDigits = 0;
+        int numFractionDigits = 0;
+        boolean seenPoint = false;
+        boolean simple = i < to;
+        for (; i < to; i++) {
+            final byte b = bytes[i];
+            if (b >= '0' && b <= '9') {
+                if (significand != 0 || b != '0') {
+                    numDigits++;
+                }
+                significand = 10 * significand + (b - '0');
+                if (seenPoint) {
+                    numFractionDigits++;
+                }
+                if (numDigits > MAX_EXACT_DOUBLE_DIGITS || numFractionDigits >= EXACT_POWERS_OF_TEN.length) {
+                    simple = false;
+                    break;
+                }
+            } else if (b == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                simple = false;
+                break;
+            }
+        }
+        // a lone point is not a number
+        if (simple && (to - from) - (negative || bytes[from] == '+' ? 1 : 0) > (seenPoint ? 1 : 0)) {
+            final double value = significand / EXACT_POWERS_OF_TEN[numFractionDigits];
+            return negative ? -value : value;
+        }
+        try {
+            return Double.parseDouble(new String(bytes, from, to - from, StandardCharsets.UTF_8));
+        } catch (final NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static boolean isNaNLiteral(final byte[] bytes, final int from, final int to) {
+        return new String(bytes, from, to - from, StandardCharsets.UTF_8).trim().matches("[+-]?NaN[dDfF]?");
+    }
+
+    private boolean isHeaderLine(final byte[] bytes, final int from, final int to) {
+        return to - from == headerLine.length && rangeEquals(headerLine, bytes, from);
+    }
+
+    private static boolean rangeEquals(final byte[] a, final byte[] b, final int from) {
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] != b[from + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean startsWith(final byte[] bytes, final int from, final int to, final String prefix) {
+        if (to - from < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (bytes[from + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean requiresCSVParsing(final byte[] bytes, final int from, final int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == TableUtils.QUOTE_CHARACTER || bytes[i] == TableUtils.ESCAPE_CHARACTER) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static CSVParser newCSVParser() {
+        return new CSVParser(TableUtils.COLUMN_SEPARATOR, TableUtils.QUOTE_CHARACTER, TableUtils.ESCAPE_CHARACTER);
+    }
+
+    /**
+     * Line numbers are only needed for error messages, so they are computed by counting the lines before the offset.
+     */
+    private static long lineNumber(final FileChannel channel, final long offset) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        long lineNumber = 1;
+        long position = 0;
+        while (position < offset) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), offset - position));
+            final int numRead = channel.read(buffer, position);
+            if (numRead <= 0) {
+                break;
+            }
+            for (int i = 0; i < numRead; i++) {
+                if (buffer.get(i) == NEW_LINE) {
+                    lineNumber++;
+                }
+            }
+            position += numRead;
+        }
+        return lineNumber;
+    }
+
+    private UserException.BadInput formatException(final long lineNumber, final String message) {
+        return new UserException.BadInput(String.format("format error in '%s' at line %d: %s", path, lineNumber, message));
+    }
+
+    /**
+     * Carries {@link IOException}s out of the parallel stream.
+     */
+    private static final class UncheckedIOWrapper extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private UncheckedIOWrapper(final IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+
+    private static final class ByteArrayBuilder {
+        private byte[] bytes;
+        private int length = 0;
+
+        private ByteArrayBuilder(final int capacity) {
+            bytes = new byte[Math.max(1, capacity)];
+        }
+
+        private void add(final byte b) {
+            ensureCapacity(length + 1);
+            bytes[length++] = b;
+        }
+
+        /**
+         * Appends up to numBytes bytes read at the given offset of the channel.
+         *
+         * @return the number of bytes read, or -1 at the end of the channel
+         */
+        private int read(final FileChannel channel, final long offset, final int numBytes) throws IOException {
+            ensureCapacity(length + numBytes);
+            final ByteBuffer buffer = ByteBuffer.wrap(bytes, length, numBytes);
+            int total = 0;
+            while (buffer.hasRemaining()) {
+                final int numRead = channel.read(buffer, offset + total);
+                if (numRead <= 0) {
+                    break;
+                }
+                total += numRead;
+            }
+            length += total;
+            return total == 0 ? -1 : total;
+        }
+
+        private int indexOf(final byte b, final int from) {
+            for (int i = from; i < length; i++) {
+                if (bytes[i] == b) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private byte[] trimmedBytes() {
+            final int end = length > 0 && bytes[length - 1] == CARRIAGE_RETURN ? length - 1 : length;
+            return Arrays.copyOf(bytes, end);
+        }
+
+        private void ensureCapacity(final int capacity) {
+            if (capacity > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(capacity, 2 * bytes.length));
+            }
+        }
+    }
+
+    /**
+     * Values of the lines of one chunk. String values are stored as indices into the chunk's own list of distinct values.
+     */
+    private static final class Chunk {
+        private final Object[] values;
+        private final List<List<String>> levels = new ArrayList<>();
+        private final List<Map<String, Integer>> levelIndices = new ArrayList<>();
+        private final byte[][] lastLevelBytes;
+        private final int[] lastLevelIndex;
+        // start and end of each field of the line being parsed
+        private final int[] fieldBounds;
+        private int size = 0;
+
+        private Chunk(final List<ColumnType> types, final int numColumns, final int initialCapacity) {
+            fieldBounds = new int[2 * numColumns];
+            values = new Object[types.size()];
+            lastLevelBytes = new byte[types.size()][];
+            lastLevelIndex = new int[types.size()];
+            for (int c = 0; c < types.size(); c++) {
+                values[c] = types.get(c) == ColumnType.DOUBLE ? new double[initialCapacity] : new int[initialCapacity];
+                levels.add(new ArrayList<>());
+                levelIndices.add(new HashMap<>());
+            }
+        }
+
+        private void addString(final int column, final byte[] bytes, final int from, final int to) {
+            // consecutive lines usually share their values, e.g. contig names in sorted tables
+            final byte[] last = lastLevelBytes[column];
+            int index;
+            if (last != null && last.length == to - from && rangeEquals(last, bytes, from)) {
+                index = lastLevelIndex[column];
+            } else {
+                final String value = new String(bytes, from, to - from, StandardCharsets.UTF_8);
+                final List<String> columnLevels = levels.get(column);
+                index = levelIndices.get(column).computeIfAbsent(value, v -> {
+                    columnLevels.add(v);
+                    return columnLevels.size() - 1;
+                });
+                lastLevelBytes[column] = Arrays.copyOfRange(bytes, from, to);
+                lastLevelIndex[column] = index;
+            }
+            addInt(column, index);
+        }
+
+        private void addInt(final int column, final int value) {
+            int[] array = (int[]) values[column];
+            if (size == array.length) {
+                array = Arrays.copyOf(array, 2 * array.length);
+                values[column] = array;
+            }
+            array[size] = value;
+        }
+
+        private void addDouble(final int column, final double value) {
+            double[] array = (double[]) values[column];
+            if (size == array.length) {
+                array = Arrays.copyOf(array, 2 * array.length);
+                values[column] = array;
+            }
+            array[size] = value;
+        }
+    }
+
+    /**
+     * The columns read from a table. Values are returned in the order of the lines of the table.
+     */
+    public static final class Table {
+        private final TableColumnCollection columns;
+        private final Map<String, Integer> columnIndices = new HashMap<>();
+        private final List<ColumnType> columnTypes;
+        private final Object[] values;
+        private final List<List<String>> levels = new ArrayList<>();
+        private final int size;
+
+        private Table(final TableColumnCollection columns, final List<String> columnNames, final List<ColumnType> columnTypes,
+                      final List<Chunk> chunks) {
+            this.columns = columns;
+            this.columnTypes = columnTypes;
+            IntStream.range(0, columnNames.size()).forEach(c -> columnIndices.put(columnNames.get(c), c));
+            size = chunks.stream().mapToInt(chunk -> chunk.size).sum();
+            values = new Object[columnTypes.size()];
+            for (int c = 0; c < columnTypes.size(); c++) {
+                final int column = c;
+                if (columnTypes.get(c) == ColumnType.DOUBLE) {
+                    final double[] array = new double[size];
+                    int offset = 0;
+                    for (final Chunk chunk : chunks) {
+                        System.arraycopy((double[]) chunk.values[c], 0, array, offset, chunk.size);
+                        offset += chunk.size;
+                    }
+                    values[c] = array;
+                } else {
+                    final int[] array = new int[size];
+                    int offset = 0;
+                    for (final Chunk chunk : chunks) {
+                        System.arraycopy((int[]) chunk.values[c], 0, array, offset, chunk.size);
+                        offset += chunk.size;
+                    }
+                    values[c] = array;
+                }
+                if (columnTypes.get(c) == ColumnType.STRING) {
+                    // merge the distinct values of the chunks, and remap the indices of each chunk
+                    final List<String> columnLevels = new ArrayList<>();
+                    final Map<String, Integer> columnLevelIndices = new HashMap<>();
+                    final int[] array = (int[]) values[c];
+                    int offset = 0;
+                    for (final Chunk chunk : chunks) {
+                        final int[] remap = chunk.levels.get(column).stream()
+                                .mapToInt(v -> columnLevelIndices.computeIfAbsent(v, k -> {
+                                    columnLevels.add(k);
+                                    return columnLevels.size() - 1;
+                                }))
+                                .toArray();
+                        for (int i = offset; i < offset + chunk.size; i++) {
+                            array[i] = remap[array[i]];
+                        }
+                        offset += chunk.size;
+                    }
+                    levels.add(Collections.unmodifiableList(columnLevels));
+                } else {
+                    levels.add(Collections.emptyList());
+                }
+            }
+        }
+
+        /**
+         * @return all the columns of the table, including those that were not read
+         */
+        public TableColumnCollection columns() {
+            return columns;
+        }
+
+        /**
+         * @return the number of data lines
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @return the values of an {@link ColumnType#INT} column; the array is not copied
+         */
+        public int[] getInts(final String column) {
+            return (int[]) values[columnIndex(column, ColumnType.INT)];
+        }
+
+        /**
+         * @return the values of a {@link ColumnType#DOUBLE} column; the array is not copied
+         */
+        public double[] getDoubles(final String column) {
+            return (double[]) values[columnIndex(column, ColumnType.DOUBLE)];
+        }
+
+        /**
+         * @return for each line, the index of the value of a {@link ColumnType#STRING} column in {@link #getStringLevels(String)};
+         *         the array is not copied
+         */
+        public int[] getStringIndices(final String column) {
+            return (int[]) values[columnIndex(column, ColumnType.STRING)];
+        }
+
+        /**
+         * @return the distinct values of a {@link ColumnType#STRING} column, in order of first appearance
+         */
+        public List<String> getStringLevels(final String column) {
+            return levels.get(columnIndex(column, ColumnType.STRING));
+        }
+
+        private int columnIndex(final String column, final ColumnType type) {
+            final Integer index = columnIndices.get(Utils.nonNull(column));
+            Utils.validateArg(index != null, () -> "Column was not read: " + column);
+            Utils.validateArg(columnTypes.get(index) == type, () -> String.format("Column %s was read as %s, not %s", column, columnTypes.get(index), type));
+            return index;
+        }
+    }
+}
@@ -5,6 +5,7 @@ import htsjdk.samtools.util.Locatable;
 import htsjdk.tribble.AbstractFeatureReader;
 import htsjdk.tribble.TribbleException;
 import htsjdk.variant.variantcontext.*;
+import htsjdk.variant.variantcontext.writer.AsyncVariantContextWriter;
 import htsjdk.variant.variantcontext.writer.Options;
 import htsjdk.variant.variantcontext.writer.VariantContextWriter;
 import htsjdk.variant.variantcontext.writer.VariantContextWriterBuilder;
@@ -20,8 +21,11 @@ import org.apache.logging.log4j.Logger;
 import org.broadinstitute.hellbender.tools.walkers.genotyper.*;
 import org.broadinstitute.hellbender.utils.*;
 import org.broadinstitute.hellbender.utils.collections.Permutation;
+import org.broadinstitute.hellbender.utils.config.ConfigFactory;
+import org.broadinstitute.hellbender.utils.config.GATKConfig;
 import org.broadinstitute.hellbender.utils.genotyper.IndexedAlleleList;
 import org.broadinstitute.hellbender.utils.param.ParamUtils;
+import org.broadinstitute.hellbender.utils.variant.writers.ParallelCompressedVCFWriter;
 
 import java.io.File;
 import java.io.Serializable;
@@ -53,6 +57,11 @@ public final class GATKVariantContextUtils {
      * The default options set by VariantContextWriter are cleared before applying ALLOW_MISSING_FIELDS_IN_HEADER (if
      * <code>lenientProcessing</code> is set), followed by the set of options specified by any <code>options</code> args.
      *
+     * If {@code samjdk.use_async_io_write_tribble} is set (the default) or {@link Options#USE_ASYNC_IO} is given,
+     * encoding, compression and on-the-fly indexing run on a background thread behind a queue of at most
+     * {@link GATKConfig#asyncOutputQueueSize()} variants, which blocks the caller when full. Errors on the background
+     * thread are rethrown by the next call to {@code add} or by {@code close}.
+     *
      * @param outFile output File for this writer. May not be null.
      * @param referenceDictionary required if on the fly indexing is set, otherwise can be null
      * @param createMD5 true if an md5 file should be created
@@ -64,8 +73,33 @@ public final class GATKVariantContextUtils {
             final SAMSequenceDictionary referenceDictionary,
             final boolean createMD5,
             final Options... options)
+    {
+        return createVCFWriter(outFile, referenceDictionary, createMD5, 0, options);
+    }
+
+    /**
+     * Creates a VariantContextWriter as {@link #createVCFWriter(File, SAMSequenceDictionary, boolean, Options...)}
+     * does, except that if <code>compressionThreads</code> is positive and the output is a block-compressed VCF, its
+     * BGZF blocks are deflated on that many threads by a {@link ParallelCompressedVCFWriter}. The output is the same
+     * either way.
+     *
+     * @param outFile output File for this writer. May not be null.
+     * @param referenceDictionary required if on the fly indexing is set, otherwise can be null
+     * @param createMD5 true if an md5 file should be created
+     * @param compressionThreads number of threads to deflate block-compressed output on, or 0 to deflate on the thread
+     *                           that encodes the variants
+     * @param options variable length list of additional Options to be set for this writer
+     * @returns VariantContextWriter must be closed by the caller
+     */
+    public static VariantContextWriter createVCFWriter(
+            final File outFile,
+            final SAMSequenceDictionary referenceDictionary,
+            final boolean createMD5,
+            final int compressionThreads,
+            final Options... options)
     {
         Utils.nonNull(outFile);
+        ParamUtils.isPositiveOrZero(compressionThreads, "the number of compression threads must not be negative");
 
         VariantContextWriterBuilder vcWriterBuilder =
                 new VariantContextWriterBuilder().clearOptions().setOutputFile(outFile);
@@ -88,11 +122,24 @@ public final class GATKVariantContextUtils {
             vcWriterBuilder = vcWriterBuilder.setReferenceDictionary(referenceDictionary);
         }
 
+        final GATKConfig config = ConfigFactory.getInstance().getGATKConfig();
+        boolean useAsyncIO = config.samjdk_use_async_io_write_tribble();
+        final Set<Options> writerOptions = EnumSet.noneOf(Options.class);
         for (Options opt : options) {
-            vcWriterBuilder = vcWriterBuilder.setOption(opt);
+            if (opt == Options.USE_ASYNC_IO) {
+                // the builder would wrap the writer with the htsjdk default queue size, so we wrap it ourselves
+                useAsyncIO = true;
+            } else {
+                vcWriterBuilder = vcWriterBuilder.setOption(opt);
+                writerOptions.add(opt);
+            }
         }
 
-        return vcWriterBuilder.build();
+        final VariantContextWriter writer =
+                compressionThreads > 0 && getVariantFileTypeFromExtension(outFile) == VariantContextWriterBuilder.OutputType.BLOCK_COMPRESSED_VCF ?
+                        new ParallelCompressedVCFWriter(outFile, referenceDictionary, createMD5, compressionThreads, writerOptions) :
+                        vcWriterBuilder.build();
+        return useAsyncIO ? new AsyncVariantContextWriter(writer, config.asyncOutputQueueSize()) : writer;
     }
 
     // Determine the variant file type from the file extension. Htsjdk has similar code, when
@@ -0,0 +1,343 @@
+package org.broadinstitute.hellbender.utils.variant;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Compact, read-only index of the positions of known sites of variation, used by the Spark versions of BQSR in place of
+ * loading the known sites VCFs into memory on every executor.
+ *
+ * <p>
+ *     For each contig the index stores the starts and ends of its sites, sorted by start, as int arrays, and whether
+ *     each site is a SNP and whether it is an indel as two bitsets. The file is memory-mapped when opened, so these
+ *     arrays live outside the Java heap and are shared by every reader of the file on the same machine. Overlap
+ *     queries are a binary search over the starts followed by a scan, and are safe to run from several threads.
+ * </p>
+ *
+ * <p>
+ *     Index files are created with a {@link Builder}, or with the CreateKnownSitesIndex tool, and must be local files
+ *     since they are memory-mapped.
+ * </p>
+ */
+public final class KnownSitesIndex {
+
+    /**
+     * Extension of known sites index files. Known sites paths that end with it are opened as an index.
+     */
+    public static final String FILE_EXTENSION = ".knownsites";
+
+    private static final int MAGIC = 0x474B5349; // "GKSI"
+    private static final int VERSION = 1;
+
+    private final Map<String, ContigSites> sitesByContig;
+
+    private KnownSitesIndex(final Map<String, ContigSites> sitesByContig) {
+        this.sitesByContig = sitesByContig;
+    }
+
+    /**
+     * @return true if the path names a known sites index rather than a file of variants
+     */
+    public static boolean isKnownSitesIndex(final String path) {
+        return path.endsWith(FILE_EXTENSION);
+    }
+
+    /**
+     * Memory-maps a known sites index file.
+     *
+     * @param path local path of an index created by {@link #write(Path, Iterator)}
+     * @return never {@code null}
+     */
+    public static KnownSitesIndex open(final Path path) {
+        Utils.nonNull(path);
+        if (path.getFileSystem() != FileSystems.getDefault()) {
+            throw new UserException.CouldNotReadInputFile(path, "known sites indices must be local files");
+        }
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+             final DataInputStream header = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (header.readInt() != MAGIC) {
+                throw new UserException.BadInput(path + " is not a known sites index");
+            }
+            final int version = header.readInt();
+            if (version != VERSION) {
+                throw new UserException.BadInput("Unsupported known sites index version " + version + " in " + path);
+            }
+            final int contigCount = header.readInt();
+            final Map<String, ContigSites> sitesByContig = new HashMap<>(contigCount * 2);
+            for (int i = 0; i < contigCount; i++) {
+                final String contig = header.readUTF();
+                final int siteCount = header.readInt();
+                final int maximumLength = header.readInt();
+                final long offset = header.readLong();
+                final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, ContigSites.sizeInBytes(siteCount));
+                sitesByContig.put(contig, new ContigSites(contig, siteCount, maximumLength, buffer));
+            }
+            return new KnownSitesIndex(sitesByContig);
+        } catch (final IOException e) {
+            throw new UserException.CouldNotReadInputFile(path, e);
+        }
+    }
+
+    /**
+     * Writes a known sites index with the given variants.
+     *
+     * @param path where to write the index
+     * @param variants the known sites, in any order
+     */
+    public static void write(final Path path, final Iterator<? extends GATKVariant> variants) {
+        Utils.nonNull(variants);
+        final Builder builder = new Builder();
+        variants.forEachRemaining(builder::add);
+        builder.write(path);
+    }
+
+    /**
+     * @return the number of known sites in the index
+     */
+    public long size() {
+        return sitesByContig.values().stream().mapToLong(sites -> sites.siteCount).sum();
+    }
+
+    /**
+     * Returns the known sites that overlap an interval.
+     *
+     * @param interval the query interval
+     * @return never {@code null}, the overlapping sites sorted by start
+     */
+    public List<GATKVariant> getOverlapping(final SimpleInterval interval) {
+        Utils.nonNull(interval);
+        final ContigSites sites = sitesByContig.get(interval.getContig());
+        if (sites == null) {
+            return Collections.emptyList();
+        }
+        List<GATKVariant> result = null;
+        final int queryEnd = interval.getEnd();
+        for (int i = sites.firstPossiblyOverlapping(interval.getStart()); i < sites.siteCount && sites.start(i) <= queryEnd; i++) {
+            if (sites.end(i) >= interval.getStart()) {
+                if (result == null) {
+                    result = new ArrayList<>(2);
+                }
+                result.add(sites.variant(i));
+            }
+        }
+        return result == null ? Collections.emptyList() : result;
+    }
+
+    /**
+     * Memory-mapped sites of a single contig. Only absolute gets are used on the buffers, so queries don't change their state.
+     */
+    private static final class ContigSites {
+        private final String contig;
+        private final int siteCount;
+        private final int maximumLength;
+        private final IntBuffer starts;
+        private final IntBuffer ends;
+        private final LongBuffer snps;
+        private final LongBuffer indels;
+
+        private ContigSites(final String contig, final int siteCount, final int maximumLength, final ByteBuffer buffer) {
+            this.contig = contig;
+            this.siteCount = siteCount;
+            this.maximumLength = maximumLength;
+            final int bitsetWords = bitsetWords(siteCount);
+            starts = slice(buffer, 0, siteCount * Integer.BYTES).asIntBuffer();
+            ends = slice(buffer, siteCount * Integer.BYTES, siteCount * Integer.BYTES).asIntBuffer();
+            snps = slice(buffer, 2 * siteCount * Integer.BYTES, bitsetWords * Long.BYTES).asLongBuffer();
+            indels = slice(buffer, 2 * siteCount * Integer.BYTES + bitsetWords * Long.BYTES, bitsetWords * Long.BYTES).asLongBuffer();
+        }
+
+        private static ByteBuffer slice(final ByteBuffer buffer, final int offset, final int length) {
+            final ByteBuffer duplicate = buffer.duplicate();
+            duplicate.position(offset);
+            duplicate.limit(offset + length);
+            return duplicate.slice();
+        }
+
+        private static int bitsetWords(final int siteCount) {
+            return (siteCount + Long.SIZE - 1) / Long.SIZE;
+        }
+
+        private static long sizeInBytes(final int siteCount) {
+            return 2L * siteCount * Integer.BYTES + 2L * bitsetWords(siteCount) * Long.BYTES;
+        }
+
+        private int start(final int index) {
+            return starts.get(index);
+        }
+
+        private int end(final int index) {
+            return ends.get(index);
+        }
+
+        private static boolean isSet(final LongBuffer bitset, final int index) {
+            return (bitset.get(index / Long.SIZE) & (1L << (index % Long.SIZE))) != 0;
+        }
+
+        /**
+         * @return the index of the first site that starts late enough to possibly overlap a query starting at queryStart,
+         *         given that no site is longer than {@link #maximumLength}
+         */
+        private int firstPossiblyOverlapping(final int queryStart) {
+            final long minimumStart = (long) queryStart - maximumLength + 1;
+            int low = 0;
+            int high = siteCount;
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                if (starts.get(middle) < minimumStart) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private GATKVariant variant(final int index) {
+            return new MinimalVariant(new SimpleInterval(contig, start(index), end(index)), isSet(snps, index), isSet(indels, index));
+        }
+    }
+
+    /**
+     * Accumulates known sites, in any order, in primitive arrays and writes them as an index.
+     */
+    public static final class Builder {
+        private final Map<String, ContigBuilder> buildersByContig = new LinkedHashMap<>();
+
+        /**
+         * Adds a known site to the index.
+         */
+        public void add(final GATKVariant variant) {
+            Utils.nonNull(variant);
+            buildersByContig.computeIfAbsent(variant.getContig(), contig -> new ContigBuilder()).add(variant);
+        }
+
+        /**
+         * Writes the index with the sites added so far.
+         *
+         * @param path where to write the index
+         */
+        public void write(final Path path) {
+            Utils.nonNull(path);
+            buildersByContig.values().forEach(ContigBuilder::sortByStart);
+            try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(buildersByContig.size());
+                // the data of each contig follows the header, so its offset is the size of the header plus that of the previous contigs
+                long offset = 3 * Integer.BYTES;
+                for (final String contig : buildersByContig.keySet()) {
+                    offset += 2 + contig.getBytes(StandardCharsets.UTF_8).length + 2 * Integer.BYTES + Long.BYTES;
+                }
+                for (final Map.Entry<String, ContigBuilder> entry : buildersByContig.entrySet()) {
+                    final ContigBuilder builder = entry.getValue();
+                    out.writeUTF(entry.getKey());
+                    out.writeInt(builder.size());
+                    out.writeInt(builder.maximumLength);
+                    out.writeLong(offset);
+                    offset += ContigSites.sizeInBytes(builder.size());
+                }
+                for (final ContigBuilder builder : buildersByContig.values()) {
+                    builder.writeTo(out);
+                }
+            } catch (final IOException e) {
+                throw new UserException.CouldNotCreateOutputFile(path.toString(), e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Accumulates the sites of a contig before they are written.
+     */
+    private static final class ContigBuilder {
+        private final IntArrayList starts = new IntArrayList();
+        private final IntArrayList ends = new IntArrayList();
+        private final BitSet snps = new BitSet();
+        private final BitSet indels = new BitSet();
+        private int maximumLength = 0;
+
+        private void add(final GATKVariant variant) {
+            final int index = starts.size();
+            Utils.validate(ContigSites.sizeInBytes(index + 1) <= Integer.MAX_VALUE,
+                    () -> "too many known sites in contig " + variant.getContig() + " for a known sites index");
+            starts.add(variant.getStart());
+            ends.add(variant.getEnd());
+            snps.set(index, variant.isSnp());
+            indels.set(index, variant.isIndel());
+            maximumLength = Math.max(maximumLength, variant.getEnd() - variant.getStart() + 1);
+        }
+
+        private int size() {
+            return starts.size();
+        }
+
+        /**
+         * Sorts the sites by start, if they are not already sorted (as they are when they come from an indexed file).
+         */
+        private void sortByStart() {
+            boolean sorted = true;
+            for (int i = 1; i < starts.size() && sorted; i++) {
+                sorted = starts.getInt(i - 1) <= starts.getInt(i);
+            }
+            if (sorted) {
+                return;
+            }
+            final Integer[] order = new Integer[starts.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparingInt(starts::getInt));
+            final IntArrayList sortedStarts = new IntArrayList(order.length);
+            final IntArrayList sortedEnds = new IntArrayList(order.length);
+            final BitSet sortedSnps = new BitSet(order.length);
+            final BitSet sortedIndels = new BitSet(order.length);
+            for (int i = 0; i < order.length; i++) {
+                sortedStarts.add(starts.getInt(order[i]));
+                sortedEnds.add(ends.getInt(order[i]));
+                sortedSnps.set(i, snps.get(order[i]));
+                sortedIndels.set(i, indels.get(order[i]));
+            }
+            starts.clear();
+            starts.addAll(sortedStarts);
+            ends.clear();
+            ends.addAll(sortedEnds);
+            snps.clear();
+            snps.or(sortedSnps);
+            indels.clear();
+            indels.or(sortedIndels);
+        }
+
+        private void writeTo(final DataOutputStream out) throws IOException {
+            for (int i = 0; i < starts.size(); i++) {
+                out.writeInt(starts.getInt(i));
+            }
+            for (int i = 0; i < ends.size(); i++) {
+                out.writeInt(ends.getInt(i));
+            }
+            writeBitset(out, snps);
+            writeBitset(out, indels);
+        }
+
+        private void writeBitset(final DataOutputStream out, final BitSet bitset) throws IOException {
+            final long[] words = bitset.toLongArray();
+            final int wordCount = ContigSites.bitsetWords(size());
+            for (int i = 0; i < wordCount; i++) {
+                out.writeLong(i < words.length ? words[i] : 0L);
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.broadinstitute.hellbender.utils.variant;
+
+import htsjdk.samtools.util.SortingCollection;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFCodec;
+import htsjdk.variant.vcf.VCFEncoder;
+import htsjdk.variant.vcf.VCFHeader;
+import htsjdk.variant.vcf.VCFHeaderVersion;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.*;
+
+/**
+ * A {@link SortingCollection.Codec} for {@link VariantContext}s, which encodes each variant as a length-prefixed VCF
+ * line. Decoding uses a {@link VCFCodec}, so genotypes are only parsed when they are accessed.
+ */
+public final class VCFRecordCodec implements SortingCollection.Codec<VariantContext> {
+    private final VCFHeader header;
+    private final VCFEncoder encoder;
+    private final VCFCodec decoder;
+    private DataOutputStream out;
+    private DataInputStream in;
+
+    /**
+     * @param header header of the variants; fields missing from the header are allowed
+     */
+    public VCFRecordCodec(final VCFHeader header) {
+        this.header = Utils.nonNull(header);
+        this.encoder = new VCFEncoder(header, true, false);
+        this.decoder = new VCFCodec();
+        decoder.setVCFHeader(header, VCFHeaderVersion.VCF4_2);
+    }
+
+    @Override
+    public void setOutputStream(final OutputStream os) {
+        out = new DataOutputStream(os);
+    }
+
+    @Override
+    public void setInputStream(final InputStream is) {
+        in = new DataInputStream(is);
+    }
+
+    @Override
+    public void encode(final VariantContext variant) {
+        final byte[] line = encoder.encode(variant).getBytes(VCFEncoder.VCF_CHARSET);
+        try {
+            out.writeInt(line.length);
+            out.write(line);
+        } catch (final IOException e) {
+            throw new GATKException("Error writing variant to temporary file", e);
+        }
+    }
+
+    @Override
+    public VariantContext decode() {
+        final int length;
+        try {
+            length = in.readInt();
+        } catch (final EOFException e) {
+            return null;
+        } catch (final IOException e) {
+            throw new GATKException("Error reading variant from temporary file", e);
+        }
+        try {
+            final byte[] line = new byte[length];
+            in.readFully(line);
+            return decoder.decode(new String(line, VCFEncoder.VCF_CHARSET));
+        } catch (final IOException e) {
+            throw new GATKException("Error reading variant from temporary file", e);
+        }
+    }
+
+    @Override
+    public VCFRecordCodec clone() {
+        return new VCFRecordCodec(header);
+    }
+}
@@ -0,0 +1,148 @@
+package org.broadinstitute.hellbender.utils.variant.writers;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.util.IOUtil;
+import htsjdk.samtools.util.Md5CalculatingOutputStream;
+import htsjdk.tribble.index.Index;
+import htsjdk.tribble.index.tabix.TabixFormat;
+import htsjdk.tribble.index.tabix.TabixIndexCreator;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.writer.Options;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.variantcontext.writer.VariantContextWriterBuilder;
+import htsjdk.variant.vcf.VCFHeader;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.io.ParallelBlockCompressedOutputStream;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Set;
+
+/**
+ * A block-compressed VCF writer that deflates its BGZF blocks on a pool of threads using a
+ * {@link ParallelBlockCompressedOutputStream}.
+ *
+ * Records are encoded on the calling thread by htsjdk's VCF writer, so the output and its tabix index are
+ * byte-identical to the ones htsjdk writes for a .vcf.gz with the same compression level and deflater factory. Since
+ * the address of a block is only known after the blocks before it have been deflated, variants are added to the
+ * on-the-fly index once their positions are resolved rather than as they are written.
+ */
+public final class ParallelCompressedVCFWriter implements VariantContextWriter {
+
+    private final File outFile;
+    private final ParallelBlockCompressedOutputStream outputStream;
+    private final VariantContextWriter underlyingWriter;
+    private final TabixIndexCreator indexCreator;
+    private final ArrayDeque<PendingVariant> unindexedVariants = new ArrayDeque<>();
+
+    /**
+     * @param outFile block-compressed VCF file to write. Can not be null.
+     * @param referenceDictionary required if on the fly indexing is set, otherwise can be null
+     * @param createMD5 true if an md5 file should be created
+     * @param compressionThreads number of threads to deflate blocks on. Must be positive.
+     * @param options options for the VCF encoder. {@link Options#INDEX_ON_THE_FLY} creates a tabix index.
+     */
+    public ParallelCompressedVCFWriter(final File outFile, final SAMSequenceDictionary referenceDictionary,
+                                       final boolean createMD5, final int compressionThreads, final Set<Options> options) {
+        this.outFile = Utils.nonNull(outFile);
+        Utils.nonNull(options);
+        final boolean indexOnTheFly = options.contains(Options.INDEX_ON_THE_FLY);
+        Utils.validateArg(!indexOnTheFly || referenceDictionary != null, "a reference dictionary is required for on the fly indexing");
+
+        try {
+            OutputStream os = IOUtil.maybeBufferOutputStream(new FileOutputStream(outFile));
+            if (createMD5) {
+                os = new Md5CalculatingOutputStream(os, new File(outFile.getAbsolutePath() + ".md5"));
+            }
+            outputStream = new ParallelBlockCompressedOutputStream(os, compressionThreads);
+        } catch (final IOException e) {
+            throw new UserException.CouldNotCreateOutputFile(outFile, "could not open the output for writing", e);
+        }
+
+        VariantContextWriterBuilder builder = new VariantContextWriterBuilder().clearOptions().setOutputVCFStream(outputStream);
+        if (referenceDictionary != null) {
+            builder = builder.setReferenceDictionary(referenceDictionary);
+        }
+        for (final Options opt : options) {
+            if (opt != Options.INDEX_ON_THE_FLY) {
+                builder = builder.setOption(opt);
+            }
+        }
+        underlyingWriter = builder.build();
+        indexCreator = indexOnTheFly ? new TabixIndexCreator(referenceDictionary, TabixFormat.VCF) : null;
+    }
+
+    @Override
+    public void writeHeader(final VCFHeader header) {
+        underlyingWriter.writeHeader(header);
+    }
+
+    @Override
+    public void setHeader(final VCFHeader header) {
+        underlyingWriter.setHeader(header);
+    }
+
+    @Override
+    public void add(final VariantContext vc) {
+        // htsjdk's VCF writer writes each line to the stream in full before returning
+        final long start = outputStream.getPosition();
+        underlyingWriter.add(vc);
+        if (indexCreator != null) {
+            unindexedVariants.addLast(new PendingVariant(vc, start));
+        }
+        indexResolvedVariants();
+    }
+
+    @Override
+    public boolean checkError() {
+        return underlyingWriter.checkError();
+    }
+
+    @Override
+    public void close() {
+        // flush first, as the indexing writer does, so the final position is the start of the terminator block
+        try {
+            outputStream.flush();
+        } catch (final IOException e) {
+            throw new UserException.CouldNotCreateOutputFile(outFile, "could not flush the output", e);
+        }
+        final long end = outputStream.getPosition();
+        underlyingWriter.close();
+        if (indexCreator != null) {
+            indexResolvedVariants();
+            Utils.validate(unindexedVariants.isEmpty(), "all of the variants should have been indexed");
+            final Index index = indexCreator.finalizeIndex(outputStream.resolve(end));
+            try {
+                index.writeBasedOnFeatureFile(outFile);
+            } catch (final IOException e) {
+                throw new UserException.CouldNotCreateOutputFile(outFile, "could not write the index", e);
+            }
+        }
+    }
+
+    /**
+     * Add the variants whose positions in the output are known to the index, in the order they were written, and
+     * release the block addresses that are no longer needed.
+     */
+    private void indexResolvedVariants() {
+        while (!unindexedVariants.isEmpty() && outputStream.isResolved(unindexedVariants.peekFirst().start)) {
+            final PendingVariant pending = unindexedVariants.removeFirst();
+            indexCreator.addFeature(pending.vc, outputStream.resolve(pending.start));
+        }
+        outputStream.releaseBefore(unindexedVariants.isEmpty() ? outputStream.getPosition() : unindexedVariants.peekFirst().start);
+    }
+
+    private static final class PendingVariant {
+        private final VariantContext vc;
+        private final long start;
+
+        private PendingVariant(final VariantContext vc, final long start) {
+            this.vc = vc;
+            this.start = start;
+        }
+    }
+}
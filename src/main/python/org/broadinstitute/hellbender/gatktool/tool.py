@@ -8,12 +8,14 @@ and is used to pass data to Python from Java.
 
 Most of the functions in this module are intended to be called by GATK via
 the StreamingPythonScriptExecutor Java class, and are not called by Python
-code directly. The one exception is the readDataFIFO function, which can be
-used to read data that had been passed to Python by GATK Java code.
+code directly. The exceptions are the readDataFIFO and readDataFIFORecord
+functions, which can be used to read data that had been passed to Python by
+GATK Java code.
 """
 
 import sys
 import os
+import struct
 
 _ackFIFO = None
 _dataFIFO = None
@@ -76,15 +78,16 @@ def terminateGATK():
     _ackFIFO = None
 
 
-def initializeDataFIFO(dataFIFOName: str):
+def initializeDataFIFO(dataFIFOName: str, binary: bool = False):
     """
     Initialize the data FIFO for reading.
 
     Once this method has been called, the FIFO may be read using the
-    readDataFIFO function.
+    readDataFIFO function, or, if binary is True, the readDataFIFORecord
+    function.
     """
     global _dataFIFO
-    _dataFIFO = DataFIFO(dataFIFOName)
+    _dataFIFO = DataFIFO(dataFIFOName, binary)
 
 
 def closeDataFIFO():
@@ -108,6 +111,16 @@ def readDataFIFO() -> str:
     return _dataFIFO.readLine()
 
 
+def readDataFIFORecord() -> 'DataRecord':
+    """
+    Read a length-prefixed binary record from a Data FIFO that was
+    initialized in binary mode.
+    :return: DataRecord
+    """
+    global _dataFIFO
+    return _dataFIFO.readRecord()
+
+
 class AckFIFO:
     """
     Manage the FIFO used to notify GATK (via an ack) that a command has
@@ -154,15 +167,20 @@ class DataFIFO:
     Manage the FIFO stream used for transferring data from the GATK tool to
     Python code.
 
-    The FIFO is written by GATK and read by Python.
+    The FIFO is written by GATK and read by Python, either as lines of text,
+    or, in binary mode, as length-prefixed records written by the Java
+    BinaryRecordBuffer class.
     """
-    def __init__(self, dataFIFOName: str) -> None:
+    _lengthFormat = struct.Struct('<i')
+
+    def __init__(self, dataFIFOName: str, binary: bool = False) -> None:
         """Open the data stream fifo for reading"""
         self.dataFIFOName = dataFIFOName
+        self.binary = binary
 
         # the data fifo is always opened for read only on the python side
         readDescriptor = os.open(self.dataFIFOName, os.O_RDONLY)
-        self.fileReader = os.fdopen(readDescriptor, 'r')
+        self.fileReader = os.fdopen(readDescriptor, 'rb' if binary else 'r')
 
     def readLine(self) -> str:
         """
@@ -173,8 +191,65 @@ class DataFIFO:
             raise RuntimeError("data FIFO reader has not been initialized")
         return self.fileReader.readline()
 
+    def readRecord(self) -> 'DataRecord':
+        """
+        Read a single length-prefixed record from a binary Data FIFO.
+        :return: DataRecord
+        """
+        if self.fileReader is None:
+            raise RuntimeError("data FIFO reader has not been initialized")
+        if not self.binary:
+            raise RuntimeError("data FIFO was not initialized in binary mode")
+        length, = DataFIFO._lengthFormat.unpack(self._readFully(DataFIFO._lengthFormat.size))
+        return DataRecord(self._readFully(length))
+
+    def _readFully(self, size: int) -> bytes:
+        data = self.fileReader.read(size)
+        if len(data) != size:
+            raise EOFError("data FIFO closed in the middle of a record")
+        return data
+
     def close(self):
         if self.fileReader is None:
             raise RuntimeError("data FIFO reader has not been initialized")
         self.fileReader.close()
         self.fileReader = None
+
+
+class DataRecord:
+    """
+    Sequential reader of the fields of a binary record read from the data
+    FIFO. The fields must be read in the order in which they were written by
+    the Java BinaryRecordBuffer class: ints are 4 byte little-endian, booleans
+    are a single byte, and byte arrays and strings are preceded by their
+    length.
+    """
+    _intFormat = struct.Struct('<i')
+
+    def __init__(self, data: bytes) -> None:
+        self.data = data
+        self.offset = 0
+
+    def readInt(self) -> int:
+        value, = DataRecord._intFormat.unpack_from(self.data, self.offset)
+        self.offset += DataRecord._intFormat.size
+        return value
+
+    def readInts(self, count: int) -> tuple:
+        values = struct.unpack_from('<%di' % count, self.data, self.offset)
+        self.offset += DataRecord._intFormat.size * count
+        return values
+
+    def readBoolean(self) -> bool:
+        value = self.data[self.offset] != 0
+        self.offset += 1
+        return value
+
+    def readBytes(self) -> bytes:
+        length = self.readInt()
+        value = self.data[self.offset:self.offset + length]
+        self.offset += length
+        return value
+
+    def readString(self) -> str:
+        return self.readBytes().decode('utf-8')
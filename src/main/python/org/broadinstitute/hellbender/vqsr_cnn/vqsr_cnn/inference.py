@@ -32,7 +32,7 @@ for i in range(256):
 # ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
 # ~~~~~~~ Inference ~~~~~~~~~~~~~~~
 # ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
-def score_and_write_batch(args, model, file_out, batch_size, python_batch_size, tensor_dir):
+def score_and_write_batch(args, model, file_out, batch_size, python_batch_size, tensor_dir, binary=False):
     '''Score a batch of variants with a CNN model. Write tab delimited temp file with scores.
 
     This function is tightly coupled with the CNNScoreVariants.java
@@ -46,6 +46,7 @@ def score_and_write_batch(args, model, file_out, batch_size, python_batch_size,
         batch_size: The total number of variants available in the fifo
         python_batch_size: the number of variants to process in each inference
         tensor_dir : If this path exists write hd5 files for each tensor (optional for debugging)
+        binary: If True the fifo holds binary records rather than tab delimited lines
     '''
     annotation_batch = []
     reference_batch = []
@@ -54,34 +55,26 @@ def score_and_write_batch(args, model, file_out, batch_size, python_batch_size,
     read_batch = []
 
     for _ in range(batch_size):
-        fifo_line = tool.readDataFIFO()
-        fifo_data = fifo_line.split(defines.SEPARATOR_CHAR)
-
-        variant_data.append(fifo_data[0] + '\t' + fifo_data[1] + '\t' + fifo_data[2] + '\t' + fifo_data[3])
-        reference_batch.append(reference_string_to_tensor(fifo_data[4]))
-        annotation_batch.append(annotation_string_to_tensor(args, fifo_data[5]))
-        variant_types.append(fifo_data[6].strip())
-
-        fidx = 7 # 7 Because above we parsed: contig pos ref alt reference_string annotation variant_type
-        if args.tensor_name in defines.TENSOR_MAPS_2D and len(fifo_data) > fidx:
-            read_tuples = []
-            var = Variant(fifo_data[0], int(fifo_data[1]), fifo_data[2], fifo_data[3], fifo_data[6])
-            while fidx+7 < len(fifo_data):
-                read_tuples.append( Read(fifo_data[fidx],
-                                         list(map(int, fifo_data[fidx+1].split(','))),
-                                         fifo_data[fidx+2],
-                                         bool_from_java(fifo_data[fidx+3]),
-                                         bool_from_java(fifo_data[fidx+4]),
-                                         bool_from_java(fifo_data[fidx+5]),
-                                         int(fifo_data[fidx+6]),
-                                         int(fifo_data[fidx+7])))
-                fidx += READ_ELEMENTS
+        if binary:
+            contig, pos, ref, alt, reference_string, annotation_string, variant_type, read_tuples = \
+                variant_from_fifo_record(tool.readDataFIFORecord())
+        else:
+            contig, pos, ref, alt, reference_string, annotation_string, variant_type, read_tuples = \
+                variant_from_fifo_line(tool.readDataFIFO())
+
+        variant_data.append(contig + '\t' + pos + '\t' + ref + '\t' + alt)
+        reference_batch.append(reference_string_to_tensor(reference_string))
+        annotation_batch.append(annotation_string_to_tensor(args, annotation_string))
+        variant_types.append(variant_type.strip())
+
+        if args.tensor_name in defines.TENSOR_MAPS_2D and read_tuples is not None:
+            var = Variant(contig, int(pos), ref, alt, variant_type)
             _, ref_start, _ = get_variant_window(args, var)
             insert_dict = get_inserts(args, read_tuples, var)
             tensor = read_tuples_to_read_tensor(args, read_tuples, ref_start, insert_dict)
-            reference_sequence_into_tensor(args, fifo_data[4], tensor, insert_dict)
+            reference_sequence_into_tensor(args, reference_string, tensor, insert_dict)
             if os.path.exists(tensor_dir):
-                _write_tensor_to_hd5(args, tensor, annotation_batch[-1], fifo_data[0], fifo_data[1], fifo_data[6])
+                _write_tensor_to_hd5(args, tensor, annotation_batch[-1], contig, pos, variant_type)
             read_batch.append(tensor)
 
     if args.tensor_name in defines.TENSOR_MAPS_1D:
@@ -106,6 +99,65 @@ def score_and_write_batch(args, model, file_out, batch_size, python_batch_size,
             file_out.write(variant_data[i]+'\t{0:.3f}'.format(max(snp_scores[i], indel_scores[i]))+'\n')
 
 
+def variant_from_fifo_line(fifo_line):
+    '''Parse a tab delimited line written to the fifo by CNNScoreVariants.java.
+
+    Returns:
+        contig, pos, ref, alt, reference_string, annotation_string, variant_type, read_tuples
+        where read_tuples is None if the line has no read fields
+    '''
+    fifo_data = fifo_line.split(defines.SEPARATOR_CHAR)
+    read_tuples = None
+    fidx = 7 # 7 Because we parse: contig pos ref alt reference_string annotation variant_type
+    if len(fifo_data) > fidx:
+        read_tuples = []
+        while fidx+7 < len(fifo_data):
+            read_tuples.append( Read(fifo_data[fidx],
+                                     list(map(int, fifo_data[fidx+1].split(','))),
+                                     fifo_data[fidx+2],
+                                     bool_from_java(fifo_data[fidx+3]),
+                                     bool_from_java(fifo_data[fidx+4]),
+                                     bool_from_java(fifo_data[fidx+5]),
+                                     int(fifo_data[fidx+6]),
+                                     int(fifo_data[fidx+7])))
+            fidx += READ_ELEMENTS
+    return fifo_data[0], fifo_data[1], fifo_data[2], fifo_data[3], fifo_data[4], fifo_data[5], fifo_data[6], read_tuples
+
+
+def variant_from_fifo_record(record):
+    '''Parse a binary record written to the fifo by CNNScoreVariants.java.
+
+    Read cigars are transferred as BAM packed ints (length << 4 | operator code),
+    and are returned as (operator code, length) tuples, like cigar_string_to_tuples.
+
+    Returns:
+        contig, pos, ref, alt, reference_string, annotation_string, variant_type, read_tuples
+        where read_tuples is None if the record has no reads field
+    '''
+    contig = record.readString()
+    pos = str(record.readInt())
+    ref = record.readString()
+    alt = record.readString()
+    reference_string = record.readString()
+    annotation_string = record.readString()
+    variant_type = record.readString()
+    read_count = record.readInt()
+    read_tuples = None
+    if read_count >= 0:
+        read_tuples = []
+        for _ in range(read_count):
+            seq = record.readString()
+            qual = list(record.readBytes())
+            cigar = [(packed & 0xf, packed >> 4) for packed in record.readInts(record.readInt())]
+            read_tuples.append(Read(seq, qual, cigar,
+                                    record.readBoolean(),
+                                    record.readBoolean(),
+                                    record.readBoolean(),
+                                    record.readInt(),
+                                    record.readInt()))
+    return contig, pos, ref, alt, reference_string, annotation_string, variant_type, read_tuples
+
+
 def reference_string_to_tensor(reference):
     dna_data = np.zeros((len(reference), len(defines.DNA_SYMBOLS)))
     for i,b in enumerate(reference):
@@ -162,9 +214,10 @@ def get_inserts(args, read_tuples, variant, sort_by='base'):
         if abs(index_dif) >= args.window_size:
             continue
 
-        if 'I' in read.cigar:
+        cigar_tuples = cigar_string_to_tuples(read.cigar)
+        if any(t[0] == defines.CIGAR_CODE['I'] for t in cigar_tuples):
             cur_idx = 0
-            for t in cigar_string_to_tuples(read.cigar):
+            for t in cigar_tuples:
                 if t[0] == defines.CIGAR_CODE['I']:
                     insert_idx = cur_idx - index_dif
                     if insert_idx not in insert_dict:
@@ -206,6 +259,9 @@ def get_base_to_sort_by(read, variant):
 def cigar_string_to_tuples(cigar):
     if not cigar or len(cigar) == 0:
         return []
+    if not isinstance(cigar, str):
+        # cigars of reads transferred in binary records are already tuples
+        return cigar
     parts = defines.CIGAR_REGEX.findall(cigar)
     # reverse order
     return [(defines.CIGAR2CODE[y], int(x)) for x,y in parts]
@@ -97,6 +97,29 @@ public final class FeatureDataSourceUnitTest extends GATKBaseTest {
         }
     }
 
+    @Test
+    public void testCompleteIterationWithDecompressionThreads() {
+        final File blockCompressedVCF = new File(toolsTestDir + "spark/sv/utils/SVContext.vcf.gz");
+        final List<String> expected;
+        try ( FeatureDataSource<VariantContext> featureSource = new FeatureDataSource<>(blockCompressedVCF) ) {
+            expected = toVariantStrings(featureSource.iterator());
+        }
+        Assert.assertFalse(expected.isEmpty());
+
+        try ( FeatureDataSource<VariantContext> featureSource = new FeatureDataSource<>(new FeatureInput<>(blockCompressedVCF.getAbsolutePath()),
+                FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES, VariantContext.class, 0, 0, null, 4) ) {
+            Assert.assertEquals(toVariantStrings(featureSource.iterator()), expected);
+            // a second traversal closes the first one and starts from the beginning again
+            Assert.assertEquals(toVariantStrings(featureSource.iterator()), expected);
+        }
+    }
+
+    private static List<String> toVariantStrings( final Iterator<VariantContext> iterator ) {
+        final List<String> variants = new ArrayList<>();
+        iterator.forEachRemaining(vc -> variants.add(vc.toStringDecodeGenotypes()));
+        return variants;
+    }
+
     @DataProvider(name = "TraversalByIntervalsTestData")
     public Object[][] getTraversalByIntervalsTestData() {
         // Intervals for traversal + expected Variant IDs
@@ -351,6 +351,46 @@ public final class ReadsDataSourceUnitTest extends GATKBaseTest {
         }
     }
 
+    @Test(dataProvider = "MultipleFilesCompleteTraversalData")
+    public void testMultipleFilesCompleteTraversalWithDecompressionThreads( final List<Path> samFiles, final List<String> expectedReadNames ) {
+        try (ReadsDataSource readsSource = new ReadsDataSource(samFiles, null, null, 0, 0, 2)) {
+            final List<String> readNames = new ArrayList<>();
+            readsSource.forEach(read -> readNames.add(read.getName()));
+            Assert.assertEquals(readNames, expectedReadNames, "Wrong reads returned in complete traversal of " + samFiles + " with decompression threads");
+        }
+    }
+
+    @Test(dataProvider = "MultipleFilesTraversalWithIntervalsData")
+    public void testMultipleFilesTraversalWithIntervalsAndDecompressionThreads( final List<Path> samFiles, final List<SimpleInterval> intervals, final List<String> expectedReadNames ) {
+        try (ReadsDataSource readsSource = new ReadsDataSource(samFiles, null, null, 0, 0, 2)) {
+            readsSource.setTraversalBounds(intervals);
+
+            final List<String> readNames = new ArrayList<>();
+            readsSource.forEach(read -> readNames.add(read.getName()));
+            Assert.assertEquals(readNames, expectedReadNames, "Wrong reads returned in traversal by intervals of " + samFiles + " with decompression threads");
+        }
+    }
+
+    @Test(dataProvider = "MultipleFilesQueryByIntervalData")
+    public void testMultipleFilesQueryByIntervalWithDecompressionThreads( final List<Path> samFiles, final SimpleInterval interval, final List<String> expectedReadNames ) {
+        try (ReadsDataSource readsSource = new ReadsDataSource(samFiles, null, null, 0, 0, 2)) {
+            final List<String> readNames = new ArrayList<>();
+            readsSource.query(interval).forEachRemaining(read -> readNames.add(read.getName()));
+            Assert.assertEquals(readNames, expectedReadNames, "Wrong reads returned in query by interval of " + samFiles + " with decompression threads");
+        }
+    }
+
+    @Test(dataProvider = "TraversalWithUnmappedReadsTestData")
+    public void testTraversalWithUnmappedReadsAndDecompressionThreads( final Path samFile, final List<SimpleInterval> queryIntervals, final boolean queryUnmapped, final List<String> expectedReadNames ) {
+        try ( ReadsDataSource readsSource = new ReadsDataSource(Collections.singletonList(samFile), null, null, 0, 0, 2) ) {
+            readsSource.setTraversalBounds(queryIntervals, queryUnmapped);
+
+            final List<String> readNames = new ArrayList<>();
+            readsSource.forEach(read -> readNames.add(read.getName()));
+            Assert.assertEquals(readNames, expectedReadNames, "Wrong reads returned in traversal of " + samFile + " with decompression threads");
+        }
+    }
+
     @DataProvider(name = "TraversalWithUnmappedReadsTestData")
     public Object[][] traversalWithUnmappedReadsTestData() {
         // This bam has only mapped reads
@@ -3,6 +3,7 @@ package org.broadinstitute.hellbender.engine;
 
 import org.broadinstitute.barclay.argparser.CommandLineParser;
 import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
+import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.cmdline.TestProgramGroup;
 import org.broadinstitute.hellbender.CommandLineProgramTest;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
@@ -11,6 +12,8 @@ import org.testng.annotations.Test;
 import org.testng.annotations.DataProvider;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 public class TwoPassReadsWalkerUnitTest extends CommandLineProgramTest{
 
@@ -80,4 +83,46 @@ public class TwoPassReadsWalkerUnitTest extends CommandLineProgramTest{
     public Object[][] makeSortedExtensions() {
         return new Object[][] {{"/count_reads_sorted.bam"}, {"/count_reads_sorted.cram"}};
     }
+
+    @CommandLineProgramProperties(
+            summary = "Dummy that records the reads of both passes, modifying them in the first pass",
+            oneLineSummary = "empty class",
+            programGroup = TestProgramGroup.class
+    )
+    private static class recordingTwoPassReadsWalker extends TwoPassReadWalker {
+        final List<String> firstPassReads = new ArrayList<>();
+        final List<String> secondPassReads = new ArrayList<>();
+        @Override
+        protected void firstPassApply(GATKRead read, ReferenceContext referenceContext, FeatureContext featureContext) {
+            firstPassReads.add(read.commonToString() + read.getBasesString() + read.getAttributeAsString("RG"));
+            read.setName("modified");
+        }
+        @Override
+        protected void secondPassApply(GATKRead read, ReferenceContext referenceContext, FeatureContext featureContext) {
+            secondPassReads.add(read.commonToString() + read.getBasesString() + read.getAttributeAsString("RG"));
+        }
+    }
+
+    @DataProvider(name = "firstPassCacheSizes")
+    public Object[][] firstPassCacheSizes() {
+        // all reads spilled to disk, some spilled, and none spilled
+        return new Object[][] {{"/count_reads_sorted.bam", 0}, {"/count_reads_sorted.bam", 3}, {"/count_reads.sam", 100}};
+    }
+
+    @Test(dataProvider = "firstPassCacheSizes")
+    public void testFirstPassCache(final String file, final int recordsInRam) {
+        final recordingTwoPassReadsWalker tool = new recordingTwoPassReadsWalker();
+
+        final String[] args = {
+                "-I", getTestDataDir()+ file,
+                "-R", getTestDataDir()+ "/count_reads.fasta",
+                "--" + StandardArgumentDefinitions.CACHE_FIRST_PASS_LONG_NAME,
+                "--" + StandardArgumentDefinitions.FIRST_PASS_CACHE_RECORDS_IN_RAM_LONG_NAME, Integer.toString(recordsInRam)
+        };
+
+        tool.instanceMain(args);
+
+        Assert.assertEquals(tool.firstPassReads.size(), 8);
+        Assert.assertEquals(tool.secondPassReads, tool.firstPassReads);
+    }
 }
@@ -4,9 +4,14 @@ import htsjdk.variant.variantcontext.VariantContext;
 import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
 import org.broadinstitute.hellbender.GATKBaseTest;
 import org.broadinstitute.hellbender.cmdline.TestProgramGroup;
+import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.testng.Assert;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class TwoPassVariantWalkerUnitTest extends GATKBaseTest {
     @CommandLineProgramProperties(
             summary = "An example subclass of TwoPassVariantWalker",
@@ -18,10 +23,13 @@ public class TwoPassVariantWalkerUnitTest extends GATKBaseTest {
         public int firstPass = 0;
         public int secondPass = 0;
         public boolean visitedAfterFirstPass = false;
+        public final List<String> firstPassVariants = new ArrayList<>();
+        public final List<String> secondPassVariants = new ArrayList<>();
 
         @Override
         protected void firstPassApply(VariantContext variant, ReadsContext readsContext, ReferenceContext referenceContext, FeatureContext featureContext) {
             firstPass++;
+            firstPassVariants.add(variant.toStringDecodeGenotypes());
         }
 
         @Override
@@ -32,6 +40,7 @@ public class TwoPassVariantWalkerUnitTest extends GATKBaseTest {
         @Override
         protected void secondPassApply(VariantContext variant, ReadsContext readsContext, ReferenceContext referenceContext, FeatureContext featureContext) {
             secondPass++;
+            secondPassVariants.add(variant.toStringDecodeGenotypes());
         }
     }
 
@@ -50,4 +59,24 @@ public class TwoPassVariantWalkerUnitTest extends GATKBaseTest {
         Assert.assertTrue(walker.visitedAfterFirstPass);
     }
 
-}
\ No newline at end of file
+    @DataProvider(name = "firstPassCacheSizes")
+    public Object[][] firstPassCacheSizes() {
+        // all variants spilled to disk, some spilled, and none spilled
+        return new Object[][] { {0}, {10}, {100} };
+    }
+
+    @Test(dataProvider = "firstPassCacheSizes")
+    public void testTwoPassTraversalWithFirstPassCache(final int recordsInRam) {
+        final DummyTwoPassVariantWalker walker = new DummyTwoPassVariantWalker();
+        final String testVcf = "src/test/resources/org/broadinstitute/hellbender/tools/walkers/variantutils/VariantsToTable/multiallelic.vcf";
+
+        final String[] args = { "-V", testVcf, "--" + StandardArgumentDefinitions.CACHE_FIRST_PASS_LONG_NAME,
+                "--" + StandardArgumentDefinitions.FIRST_PASS_CACHE_RECORDS_IN_RAM_LONG_NAME, Integer.toString(recordsInRam) };
+
+        walker.instanceMain(args);
+
+        Assert.assertEquals(walker.firstPass, 52);
+        Assert.assertEquals(walker.secondPassVariants, walker.firstPassVariants);
+        Assert.assertTrue(walker.visitedAfterFirstPass);
+    }
+}
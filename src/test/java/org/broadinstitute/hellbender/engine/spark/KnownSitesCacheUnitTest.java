@@ -0,0 +1,17 @@
+package org.broadinstitute.hellbender.engine.spark;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+
+public final class KnownSitesCacheUnitTest extends GATKBaseTest {
+
+    @Test
+    public void testNoKnownSites() {
+        final KnownSitesCache.KnownSites knownSites = KnownSitesCache.getVariants(Collections.emptyList());
+        Assert.assertTrue(knownSites.getOverlapping(new SimpleInterval("1", 1, 1000)).isEmpty());
+    }
+}
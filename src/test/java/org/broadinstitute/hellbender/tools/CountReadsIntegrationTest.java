@@ -4,12 +4,15 @@ import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.hellbender.CommandLineProgramTest;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.cmdline.argumentcollections.IntervalArgumentCollection;
+import org.broadinstitute.hellbender.engine.GATKTool;
 import org.broadinstitute.hellbender.utils.test.ArgumentsBuilder;
 import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
 
 public final class CountReadsIntegrationTest extends CommandLineProgramTest {
 
@@ -40,6 +43,24 @@ public final class CountReadsIntegrationTest extends CommandLineProgramTest {
         };
     }
 
+    @Test
+    public void testRuntimeMetricsOutput() throws Exception {
+        final File metrics = createTempFile("count_reads_metrics", ".tsv");
+        final ArgumentsBuilder args = new ArgumentsBuilder();
+        args.add("--input");
+        args.add(new File(getTestDataDir(), "count_reads.bam").getAbsolutePath());
+        args.add("--" + GATKTool.RUNTIME_METRICS_OUTPUT_LONG_NAME);
+        args.add(metrics.getAbsolutePath());
+        args.add("--" + GATKTool.RUNTIME_METRICS_FORMAT_LONG_NAME);
+        args.add("TSV");
+        Assert.assertEquals(this.runCommandLine(args.getArgsArray()), 8l);
+
+        final List<String> lines = Files.readAllLines(metrics.toPath());
+        Assert.assertTrue(lines.contains("reads.decoded\tcounter\tcount\t8"), lines.toString());
+        Assert.assertTrue(lines.contains("reads.filtered\tgauge\tvalue\t0"), lines.toString());
+        Assert.assertTrue(lines.contains("traversal.reads.processed\tgauge\tvalue\t8"), lines.toString());
+    }
+
     @DataProvider(name="intervals")
     public Object[][] intervals(){
         return new Object[][]{
@@ -124,4 +124,21 @@ public final class CollectAllelicCountsIntegrationTest extends CommandLineProgra
         final AllelicCountCollection countsResult = new AllelicCountCollection(outputFile);
         Assert.assertEquals(countsExpected, countsResult);
     }
-}
\ No newline at end of file
+
+    @Test(dataProvider = "testData")
+    public void testWithDownsamplingAbovePileupDepth(final File inputBAMFile,
+                                                     final AllelicCountCollection countsExpected) {
+        // requesting downsampling switches to the pileup-based traversal, which must give the same counts
+        final File outputFile = createTempFile("collect-allelic-counts-test-output", ".tsv");
+        final String[] arguments = {
+                "-" + StandardArgumentDefinitions.INPUT_SHORT_NAME, inputBAMFile.getAbsolutePath(),
+                "-L", SITES_FILE.getAbsolutePath(),
+                "-" + StandardArgumentDefinitions.REFERENCE_SHORT_NAME, REFERENCE_FILE.getAbsolutePath(),
+                "-" + StandardArgumentDefinitions.OUTPUT_SHORT_NAME, outputFile.getAbsolutePath(),
+                "--maxDepthPerSample", "100000"
+        };
+        runCommandLine(arguments);
+        final AllelicCountCollection countsResult = new AllelicCountCollection(outputFile);
+        Assert.assertEquals(countsExpected, countsResult);
+    }
+}
@@ -8,6 +8,7 @@ import org.apache.commons.math3.random.RandomDataGenerator;
 import org.apache.commons.math3.stat.descriptive.moment.StandardDeviation;
 import org.broadinstitute.hdf5.HDF5File;
 import org.broadinstitute.hellbender.CommandLineProgramTest;
+import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.tools.copynumber.arguments.CopyNumberStandardArgument;
 import org.broadinstitute.hellbender.tools.copynumber.denoising.HDF5SVDReadCountPanelOfNormals;
 import org.broadinstitute.hellbender.tools.copynumber.denoising.SVDDenoisedCopyRatioResult;
@@ -47,6 +48,8 @@ public final class CreateReadCountPanelOfNormalsIntegrationTest extends CommandL
     private static final int NUM_GOOD_SAMPLES = 95;
     private static final int NUM_BAD_SAMPLES_WITH_TOO_MANY_ZEROS = 5;
     private static final int NUM_SAMPLES = NUM_GOOD_SAMPLES + NUM_BAD_SAMPLES_WITH_TOO_MANY_ZEROS;
+    private static final int NUM_APPENDED_SAMPLES = 20;
+    private static final double APPENDED_SINGULAR_VALUE_RELATIVE_TOLERANCE = 0.05;
 
     private static final int NUM_GOOD_INTERVALS = 95;
     private static final int NUM_BAD_INTERVALS_WITH_TOO_MANY_ZEROS = 5;
@@ -229,6 +232,20 @@ public final class CreateReadCountPanelOfNormalsIntegrationTest extends CommandL
     public void test(final List<File> inputFiles,
                      final File annotatedIntervalsFile,
                      final int expectedNumberOfEigenvalues) {
+        testWithSVDMethod(inputFiles, annotatedIntervalsFile, expectedNumberOfEigenvalues, HDF5SVDReadCountPanelOfNormals.SVDMethod.SPARK);
+    }
+
+    @Test(dataProvider = "dataPanelOfNormals")
+    public void testRandomizedSVD(final List<File> inputFiles,
+                                  final File annotatedIntervalsFile,
+                                  final int expectedNumberOfEigenvalues) {
+        testWithSVDMethod(inputFiles, annotatedIntervalsFile, expectedNumberOfEigenvalues, HDF5SVDReadCountPanelOfNormals.SVDMethod.RANDOMIZED);
+    }
+
+    private void testWithSVDMethod(final List<File> inputFiles,
+                                   final File annotatedIntervalsFile,
+                                   final int expectedNumberOfEigenvalues,
+                                   final HDF5SVDReadCountPanelOfNormals.SVDMethod svdMethod) {
         final File resultOutputFile = createTempFile("create-read-count-panel-of-normals-test", ".tsv");
         final ArgumentsBuilder argsBuilder = new ArgumentsBuilder()
                 .addArgument(CreateReadCountPanelOfNormals.MINIMUM_INTERVAL_MEDIAN_PERCENTILE_LONG_NAME, Double.toString(MINIMUM_INTERVAL_MEDIAN_PERCENTILE))
@@ -236,13 +253,78 @@ public final class CreateReadCountPanelOfNormalsIntegrationTest extends CommandL
                 .addArgument(CreateReadCountPanelOfNormals.MAXIMUM_ZEROS_IN_INTERVAL_PERCENTAGE_LONG_NAME, Double.toString(MAXIMUM_ZEROS_IN_INTERVAL_PERCENTAGE))
                 .addArgument(CreateReadCountPanelOfNormals.EXTREME_SAMPLE_MEDIAN_PERCENTILE_LONG_NAME, Double.toString(EXTREME_SAMPLE_MEDIAN_PERCENTILE))
                 .addArgument(CopyNumberStandardArgument.NUMBER_OF_EIGENSAMPLES_LONG_NAME, Integer.toString(NUMBER_OF_EIGENVALUES_REQUESTED))
+                .addArgument(CreateReadCountPanelOfNormals.SVD_METHOD_LONG_NAME, svdMethod.name())
+                .addOutput(resultOutputFile);
+        if (annotatedIntervalsFile != null) {
+            argsBuilder.addFileArgument(CopyNumberStandardArgument.ANNOTATED_INTERVALS_FILE_LONG_NAME, annotatedIntervalsFile);
+        }
+        inputFiles.forEach(argsBuilder::addInput);
+        runCommandLine(argsBuilder);
+        testPanelOfNormals(annotatedIntervalsFile, expectedNumberOfEigenvalues, resultOutputFile, true);
+    }
+
+    private File createPanelOfNormals(final List<File> inputFiles,
+                                      final File annotatedIntervalsFile,
+                                      final HDF5SVDReadCountPanelOfNormals.SVDMethod svdMethod) {
+        final File resultOutputFile = createTempFile("create-read-count-panel-of-normals-test", ".hdf5");
+        final ArgumentsBuilder argsBuilder = new ArgumentsBuilder()
+                .addArgument(CreateReadCountPanelOfNormals.MINIMUM_INTERVAL_MEDIAN_PERCENTILE_LONG_NAME, Double.toString(MINIMUM_INTERVAL_MEDIAN_PERCENTILE))
+                .addArgument(CreateReadCountPanelOfNormals.MAXIMUM_ZEROS_IN_SAMPLE_PERCENTAGE_LONG_NAME, Double.toString(MAXIMUM_ZEROS_IN_SAMPLE_PERCENTAGE))
+                .addArgument(CreateReadCountPanelOfNormals.MAXIMUM_ZEROS_IN_INTERVAL_PERCENTAGE_LONG_NAME, Double.toString(MAXIMUM_ZEROS_IN_INTERVAL_PERCENTAGE))
+                .addArgument(CreateReadCountPanelOfNormals.EXTREME_SAMPLE_MEDIAN_PERCENTILE_LONG_NAME, Double.toString(EXTREME_SAMPLE_MEDIAN_PERCENTILE))
+                .addArgument(CopyNumberStandardArgument.NUMBER_OF_EIGENSAMPLES_LONG_NAME, Integer.toString(NUMBER_OF_EIGENVALUES_REQUESTED))
+                .addArgument(CreateReadCountPanelOfNormals.SVD_METHOD_LONG_NAME, svdMethod.name())
                 .addOutput(resultOutputFile);
         if (annotatedIntervalsFile != null) {
             argsBuilder.addFileArgument(CopyNumberStandardArgument.ANNOTATED_INTERVALS_FILE_LONG_NAME, annotatedIntervalsFile);
         }
         inputFiles.forEach(argsBuilder::addInput);
         runCommandLine(argsBuilder);
-        testPanelOfNormals(annotatedIntervalsFile, expectedNumberOfEigenvalues, resultOutputFile);
+        return resultOutputFile;
+    }
+
+    @Test(dataProvider = "dataPanelOfNormals")
+    public void testAppend(final List<File> inputFiles,
+                           final File annotatedIntervalsFile,
+                           final int expectedNumberOfEigenvalues) {
+        //create the panel from all but the last samples (including all bad samples) and append the last samples
+        final File initialOutputFile = createPanelOfNormals(
+                inputFiles.subList(0, NUM_SAMPLES - NUM_APPENDED_SAMPLES), annotatedIntervalsFile, HDF5SVDReadCountPanelOfNormals.SVDMethod.RANDOMIZED);
+        final File resultOutputFile = createTempFile("create-read-count-panel-of-normals-test", ".hdf5");
+        final ArgumentsBuilder appendArgsBuilder = new ArgumentsBuilder()
+                .addFileArgument(CopyNumberStandardArgument.COUNT_PANEL_OF_NORMALS_FILE_LONG_NAME, initialOutputFile)
+                .addOutput(resultOutputFile);
+        inputFiles.subList(NUM_SAMPLES - NUM_APPENDED_SAMPLES, NUM_SAMPLES).forEach(appendArgsBuilder::addInput);
+        runCommandLine(appendArgsBuilder);
+
+        //the fraction-of-variance heuristic is too close to its threshold for some of the test data to be checked for the
+        //appended panel, which differs slightly from the panel created from all samples; compare to that panel instead
+        testPanelOfNormals(annotatedIntervalsFile, expectedNumberOfEigenvalues, resultOutputFile, false);
+        final File expectedOutputFile = createPanelOfNormals(inputFiles, annotatedIntervalsFile, HDF5SVDReadCountPanelOfNormals.SVDMethod.RANDOMIZED);
+        try (final HDF5File appendedFile = new HDF5File(resultOutputFile);
+             final HDF5File expectedFile = new HDF5File(expectedOutputFile)) {
+            final SVDReadCountPanelOfNormals appendedPanelOfNormals = HDF5SVDReadCountPanelOfNormals.read(appendedFile);
+            final SVDReadCountPanelOfNormals expectedPanelOfNormals = HDF5SVDReadCountPanelOfNormals.read(expectedFile);
+            Assert.assertEquals(new Array2DRowRealMatrix(appendedPanelOfNormals.getOriginalReadCounts()),
+                    new Array2DRowRealMatrix(expectedPanelOfNormals.getOriginalReadCounts()));
+            Assert.assertEquals(appendedPanelOfNormals.getPanelIntervals(), expectedPanelOfNormals.getPanelIntervals());
+            for (int i = 0; i < expectedNumberOfEigenvalues; i++) {
+                final double expectedSingularValue = expectedPanelOfNormals.getSingularValues()[i];
+                Assert.assertEquals(appendedPanelOfNormals.getSingularValues()[i], expectedSingularValue, APPENDED_SINGULAR_VALUE_RELATIVE_TOLERANCE * expectedSingularValue);
+            }
+        }
+    }
+
+    @Test(dataProvider = "dataPanelOfNormals", expectedExceptions = UserException.BadInput.class)
+    public void testAppendSampleAlreadyInPanel(final List<File> inputFiles,
+                                               final File annotatedIntervalsFile,
+                                               final int expectedNumberOfEigenvalues) {   //ignored in this test
+        final File initialOutputFile = createPanelOfNormals(inputFiles, annotatedIntervalsFile, HDF5SVDReadCountPanelOfNormals.SVDMethod.RANDOMIZED);
+        final File resultOutputFile = createTempFile("create-read-count-panel-of-normals-test", ".hdf5");
+        runCommandLine(new ArgumentsBuilder()
+                .addFileArgument(CopyNumberStandardArgument.COUNT_PANEL_OF_NORMALS_FILE_LONG_NAME, initialOutputFile)
+                .addInput(inputFiles.get(NUM_SAMPLES - 1))
+                .addOutput(resultOutputFile));
     }
 
     @Test(dataProvider = "dataPanelOfNormals")
@@ -306,7 +388,8 @@ public final class CreateReadCountPanelOfNormalsIntegrationTest extends CommandL
 
     private void testPanelOfNormals(final File annotatedIntervalsFile,
                                     final int expectedNumberOfEigenvalues,
-                                    final File resultOutputFile) {
+                                    final File resultOutputFile,
+                                    final boolean checkFractionOfVarianceExplained) {
         try (final HDF5File hdf5PanelOfNormalsFile = new HDF5File(resultOutputFile)) {
             final SVDReadCountPanelOfNormals panelOfNormals = HDF5SVDReadCountPanelOfNormals.read(hdf5PanelOfNormalsFile);
 
@@ -330,13 +413,15 @@ public final class CreateReadCountPanelOfNormalsIntegrationTest extends CommandL
             Assert.assertEquals(panelOfNormals.getPanelIntervalFractionalMedians().length, NUM_GOOD_INTERVALS);
 
             //check that correct number of significant eigenvalues is found (this is a bit heuristic and may fail if test data is changed
-            final double totalVariance = DoubleStream.of(panelOfNormals.getSingularValues()).map(x -> x * x).sum();
-            final double fractionOfVarianceExplainedMissingLastEigenvalue = IntStream.range(0, expectedNumberOfEigenvalues - 1)
-                    .mapToDouble(i -> panelOfNormals.getSingularValues()[i]).map(x -> x * x).sum() / totalVariance;
-            Assert.assertTrue(fractionOfVarianceExplainedMissingLastEigenvalue < FRACTION_OF_VARIANCE_EXPLAINED_THRESHOLD);
-            final double fractionOfVarianceExplained = IntStream.range(0, expectedNumberOfEigenvalues)
-                    .mapToDouble(i -> panelOfNormals.getSingularValues()[i]).map(x -> x * x).sum() / totalVariance;
-            Assert.assertTrue(fractionOfVarianceExplained > FRACTION_OF_VARIANCE_EXPLAINED_THRESHOLD);
+            if (checkFractionOfVarianceExplained) {
+                final double totalVariance = DoubleStream.of(panelOfNormals.getSingularValues()).map(x -> x * x).sum();
+                final double fractionOfVarianceExplainedMissingLastEigenvalue = IntStream.range(0, expectedNumberOfEigenvalues - 1)
+                        .mapToDouble(i -> panelOfNormals.getSingularValues()[i]).map(x -> x * x).sum() / totalVariance;
+                Assert.assertTrue(fractionOfVarianceExplainedMissingLastEigenvalue < FRACTION_OF_VARIANCE_EXPLAINED_THRESHOLD);
+                final double fractionOfVarianceExplained = IntStream.range(0, expectedNumberOfEigenvalues)
+                        .mapToDouble(i -> panelOfNormals.getSingularValues()[i]).map(x -> x * x).sum() / totalVariance;
+                Assert.assertTrue(fractionOfVarianceExplained > FRACTION_OF_VARIANCE_EXPLAINED_THRESHOLD);
+            }
 
             //check dimensions of eigenvectors
             final RealMatrix eigensampleVectors = new Array2DRowRealMatrix(panelOfNormals.getEigensampleVectors());
@@ -41,7 +41,9 @@ public final class AlleleFractionModellerUnitTest extends GATKBaseTest {
         final double minorAlleleFractionPriorAlpha = 1.;
         final AlleleFractionPrior prior = new AlleleFractionPrior(minorAlleleFractionPriorAlpha);
         final int numSegments = 50;
-        final double averageHetsPerSegment = 50.;
+        // each het's bias (standard deviation 0.2) and binomial noise leave a sampling error in the mean bias of roughly
+        // 0.007 for 2500 hets, which is too close to the tolerance; 10000 hets halve it
+        final double averageHetsPerSegment = 200.;
         final double averageDepth = 50.;
         final int numSamples = 150;
         final int numBurnIn = 50;
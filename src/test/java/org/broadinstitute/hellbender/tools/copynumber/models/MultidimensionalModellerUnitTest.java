@@ -49,7 +49,8 @@ public final class MultidimensionalModellerUnitTest extends GATKBaseTest {
         final AlleleFractionGlobalParameters globalParametersAF = new AlleleFractionGlobalParameters(meanBiasAF, biasVarianceAF, outlierProbabilityAF);
         final double minorAlleleFractionPriorAlpha = 1.;
         final AlleleFractionPrior priorAF = new AlleleFractionPrior(minorAlleleFractionPriorAlpha);
-        final double averageHetsPerSegment = 50.;
+        // as in AlleleFractionModellerUnitTest, 10000 hets keep the sampling error of the mean bias well within tolerance
+        final double averageHetsPerSegment = 400.;
         final double averageDepthAF = 50.;
 
         //similar-segment merging parameters
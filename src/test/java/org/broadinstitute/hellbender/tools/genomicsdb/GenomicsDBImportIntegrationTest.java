@@ -1,5 +1,6 @@
 package org.broadinstitute.hellbender.tools.genomicsdb;
 
+import com.intel.genomicsdb.ChromosomeInterval;
 import com.intel.genomicsdb.GenomicsDBFeatureReader;
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.SAMSequenceRecord;
@@ -215,6 +216,59 @@ public final class GenomicsDBImportIntegrationTest extends CommandLineProgramTes
         checkJSONFilesAreWritten(workspace);
         checkGenomicsDBAgainstExpected(workspace, INTERVAL, COMBINED, b38_reference_20_21, true);
     }
+
+    @Test(dataProvider = "getThreads")
+    public void testImportMultipleIntervalsInParallel(final int threads) throws IOException {
+        final SimpleInterval secondInterval = new SimpleInterval("chr20", INTERVAL.getEnd() + 1, INTERVAL.getEnd() + 10000);
+        final List<SimpleInterval> intervals = Arrays.asList(INTERVAL, secondInterval);
+        final String workspace = createTempDir("genomicsdb-tests-").getAbsolutePath() + "/workspace";
+        final String serialWorkspace = createTempDir("genomicsdb-tests-").getAbsolutePath() + "/workspace";
+
+        writeMultipleIntervalsToGenomicsDB(intervals, workspace, threads, 2, 1024L * 1024L);
+        writeMultipleIntervalsToGenomicsDB(intervals, serialWorkspace, threads, 1, 0L);
+
+        // every interval imported in parallel within the buffer budget matches the same interval imported serially
+        for (final SimpleInterval interval : intervals) {
+            final String partitionName = GenomicsDBImport.getWorkspacePartitionName(new ChromosomeInterval(interval.getContig(), interval.getStart(), interval.getEnd()));
+            final String partition = workspace + "/" + partitionName;
+            checkJSONFilesAreWritten(partition);
+            checkGenomicsDBPartitionsAreEqual(partition, serialWorkspace + "/" + partitionName, interval);
+        }
+        checkGenomicsDBAgainstExpected(workspace + "/" + GenomicsDBImport.getWorkspacePartitionName(new ChromosomeInterval(INTERVAL.getContig(), INTERVAL.getStart(), INTERVAL.getEnd())),
+                INTERVAL, COMBINED, b38_reference_20_21, true);
+    }
+
+    @Test(expectedExceptions = CommandLineException.BadArgumentValue.class)
+    public void testVCFBufferBudgetTooSmallForConcurrentImports() {
+        final SimpleInterval secondInterval = new SimpleInterval("chr20", INTERVAL.getEnd() + 1, INTERVAL.getEnd() + 10000);
+        final String workspace = createTempDir("genomicsdb-tests-").getAbsolutePath() + "/workspace";
+
+        // batches of 2 samples need 2048 bytes per import, but 2 concurrent imports get 2047 bytes each
+        writeMultipleIntervalsToGenomicsDB(Arrays.asList(INTERVAL, secondInterval), workspace, 1, 2, 2 * 2047L);
+    }
+
+    private void writeMultipleIntervalsToGenomicsDB(final List<SimpleInterval> intervals, final String workspace, final int threads,
+                                                    final int maxNumIntervalsToImportInParallel, final long vcfBufferBudget) {
+        final ArgumentsBuilder args = new ArgumentsBuilder();
+        args.addArgument(GenomicsDBImport.WORKSPACE_ARG_LONG_NAME, workspace);
+        intervals.forEach(interval -> args.addArgument("L", IntervalUtils.locatableToString(interval)));
+        LOCAL_GVCFS.forEach(vcf -> args.addArgument("V", vcf));
+        args.addArgument("batch-size", "2");
+        args.addArgument(GenomicsDBImport.VCF_INITIALIZER_THREADS_LONG_NAME, String.valueOf(threads));
+        args.addArgument(GenomicsDBImport.MAX_NUM_INTERVALS_TO_IMPORT_IN_PARALLEL, String.valueOf(maxNumIntervalsToImportInParallel));
+        args.addArgument(GenomicsDBImport.VCF_BUFFER_BUDGET_ARG_NAME, String.valueOf(vcfBufferBudget));
+        runCommandLine(args);
+    }
+
+    private static void checkGenomicsDBPartitionsAreEqual(final String actualPartition, final String expectedPartition, final SimpleInterval interval) throws IOException {
+        try (final GenomicsDBFeatureReader<VariantContext, PositionalBufferedStream> actualReader = getGenomicsDBFeatureReader(actualPartition, b38_reference_20_21, true);
+             final GenomicsDBFeatureReader<VariantContext, PositionalBufferedStream> expectedReader = getGenomicsDBFeatureReader(expectedPartition, b38_reference_20_21, true);
+             final CloseableTribbleIterator<VariantContext> actualVcs = actualReader.query(interval.getContig(), interval.getStart(), interval.getEnd());
+             final CloseableTribbleIterator<VariantContext> expectedVcs = expectedReader.query(interval.getContig(), interval.getStart(), interval.getEnd())) {
+            BaseTest.assertCondition(actualVcs, expectedVcs, (a, e) -> VariantContextTestUtils.assertVariantContextsAreEqual(a, e, Collections.emptyList()));
+        }
+    }
+
     /**
      *
      * @throws CommandLineException.OutOfRangeArgumentValue  Value must be >= 1024 bytes
@@ -6,10 +6,12 @@ import org.broadinstitute.hellbender.CommandLineProgramTest;
 import org.broadinstitute.hellbender.GATKBaseTest;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.tools.walkers.bqsr.BQSRTestData;
+import org.broadinstitute.hellbender.tools.walkers.bqsr.CreateKnownSitesIndex;
 import org.broadinstitute.hellbender.utils.test.IntegrationTestSpec;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.test.SamAssertionUtils;
 import org.broadinstitute.hellbender.utils.test.ArgumentsBuilder;
+import org.broadinstitute.hellbender.utils.variant.KnownSitesIndex;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
@@ -143,6 +145,30 @@ public final class BaseRecalibratorSparkIntegrationTest extends CommandLineProgr
         spec.executeTest("testBQSRSpark-" + params.args, this);
     }
 
+    // same inputs and expected output as the multiple known sites cases above, with one of the known sites as an index
+    @Test(dataProvider = "knownSitesIndexJoinStrategies", groups = "spark")
+    public void testBQSRSparkWithKnownSitesIndex(final String joinStrategy) throws IOException {
+        final String localResources = getResourceDir();
+        final File dbSNPb37_chr17_index = createTempFile("dbsnp_132.b37.excluding_sites_after_129.chr17_69k_70k", KnownSitesIndex.FILE_EXTENSION);
+        new CreateKnownSitesIndex().instanceMain(new String[]{
+                "-V", localResources + "dbsnp_132.b37.excluding_sites_after_129.chr17_69k_70k.vcf",
+                "-O", dbSNPb37_chr17_index.getAbsolutePath()});
+
+        final BQSRTest params = new BQSRTest(publicTestDir + "human_g1k_v37.chr17_1Mb.2bit", localResources + "NA12878.chr17_69k_70k.dictFix.bam",
+                dbSNPb37_chr17_index.getAbsolutePath(), "-indels --enable-baq " + " --join-strategy " + joinStrategy + " --known-sites " + localResources + "bqsr.fakeSitesForTesting.b37.chr17.vcf",
+                localResources + "expected.NA12878.chr17_69k_70k.2inputs.txt");
+        ArgumentsBuilder ab = new ArgumentsBuilder().add(params.getCommandLine());
+        IntegrationTestSpec spec = new IntegrationTestSpec(
+                ab.getString(),
+                Arrays.asList(params.expectedFileName));
+        spec.executeTest("testBQSRSparkWithKnownSitesIndex-" + params.args, this);
+    }
+
+    @DataProvider(name = "knownSitesIndexJoinStrategies")
+    public Object[][] createKnownSitesIndexJoinStrategies() {
+        return new Object[][]{ {"BROADCAST"}, {"OVERLAPS_PARTITIONER"} };
+    }
+
     //This data provider is for tests that use reference (but not BAM) files stored in buckets
     @DataProvider(name = "BQSRCloudTest")
     public Object[][] createBQSRCloudTestData() {
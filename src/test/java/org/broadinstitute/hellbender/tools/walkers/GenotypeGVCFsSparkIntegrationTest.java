@@ -0,0 +1,88 @@
+package org.broadinstitute.hellbender.tools.walkers;
+
+import htsjdk.samtools.util.Locatable;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFHeader;
+import org.apache.commons.collections.IteratorUtils;
+import org.broadinstitute.hellbender.CommandLineProgramTest;
+import org.broadinstitute.hellbender.engine.FeatureDataSource;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.test.ArgumentsBuilder;
+import org.broadinstitute.hellbender.utils.test.GenomicsDBTestUtils;
+import org.broadinstitute.hellbender.utils.test.VariantContextTestUtils;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class GenotypeGVCFsSparkIntegrationTest extends CommandLineProgramTest {
+
+    private static final List<String> NO_EXTRA_ARGS = Collections.emptyList();
+    // share the inputs and expected outputs of the walker version
+    private static final File GENOTYPE_GVCFS_TEST_DIR = new File(toolsTestDir, "walkers/GenotypeGVCFs/");
+    private static final File BASE_PAIR_GVCF = new File(GENOTYPE_GVCFS_TEST_DIR, "gvcf.basepairResolution.gvcf");
+    private static final File BASE_PAIR_EXPECTED = new File(GENOTYPE_GVCFS_TEST_DIR, "gvcf.basepairResolution.gatk3.7_30_ga4f720357.output.vcf");
+
+    @DataProvider(name = "gvcfsToGenotype")
+    public Object[][] gvcfsToGenotype() {
+        return new Object[][]{
+                {BASE_PAIR_GVCF, BASE_PAIR_EXPECTED, NO_EXTRA_ARGS},
+                // use a tiny shard size so that sites are spread over many shards
+                {BASE_PAIR_GVCF, BASE_PAIR_EXPECTED, Arrays.asList("--" + GenotypeGVCFsSpark.VARIANT_SHARD_SIZE_LONG_NAME, "100")},
+                {new File(GENOTYPE_GVCFS_TEST_DIR, "gvcfExample1.vcf"), new File(GENOTYPE_GVCFS_TEST_DIR, "gvcfExample1.gatk3.7_30_ga4f720357.expected.vcf"), Arrays.asList("-L", "20")},
+                {new File(GENOTYPE_GVCFS_TEST_DIR, "testUpdatePGT.gvcf"), new File(GENOTYPE_GVCFS_TEST_DIR, "testUpdatePGT.gatk3.7_30_ga4f720357.output.vcf"), NO_EXTRA_ARGS},
+                {new File(GENOTYPE_GVCFS_TEST_DIR, "spanningDel.combined.g.vcf"), new File(GENOTYPE_GVCFS_TEST_DIR, "spanningDel.combined.gatk3.7_30_ga4f720357.expected.vcf"), NO_EXTRA_ARGS},
+                {new File(GENOTYPE_GVCFS_TEST_DIR, "leadingDeletion.g.vcf"), new File(GENOTYPE_GVCFS_TEST_DIR, "leadingDeletionRestrictToStartExpected.vcf"), Arrays.asList("-L", "20:69512-69513")},
+        };
+    }
+
+    @Test(dataProvider = "gvcfsToGenotype", groups = "spark")
+    public void testGenotypesMatchWalker(final File input, final File expected, final List<String> extraArgs) throws Exception {
+        runAndAssertGenotypesMatch(input.getAbsolutePath(), expected, extraArgs);
+    }
+
+    @Test(groups = "spark")
+    public void testGenotypesFromGenomicsDB() throws Exception {
+        final Locatable interval = new SimpleInterval("20", 1, 11_000_000);
+        final File tempGenomicsDB = GenomicsDBTestUtils.createTempGenomicsDB(BASE_PAIR_GVCF, interval);
+        final String genomicsDBUri = GenomicsDBTestUtils.makeGenomicsDBUri(tempGenomicsDB);
+        runAndAssertGenotypesMatch(genomicsDBUri, BASE_PAIR_EXPECTED, NO_EXTRA_ARGS);
+    }
+
+    private void runAndAssertGenotypesMatch(final String input, final File expected, final List<String> extraArgs) throws Exception {
+        final File output = createTempFile("genotypegvcfsspark", ".vcf");
+
+        final ArgumentsBuilder args = new ArgumentsBuilder();
+        args.addReference(new File(b37_reference_20_21))
+                .addArgument("V", input)
+                .addOutput(output);
+        extraArgs.forEach(args::add);
+
+        Utils.resetRandomGenerator();
+        runCommandLine(args);
+
+        // the output header keeps the tool and command line lines, as the walker's does
+        final VCFHeader outputHeader = VariantContextTestUtils.readEntireVCFIntoMemory(output.getAbsolutePath()).getLeft();
+        Assert.assertNotNull(outputHeader.getOtherHeaderLine("GATKCommandLine"));
+        Assert.assertEquals(outputHeader.getOtherHeaderLine("source").getValue(), GenotypeGVCFsSpark.class.getSimpleName());
+
+        final List<VariantContext> expectedVCs = getVariantContexts(expected);
+        final List<VariantContext> actualVCs = getVariantContexts(output);
+        Assert.assertEquals(actualVCs.size(), expectedVCs.size());
+        for (int i = 0; i < actualVCs.size(); i++) {
+            VariantContextTestUtils.assertVariantContextsHaveSameGenotypes(actualVCs.get(i), expectedVCs.get(i));
+        }
+    }
+
+    @SuppressWarnings({"unchecked"})
+    private static List<VariantContext> getVariantContexts(final File vcfFile) {
+        try (final FeatureDataSource<VariantContext> variantContextFeatureDataSource = new FeatureDataSource<>(vcfFile)) {
+            return IteratorUtils.toList(variantContextFeatureDataSource.iterator());
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package org.broadinstitute.hellbender.tools.walkers;
 
 import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.util.Interval;
+import htsjdk.samtools.util.IntervalList;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import org.broadinstitute.hellbender.CommandLineProgramTest;
 import org.broadinstitute.hellbender.engine.ReferenceDataSource;
+import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.GenomeLocParser;
 import org.broadinstitute.hellbender.utils.IntervalUtils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
@@ -90,6 +93,37 @@ public class SplitIntervalsIntegrationTest extends CommandLineProgramTest {
 
     }
 
+    @Test
+    public void testBalanceByReadDensity() {
+        // the reads lie within chr1:10069921-10100092, so the shards over that region should be much smaller than the others
+        final int scatterCount = 4;
+        final File outputDir = createTempDir("output");
+        final String[] args = {
+                "-L", "chr1:10000001-10200000",
+                "-I", publicTestDir + "org/broadinstitute/hellbender/tools/BQSR/HiSeq.1mb.1RG.2k_lines.bam",
+                "-" + SplitIntervals.SCATTER_COUNT_SHORT_NAME, Integer.toString(scatterCount),
+                "--" + SplitIntervals.BALANCE_BY_READ_DENSITY_LONG_NAME,
+                "-O", outputDir.getAbsolutePath()
+        };
+        runCommandLine(args);
+        verifyScatteredFilesExist(scatterCount, outputDir);
+        final List<List<Interval>> shards = getScatteredFiles(scatterCount, outputDir)
+                .map(f -> IntervalList.fromFile(f).getIntervals()).collect(Collectors.toList());
+        final List<Integer> sizes = shards.stream().map(shard -> shard.stream().mapToInt(Interval::length).sum()).collect(Collectors.toList());
+        Assert.assertEquals(sizes.stream().mapToInt(Integer::intValue).sum(), 200000);
+        Assert.assertTrue(sizes.get(0) > 60000, sizes.toString());
+        Assert.assertTrue(sizes.get(1) < 30000 && sizes.get(2) < 30000, sizes.toString());
+        Assert.assertTrue(sizes.get(3) > 60000, sizes.toString());
+
+        // the balancing needs the indices of the reads
+        final String[] unindexed = {
+                "-I", publicTestDir + "org/broadinstitute/hellbender/engine/unindexed.bam",
+                "--" + SplitIntervals.BALANCE_BY_READ_DENSITY_LONG_NAME,
+                "-O", createTempDir("output").getAbsolutePath()
+        };
+        Assert.assertThrows(UserException.MissingIndex.class, () -> runCommandLine(unindexed));
+    }
+
     private static Stream<File> getScatteredFiles(final int scatterCount, final File outputDir) {
         return IntStream.range(0, scatterCount).mapToObj(n -> new File(outputDir, "000" + n + "-scattered.intervals"));
     }
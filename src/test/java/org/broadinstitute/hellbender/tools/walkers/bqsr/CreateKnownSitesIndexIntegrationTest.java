@@ -0,0 +1,52 @@
+package org.broadinstitute.hellbender.tools.walkers.bqsr;
+
+import htsjdk.variant.variantcontext.VariantContext;
+import org.broadinstitute.hellbender.CommandLineProgramTest;
+import org.broadinstitute.hellbender.engine.FeatureDataSource;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.test.ArgumentsBuilder;
+import org.broadinstitute.hellbender.utils.variant.KnownSitesIndex;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+
+public final class CreateKnownSitesIndexIntegrationTest extends CommandLineProgramTest {
+
+    private static String getResourceDir() {
+        return getTestDataDir() + "/BQSR/";
+    }
+
+    private File createIndex(final String vcf) {
+        final File output = createTempFile("known_sites", KnownSitesIndex.FILE_EXTENSION);
+        final ArgumentsBuilder args = new ArgumentsBuilder()
+                .addArgument("V", vcf)
+                .addOutput(output);
+        runCommandLine(args);
+        return output;
+    }
+
+    @Test
+    public void testIndexContainsEverySite() {
+        final String vcf = getResourceDir() + "dbsnp_132.b37.excluding_sites_after_129.chr17_69k_70k.vcf";
+        final KnownSitesIndex index = KnownSitesIndex.open(createIndex(vcf).toPath());
+
+        long count = 0;
+        try (final FeatureDataSource<VariantContext> variants = new FeatureDataSource<>(vcf)) {
+            for (final VariantContext vc : variants) {
+                count++;
+                Assert.assertFalse(index.getOverlapping(new SimpleInterval(vc)).isEmpty(), vc.toString());
+            }
+        }
+        Assert.assertEquals(index.size(), count);
+    }
+
+    @Test(expectedExceptions = UserException.BadInput.class)
+    public void testOutputWithoutExtension() {
+        final ArgumentsBuilder args = new ArgumentsBuilder()
+                .addArgument("V", getResourceDir() + "bqsr.fakeSitesForTesting.b37.chr17.vcf")
+                .addOutput(createTempFile("known_sites", ".vcf"));
+        runCommandLine(args);
+    }
+}
@@ -9,6 +9,9 @@ import org.testng.annotations.Test;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public final class GenotypeLikelihoodCalculatorsUnitTest extends GATKBaseTest {
 
@@ -75,6 +78,34 @@ public final class GenotypeLikelihoodCalculatorsUnitTest extends GATKBaseTest {
         }
     }
 
+    @Test
+    public void testInstancesFromManyThreads() throws Exception {
+        // request growing ploidies and allele counts concurrently, so that the shared tables are expanded while in use
+        final int[][] expected = {{0, 1, 2, 3, 4, 5, 6}, {0, 1, 3, 6, 10, 15, 21}, {0, 1, 4, 10, 20, 35, 56}, {0, 1, 5, 15, 35, 70, 126}};
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                futures.add(executor.submit(() -> {
+                    for (int repeat = 0; repeat < 100; repeat++) {
+                        for (int ploidy = 1; ploidy <= expected.length; ploidy++) {
+                            for (int alleleCount = 1; alleleCount < expected[ploidy - 1].length; alleleCount++) {
+                                final GenotypeLikelihoodCalculator inst = new GenotypeLikelihoodCalculators().getInstance(ploidy, alleleCount);
+                                Assert.assertEquals(inst.genotypeCount(), expected[ploidy - 1][alleleCount]);
+                                Assert.assertEquals(inst.genotypeAlleleCountsAt(inst.genotypeCount() - 1).alleleCountFor(alleleCount - 1), ploidy);
+                            }
+                        }
+                    }
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     @Test(expectedExceptions = IllegalArgumentException.class)
     public void testGenotypeCountOverflow() throws Exception {
         final int genotypeCount = new GenotypeLikelihoodCalculators().genotypeCount(10_000, 10_000);
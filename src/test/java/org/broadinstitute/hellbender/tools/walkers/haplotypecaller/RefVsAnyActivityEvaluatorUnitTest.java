@@ -0,0 +1,183 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMReadGroupRecord;
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.GenotypeBuilder;
+import htsjdk.variant.variantcontext.GenotypesContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.engine.AlignmentContext;
+import org.broadinstitute.hellbender.tools.walkers.genotyper.GenotypeLikelihoodsCalculationModel;
+import org.broadinstitute.hellbender.tools.walkers.genotyper.MinimalGenotypingEngine;
+import org.broadinstitute.hellbender.tools.walkers.genotyper.OutputMode;
+import org.broadinstitute.hellbender.tools.walkers.genotyper.UnifiedArgumentCollection;
+import org.broadinstitute.hellbender.tools.walkers.genotyper.VariantCallContext;
+import org.broadinstitute.hellbender.tools.walkers.genotyper.afcalc.FixedAFCalculatorProvider;
+import org.broadinstitute.hellbender.utils.MathUtils;
+import org.broadinstitute.hellbender.utils.QualityUtils;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.activityprofile.ActivityProfileState;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedSampleList;
+import org.broadinstitute.hellbender.utils.genotyper.SampleList;
+import org.broadinstitute.hellbender.utils.pileup.ReadPileup;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+public final class RefVsAnyActivityEvaluatorUnitTest extends GATKBaseTest {
+    private static final byte MIN_BASE_QUAL = 10;
+    private static final int READ_LENGTH = 21;
+    private static final int LOCUS_OFFSET = 10;
+    private static final int LOCUS_START = 100;
+    private static final SimpleInterval LOCUS = new SimpleInterval("1", LOCUS_START + LOCUS_OFFSET, LOCUS_START + LOCUS_OFFSET);
+    private static final byte REF_BASE = 'A';
+
+    private static SAMFileHeader createHeader(final List<String> samples) {
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader(1, 1, 1000);
+        for (final String sample : samples) {
+            final SAMReadGroupRecord readGroup = new SAMReadGroupRecord("RG_" + sample);
+            readGroup.setSample(sample);
+            header.addReadGroup(readGroup);
+        }
+        return header;
+    }
+
+    private static List<String> sampleNames(final int numSamples) {
+        final List<String> samples = new ArrayList<>();
+        for (int i = 0; i < numSamples; i++) {
+            samples.add("sample" + i);
+        }
+        return samples;
+    }
+
+    private static MinimalGenotypingEngine createActivityGenotypingEngine(final SampleList samples) {
+        final UnifiedArgumentCollection uac = new UnifiedArgumentCollection();
+        uac.outputMode = OutputMode.EMIT_VARIANTS_ONLY;
+        uac.genotypeArgs.STANDARD_CONFIDENCE_FOR_CALLING = 4.0;
+        uac.genotypeArgs.samplePloidy = 2;
+        return new MinimalGenotypingEngine(uac, samples, FixedAFCalculatorProvider.createThreadSafeProvider(uac));
+    }
+
+    // a pileup where each read has an alternative base at the locus with the given probability
+    private static ReadPileup randomPileup(final SAMFileHeader header, final List<String> samples, final int depth,
+                                           final double altFraction, final Random rng) {
+        final List<GATKRead> reads = new ArrayList<>();
+        for (int i = 0; i < depth; i++) {
+            final byte[] bases = new byte[READ_LENGTH];
+            final byte[] quals = new byte[READ_LENGTH];
+            Arrays.fill(bases, REF_BASE);
+            for (int j = 0; j < READ_LENGTH; j++) {
+                quals[j] = (byte) (2 + rng.nextInt(39));
+            }
+            if (rng.nextDouble() < altFraction) {
+                bases[LOCUS_OFFSET] = (byte) "CGT".charAt(rng.nextInt(3));
+            }
+            final GATKRead read = ArtificialReadUtils.createArtificialRead(header, "read" + i, 0, LOCUS_START, bases, quals, READ_LENGTH + "M");
+            read.setReadGroup("RG_" + samples.get(rng.nextInt(samples.size())));
+            reads.add(read);
+        }
+        return new ReadPileup(LOCUS, reads, LOCUS_OFFSET);
+    }
+
+    // the computation of HaplotypeCallerEngine#isActive before the introduction of the evaluator
+    private static ActivityProfileState legacyActivityState(final SAMFileHeader header, final SampleList samples,
+                                                            final ReferenceConfidenceModel model,
+                                                            final MinimalGenotypingEngine engine, final ReadPileup pileup) {
+        final int ploidy = engine.getConfiguration().genotypeArgs.samplePloidy;
+        final AlignmentContext context = new AlignmentContext(LOCUS, pileup);
+        final Map<String, AlignmentContext> splitContexts = samples.numberOfSamples() == 1 ?
+                context.splitContextBySampleName(samples.getSample(0), header) : context.splitContextBySampleName(header);
+        final GenotypesContext genotypes = GenotypesContext.create(splitContexts.size());
+        final MathUtils.RunningAverage averageHQSoftClips = new MathUtils.RunningAverage();
+        for (final Map.Entry<String, AlignmentContext> sample : splitContexts.entrySet()) {
+            final double[] genotypeLikelihoods = model.calcGenotypeLikelihoodsOfRefVsAny(ploidy, sample.getValue().getBasePileup(), REF_BASE, MIN_BASE_QUAL, averageHQSoftClips).genotypeLikelihoods;
+            genotypes.add(new GenotypeBuilder(sample.getKey()).alleles(GATKVariantContextUtils.noCallAlleles(ploidy)).PL(genotypeLikelihoods).make());
+        }
+        final double isActiveProb;
+        if (genotypes.size() == 1) {
+            isActiveProb = engine.calculateSingleSampleRefVsAnyActiveStateProfileValue(genotypes.get(0).getLikelihoods().getAsVector());
+        } else {
+            final List<Allele> alleles = Arrays.asList(Allele.create("N", true), Allele.create("<FAKE_ALT>", false));
+            final VariantCallContext vcOut = engine.calculateGenotypes(new VariantContextBuilder("test", LOCUS.getContig(), LOCUS.getStart(), LOCUS.getEnd(), alleles).genotypes(genotypes).make(), GenotypeLikelihoodsCalculationModel.SNP, header);
+            isActiveProb = vcOut == null ? 0.0 : QualityUtils.qualToProb(vcOut.getPhredScaledQual());
+        }
+        return new ActivityProfileState(LOCUS, isActiveProb, averageHQSoftClips.mean() > 6.0 ? ActivityProfileState.Type.HIGH_QUALITY_SOFT_CLIPS : ActivityProfileState.Type.NONE, averageHQSoftClips.mean());
+    }
+
+    @DataProvider(name = "pileups")
+    public Object[][] pileups() {
+        return new Object[][]{
+                //numSamples, depth, altFraction
+                {1, 30, 0.0},
+                {1, 30, 0.02},
+                {1, 30, 0.5},
+                {5, 50, 0.0},
+                {5, 50, 0.05},
+                {5, 50, 0.3},
+                {40, 200, 0.0},
+                {40, 200, 0.01},
+                {40, 200, 0.2}
+        };
+    }
+
+    @Test(dataProvider = "pileups")
+    public void testMatchesLegacyComputation(final int numSamples, final int depth, final double altFraction) {
+        final List<String> sampleNames = sampleNames(numSamples);
+        final SAMFileHeader header = createHeader(sampleNames);
+        final SampleList samples = new IndexedSampleList(sampleNames);
+        final ReferenceConfidenceModel model = new ReferenceConfidenceModel(samples, header, 10, -1);
+        final MinimalGenotypingEngine engine = createActivityGenotypingEngine(samples);
+        final RefVsAnyActivityEvaluator evaluator = new RefVsAnyActivityEvaluator(header, samples, model, engine, MIN_BASE_QUAL, false);
+
+        final Random rng = new Random(numSamples * 1000 + depth);
+        for (int trial = 0; trial < 20; trial++) {
+            final ReadPileup pileup = randomPileup(header, sampleNames, depth, altFraction, rng);
+            final ActivityProfileState expected = legacyActivityState(header, samples, model, engine, pileup);
+            final ActivityProfileState actual = evaluator.evaluate(LOCUS, pileup, REF_BASE);
+            Assert.assertEquals(actual.isActiveProb(), expected.isActiveProb());
+            Assert.assertEquals(actual.getResultState(), expected.getResultState());
+            Assert.assertEquals(actual.getResultValue().doubleValue(), expected.getResultValue().doubleValue());
+        }
+    }
+
+    @Test
+    public void testApproximateQual() {
+        final List<String> sampleNames = sampleNames(10);
+        final SAMFileHeader header = createHeader(sampleNames);
+        final SampleList samples = new IndexedSampleList(sampleNames);
+        final ReferenceConfidenceModel model = new ReferenceConfidenceModel(samples, header, 10, -1);
+        final MinimalGenotypingEngine engine = createActivityGenotypingEngine(samples);
+        final RefVsAnyActivityEvaluator evaluator = new RefVsAnyActivityEvaluator(header, samples, model, engine, MIN_BASE_QUAL, true);
+
+        final Random rng = new Random(7);
+        final ReadPileup reference = randomPileup(header, sampleNames, 100, 0.0, rng);
+        Assert.assertEquals(evaluator.evaluate(LOCUS, reference, REF_BASE).isActiveProb(), 0.0);
+
+        // the closed form agrees with the exact calculation on clear-cut variant sites
+        final ReadPileup variant = randomPileup(header, sampleNames, 100, 0.5, rng);
+        final ActivityProfileState expected = legacyActivityState(header, samples, model, engine, variant);
+        Assert.assertEquals(evaluator.evaluate(LOCUS, variant, REF_BASE).isActiveProb(), expected.isActiveProb(), 1e-6);
+        Assert.assertTrue(expected.isActiveProb() > 0.99);
+    }
+
+    @Test
+    public void testCanSkipReferenceLoci() {
+        final UnifiedArgumentCollection uac = new UnifiedArgumentCollection();
+        uac.genotypeArgs.STANDARD_CONFIDENCE_FOR_CALLING = 4.0;
+        Assert.assertTrue(RefVsAnyActivityEvaluator.canSkipReferenceLoci(uac.genotypeArgs, MIN_BASE_QUAL));
+        Assert.assertFalse(RefVsAnyActivityEvaluator.canSkipReferenceLoci(uac.genotypeArgs, (byte) 0));
+
+        uac.genotypeArgs.snpHeterozygosity = 0.1;
+        Assert.assertFalse(RefVsAnyActivityEvaluator.canSkipReferenceLoci(uac.genotypeArgs, MIN_BASE_QUAL));
+
+        uac.genotypeArgs.snpHeterozygosity = 0.001;
+        uac.genotypeArgs.STANDARD_CONFIDENCE_FOR_CALLING = 0.0;
+        Assert.assertFalse(RefVsAnyActivityEvaluator.canSkipReferenceLoci(uac.genotypeArgs, MIN_BASE_QUAL));
+    }
+}
@@ -1,13 +1,23 @@
 package org.broadinstitute.hellbender.transformers;
 
+import htsjdk.samtools.SAMFileHeader;
+import org.broadinstitute.hellbender.tools.ApplyBQSRArgumentCollection;
 import org.broadinstitute.hellbender.utils.QualityUtils;
+import org.broadinstitute.hellbender.utils.collections.NestedIntegerArray;
+import org.broadinstitute.hellbender.utils.recalibration.EventType;
 import org.broadinstitute.hellbender.utils.recalibration.RecalDatum;
 import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.recalibration.RecalibrationReport;
+import org.broadinstitute.hellbender.utils.recalibration.RecalibrationTables;
 import org.testng.Assert;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 public final class BQSRReadTransformerUnitTest extends GATKBaseTest {
     @Test
@@ -36,6 +46,73 @@ public final class BQSRReadTransformerUnitTest extends GATKBaseTest {
         }
     }
 
+    @DataProvider(name = "recalibrationTables")
+    public Object[][] recalibrationTables() {
+        final String bqsrTestDir = toolsTestDir + "BQSR/";
+        return new Object[][] {
+                // recalibration table, global quality score prior
+                {bqsrTestDir + "HiSeq.20mb.1RG.table.gz", -1.0},
+                {bqsrTestDir + "HiSeq.20mb.1RG.table.gz", 30.0},
+                {bqsrTestDir + "NA12878.oq.gatk4.recal.gz", -1.0},
+                {bqsrTestDir + "NA12878.oq.gatk4.recal.gz", 25.0},
+        };
+    }
+
+    @Test(dataProvider = "recalibrationTables")
+    public void testCompiledTablesMatchHierarchicalBayesianQualityEstimate(final String recalibrationTable, final double globalQScorePrior) {
+        final ApplyBQSRArgumentCollection args = new ApplyBQSRArgumentCollection();
+        args.globalQScorePrior = globalQScorePrior;
+        final BQSRReadTransformer transformer = new BQSRReadTransformer(new SAMFileHeader(), new File(recalibrationTable), args);
+
+        final RecalibrationReport report = new RecalibrationReport(new File(recalibrationTable));
+        final RecalibrationTables tables = report.getRecalibrationTables();
+        final int specialCovariateCount = report.getCovariates().numberOfSpecialCovariates();
+        final int totalCovariateCount = report.getCovariates().size();
+        final int substitutionIndex = EventType.BASE_SUBSTITUTION.ordinal();
+        final int numReadGroups = tables.getReadGroupTable().getDimensions()[0];
+        final int numQuals = tables.getQualityScoreTable().getDimensions()[1];
+        final List<List<NestedIntegerArray.Leaf<RecalDatum>>> covariateLeaves = new ArrayList<>();
+        for (int i = specialCovariateCount; i < totalCovariateCount; i++) {
+            covariateLeaves.add(tables.getTable(i).getAllLeaves());
+        }
+
+        final Random random = new Random(42);
+        for (int n = 0; n < 100_000; n++) {
+            final int[] keySet = new int[totalCovariateCount];
+            // one past the last read group, and two past the last quality, are out of range
+            keySet[0] = random.nextInt(numReadGroups + 1);
+            keySet[1] = random.nextInt(numQuals + 2);
+            for (int i = specialCovariateCount; i < totalCovariateCount; i++) {
+                final List<NestedIntegerArray.Leaf<RecalDatum>> leaves = covariateLeaves.get(i - specialCovariateCount);
+                if (random.nextBoolean() && !leaves.isEmpty()) {
+                    // a covariate value with data, though not necessarily for this read group and quality
+                    keySet[i] = leaves.get(random.nextInt(leaves.size())).keys[2];
+                } else {
+                    // anything from a missing covariate (-1) to out of range keys, most of which have no data
+                    keySet[i] = random.nextInt(tables.getTable(i).getDimensions()[2] + 3) - 1;
+                }
+            }
+
+            final RecalDatum empiricalQualRG = tables.getReadGroupTable().get2Keys(keySet[0], substitutionIndex);
+            final Double actual = transformer.getRecalibratedQualityEstimate(keySet);
+            if (empiricalQualRG == null) {
+                Assert.assertNull(actual, Arrays.toString(keySet));
+                continue;
+            }
+            final double epsilon = globalQScorePrior > 0.0 ? globalQScorePrior : empiricalQualRG.getEstimatedQReported();
+            final RecalDatum empiricalQualQS = tables.getQualityScoreTable().get3Keys(keySet[0], keySet[1], substitutionIndex);
+            final RecalDatum[] empiricalQualCovs = new RecalDatum[totalCovariateCount - specialCovariateCount];
+            for (int i = specialCovariateCount; i < totalCovariateCount; i++) {
+                if (keySet[i] >= 0) {
+                    empiricalQualCovs[i - specialCovariateCount] = tables.getTable(i).get4Keys(keySet[0], keySet[1], keySet[i], substitutionIndex);
+                }
+            }
+            final double expected = BQSRReadTransformer.hierarchicalBayesianQualityEstimate(epsilon, empiricalQualRG, empiricalQualQS, empiricalQualCovs);
+            Assert.assertNotNull(actual, Arrays.toString(keySet));
+            Assert.assertEquals(actual, expected, 1.0E-10, Arrays.toString(keySet));
+        }
+    }
+
     private static  RecalDatum makeRecalDatum(final long count, final double qual){
         return new RecalDatum(count, count * 1.0 / (Math.pow(10.0, qual / 10.0)), (byte)qual);
     }
@@ -0,0 +1,94 @@
+package org.broadinstitute.hellbender.utils;
+
+import htsjdk.tribble.FeatureCodec;
+import org.broadinstitute.barclay.argparser.ClassFinder;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.codecs.table.TableCodec;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public final class ClassIndexUnitTest extends GATKBaseTest {
+    private static final List<String> CODEC_PACKAGES = Arrays.asList("htsjdk.tribble", "org.broadinstitute.hellbender.utils.codecs");
+
+    private static ClassIndex.Index writeAndReadIndex(final Class<?> parentType, final List<String> packageNames) throws IOException {
+        final StringWriter writer = new StringWriter();
+        ClassIndex.writeIndex(parentType, packageNames, writer);
+        return ClassIndex.readIndex(new BufferedReader(new StringReader(writer.toString())));
+    }
+
+    private static HashSet<Class<?>> scan(final Class<?> parentType, final String packageName) {
+        final ClassFinder finder = new ClassFinder();
+        finder.find(packageName, parentType);
+        return new HashSet<>(finder.getClasses());
+    }
+
+    @Test
+    public void testIndexMatchesScan() throws IOException {
+        final ClassIndex.Index index = writeAndReadIndex(FeatureCodec.class, CODEC_PACKAGES);
+        final ClassLoader loader = getClass().getClassLoader();
+        for (final String packageName : CODEC_PACKAGES) {
+            Assert.assertTrue(index.covers(packageName));
+            Assert.assertEquals(new HashSet<>(index.getClasses(packageName, loader)), scan(FeatureCodec.class, packageName));
+        }
+        Assert.assertTrue(new HashSet<>(index.getClasses("org.broadinstitute.hellbender.utils.codecs", loader)).contains(TableCodec.class));
+    }
+
+    @Test
+    public void testIndexCoverage() throws IOException {
+        final ClassIndex.Index index = writeAndReadIndex(FeatureCodec.class, Collections.singletonList("org.broadinstitute.hellbender.utils.codecs"));
+        Assert.assertTrue(index.covers("org.broadinstitute.hellbender.utils.codecs"));
+        Assert.assertFalse(index.covers("org.broadinstitute.hellbender.utils.codecs.table"));
+        Assert.assertFalse(index.covers("org.broadinstitute.hellbender.utils"));
+        Assert.assertFalse(index.covers("org.broadinstitute.hellbender.utils.codecsx"));
+        Assert.assertFalse(index.covers("htsjdk.tribble"));
+    }
+
+    @Test
+    public void testFindClassesWithoutIndexScans() {
+        // the index is only included in the jars, so the classes are found by scanning here
+        final Set<Class<?>> scanned = new HashSet<>();
+        CODEC_PACKAGES.forEach(p -> scanned.addAll(scan(FeatureCodec.class, p)));
+        Assert.assertEquals(ClassIndex.findClasses(FeatureCodec.class, CODEC_PACKAGES), scanned);
+        Assert.assertTrue(ClassIndex.findConcreteClasses(FeatureCodec.class, CODEC_PACKAGES).stream().allMatch(ClassFinder::isConcrete));
+        Assert.assertTrue(ClassIndex.findConcreteClasses(FeatureCodec.class, CODEC_PACKAGES).contains(TableCodec.class));
+    }
+
+    @Test
+    public void testFindClassesInSubpackageScans() {
+        final String subpackage = "org.broadinstitute.hellbender.utils.codecs.table";
+        Assert.assertEquals(ClassIndex.findClasses(FeatureCodec.class, Collections.singletonList(subpackage)), scan(FeatureCodec.class, subpackage));
+    }
+
+    @Test
+    public void testMainWritesIndexes() throws IOException {
+        final File outputDirectory = createTempDir("classIndex");
+        ClassIndex.main(new String[]{outputDirectory.getAbsolutePath()});
+        final File codecIndex = new File(outputDirectory, ClassIndex.INDEX_RESOURCE_DIRECTORY + FeatureCodec.class.getName());
+        try (final BufferedReader reader = Files.newBufferedReader(codecIndex.toPath(), StandardCharsets.UTF_8)) {
+            final ClassIndex.Index index = ClassIndex.readIndex(reader);
+            Assert.assertTrue(index.getClasses("org.broadinstitute.hellbender.utils.codecs", getClass().getClassLoader()).contains(TableCodec.class));
+        }
+        for (final Class<?> indexedType : Arrays.asList(org.broadinstitute.hellbender.cmdline.CommandLineProgram.class, picard.cmdline.CommandLineProgram.class)) {
+            Assert.assertTrue(new File(outputDirectory, ClassIndex.INDEX_RESOURCE_DIRECTORY + indexedType.getName()).isFile());
+        }
+    }
+
+    @Test(expectedExceptions = GATKException.class)
+    public void testIndexWithoutHeader() throws IOException {
+        ClassIndex.readIndex(new BufferedReader(new StringReader("htsjdk.tribble.FeatureCodec\n")));
+    }
+}
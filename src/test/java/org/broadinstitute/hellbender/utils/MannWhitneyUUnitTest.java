@@ -10,6 +10,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 public class MannWhitneyUUnitTest extends GATKBaseTest {
     private static double DELTA_PRECISION = 0.00001;
@@ -91,6 +92,33 @@ public class MannWhitneyUUnitTest extends GATKBaseTest {
         Assert.assertEquals(test.getZ(), Z, DELTA_PRECISION, name);
     }
 
+    @Test
+    public void testUMatchesRanks() {
+        //U1 and U2 are the rank sums of each series minus their minimum, with ties given the mean of their ranks
+        final Random rnd = new Random(13);
+        for (int trial = 0; trial < 200; trial++) {
+            final double[] series1 = rnd.doubles(1 + rnd.nextInt(50)).map(x -> Math.floor(x * 10)).toArray();
+            final double[] series2 = rnd.doubles(1 + rnd.nextInt(50)).map(x -> Math.floor(x * 10)).toArray();
+            final MannWhitneyU.RankedData ranked = rst.calculateRank(series1.clone(), series2.clone());
+            final double expectedNumOfTies = rst.transformTies(series1.length + series2.length, ranked.getNumOfTies());
+            final double[] values = Doubles.concat(series1, series2);
+            double r1 = 0;
+            for (final double x : series1) {
+                //the mean of the 1-based positions of the values equal to this one
+                int less = 0, equal = 0;
+                for (final double y : values) {
+                    if (y < x) less++;
+                    else if (y == x) equal++;
+                }
+                r1 += less + (equal + 1) / 2.0;
+            }
+            final MannWhitneyU.TestStatistic stat = rst.calculateU1andU2(series1, series2);
+            Assert.assertEquals(stat.getU1(), r1 - series1.length * (series1.length + 1) / 2.0, DELTA_PRECISION);
+            Assert.assertEquals(stat.getU1() + stat.getU2(), (double) series1.length * series2.length, DELTA_PRECISION);
+            Assert.assertEquals(stat.getTies(), expectedNumOfTies);
+        }
+    }
+
     @Test
     public void testTooManyTies(){
         ArrayList<Integer> listOfNumberOfTies = new ArrayList<>(Arrays.asList(26,3,6,4,13,18,29,36,60,58,87,63,98,125,158,185,193,171,17592,115,100,141,216,298,451,719,1060,1909,3210,5167,7135,10125,11035,3541,732,9));
@@ -0,0 +1,108 @@
+package org.broadinstitute.hellbender.utils;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+public final class WorkloadBalancedIntervalScattererUnitTest extends GATKBaseTest {
+    private static final int W = WorkloadBalancedIntervalScatterer.WINDOW_SIZE;
+
+    // windows 10 to 19 of contig 1 are ten times as expensive as the others
+    private static final ToDoubleFunction<SimpleInterval> HOTSPOT_COST = window -> {
+        final int windowIndex = (window.getStart() - 1) / W;
+        return window.getContig().equals("1") && windowIndex >= 10 && windowIndex < 20 ? 10.0 : 1.0;
+    };
+
+    private static long totalSize(final List<SimpleInterval> intervals) {
+        return intervals.stream().mapToLong(SimpleInterval::size).sum();
+    }
+
+    private static void assertPartition(final List<SimpleInterval> input, final List<List<SimpleInterval>> shards) {
+        // the shards cover exactly the input bases, in input order
+        final long[] covered = {0};
+        int inputIndex = 0;
+        int position = input.get(0).getStart();
+        for (final List<SimpleInterval> shard : shards) {
+            Assert.assertFalse(shard.isEmpty());
+            for (final SimpleInterval interval : shard) {
+                if (position > input.get(inputIndex).getEnd()) {
+                    inputIndex++;
+                    position = input.get(inputIndex).getStart();
+                }
+                Assert.assertEquals(interval.getContig(), input.get(inputIndex).getContig());
+                Assert.assertEquals(interval.getStart(), position);
+                Assert.assertTrue(interval.getEnd() <= input.get(inputIndex).getEnd());
+                position = interval.getEnd() + 1;
+                covered[0] += interval.size();
+            }
+        }
+        Assert.assertEquals(covered[0], totalSize(input));
+        Assert.assertEquals(inputIndex, input.size() - 1);
+    }
+
+    @DataProvider(name = "scatterCounts")
+    public Object[][] scatterCounts() {
+        return new Object[][]{{1}, {2}, {5}, {17}, {50}};
+    }
+
+    @Test(dataProvider = "scatterCounts")
+    public void testUniformCostMatchesBaseCount(final int scatterCount) {
+        final List<SimpleInterval> intervals = Arrays.asList(new SimpleInterval("1", 1, 1000000), new SimpleInterval("2", 500001, 1500000));
+        final List<List<SimpleInterval>> shards = WorkloadBalancedIntervalScatterer.scatter(intervals, scatterCount, true, window -> 3.0);
+        Assert.assertEquals(shards.size(), scatterCount);
+        assertPartition(intervals, shards);
+        shards.forEach(shard -> Assert.assertEquals(totalSize(shard), 2000000 / scatterCount, 2));
+    }
+
+    @Test(dataProvider = "scatterCounts")
+    public void testExpensiveRegionsGetSmallerShards(final int scatterCount) {
+        final List<SimpleInterval> intervals = Collections.singletonList(new SimpleInterval("1", 1, 40 * W));
+        final List<List<SimpleInterval>> shards = WorkloadBalancedIntervalScatterer.scatter(intervals, scatterCount, true, HOTSPOT_COST);
+        Assert.assertEquals(shards.size(), scatterCount);
+        assertPartition(intervals, shards);
+
+        // the predicted cost of each shard, including the per-base cost, is the same up to rounding to whole bases
+        final double baseCost = WorkloadBalancedIntervalScatterer.BASE_COST_FRACTION * (30 + 100) / (40.0 * W);
+        final double expectedCost = (130.0 + baseCost * 40 * W) / scatterCount;
+        for (final List<SimpleInterval> shard : shards) {
+            final double cost = shard.stream().mapToDouble(interval -> {
+                double c = 0;
+                for (int pos = interval.getStart(); pos <= interval.getEnd(); pos++) {
+                    c += HOTSPOT_COST.applyAsDouble(new SimpleInterval("1", pos, pos)) / W + baseCost;
+                }
+                return c;
+            }).sum();
+            Assert.assertEquals(cost, expectedCost, 1e-3 * expectedCost);
+        }
+    }
+
+    @Test
+    public void testWithoutSubdivision() {
+        final List<SimpleInterval> intervals = Arrays.asList(
+                new SimpleInterval("1", 1, 10 * W),             // cost 10
+                new SimpleInterval("1", 10 * W + 1, 15 * W),    // cost 50
+                new SimpleInterval("1", 15 * W + 1, 20 * W),    // cost 50
+                new SimpleInterval("1", 20 * W + 1, 40 * W));   // cost 20
+        final List<List<SimpleInterval>> shards = WorkloadBalancedIntervalScatterer.scatter(intervals, 3, false, HOTSPOT_COST);
+        Assert.assertEquals(shards, Arrays.asList(
+                Arrays.asList(intervals.get(0), intervals.get(1)),
+                Collections.singletonList(intervals.get(2)),
+                Collections.singletonList(intervals.get(3))));
+    }
+
+    @Test
+    public void testTooFewBases() {
+        final List<SimpleInterval> intervals = Arrays.asList(new SimpleInterval("1", 100, 101), new SimpleInterval("2", 5, 5));
+        final List<List<SimpleInterval>> shards = WorkloadBalancedIntervalScatterer.scatter(intervals, 10, true, HOTSPOT_COST);
+        Assert.assertEquals(shards.size(), 3);
+        assertPartition(intervals, shards);
+
+        Assert.assertEquals(WorkloadBalancedIntervalScatterer.scatter(intervals, 10, false, HOTSPOT_COST).size(), 2);
+    }
+}
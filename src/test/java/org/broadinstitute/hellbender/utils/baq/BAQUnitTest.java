@@ -5,6 +5,7 @@ import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.SAMSequenceRecord;
 import htsjdk.samtools.SAMUtils;
+import htsjdk.samtools.TextCigarCodec;
 import htsjdk.samtools.util.Locatable;
 import java.nio.file.Path;
 import org.broadinstitute.hellbender.engine.ReferenceDataSource;
@@ -24,6 +25,7 @@ import java.io.File;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 public final class BAQUnitTest extends GATKBaseTest {
 
@@ -194,6 +196,51 @@ public final class BAQUnitTest extends GATKBaseTest {
         Assert.assertFalse(read.hasAttribute("BQ"));
     }
 
+    @Test
+    public void testBatchMatchesSingleReads() {
+        final Path reference = IOUtils.getPath(hg19_chr1_1M_Reference);
+        final ReferenceDataSource rds = new ReferenceFileSource(reference);
+        final int contigLength = rds.getSequenceDictionary().getSequence("1").getSequenceLength();
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader(rds.getSequenceDictionary());
+        final Random random = new Random(13);
+
+        // reads of different lengths, so that the matrices of the HMM are reused for shorter and longer reads,
+        // with mismatches and indels, and a last read whose window extends past the end of the contig
+        final List<GATKRead> reads = new ArrayList<>();
+        final String[] cigars = {"76M", "20M2I54M", "30M3D46M", "5S151M", "10M", "250M"};
+        for (int i = 0; i < 30; i++) {
+            final String cigar = cigars[i % cigars.length];
+            final int start = 100000 + 13 * i;
+            final int readLength = TextCigarCodec.decode(cigar).getReadLength();
+            final byte[] bases = rds.queryAndPrefetch("1", start, start + readLength - 1).getBases();
+            final byte[] quals = new byte[bases.length];
+            for (int j = 0; j < bases.length; j++) {
+                if (random.nextInt(20) == 0) {
+                    bases[j] = (byte) "ACGT".charAt(random.nextInt(4));
+                }
+                quals[j] = (byte) (10 + random.nextInt(30));
+            }
+            reads.add(ArtificialReadUtils.createArtificialRead(header, "read" + i, 0, start, bases, quals, cigar));
+        }
+        final GATKRead lastRead = ArtificialReadUtils.createArtificialRead(header, "last", 0, contigLength - 2, 3);
+        lastRead.setCigar("3M");
+        reads.add(lastRead);
+
+        final BAQ baq = new BAQ(1.0e-3, 0.1, 7, (byte) 4);
+        final List<BAQ.BAQCalculationResult> results = baq.calcBAQFromHMM(reads, rds);
+        Assert.assertEquals(results.size(), reads.size());
+        for (int i = 0; i < reads.size(); i++) {
+            final BAQ.BAQCalculationResult expected = baq.calcBAQFromHMM(reads.get(i), rds);
+            if (expected == null) {
+                Assert.assertNull(results.get(i));
+            } else {
+                Assert.assertEquals(results.get(i).bq, expected.bq, "BAQ of read " + i);
+                Assert.assertEquals(results.get(i).state, expected.state, "state of read " + i);
+            }
+        }
+        Assert.assertNull(results.get(reads.size() - 1));
+    }
+
     private void testBAQ(BAQTest test, boolean lookupWithFasta, ReferenceDataSource rds) {
         final int bandWidth = 7;
         final BAQ baqHMM = new BAQ(1.0e-3, 0.1, bandWidth, (byte) 4);         // matches current samtools parameters
@@ -0,0 +1,90 @@
+package org.broadinstitute.hellbender.utils.collections;
+
+import htsjdk.samtools.util.SortingCollection;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class SpillingRecordCacheUnitTest extends GATKBaseTest {
+
+    private static final class StringCodec implements SortingCollection.Codec<String> {
+        private DataOutputStream out;
+        private DataInputStream in;
+
+        @Override
+        public void setOutputStream(final OutputStream os) { out = new DataOutputStream(os); }
+
+        @Override
+        public void setInputStream(final InputStream is) { in = new DataInputStream(is); }
+
+        @Override
+        public void encode(final String val) {
+            try {
+                out.writeUTF(val);
+            } catch (final IOException e) {
+                throw new GATKException("encode", e);
+            }
+        }
+
+        @Override
+        public String decode() {
+            try {
+                return in.readUTF();
+            } catch (final EOFException e) {
+                return null;
+            } catch (final IOException e) {
+                throw new GATKException("decode", e);
+            }
+        }
+
+        @Override
+        public StringCodec clone() { return new StringCodec(); }
+    }
+
+    private static List<String> toList(final Iterable<String> records) {
+        final List<String> result = new ArrayList<>();
+        records.forEach(result::add);
+        return result;
+    }
+
+    @DataProvider(name = "cacheSizes")
+    public Object[][] cacheSizes() {
+        return new Object[][] { {0, 0}, {0, 100}, {10, 100}, {100, 100}, {1000, 100} };
+    }
+
+    @Test(dataProvider = "cacheSizes")
+    public void testReplayInOrder(final int maxRecordsInRam, final int numRecords) throws IOException {
+        final Path tmpDir = createTempDir("spillingRecordCache").toPath();
+        final List<String> records = IntStream.range(0, numRecords).mapToObj(i -> "record" + i).collect(Collectors.toList());
+        try (final SpillingRecordCache<String> cache = new SpillingRecordCache<>(new StringCodec(), maxRecordsInRam, tmpDir)) {
+            records.forEach(cache::add);
+            Assert.assertEquals(cache.size(), numRecords);
+            Assert.assertEquals(cache.getNumSpilledRecords(), Math.max(0, numRecords - maxRecordsInRam));
+
+            // the cache can be replayed more than once
+            Assert.assertEquals(toList(cache), records);
+            Assert.assertEquals(toList(cache), records);
+            Assert.assertEquals(Files.list(tmpDir).count(), numRecords > maxRecordsInRam ? 1 : 0);
+        }
+        Assert.assertEquals(Files.list(tmpDir).count(), 0);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testNoAddAfterIteration() {
+        try (final SpillingRecordCache<String> cache = new SpillingRecordCache<>(new StringCodec(), 1, createTempDir("spillingRecordCache").toPath())) {
+            cache.add("a");
+            cache.iterator();
+            cache.add("b");
+        }
+    }
+}
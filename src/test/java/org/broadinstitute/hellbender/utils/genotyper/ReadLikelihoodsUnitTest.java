@@ -102,6 +102,46 @@ public final class ReadLikelihoodsUnitTest {
         }
     }
 
+    @Test(dataProvider = "dataSets")
+    public void testBestAllelesAreUpdatedAfterChanges(final String[] samples, final Allele[] alleles, final Map<String,List<GATKRead>> reads) {
+        if (alleles.length == 0) {
+            return;
+        }
+        final ReadLikelihoods<Allele> result = new ReadLikelihoods<>(new IndexedSampleList(samples), new IndexedAlleleList<>(alleles), reads);
+        fillWithRandomLikelihoods(samples, alleles, result);
+        assertSameBestAlleles(result, result.copy());
+
+        // make the last allele the best one for every read, after the best alleles have been computed
+        final Random rnd = Utils.getRandomGenerator();
+        for (int s = 0; s < samples.length; s++) {
+            for (int r = 0; r < result.sampleReadCount(s); r++) {
+                result.sampleMatrix(s).set(alleles.length - 1, r, rnd.nextDouble());
+            }
+        }
+        assertSameBestAlleles(result, result.copy());
+
+        result.normalizeLikelihoods(true, -0.01);
+        assertSameBestAlleles(result, result.copy());
+
+        result.filterPoorlyModeledReads(0.0001);
+        assertSameBestAlleles(result, result.copy());
+    }
+
+    private static void assertSameBestAlleles(final ReadLikelihoods<Allele> actual, final ReadLikelihoods<Allele> expected) {
+        final List<ReadLikelihoods<Allele>.BestAllele> actualBestAlleles = new ArrayList<>(actual.bestAllelesBreakingTies());
+        final List<ReadLikelihoods<Allele>.BestAllele> expectedBestAlleles = new ArrayList<>(expected.bestAllelesBreakingTies());
+        Assert.assertEquals(actualBestAlleles.size(), expectedBestAlleles.size());
+        for (int i = 0; i < actualBestAlleles.size(); i++) {
+            Assert.assertSame(actualBestAlleles.get(i).read, expectedBestAlleles.get(i).read);
+            Assert.assertEquals(actualBestAlleles.get(i).allele, expectedBestAlleles.get(i).allele);
+            Assert.assertEquals(actualBestAlleles.get(i).likelihood, expectedBestAlleles.get(i).likelihood);
+            Assert.assertEquals(actualBestAlleles.get(i).confidence, expectedBestAlleles.get(i).confidence);
+        }
+        for (final String sample : actual.samples()) {
+            Assert.assertEquals(actual.bestAllelesBreakingTies(sample).size(), actual.sampleReadCount(actual.indexOfSample(sample)));
+        }
+    }
+
     @Test(dataProvider = "dataSets")
     public void testBestAlleleMap(final String[] samples, final Allele[] alleles, final Map<String,List<GATKRead>> reads) {
         final ReadLikelihoods<Allele> original = new ReadLikelihoods<>(new IndexedSampleList(samples), new IndexedAlleleList<>(alleles), reads);
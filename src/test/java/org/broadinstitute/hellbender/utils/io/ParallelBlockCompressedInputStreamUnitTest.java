@@ -0,0 +1,190 @@
+package org.broadinstitute.hellbender.utils.io;
+
+import htsjdk.samtools.Chunk;
+import htsjdk.samtools.util.BlockCompressedInputStream;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public final class ParallelBlockCompressedInputStreamUnitTest extends GATKBaseTest {
+
+    @DataProvider(name = "streamData")
+    public Object[][] streamData() {
+        return new Object[][] {
+                // numThreads, totalBytes, maxReadSize, flushProbability
+                {1, 0, 1, 0.0},
+                {1, 100, 10, 0.0},
+                {4, 3_000_000, 1000, 0.0},
+                {4, 3_000_000, 200_000, 0.0},
+                // flushes leave blocks of varying sizes
+                {4, 3_000_000, 1000, 0.01},
+                {16, 3_000_000, 70_000, 0.01},
+        };
+    }
+
+    @Test(dataProvider = "streamData")
+    public void testMatchesBlockCompressedInputStream(final int numThreads, final int totalBytes, final int maxReadSize,
+                                                      final double flushProbability) throws IOException {
+        final Random random = new Random(31);
+        final File bgzf = writeBlockCompressedFile(random, totalBytes, flushProbability, null);
+
+        try (final BlockCompressedInputStream expected = new BlockCompressedInputStream(bgzf);
+             final ParallelBlockCompressedInputStream actual = new ParallelBlockCompressedInputStream(Files.newByteChannel(bgzf.toPath()), numThreads)) {
+            final byte[] expectedBuffer = new byte[maxReadSize];
+            final byte[] actualBuffer = new byte[maxReadSize];
+            while (true) {
+                Assert.assertEquals(actual.getFilePointer(), expected.getFilePointer());
+                final int length = 1 + random.nextInt(maxReadSize);
+                final int expectedRead = readFully(expected, expectedBuffer, length);
+                final int actualRead = readFully(actual, actualBuffer, length);
+                Assert.assertEquals(actualRead, expectedRead);
+                if (expectedRead <= 0) {
+                    break;
+                }
+                Assert.assertEquals(Arrays.copyOf(actualBuffer, actualRead), Arrays.copyOf(expectedBuffer, expectedRead));
+            }
+        }
+    }
+
+    @Test(dataProvider = "streamData")
+    public void testReadChunks(final int numThreads, final int totalBytes, final int maxReadSize,
+                               final double flushProbability) throws IOException {
+        final Random random = new Random(37);
+        final long[] positions = new long[totalBytes + 1];
+        final File bgzf = writeBlockCompressedFile(random, totalBytes, flushProbability, positions);
+        final byte[] data = readAll(bgzf);
+
+        // chunks between random pairs of positions, some of which share blocks
+        final List<Integer> boundaries = new ArrayList<>();
+        for (int i = 0; i < positions.length; i++) {
+            if (random.nextDouble() < 0.05) {
+                boundaries.add(i);
+            }
+        }
+        if (boundaries.size() % 2 == 1) {
+            boundaries.remove(boundaries.size() - 1);
+        }
+        final List<Chunk> chunks = new ArrayList<>();
+        final ByteArrayOutputStream expectedBytes = new ByteArrayOutputStream();
+        for (int i = 0; i < boundaries.size(); i += 2) {
+            chunks.add(new Chunk(positions[boundaries.get(i)], positions[boundaries.get(i + 1)]));
+            expectedBytes.write(data, boundaries.get(i), boundaries.get(i + 1) - boundaries.get(i));
+        }
+
+        final ByteArrayOutputStream actualBytes = new ByteArrayOutputStream();
+        try (final ParallelBlockCompressedInputStream actual = new ParallelBlockCompressedInputStream(Files.newByteChannel(bgzf.toPath()), numThreads)) {
+            actual.readChunks(chunks);
+            for (final Chunk chunk : chunks) {
+                actual.seek(chunk.getChunkStart());
+                while (actual.getFilePointer() < chunk.getChunkEnd()) {
+                    final int b = actual.read();
+                    Assert.assertNotEquals(b, -1);
+                    actualBytes.write(b);
+                }
+                Assert.assertEquals(actual.getFilePointer(), chunk.getChunkEnd());
+            }
+        }
+        Assert.assertEquals(actualBytes.toByteArray(), expectedBytes.toByteArray());
+    }
+
+    @Test
+    public void testNoChunks() throws IOException {
+        final File bgzf = writeBlockCompressedFile(new Random(41), 100_000, 0.0, null);
+        try (final ParallelBlockCompressedInputStream actual = new ParallelBlockCompressedInputStream(Files.newByteChannel(bgzf.toPath()), 2)) {
+            actual.readChunks(Collections.emptyList());
+            Assert.assertEquals(actual.read(), -1);
+        }
+    }
+
+    @Test
+    public void testSeekBackwards() throws IOException {
+        final long[] positions = new long[1_000_001];
+        final File bgzf = writeBlockCompressedFile(new Random(43), 1_000_000, 0.0, positions);
+        final byte[] data = readAll(bgzf);
+        try (final ParallelBlockCompressedInputStream actual = new ParallelBlockCompressedInputStream(Files.newByteChannel(bgzf.toPath()), 4)) {
+            final byte[] buffer = new byte[800_000];
+            Assert.assertEquals(readFully(actual, buffer, buffer.length), buffer.length);
+            actual.seek(positions[200_000]);
+            Assert.assertEquals(readFully(actual, buffer, buffer.length), buffer.length);
+            Assert.assertEquals(buffer, Arrays.copyOfRange(data, 200_000, 1_000_000));
+        }
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testTruncatedFile() throws IOException {
+        final File bgzf = writeBlockCompressedFile(new Random(47), 1_000_000, 0.0, null);
+        final byte[] compressed = Files.readAllBytes(bgzf.toPath());
+        Files.write(bgzf.toPath(), Arrays.copyOf(compressed, compressed.length / 2), StandardOpenOption.TRUNCATE_EXISTING);
+        try (final ParallelBlockCompressedInputStream actual = new ParallelBlockCompressedInputStream(Files.newByteChannel(bgzf.toPath()), 2)) {
+            readFully(actual, new byte[1_000_000], 1_000_000);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNoThreads() throws IOException {
+        final File bgzf = writeBlockCompressedFile(new Random(53), 10, 0.0, null);
+        new ParallelBlockCompressedInputStream(Files.newByteChannel(bgzf.toPath()), 0);
+    }
+
+    /**
+     * Write random compressible bytes to a new BGZF file, recording the virtual file pointer of every byte and of the
+     * end of the data in {@code positions} if it isn't null.
+     */
+    private File writeBlockCompressedFile(final Random random, final int totalBytes, final double flushProbability,
+                                          final long[] positions) throws IOException {
+        final File bgzf = createTempFile("ParallelBlockCompressedInputStreamUnitTest", ".gz");
+        try (final BlockCompressedOutputStream out = new BlockCompressedOutputStream(bgzf)) {
+            for (int i = 0; i < totalBytes; i++) {
+                if (positions != null) {
+                    positions[i] = out.getFilePointer();
+                }
+                out.write("ACGT".charAt(random.nextInt(4)));
+                if (random.nextDouble() < flushProbability) {
+                    out.flush();
+                }
+            }
+            if (positions != null) {
+                positions[totalBytes] = out.getFilePointer();
+            }
+        }
+        return bgzf;
+    }
+
+    private static byte[] readAll(final File bgzf) throws IOException {
+        try (final BlockCompressedInputStream in = new BlockCompressedInputStream(bgzf)) {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[65536];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                bytes.write(buffer, 0, read);
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    private static int readFully(final InputStream in, final byte[] buffer, final int length) throws IOException {
+        int total = 0;
+        while (total < length) {
+            final int read = in.read(buffer, total, length - total);
+            if (read <= 0) {
+                return total == 0 ? read : total;
+            }
+            total += read;
+        }
+        return total;
+    }
+}
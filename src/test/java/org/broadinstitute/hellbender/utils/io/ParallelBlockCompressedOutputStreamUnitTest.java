@@ -0,0 +1,200 @@
+package org.broadinstitute.hellbender.utils.io;
+
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.samtools.util.BlockCompressedStreamConstants;
+import htsjdk.samtools.util.zip.DeflaterFactory;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+public final class ParallelBlockCompressedOutputStreamUnitTest extends GATKBaseTest {
+
+    @DataProvider(name = "streamData")
+    public Object[][] streamData() {
+        return new Object[][] {
+                // numThreads, totalBytes, maxWriteSize, flushProbability, compressible
+                {1, 0, 1, 0.0, true},
+                {1, 100, 10, 0.0, true},
+                {4, BlockCompressedStreamConstants.DEFAULT_UNCOMPRESSED_BLOCK_SIZE, 1000, 0.0, true},
+                {4, 3_000_000, 1000, 0.0, true},
+                {4, 3_000_000, 200_000, 0.0, true},
+                {4, 3_000_000, 1000, 0.001, true},
+                // random bytes don't compress, so the blocks are stored
+                {4, 1_000_000, 5000, 0.0, false},
+                {16, 3_000_000, 70_000, 0.01, true},
+        };
+    }
+
+    @Test(dataProvider = "streamData")
+    public void testMatchesBlockCompressedOutputStream(final int numThreads, final int totalBytes, final int maxWriteSize,
+                                                       final double flushProbability, final boolean compressible) throws IOException {
+        final Random random = new Random(17);
+        final byte[] data = makeData(random, totalBytes, compressible);
+
+        final ByteArrayOutputStream expectedBytes = new ByteArrayOutputStream();
+        final ByteArrayOutputStream actualBytes = new ByteArrayOutputStream();
+        try (final BlockCompressedOutputStream expected = new BlockCompressedOutputStream(expectedBytes, (File) null);
+             final ParallelBlockCompressedOutputStream actual = new ParallelBlockCompressedOutputStream(actualBytes, numThreads)) {
+            int offset = 0;
+            while (offset < totalBytes) {
+                final int length = Math.min(1 + random.nextInt(maxWriteSize), totalBytes - offset);
+                expected.write(data, offset, length);
+                actual.write(data, offset, length);
+                if (random.nextDouble() < flushProbability) {
+                    expected.flush();
+                    actual.flush();
+                }
+                offset += length;
+            }
+            expected.write('A');
+            actual.write('A');
+        }
+
+        Assert.assertEquals(actualBytes.toByteArray(), expectedBytes.toByteArray());
+    }
+
+    @Test(dataProvider = "streamData")
+    public void testResolvePositions(final int numThreads, final int totalBytes, final int maxWriteSize,
+                                     final double flushProbability, final boolean compressible) throws IOException {
+        // resolving in order and releasing as we go must give the same positions as BlockCompressedOutputStream
+        final Random random = new Random(29);
+        final byte[] data = makeData(random, totalBytes, compressible);
+        final List<Long> expectedPositions = new ArrayList<>();
+        final List<Long> resolved = new ArrayList<>();
+        final List<Long> unresolved = new ArrayList<>();
+        try (final BlockCompressedOutputStream expected = new BlockCompressedOutputStream(new ByteArrayOutputStream(), (File) null);
+             final ParallelBlockCompressedOutputStream actual = new ParallelBlockCompressedOutputStream(new ByteArrayOutputStream(), numThreads)) {
+            int written = 0;
+            while (written < totalBytes) {
+                final int length = Math.min(1 + random.nextInt(maxWriteSize), totalBytes - written);
+                expectedPositions.add(expected.getFilePointer());
+                unresolved.add(actual.getPosition());
+                expected.write(data, written, length);
+                actual.write(data, written, length);
+                if (random.nextDouble() < flushProbability) {
+                    expected.flush();
+                    actual.flush();
+                }
+                written += length;
+                while (!unresolved.isEmpty() && actual.isResolved(unresolved.get(0))) {
+                    resolved.add(actual.resolve(unresolved.remove(0)));
+                }
+                actual.releaseBefore(unresolved.isEmpty() ? actual.getPosition() : unresolved.get(0));
+            }
+            expected.flush();
+            actual.flush();
+            while (!unresolved.isEmpty()) {
+                Assert.assertTrue(actual.isResolved(unresolved.get(0)));
+                resolved.add(actual.resolve(unresolved.remove(0)));
+            }
+        }
+        Assert.assertEquals(resolved, expectedPositions);
+    }
+
+    private static byte[] makeData(final Random random, final int length, final boolean compressible) {
+        final byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = compressible ? (byte) "ACGT".charAt(random.nextInt(4)) : (byte) random.nextInt();
+        }
+        return data;
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testResolveReleasedPosition() throws IOException {
+        try (final ParallelBlockCompressedOutputStream stream = new ParallelBlockCompressedOutputStream(new ByteArrayOutputStream(), 2)) {
+            final long start = stream.getPosition();
+            stream.write(new byte[3 * BlockCompressedStreamConstants.DEFAULT_UNCOMPRESSED_BLOCK_SIZE]);
+            stream.flush();
+            stream.releaseBefore(stream.getPosition());
+            stream.resolve(start);
+        }
+    }
+
+    @Test
+    public void testCloseAfterFailureWaitsForWorkers() throws IOException {
+        final List<TrackingDeflater> deflaters = Collections.synchronizedList(new ArrayList<>());
+        final DeflaterFactory deflaterFactory = new DeflaterFactory() {
+            @Override
+            public Deflater makeDeflater(final int compressionLevel, final boolean gzipCompatible) {
+                final TrackingDeflater deflater = new TrackingDeflater(compressionLevel, gzipCompatible);
+                deflaters.add(deflater);
+                return deflater;
+            }
+        };
+        final OutputStream failingOut = new OutputStream() {
+            @Override
+            public void write(final int b) throws IOException {
+                throw new IOException("write failed");
+            }
+        };
+
+        final ParallelBlockCompressedOutputStream stream = new ParallelBlockCompressedOutputStream(failingOut, 5, deflaterFactory, 4);
+        try {
+            stream.write(makeData(new Random(31), 3_000_000, true));
+            Assert.fail("writing to the failing stream should have thrown");
+        } catch (final IOException e) {
+            // expected: blocks are still being deflated
+        }
+        try {
+            stream.close();
+        } catch (final IOException e) {
+            // expected: flushing writes to the failing stream
+        }
+
+        // the deflaters are all ended, but only after the workers stopped using them
+        Assert.assertEquals(deflaters.size(), 8);
+        for (final TrackingDeflater deflater : deflaters) {
+            Assert.assertTrue(deflater.ended);
+            Assert.assertFalse(deflater.endedWhileDeflating);
+        }
+    }
+
+    private static final class TrackingDeflater extends Deflater {
+        private volatile boolean deflating = false;
+        private volatile boolean ended = false;
+        private volatile boolean endedWhileDeflating = false;
+
+        private TrackingDeflater(final int level, final boolean nowrap) {
+            super(level, nowrap);
+        }
+
+        @Override
+        public int deflate(final byte[] b, final int off, final int len) {
+            deflating = true;
+            try {
+                // slow down the workers so that blocks are still being deflated when the stream is closed
+                Thread.sleep(5);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            try {
+                return super.deflate(b, off, len);
+            } finally {
+                deflating = false;
+            }
+        }
+
+        @Override
+        public void end() {
+            endedWhileDeflating |= deflating;
+            ended = true;
+            super.end();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNoThreads() {
+        new ParallelBlockCompressedOutputStream(new ByteArrayOutputStream(), 0);
+    }
+}
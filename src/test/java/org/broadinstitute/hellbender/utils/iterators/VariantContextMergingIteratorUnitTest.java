@@ -0,0 +1,113 @@
+package org.broadinstitute.hellbender.utils.iterators;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.variantcontext.VariantContextComparator;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+public class VariantContextMergingIteratorUnitTest extends GATKBaseTest {
+
+    private static final SAMSequenceDictionary DICTIONARY = new SAMSequenceDictionary(Arrays.asList(
+            new SAMSequenceRecord("2", 1000000),
+            new SAMSequenceRecord("1", 1000000),
+            new SAMSequenceRecord("X", 1000000)));
+
+    private static VariantContext makeVariant(final String source, final String contig, final int start) {
+        return new VariantContextBuilder(source, contig, start, start, Collections.singletonList(Allele.create("A", true))).make();
+    }
+
+    private static CloseableIterator<VariantContext> toIterator(final List<VariantContext> variants) {
+        final Iterator<VariantContext> iterator = variants.iterator();
+        return new CloseableIterator<VariantContext>() {
+            @Override
+            public void close() { }
+
+            @Override
+            public boolean hasNext() { return iterator.hasNext(); }
+
+            @Override
+            public VariantContext next() { return iterator.next(); }
+        };
+    }
+
+    @DataProvider(name = "sources")
+    public Object[][] getSources() {
+        return new Object[][] {
+                { Collections.singletonList(Arrays.asList(makeVariant("a", "2", 10), makeVariant("a", "1", 5))) },
+                { Arrays.asList(Collections.emptyList(), Collections.emptyList()) },
+                { Arrays.asList(
+                        Arrays.asList(makeVariant("a", "2", 10), makeVariant("a", "2", 30), makeVariant("a", "X", 1)),
+                        Collections.emptyList(),
+                        Arrays.asList(makeVariant("c", "2", 20), makeVariant("c", "1", 1), makeVariant("c", "1", 100)),
+                        Arrays.asList(makeVariant("d", "1", 50), makeVariant("d", "X", 2), makeVariant("d", "X", 3))) },
+                { Arrays.asList(
+                        Arrays.asList(makeVariant("a", "1", 1), makeVariant("a", "1", 2), makeVariant("a", "1", 3), makeVariant("a", "1", 4)),
+                        Collections.singletonList(makeVariant("b", "2", 1000)),
+                        Collections.singletonList(makeVariant("c", "X", 1))) },
+        };
+    }
+
+    @Test(dataProvider = "sources")
+    public void testMergedInCoordinateOrder(final List<List<VariantContext>> sources) {
+        final List<VariantContext> expected = sources.stream().flatMap(List::stream).collect(Collectors.toList());
+        expected.sort(new VariantContextComparator(DICTIONARY));
+
+        final List<VariantContext> actual = new ArrayList<>();
+        new VariantContextMergingIterator(sources.stream().map(VariantContextMergingIteratorUnitTest::toIterator).collect(Collectors.toList()), DICTIONARY)
+                .forEachRemaining(actual::add);
+
+        Assert.assertEquals(actual, expected);
+    }
+
+    @Test
+    public void testTiesReturnedInSourceOrder() {
+        final List<String> sourceNames = Arrays.asList("a", "b", "c", "d", "e", "f", "g");
+        final List<CloseableIterator<VariantContext>> sources = new ArrayList<>();
+        // add the sources in reverse order of their second record, so that the heap has to reorder them
+        for (int i = 0; i < sourceNames.size(); i++) {
+            sources.add(toIterator(Arrays.asList(makeVariant(sourceNames.get(i), "1", 100), makeVariant(sourceNames.get(i), "1", 200 - i))));
+        }
+
+        final List<VariantContext> actual = new ArrayList<>();
+        new VariantContextMergingIterator(sources, DICTIONARY).forEachRemaining(actual::add);
+
+        Assert.assertEquals(actual.subList(0, sourceNames.size()).stream().map(VariantContext::getSource).collect(Collectors.toList()), sourceNames);
+        final List<String> reversed = new ArrayList<>(sourceNames);
+        Collections.reverse(reversed);
+        Assert.assertEquals(actual.subList(sourceNames.size(), actual.size()).stream().map(VariantContext::getSource).collect(Collectors.toList()), reversed);
+    }
+
+    @Test
+    public void testTiesReturnedInReadOrder() {
+        // "a" reaches position 1000 after "b" has been waiting there, so "b" goes first
+        final List<CloseableIterator<VariantContext>> sources = Arrays.asList(
+                toIterator(Arrays.asList(makeVariant("a", "1", 999), makeVariant("a", "1", 1000), makeVariant("a", "X", 5))),
+                toIterator(Arrays.asList(makeVariant("b", "1", 1000), makeVariant("b", "X", 5))));
+
+        final List<String> actual = new ArrayList<>();
+        new VariantContextMergingIterator(sources, DICTIONARY).forEachRemaining(vc -> actual.add(vc.getSource()));
+
+        Assert.assertEquals(actual, Arrays.asList("a", "b", "a", "b", "a"));
+    }
+
+    @Test(expectedExceptions = NoSuchElementException.class)
+    public void testNextWhenExhausted() {
+        new VariantContextMergingIterator(Collections.singletonList(toIterator(Collections.emptyList())), DICTIONARY).next();
+    }
+
+    @Test(expectedExceptions = UserException.class)
+    public void testContigNotInDictionary() {
+        new VariantContextMergingIterator(Collections.singletonList(toIterator(Collections.singletonList(makeVariant("a", "Y", 1)))), DICTIONARY);
+    }
+}
@@ -0,0 +1,155 @@
+package org.broadinstitute.hellbender.utils.locusiterator;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMReadGroupRecord;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.engine.AlignmentContext;
+import org.broadinstitute.hellbender.engine.ReadsDataSource;
+import org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary;
+import org.broadinstitute.hellbender.engine.filters.WellformedReadFilter;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Nucleotide;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.iterators.IntervalLocusIterator;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadCoordinateComparator;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.*;
+import java.util.stream.Collectors;
+
+public final class LocusBaseCountsIteratorUnitTest extends GATKBaseTest {
+
+    private static final File MINI_BAM = new File("src/test/resources/NA12878.chr17_69k_70k.dictFix.bam");
+    private static final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader(1, 1, 100000);
+
+    private static GATKRead makeRead(final String name, final int start, final String bases, final int qual, final String cigar) {
+        final byte[] quals = new byte[bases.length()];
+        Arrays.fill(quals, (byte) qual);
+        return ArtificialReadUtils.createArtificialRead(header, name, 0, start, bases.getBytes(), quals, cigar);
+    }
+
+    private static List<LocusBaseCounts> countWithIterator(final List<GATKRead> reads, final int minBaseQuality, final boolean includeDeletions) {
+        final List<LocusBaseCounts> result = new ArrayList<>();
+        new LocusBaseCountsIterator(reads.iterator(), minBaseQuality, includeDeletions).forEachRemaining(result::add);
+        return result;
+    }
+
+    private static List<LocusBaseCounts> countWithPileups(final List<GATKRead> reads, final SAMFileHeader header, final List<String> samples,
+                                                          final int minBaseQuality, final boolean includeDeletions) {
+        final LocusIteratorByState libs = new LocusIteratorByState(reads.iterator(), LocusIteratorByState.NO_DOWNSAMPLING, false, samples, header, includeDeletions);
+        final List<LocusBaseCounts> result = new ArrayList<>();
+        while (libs.hasNext()) {
+            final AlignmentContext context = libs.next();
+            result.add(LocusBaseCounts.fromPileup(context, context.getBasePileup(), minBaseQuality));
+        }
+        return result;
+    }
+
+    @DataProvider(name = "countingOptions")
+    public Object[][] countingOptions() {
+        return new Object[][] { {0, true}, {0, false}, {20, true}, {30, false} };
+    }
+
+    @Test(dataProvider = "countingOptions")
+    public void testSameCountsAsPileupsOnBam(final int minBaseQuality, final boolean includeDeletions) {
+        final List<GATKRead> reads;
+        final SAMFileHeader bamHeader;
+        try (final ReadsDataSource source = new ReadsDataSource(MINI_BAM.toPath())) {
+            bamHeader = source.getHeader();
+            reads = Utils.stream(source)
+                    .filter(new WellformedReadFilter(bamHeader).and(new ReadFilterLibrary.MappedReadFilter()))
+                    .collect(Collectors.toList());
+        }
+        final List<String> samples = bamHeader.getReadGroups().stream().map(SAMReadGroupRecord::getSample).distinct().collect(Collectors.toList());
+
+        final List<LocusBaseCounts> expected = countWithPileups(reads, bamHeader, samples, minBaseQuality, includeDeletions);
+        Assert.assertFalse(expected.isEmpty());
+        Assert.assertEquals(countWithIterator(reads, minBaseQuality, includeDeletions), expected);
+    }
+
+    @Test(dataProvider = "countingOptions")
+    public void testSameCountsAsPileupsOnArtificialReads(final int minBaseQuality, final boolean includeDeletions) {
+        final List<GATKRead> reads = new ArrayList<>(Arrays.asList(
+                makeRead("softClipsAndIndels", 5, "AACGTACGTACG", 30, "2S3M1I2M2D4M"),
+                makeRead("lowQuality", 6, "ACNTA", 10, "5M"),
+                makeRead("startsWithInsertion", 7, "GGACGT", 25, "2I4M"),
+                makeRead("refSkip", 9, "ACGTAC", 40, "3M2000N3M"),
+                makeRead("afterSkip", 1500, "TTTT", 40, "4M"),
+                makeRead("lowerCase", 2009, "acgt", 40, "4M")));
+
+        // a forward read of a short fragment, whose last bases are in the adaptor
+        final GATKRead adaptorRead = makeRead("adaptor", 20, "ACGTACGTAC", 30, "10M");
+        adaptorRead.setIsPaired(true);
+        adaptorRead.setMatePosition(header.getSequence(0).getSequenceName(), 18);
+        adaptorRead.setIsReverseStrand(false);
+        adaptorRead.setMateIsReverseStrand(true);
+        adaptorRead.setFragmentLength(6);
+        reads.add(adaptorRead);
+        reads.sort(new ReadCoordinateComparator(header));
+
+        final List<LocusBaseCounts> expected = countWithPileups(reads, header, LocusIteratorByStateBaseTest.sampleListForSAMWithoutReadGroups(), minBaseQuality, includeDeletions);
+        Assert.assertEquals(countWithIterator(reads, minBaseQuality, includeDeletions), expected);
+    }
+
+    @Test
+    public void testCounts() {
+        final List<GATKRead> reads = Arrays.asList(
+                makeRead("read1", 10, "ACGT", 30, "2M1D2M"),
+                makeRead("read2", 11, "CATT", 10, "4M"),
+                makeRead("read3", 11, "CNTT", 40, "4M"));
+
+        final List<LocusBaseCounts> counts = countWithIterator(reads, 20, true);
+        Assert.assertEquals(counts.stream().map(LocusBaseCounts::getStart).collect(Collectors.toList()), Arrays.asList(10, 11, 12, 13, 14));
+
+        final LocusBaseCounts site11 = counts.get(1);
+        Assert.assertEquals(site11.getCount(Nucleotide.C), 2);
+        Assert.assertEquals(site11.getQualitySum(Nucleotide.C), 70);
+        Assert.assertEquals(site11.getLowQualityCount(), 1);
+        Assert.assertEquals(site11.getBaseCount(), 2);
+        Assert.assertEquals(site11.getDepth(), 3);
+
+        final LocusBaseCounts site12 = counts.get(2);
+        Assert.assertEquals(site12.getDeletionCount(), 1);
+        Assert.assertEquals(site12.getCount(Nucleotide.N), 1);
+        Assert.assertEquals(site12.getCount(Nucleotide.A), 0);
+        Assert.assertEquals(site12.getLowQualityCount(), 1);
+    }
+
+    @Test
+    public void testReadsLongerThanInitialBuffer() {
+        final String bases = Utils.dupString("A", 3000);
+        final List<GATKRead> reads = Arrays.asList(
+                makeRead("long1", 1, bases, 30, "3000M"),
+                makeRead("long2", 2, bases, 30, "1500M5000N1500M"));
+
+        final List<LocusBaseCounts> counts = countWithIterator(reads, 0, true);
+        Assert.assertEquals(counts, countWithPileups(reads, header, LocusIteratorByStateBaseTest.sampleListForSAMWithoutReadGroups(), 0, true));
+        Assert.assertEquals(counts.get(1).getCount(Nucleotide.A), 2);
+    }
+
+    @Test(expectedExceptions = UserException.BadInput.class)
+    public void testUnsortedReads() {
+        countWithIterator(Arrays.asList(makeRead("read1", 100, "ACGT", 30, "4M"), makeRead("read2", 50, "ACGT", 30, "4M")), 0, true);
+    }
+
+    @Test
+    public void testIntervalIteratorAddsEmptyLoci() {
+        final List<GATKRead> reads = Arrays.asList(makeRead("read1", 10, "ACGT", 30, "4M"), makeRead("read2", 30, "ACGT", 30, "4M"));
+        final List<SimpleInterval> intervals = Arrays.asList(new SimpleInterval(header.getSequence(0).getSequenceName(), 8, 11),
+                new SimpleInterval(header.getSequence(0).getSequenceName(), 31, 31));
+
+        final List<LocusBaseCounts> counts = new ArrayList<>();
+        new IntervalLocusBaseCountsIterator(new LocusBaseCountsIterator(reads.iterator(), 0, true),
+                new IntervalLocusIterator(intervals.iterator()), header.getSequenceDictionary()).forEachRemaining(counts::add);
+
+        Assert.assertEquals(counts.stream().map(LocusBaseCounts::getStart).collect(Collectors.toList()), Arrays.asList(8, 9, 10, 11, 31));
+        Assert.assertEquals(counts.stream().map(LocusBaseCounts::getDepth).collect(Collectors.toList()), Arrays.asList(0, 0, 1, 1, 1));
+        Assert.assertEquals(counts.get(4).getCount(Nucleotide.C), 1);
+    }
+}
@@ -198,4 +198,41 @@ public final class GibbsSamplerSingleGaussianUnitTest extends GATKBaseTest {
                 relativeError(meanPosteriorStandardDeviation, MEAN_POSTERIOR_STANDARD_DEVIATION_TRUTH),
                 0., RELATIVE_ERROR_THRESHOLD_FOR_STANDARD_DEVIATIONS);
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that the samples of several chains run on several threads are pooled, that the first chain is identical
+     * to the chain run by default, and that the pooled posteriors recover the input values as above.
+     */
+    @Test
+    public void testRunMCMCOnSingleGaussianModelWithMultipleChains() {
+        final int numChains = 4;
+        final GibbsSampler<GaussianParameter, ParameterizedState<GaussianParameter>, GaussianDataCollection> singleChainSampler =
+                new GibbsSampler<>(NUM_SAMPLES, new GaussianModeller(VARIANCE_INITIAL, MEAN_INITIAL, datapointsList).model);
+        singleChainSampler.runMCMC();
+        final GibbsSampler<GaussianParameter, ParameterizedState<GaussianParameter>, GaussianDataCollection> gibbsSampler =
+                new GibbsSampler<>(NUM_SAMPLES, new GaussianModeller(VARIANCE_INITIAL, MEAN_INITIAL, datapointsList).model, numChains);
+        gibbsSampler.setNumThreads(2);
+        gibbsSampler.runMCMC();
+
+        final List<Double> varianceSamples = gibbsSampler.getSamples(GaussianParameter.VARIANCE, Double.class, NUM_BURN_IN);
+        final List<Double> meanSamples = gibbsSampler.getSamples(GaussianParameter.MEAN, Double.class, NUM_BURN_IN);
+        final int numSamplesPerChain = NUM_SAMPLES - NUM_BURN_IN;
+        Assert.assertEquals(varianceSamples.size(), numChains * numSamplesPerChain);
+        Assert.assertEquals(meanSamples.size(), numChains * numSamplesPerChain);
+        Assert.assertEquals(varianceSamples.subList(0, numSamplesPerChain),
+                singleChainSampler.getSamples(GaussianParameter.VARIANCE, Double.class, NUM_BURN_IN));
+        Assert.assertNotEquals(varianceSamples.subList(numSamplesPerChain, 2 * numSamplesPerChain),
+                varianceSamples.subList(0, numSamplesPerChain));
+
+        Assert.assertEquals(relativeError(new Mean().evaluate(Doubles.toArray(varianceSamples)), VARIANCE_TRUTH),
+                0., RELATIVE_ERROR_THRESHOLD_FOR_CENTERS);
+        Assert.assertEquals(
+                relativeError(new StandardDeviation().evaluate(Doubles.toArray(varianceSamples)), VARIANCE_POSTERIOR_STANDARD_DEVIATION_TRUTH),
+                0., RELATIVE_ERROR_THRESHOLD_FOR_STANDARD_DEVIATIONS);
+        Assert.assertEquals(relativeError(new Mean().evaluate(Doubles.toArray(meanSamples)), MEAN_TRUTH),
+                0., RELATIVE_ERROR_THRESHOLD_FOR_CENTERS);
+        Assert.assertEquals(
+                relativeError(new StandardDeviation().evaluate(Doubles.toArray(meanSamples)), MEAN_POSTERIOR_STANDARD_DEVIATION_TRUTH),
+                0., RELATIVE_ERROR_THRESHOLD_FOR_STANDARD_DEVIATIONS);
+    }
+}
@@ -0,0 +1,56 @@
+package org.broadinstitute.hellbender.utils.mcmc;
+
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.random.RandomGeneratorFactory;
+import org.apache.commons.math3.random.Well19937c;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Unit tests for {@link ParallelSamplingUtils}.
+ */
+public final class ParallelSamplingUtilsUnitTest extends GATKBaseTest {
+    private static final int RANDOM_SEED = 42;
+    private static final int NUM_PARAMETERS = 1000;
+
+    //each parameter is sampled by drawing a few values from its own generator and adding its index
+    private static final ParallelSamplingUtils.IndexedParameterSampler SAMPLER =
+            (rng, index) -> index + rng.nextDouble() + rng.nextDouble() + rng.nextGaussian();
+
+    private static List<Double> sampleInPool(final int numThreads) throws Exception {
+        final RandomGenerator rng = RandomGeneratorFactory.createRandomGenerator(new Random(RANDOM_SEED));
+        final ForkJoinPool pool = new ForkJoinPool(numThreads);
+        try {
+            return pool.submit(() -> ParallelSamplingUtils.sampleInParallel(rng, NUM_PARAMETERS, SAMPLER)).get();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testSamplesDoNotDependOnNumberOfThreads() throws Exception {
+        //expected samples are generated serially, seeding the generator of each parameter with a common seed and its index
+        final long seed = RandomGeneratorFactory.createRandomGenerator(new Random(RANDOM_SEED)).nextLong();
+        final List<Double> expected = new ArrayList<>(NUM_PARAMETERS);
+        for (int i = 0; i < NUM_PARAMETERS; i++) {
+            expected.add(SAMPLER.sample(new Well19937c(new int[]{(int) (seed >>> 32), (int) seed, i}), i));
+        }
+
+        for (final int numThreads : new int[]{1, 2, 8}) {
+            Assert.assertEquals(sampleInPool(numThreads), expected);
+        }
+    }
+
+    @Test
+    public void testNoParameters() {
+        final RandomGenerator rng = RandomGeneratorFactory.createRandomGenerator(new Random(RANDOM_SEED));
+        Assert.assertEquals(ParallelSamplingUtils.sampleInParallel(rng, 0, SAMPLER), Collections.emptyList());
+    }
+}
@@ -11,7 +11,9 @@ import org.apache.commons.math3.stat.descriptive.moment.Variance;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.List;
 import java.util.Random;
+import java.util.function.DoubleUnaryOperator;
 import java.util.function.Function;
 
 
@@ -132,4 +134,20 @@ public final class SliceSamplerUnitTest {
         final SliceSampler normalSampler = new SliceSampler(rng, normalLogPDF, xMin, xMax, width);
         normalSampler.sample(xInitial);
     }
-}
\ No newline at end of file
+
+    /**
+     * Test that the primitive and boxed log-PDF constructors generate identical samples.
+     */
+    @Test
+    public void testDoubleUnaryOperatorMatchesFunction() {
+        final NormalDistribution normalDistribution = new NormalDistribution(5., 0.75);
+        final Function<Double, Double> boxedNormalLogPDF = normalDistribution::logDensity;
+        final DoubleUnaryOperator normalLogPDF = normalDistribution::logDensity;
+
+        rng.setSeed(RANDOM_SEED);
+        final List<Double> boxedSamples = new SliceSampler(rng, boxedNormalLogPDF, 0.5).sample(1., 1000);
+        rng.setSeed(RANDOM_SEED);
+        final List<Double> samples = new SliceSampler(rng, normalLogPDF, 0.5).sample(1., 1000);
+        Assert.assertEquals(samples, boxedSamples);
+    }
+}
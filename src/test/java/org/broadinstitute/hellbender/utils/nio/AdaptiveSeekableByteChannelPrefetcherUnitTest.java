@@ -0,0 +1,196 @@
+package org.broadinstitute.hellbender.utils.nio;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.runtime.MetricsRegistry;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+public final class AdaptiveSeekableByteChannelPrefetcherUnitTest extends GATKBaseTest {
+
+    private static final int FILE_SIZE = 1_000_000;
+    private static final int MIN_BLOCK_SIZE = 1024;
+    private static final int MAX_BLOCK_SIZE = 16 * 1024;
+
+    private Path input;
+    private byte[] data;
+
+    @BeforeClass
+    public void writeInput() throws IOException {
+        final File file = createTempFile("AdaptiveSeekableByteChannelPrefetcherUnitTest", ".bin");
+        data = new byte[FILE_SIZE];
+        new Random(67).nextBytes(data);
+        Files.write(file.toPath(), data);
+        input = file.toPath();
+    }
+
+    private AdaptiveSeekableByteChannelPrefetcher makePrefetcher(final int fetchThreads, final int blockCount) throws IOException {
+        return new AdaptiveSeekableByteChannelPrefetcher(Files.newByteChannel(input), () -> Files.newByteChannel(input),
+                fetchThreads, blockCount, MIN_BLOCK_SIZE, MAX_BLOCK_SIZE);
+    }
+
+    @DataProvider(name = "pools")
+    public Object[][] pools() {
+        return new Object[][] {
+                // fetchThreads, blockCount
+                {1, 2},
+                {1, 16},
+                {4, 4},
+                {4, 16},
+        };
+    }
+
+    @Test(dataProvider = "pools")
+    public void testRandomSeeks(final int fetchThreads, final int blockCount) throws IOException {
+        final Random random = new Random(71);
+        try (final AdaptiveSeekableByteChannelPrefetcher prefetcher = makePrefetcher(fetchThreads, blockCount)) {
+            long position = 0;
+            for (int i = 0; i < 2000; i++) {
+                if (random.nextDouble() < 0.2) {
+                    // jump anywhere, including close to or past the end
+                    position = random.nextInt(FILE_SIZE + 100);
+                } else if (random.nextDouble() < 0.1) {
+                    // go back a little
+                    position = Math.max(0, position - random.nextInt(3 * MAX_BLOCK_SIZE));
+                }
+                prefetcher.position(position);
+                final ByteBuffer buffer = ByteBuffer.allocate(1 + random.nextInt(3 * MAX_BLOCK_SIZE));
+                final int read = readFully(prefetcher, buffer);
+                if (position >= FILE_SIZE) {
+                    Assert.assertEquals(read, -1);
+                    continue;
+                }
+                Assert.assertEquals(read, (int) Math.min(buffer.capacity(), FILE_SIZE - position));
+                Assert.assertEquals(Arrays.copyOf(buffer.array(), read), Arrays.copyOfRange(data, (int) position, (int) position + read));
+                position += read;
+                Assert.assertEquals(prefetcher.position(), position);
+            }
+        }
+    }
+
+    @Test(dataProvider = "pools")
+    public void testSequentialReadsArePrefetched(final int fetchThreads, final int blockCount) throws IOException {
+        try (final AdaptiveSeekableByteChannelPrefetcher prefetcher = makePrefetcher(fetchThreads, blockCount)) {
+            final ByteBuffer buffer = ByteBuffer.allocate(FILE_SIZE);
+            Assert.assertEquals(readFully(prefetcher, buffer), FILE_SIZE);
+            Assert.assertEquals(buffer.array(), data);
+            Assert.assertEquals(prefetcher.read(ByteBuffer.allocate(1)), -1);
+            // only the first block is a miss, and every byte is fetched once
+            Assert.assertEquals(prefetcher.nbMiss, 1);
+            Assert.assertEquals(prefetcher.bytesRead, FILE_SIZE);
+            Assert.assertEquals(prefetcher.bytesReturned, FILE_SIZE);
+        }
+    }
+
+    @Test
+    public void testGoingBackToPooledBlocks() throws IOException {
+        try (final AdaptiveSeekableByteChannelPrefetcher prefetcher = makePrefetcher(2, 8)) {
+            final long[] positions = {100_000, 500_000, 101_000, 900_000, 499_000};
+            for (final long position : positions) {
+                prefetcher.position(position);
+                final ByteBuffer buffer = ByteBuffer.allocate(10);
+                Assert.assertEquals(readFully(prefetcher, buffer), 10);
+                Assert.assertEquals(buffer.array(), Arrays.copyOfRange(data, (int) position, (int) position + 10));
+            }
+            // going back to 101_000 finds the block fetched for 100_000, but 499_000 is before the block for 500_000
+            Assert.assertEquals(prefetcher.nbMiss, 4);
+            Assert.assertEquals(prefetcher.nbGoingBack, 1);
+        }
+    }
+
+    @Test
+    public void testHintedRegionsAreFetchedAhead() throws IOException {
+        final long hintedFetchesBefore = MetricsRegistry.getDefault().counter("prefetcher.hinted-fetches").getCount();
+        // regions far apart, longer than a block, and touching ones that are merged
+        final long[][] regions = {{10_000, 12_000}, {200_000, 250_000}, {250_000, 251_000}, {600_000, 600_100}, {999_000, 1_000_000}};
+        try (final AdaptiveSeekableByteChannelPrefetcher prefetcher = makePrefetcher(4, 16)) {
+            long hintedBytes = 0;
+            for (final long[] region : regions) {
+                prefetcher.hint(region[0], region[1]);
+                hintedBytes += region[1] - region[0];
+            }
+            for (final long[] region : regions) {
+                prefetcher.position(region[0]);
+                final ByteBuffer buffer = ByteBuffer.allocate((int) (region[1] - region[0]));
+                Assert.assertEquals(readFully(prefetcher, buffer), buffer.capacity());
+                Assert.assertEquals(buffer.array(), Arrays.copyOfRange(data, (int) region[0], (int) region[1]));
+            }
+            // we fetched the hinted regions, and nothing else
+            Assert.assertEquals(prefetcher.nbMiss, 0);
+            Assert.assertEquals(prefetcher.bytesRead, hintedBytes);
+            Assert.assertTrue(prefetcher.nbHintedFetches >= regions.length - 1);
+            Assert.assertEquals(MetricsRegistry.getDefault().counter("prefetcher.hinted-fetches").getCount() - hintedFetchesBefore, prefetcher.nbHintedFetches);
+
+            // without hints we read ahead again
+            prefetcher.clearHints();
+            prefetcher.position(300_000);
+            readFully(prefetcher, ByteBuffer.allocate(2 * MAX_BLOCK_SIZE));
+            Assert.assertEquals(prefetcher.nbMiss, 1);
+        }
+    }
+
+    @Test
+    public void testEOF() throws IOException {
+        try (final AdaptiveSeekableByteChannelPrefetcher prefetcher = makePrefetcher(2, 4)) {
+            prefetcher.position(FILE_SIZE - 64);
+            final ByteBuffer buffer = ByteBuffer.allocate(128);
+            Assert.assertEquals(readFully(prefetcher, buffer), 64);
+            Assert.assertEquals(Arrays.copyOf(buffer.array(), 64), Arrays.copyOfRange(data, FILE_SIZE - 64, FILE_SIZE));
+            prefetcher.position(FILE_SIZE + 1024);
+            Assert.assertEquals(prefetcher.read(ByteBuffer.allocate(1)), -1);
+            Assert.assertEquals(prefetcher.nbReadsPastEnd, 2);
+        }
+    }
+
+    @Test
+    public void testSingleChannel() throws IOException {
+        try (final SeekableByteChannel prefetcher = new AdaptiveSeekableByteChannelPrefetcher(Files.newByteChannel(input), null, 1, 4, MIN_BLOCK_SIZE, MAX_BLOCK_SIZE)) {
+            final ByteBuffer buffer = ByteBuffer.allocate(FILE_SIZE);
+            Assert.assertEquals(readFully(prefetcher, buffer), FILE_SIZE);
+            Assert.assertEquals(buffer.array(), data);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testParallelFetchesNeedChannelOpener() throws IOException {
+        new AdaptiveSeekableByteChannelPrefetcher(Files.newByteChannel(input), null, 2, 4, MIN_BLOCK_SIZE, MAX_BLOCK_SIZE);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testDoubleWrapping() throws IOException {
+        final SeekableByteChannel prefetcher = SeekableByteChannelPrefetcher.addPrefetcher(1, Files.newByteChannel(input));
+        AdaptiveSeekableByteChannelPrefetcher.addPrefetcher(1, input, prefetcher);
+    }
+
+    @Test
+    public void testCloseWhilePrefetching() throws IOException {
+        final SeekableByteChannel prefetcher = AdaptiveSeekableByteChannelPrefetcher.addPrefetcher(10, input, Files.newByteChannel(input));
+        // read just 1 byte, get the prefetching going
+        readFully(prefetcher, ByteBuffer.allocate(1));
+        // closing must not throw an exception, even if the prefetching threads are active.
+        prefetcher.close();
+        Assert.assertFalse(prefetcher.isOpen());
+    }
+
+    private static int readFully(final SeekableByteChannel channel, final ByteBuffer buffer) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            final int read = channel.read(buffer);
+            if (read < 0) {
+                return total == 0 ? read : total;
+            }
+            total += read;
+        }
+        return total;
+    }
+}
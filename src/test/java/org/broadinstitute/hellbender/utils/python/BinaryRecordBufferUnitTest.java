@@ -0,0 +1,71 @@
+package org.broadinstitute.hellbender.utils.python;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+public class BinaryRecordBufferUnitTest extends GATKBaseTest {
+
+    @Test
+    public void testRecordLayout() {
+        final BinaryRecordBuffer buffer = new BinaryRecordBuffer(1);
+        buffer.startRecord();
+        buffer.writeInt(-7);
+        buffer.writeString("chré");
+        buffer.endRecord();
+        buffer.startRecord();
+        buffer.writeBoolean(true);
+        buffer.writeByteArray(new byte[]{1, 2, 3, 4}, 1, 2);
+        buffer.endRecord();
+        Assert.assertEquals(buffer.getRecordCount(), 2);
+
+        final ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+        final byte[] stringBytes = "chré".getBytes(StandardCharsets.UTF_8);
+        Assert.assertEquals(bytes.getInt(), 4 + 4 + stringBytes.length);
+        Assert.assertEquals(bytes.getInt(), -7);
+        Assert.assertEquals(bytes.getInt(), stringBytes.length);
+        final byte[] readString = new byte[stringBytes.length];
+        bytes.get(readString);
+        Assert.assertEquals(readString, stringBytes);
+
+        Assert.assertEquals(bytes.getInt(), 1 + 4 + 2);
+        Assert.assertEquals(bytes.get(), 1);
+        Assert.assertEquals(bytes.getInt(), 2);
+        Assert.assertEquals(bytes.get(), 2);
+        Assert.assertEquals(bytes.get(), 3);
+        Assert.assertFalse(bytes.hasRemaining());
+    }
+
+    @Test
+    public void testResetKeepsBuffer() {
+        final BinaryRecordBuffer buffer = new BinaryRecordBuffer(16);
+        buffer.startRecord();
+        buffer.writeString("a partial record");
+        buffer.reset();
+        Assert.assertEquals(buffer.size(), 0);
+        Assert.assertEquals(buffer.getRecordCount(), 0);
+
+        // a new record can be started after a reset, even if the previous one was not ended
+        buffer.startRecord();
+        buffer.writeInt(1);
+        buffer.endRecord();
+        Assert.assertEquals(buffer.size(), 8);
+        Assert.assertEquals(buffer.getRecordCount(), 1);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testEndWithoutStart() {
+        new BinaryRecordBuffer(16).endRecord();
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testStartWithoutEnd() {
+        final BinaryRecordBuffer buffer = new BinaryRecordBuffer(16);
+        buffer.startRecord();
+        buffer.startRecord();
+    }
+}
@@ -218,6 +218,67 @@ public class StreamingPythonScriptExecutorUnitTest extends GATKBaseTest {
         }
     }
 
+    @Test(groups = "python", dataProvider="supportedPythonVersions", dependsOnMethods = "testPythonExists", timeOut=10000)
+    public void testAsyncBinaryWriteService(final PythonScriptExecutor.PythonExecutableName executableName) throws IOException {
+        // Python script statements to read binary records from the FIFO and write their fields to a temporary file
+        final String PYTHON_OPEN_TEMP_FILE = "tempFile = open('%s', 'w')" + NL;
+        final String PYTHON_TRANSFER_FIFO_TO_TEMP_FILE =
+                "for i in range(%s):\n" +
+                "    r = tool.readDataFIFORecord()\n" +
+                "    tempFile.write('%%d %%s %%s %%s %%s\\n' %% (r.readInt(), r.readString(), ','.join(map(str, r.readBytes())), r.readBoolean(), ','.join(map(str, r.readInts(r.readInt())))))" + NL + NL;
+        final String PYTHON_CLOSE_TEMP_FILE = "tempFile.close()" + NL;
+
+        final StreamingPythonScriptExecutor<BinaryRecordBuffer> streamingPythonExecutor =
+                new StreamingPythonScriptExecutor<>(executableName, false);
+        Assert.assertTrue(streamingPythonExecutor.start(Collections.emptyList()));
+        final File tempFile = createTempFile("pythonBinaryRoundTripTest", "txt");
+        streamingPythonExecutor.initStreamWriter(buffer -> buffer, true);
+
+        final int BATCH_COUNT = 10;
+        final int RECORDS_PER_BATCH = 1000;
+        final List<String> expectedLines = new ArrayList<>();
+        try {
+            streamingPythonExecutor.sendSynchronousCommand(String.format(PYTHON_OPEN_TEMP_FILE, tempFile.getAbsolutePath()));
+
+            // alternate between two buffers, so that one batch is encoded while the other is written
+            BinaryRecordBuffer currentBatch = new BinaryRecordBuffer(16);
+            BinaryRecordBuffer writingBatch = new BinaryRecordBuffer(16);
+            for (int batch = 0; batch < BATCH_COUNT; batch++) {
+                for (int i = 0; i < RECORDS_PER_BATCH; i++) {
+                    final int n = batch * RECORDS_PER_BATCH + i;
+                    currentBatch.startRecord();
+                    currentBatch.writeInt(-n);
+                    currentBatch.writeString("record" + n);
+                    currentBatch.writeByteArray(new byte[]{(byte) (n % 100), 0, 42});
+                    currentBatch.writeBoolean(n % 2 == 0);
+                    currentBatch.writeInt(2);
+                    currentBatch.writeInt(n);
+                    currentBatch.writeInt(Integer.MAX_VALUE);
+                    currentBatch.endRecord();
+                    expectedLines.add(String.format("%d record%d %d,0,42 %s %d,%d", -n, n, n % 100, n % 2 == 0 ? "True" : "False", n, Integer.MAX_VALUE));
+                }
+                streamingPythonExecutor.waitForPreviousBatchCompletion();
+                streamingPythonExecutor.startBatchWrite(String.format(PYTHON_TRANSFER_FIFO_TO_TEMP_FILE, currentBatch.getRecordCount()),
+                        Collections.singletonList(currentBatch));
+                final BinaryRecordBuffer sentBatch = currentBatch;
+                currentBatch = writingBatch;
+                writingBatch = sentBatch;
+                currentBatch.reset();
+            }
+            streamingPythonExecutor.waitForPreviousBatchCompletion();
+            streamingPythonExecutor.sendSynchronousCommand(PYTHON_CLOSE_TEMP_FILE);
+        }
+        finally {
+            streamingPythonExecutor.terminate();
+            Assert.assertFalse(streamingPythonExecutor.getProcess().isAlive());
+        }
+
+        try (final FileInputStream fis= new FileInputStream(tempFile);
+             final BufferedLineReader br = new BufferedLineReader(fis)) {
+            expectedLines.forEach(expectedLine -> Assert.assertEquals(br.readLine(), expectedLine));
+        }
+    }
+
     @Test(groups = "python", dataProvider="supportedPythonVersions", dependsOnMethods = "testPythonExists",
             expectedExceptions = PythonScriptExecutorException.class)
     public void testRaisePythonException(final PythonScriptExecutor.PythonExecutableName executableName) {
@@ -0,0 +1,92 @@
+package org.broadinstitute.hellbender.utils.read;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SamReaderFactory;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+public final class IndexedReadDensityUnitTest extends GATKBaseTest {
+    private static final int W = IndexedReadDensity.WINDOW_SIZE;
+    private static final File BAM = new File(publicTestDir + "org/broadinstitute/hellbender/tools/BQSR/HiSeq.1mb.1RG.2k_lines.bam");
+    private static final File CRAM = new File(publicTestDir + "org/broadinstitute/hellbender/engine/cram_with_crai_index.cram");
+
+    private static SAMSequenceDictionary dictionary(final File reads) {
+        return SamReaderFactory.makeDefault().referenceSequence(new File(hg19MiniReference)).getFileHeader(reads).getSequenceDictionary();
+    }
+
+    private static SimpleInterval window(final String contig, final int index) {
+        return new SimpleInterval(contig, index * W + 1, (index + 1) * W);
+    }
+
+    @Test
+    public void testBAI() {
+        final IndexedReadDensity density = new IndexedReadDensity();
+        density.addIndex(new File(BAM.getPath() + ".bai").toPath(), dictionary(BAM));
+
+        // the reads lie within chr1:10069921-10100092, that is in windows 614 to 616, but this index stores
+        // those of window 614 in a larger bin only, the share of which goes to the other windows
+        double total = 0;
+        for (int i = 615; i <= 616; i++) {
+            Assert.assertTrue(density.applyAsDouble(window("chr1", i)) > 0, "window " + i);
+            total += density.applyAsDouble(window("chr1", i));
+        }
+        Assert.assertTrue(total > 10000 && total < 300000, Double.toString(total));
+        Assert.assertEquals(density.applyAsDouble(window("chr1", 614)), 0.0);
+        Assert.assertEquals(density.applyAsDouble(window("chr1", 617)), 0.0);
+        Assert.assertEquals(density.applyAsDouble(window("chr2", 615)), 0.0);
+        Assert.assertEquals(density.applyAsDouble(window("noSuchContig", 0)), 0.0);
+
+        // any position of a window gives the cost of the whole window
+        Assert.assertEquals(density.applyAsDouble(new SimpleInterval("chr1", 615 * W + 100, 615 * W + 100)), density.applyAsDouble(window("chr1", 615)));
+
+        // estimates of several indices add up
+        density.addIndex(new File(BAM.getPath() + ".bai").toPath(), dictionary(BAM));
+        Assert.assertEquals(density.applyAsDouble(window("chr1", 615)) + density.applyAsDouble(window("chr1", 616)), 2 * total, 1e-6);
+    }
+
+    @Test
+    public void testCRAI() {
+        final IndexedReadDensity density = new IndexedReadDensity();
+        density.addIndex(new File(CRAM.getPath() + ".crai").toPath(), dictionary(CRAM));
+
+        // the first slice covers 976 bases of contig 1 and is 598 bytes long, the second 226 bases of contig 2 and 534 bytes
+        Assert.assertEquals(density.applyAsDouble(window("1", 0)), 598.0, 1e-6);
+        Assert.assertEquals(density.applyAsDouble(window("2", 0)), 534.0, 1e-6);
+        Assert.assertEquals(density.applyAsDouble(new SimpleInterval("2", W + 1, W + 1)), 0.0);
+    }
+
+    @Test
+    public void testSliceSpanningWindows() throws IOException {
+        final IndexedReadDensity density = new IndexedReadDensity();
+        final File crai = createTempFile("spanning", ".crai");
+        try (final OutputStream out = new GZIPOutputStream(new FileOutputStream(crai))) {
+            // a slice of 3000 bytes over the last quarter of window 0 and the first half of window 1
+            out.write(String.format("0\t%d\t%d\t100\t10\t3000\n", 3 * W / 4 + 1, 3 * W / 4).getBytes());
+        }
+        final SAMSequenceDictionary dictionary = dictionary(BAM);
+        density.addIndex(crai.toPath(), dictionary);
+        final String contig = dictionary.getSequence(0).getSequenceName();
+        Assert.assertEquals(density.applyAsDouble(window(contig, 0)), 1000.0, 1e-6);
+        Assert.assertEquals(density.applyAsDouble(window(contig, 1)), 2000.0, 1e-6);
+    }
+
+    @Test(expectedExceptions = UserException.MalformedFile.class)
+    public void testNotAnIndex() {
+        new IndexedReadDensity().addIndex(BAM.toPath(), dictionary(BAM));
+    }
+
+    @Test
+    public void testEstimateCompressedSize() {
+        Assert.assertEquals(IndexedReadDensity.estimateCompressedSize(1000L << 16, (1000L << 16) + 300), 100.0);
+        Assert.assertEquals(IndexedReadDensity.estimateCompressedSize((1000L << 16) + 300, 5000L << 16), 3900.0);
+    }
+}
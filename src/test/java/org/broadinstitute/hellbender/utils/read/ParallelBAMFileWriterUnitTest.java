@@ -0,0 +1,97 @@
+package org.broadinstitute.hellbender.utils.read;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFileWriter;
+import htsjdk.samtools.SAMFileWriterFactory;
+import htsjdk.samtools.SAMRecord;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public final class ParallelBAMFileWriterUnitTest extends GATKBaseTest {
+
+    @DataProvider(name = "writerData")
+    public Object[][] writerData() {
+        return new Object[][] {
+                // numReads, compressionThreads, createIndex, presorted
+                {0, 1, true, true},
+                {10, 1, true, true},
+                {20_000, 1, true, true},
+                {20_000, 4, true, true},
+                {20_000, 4, false, true},
+                {20_000, 4, true, false},
+        };
+    }
+
+    @Test(dataProvider = "writerData")
+    public void testMatchesHtsjdkWriter(final int numReads, final int compressionThreads,
+                                        final boolean createIndex, final boolean presorted) throws IOException {
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader(3, 0, 1_000_000);
+        header.setSortOrder(SAMFileHeader.SortOrder.coordinate);
+        final List<SAMRecord> reads = makeSortedReads(header, numReads);
+        if (!presorted) {
+            reads.sort((r1, r2) -> r1.getReadName().compareTo(r2.getReadName()));
+        }
+
+        final File tmpDir = createTempDir("ParallelBAMFileWriterUnitTest");
+        final File expectedBam = new File(tmpDir, "expected.bam");
+        final File actualBam = new File(tmpDir, "actual.bam");
+
+        try (final SAMFileWriter writer = new SAMFileWriterFactory().setCreateIndex(createIndex).setUseAsyncIo(false)
+                .makeBAMWriter(header.clone(), presorted, expectedBam)) {
+            reads.forEach(writer::addAlignment);
+        }
+        try (final SAMFileWriter writer = new ParallelBAMFileWriter(actualBam.toPath(), header.clone(), presorted, createIndex, false, compressionThreads)) {
+            reads.forEach(writer::addAlignment);
+        }
+
+        Assert.assertEquals(Files.readAllBytes(actualBam.toPath()), Files.readAllBytes(expectedBam.toPath()));
+        final File expectedIndex = new File(tmpDir, "expected.bai");
+        final File actualIndex = new File(tmpDir, "actual.bai");
+        Assert.assertEquals(actualIndex.exists(), createIndex);
+        if (createIndex) {
+            Assert.assertEquals(Files.readAllBytes(actualIndex.toPath()), Files.readAllBytes(expectedIndex.toPath()));
+        }
+    }
+
+    @Test
+    public void testCreateMD5() throws IOException {
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader(1, 0, 1_000_000);
+        final File outputBam = createTempFile("ParallelBAMFileWriterUnitTest", ".bam");
+        try (final SAMFileWriter writer = new ParallelBAMFileWriter(outputBam.toPath(), header, true, false, true, 2)) {
+            makeSortedReads(header, 100).forEach(writer::addAlignment);
+        }
+        Assert.assertTrue(new File(outputBam.getAbsolutePath() + ".md5").exists());
+    }
+
+    private static List<SAMRecord> makeSortedReads(final SAMFileHeader header, final int numReads) {
+        final Random random = new Random(13);
+        final List<SAMRecord> reads = new ArrayList<>(numReads);
+        final int readsPerContig = Math.max(1, numReads / header.getSequenceDictionary().size());
+        for (int i = 0; i < numReads; i++) {
+            final int contig = Math.min(i / readsPerContig, header.getSequenceDictionary().size() - 1);
+            final int start = 1 + 10 * (i % readsPerContig);
+            final byte[] bases = new byte[100];
+            final byte[] quals = new byte[100];
+            for (int j = 0; j < bases.length; j++) {
+                bases[j] = (byte) "ACGT".charAt(random.nextInt(4));
+                quals[j] = (byte) random.nextInt(40);
+            }
+            final SAMRecord read = ArtificialReadUtils.createArtificialSAMRecord(header, "read" + i, contig, start, bases, quals, "100M");
+            if (i % 50 == 0) {
+                // unmapped reads placed with their mates
+                read.setReadUnmappedFlag(true);
+            }
+            reads.add(read);
+        }
+        return reads;
+    }
+}
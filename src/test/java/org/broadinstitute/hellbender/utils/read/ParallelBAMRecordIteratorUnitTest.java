@@ -0,0 +1,130 @@
+package org.broadinstitute.hellbender.utils.read;
+
+import htsjdk.samtools.QueryInterval;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFileWriter;
+import htsjdk.samtools.SAMFileWriterFactory;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMRecordIterator;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+import htsjdk.samtools.ValidationStringency;
+import htsjdk.samtools.util.CloseableIterator;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+public final class ParallelBAMRecordIteratorUnitTest extends GATKBaseTest {
+
+    private static final int NUM_CONTIGS = 3;
+    private static final int CONTIG_LENGTH = 1_000_000;
+
+    private File bam;
+
+    @BeforeClass
+    public void writeBam() {
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader(NUM_CONTIGS, 0, CONTIG_LENGTH);
+        header.setSortOrder(SAMFileHeader.SortOrder.coordinate);
+        bam = createTempFile("ParallelBAMRecordIteratorUnitTest", ".bam");
+        final Random random = new Random(59);
+        try (final SAMFileWriter writer = new SAMFileWriterFactory().setCreateIndex(true).makeBAMWriter(header, false, bam)) {
+            for (int i = 0; i < 30_000; i++) {
+                final int contig = random.nextInt(NUM_CONTIGS);
+                final int start = 1 + random.nextInt(CONTIG_LENGTH - 200);
+                final SAMRecord read = ArtificialReadUtils.createArtificialSAMRecord(header, "read" + i, contig, start, makeBases(random, 100), makeQuals(random, 100), random.nextBoolean() ? "100M" : "50M100D50M");
+                if (i % 50 == 0) {
+                    // unmapped read placed with its mate
+                    read.setReadUnmappedFlag(true);
+                }
+                writer.addAlignment(read);
+            }
+            for (int i = 0; i < 100; i++) {
+                final SAMRecord read = ArtificialReadUtils.createArtificialSAMRecord(header, "unplaced" + i, SAMRecord.NO_ALIGNMENT_REFERENCE_INDEX, SAMRecord.NO_ALIGNMENT_START, makeBases(random, 100), makeQuals(random, 100), "*");
+                read.setReadUnmappedFlag(true);
+                writer.addAlignment(read);
+            }
+        }
+    }
+
+    @DataProvider(name = "threads")
+    public Object[][] threads() {
+        return new Object[][] {{1}, {4}};
+    }
+
+    @Test(dataProvider = "threads")
+    public void testFullTraversal(final int decompressionThreads) throws IOException {
+        try (final SamReader reader = SamReaderFactory.makeDefault().validationStringency(ValidationStringency.SILENT).open(bam)) {
+            final List<String> expected;
+            try (final SAMRecordIterator iterator = reader.iterator()) {
+                expected = toSAMStrings(iterator);
+            }
+            try (final CloseableIterator<SAMRecord> iterator = new ParallelBAMRecordIterator(bam.toPath(), reader.getFileHeader(), ValidationStringency.SILENT, decompressionThreads)) {
+                Assert.assertEquals(toSAMStrings(iterator), expected);
+            }
+        }
+    }
+
+    @DataProvider(name = "queries")
+    public Object[][] queries() {
+        final Random random = new Random(61);
+        final List<Object[]> queries = new ArrayList<>();
+        for (final int decompressionThreads : new int[] {1, 4}) {
+            queries.add(new Object[] {new QueryInterval[] {new QueryInterval(0, 1000, 2000)}, decompressionThreads});
+            queries.add(new Object[] {new QueryInterval[] {new QueryInterval(1, 1, -1)}, decompressionThreads});
+            queries.add(new Object[] {new QueryInterval[] {new QueryInterval(2, CONTIG_LENGTH - 10, CONTIG_LENGTH)}, decompressionThreads});
+            for (int i = 0; i < 5; i++) {
+                final QueryInterval[] intervals = new QueryInterval[1 + random.nextInt(50)];
+                for (int j = 0; j < intervals.length; j++) {
+                    final int start = 1 + random.nextInt(CONTIG_LENGTH);
+                    intervals[j] = new QueryInterval(random.nextInt(NUM_CONTIGS), start, start + random.nextInt(20_000));
+                }
+                queries.add(new Object[] {QueryInterval.optimizeIntervals(intervals), decompressionThreads});
+            }
+        }
+        return queries.toArray(new Object[][]{});
+    }
+
+    @Test(dataProvider = "queries")
+    public void testQueryOverlapping(final QueryInterval[] intervals, final int decompressionThreads) throws IOException {
+        try (final SamReader reader = SamReaderFactory.makeDefault().validationStringency(ValidationStringency.SILENT).open(bam)) {
+            final List<String> expected;
+            try (final SAMRecordIterator iterator = reader.queryOverlapping(intervals)) {
+                expected = toSAMStrings(iterator);
+            }
+            try (final CloseableIterator<SAMRecord> iterator = new ParallelBAMRecordIterator(bam.toPath(), reader.getFileHeader(), reader.indexing().getIndex(), intervals, ValidationStringency.SILENT, decompressionThreads)) {
+                Assert.assertEquals(toSAMStrings(iterator), expected);
+            }
+        }
+    }
+
+    private static List<String> toSAMStrings(final Iterator<SAMRecord> iterator) {
+        final List<String> records = new ArrayList<>();
+        iterator.forEachRemaining(record -> records.add(record.getSAMString()));
+        return records;
+    }
+
+    private static byte[] makeBases(final Random random, final int length) {
+        final byte[] bases = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bases[i] = (byte) "ACGT".charAt(random.nextInt(4));
+        }
+        return bases;
+    }
+
+    private static byte[] makeQuals(final Random random, final int length) {
+        final byte[] quals = new byte[length];
+        for (int i = 0; i < length; i++) {
+            quals[i] = (byte) random.nextInt(40);
+        }
+        return quals;
+    }
+}
@@ -0,0 +1,107 @@
+package org.broadinstitute.hellbender.utils.runtime;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+public final class MetricsRegistryUnitTest extends GATKBaseTest {
+
+    @Test
+    public void testCounterFromManyThreads() {
+        final MetricsRegistry registry = new MetricsRegistry();
+        final MetricsRegistry.Counter counter = registry.counter("test.counter");
+        IntStream.range(0, 10000).parallel().forEach(i -> counter.increment());
+        counter.add(5);
+        Assert.assertEquals(counter.getCount(), 10005);
+        Assert.assertSame(registry.counter("test.counter"), counter);
+    }
+
+    @Test
+    public void testHistogram() {
+        final MetricsRegistry.Histogram histogram = new MetricsRegistry().histogram("test.histogram");
+        Assert.assertEquals(histogram.getQuantileUpperBound(0.5), 0);
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        Assert.assertEquals(histogram.getCount(), 100);
+        Assert.assertEquals(histogram.getSum(), 5050);
+        Assert.assertEquals(histogram.getMax(), 100);
+        // the 50th value (50) is in the bucket [32, 64), the 99th (99) in [64, 128), which is capped by the maximum
+        Assert.assertEquals(histogram.getQuantileUpperBound(0.5), 63);
+        Assert.assertEquals(histogram.getQuantileUpperBound(0.99), 100);
+        Assert.assertEquals(histogram.getQuantileUpperBound(0.01), 1);
+
+        histogram.record(Long.MAX_VALUE);
+        Assert.assertEquals(histogram.getQuantileUpperBound(1.0), Long.MAX_VALUE);
+    }
+
+    @Test
+    public void testResetKeepsMetricsAndDropsGauges() {
+        final MetricsRegistry registry = new MetricsRegistry();
+        final MetricsRegistry.Counter counter = registry.counter("test.counter");
+        final MetricsRegistry.Timer timer = registry.timer("test.timer");
+        counter.increment();
+        timer.recordSince(System.nanoTime());
+        final AtomicLong gaugeValue = new AtomicLong(7);
+        registry.gauge("test.gauge", gaugeValue::get);
+        Assert.assertEquals(registry.snapshot().get("test.gauge").getFields().get("value").longValue(), 7);
+        gaugeValue.set(8);
+        Assert.assertEquals(registry.snapshot().get("test.gauge").getFields().get("value").longValue(), 8);
+
+        registry.reset();
+
+        final SortedMap<String, MetricsRegistry.MetricValue> snapshot = registry.snapshot();
+        Assert.assertEquals(snapshot.keySet(), new TreeSet<>(Arrays.asList("test.counter", "test.timer")));
+        Assert.assertEquals(snapshot.get("test.counter").getFields().get("count").longValue(), 0);
+        Assert.assertEquals(snapshot.get("test.timer").getFields().get("count").longValue(), 0);
+        Assert.assertSame(registry.counter("test.counter"), counter);
+    }
+
+    @Test(expectedExceptions = GATKException.class)
+    public void testNameRegisteredWithAnotherType() {
+        final MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("test.metric");
+        registry.timer("test.metric");
+    }
+
+    @Test
+    public void testFormatSnapshot() {
+        final MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("b.counter").add(3);
+        registry.timer("a.timer").record(10);
+
+        final String json = MetricsReporter.formatSnapshot(registry.snapshot(), MetricsReporter.Format.JSON, 1000, 10);
+        Assert.assertEquals(json, "{\"timestamp\": 1000, \"elapsedMilliseconds\": 10, \"metrics\": {\n" +
+                "  \"a.timer\": {\"type\": \"timer\", \"count\": 1, \"sum\": 10, \"max\": 10, \"p50\": 10, \"p90\": 10, \"p99\": 10},\n" +
+                "  \"b.counter\": {\"type\": \"counter\", \"count\": 3}\n" +
+                "}}\n");
+
+        final String tsv = MetricsReporter.formatSnapshot(registry.snapshot(), MetricsReporter.Format.TSV, 1000, 10);
+        final String[] lines = tsv.split("\n");
+        Assert.assertEquals(lines.length, 8);
+        Assert.assertEquals(lines[0], "name\ttype\tfield\tvalue");
+        Assert.assertEquals(lines[1], "a.timer\ttimer\tcount\t1");
+        Assert.assertEquals(lines[7], "b.counter\tcounter\tcount\t3");
+    }
+
+    @Test
+    public void testReporterWritesFinalSnapshot() throws Exception {
+        final MetricsRegistry registry = new MetricsRegistry();
+        final File output = createTempFile("metrics", ".tsv");
+        try (final MetricsReporter reporter = new MetricsReporter(registry, output.toPath(), MetricsReporter.Format.TSV, 3600)) {
+            registry.counter("test.counter").add(42);
+        }
+        final List<String> lines = Files.readAllLines(output.toPath());
+        Assert.assertEquals(lines.get(1), "test.counter\tcounter\tcount\t42");
+    }
+}
@@ -0,0 +1,13 @@
+package org.broadinstitute.hellbender.utils.smithwaterman;
+
+/**
+ * Runs the standard alignment tests with a narrow band, so that most of them exercise the fallback to the full matrix
+ */
+public final class SmithWatermanBandedJavaAlignerUnitTest extends SmithWatermanAlignerAbstractUnitTest {
+
+    @Override
+    protected SmithWatermanJavaAligner getAligner() {
+        return SmithWatermanJavaAligner.getBandedInstance(2);
+    }
+
+}
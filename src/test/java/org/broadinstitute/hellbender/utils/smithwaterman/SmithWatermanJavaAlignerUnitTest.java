@@ -1,10 +1,120 @@
 package org.broadinstitute.hellbender.utils.smithwaterman;
 
+import org.broadinstitute.gatk.nativebindings.smithwaterman.SWOverhangStrategy;
+import org.broadinstitute.gatk.nativebindings.smithwaterman.SWParameters;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
 public final class SmithWatermanJavaAlignerUnitTest extends SmithWatermanAlignerAbstractUnitTest {
+    private static final byte[] BASES = {'A', 'C', 'G', 'T'};
 
     @Override
     protected SmithWatermanJavaAligner getAligner() {
         return SmithWatermanJavaAligner.getInstance();
     }
 
+    private static byte[] randomBases(final int length, final Random random) {
+        final byte[] bases = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bases[i] = BASES[random.nextInt(BASES.length)];
+        }
+        return bases;
+    }
+
+    // applies a few random substitutions, insertions and deletions
+    private static byte[] mutate(final byte[] bases, final int numMutations, final Random random) {
+        final List<Byte> mutated = new ArrayList<>(bases.length + numMutations);
+        for (final byte base : bases) {
+            mutated.add(base);
+        }
+        for (int n = 0; n < numMutations && !mutated.isEmpty(); n++) {
+            final int position = random.nextInt(mutated.size());
+            switch (random.nextInt(3)) {
+                case 0: mutated.set(position, BASES[random.nextInt(BASES.length)]); break;
+                case 1: mutated.add(position, BASES[random.nextInt(BASES.length)]); break;
+                default: if (mutated.size() > 1) { mutated.remove(position); }
+            }
+        }
+        final byte[] result = new byte[mutated.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = mutated.get(i);
+        }
+        return result;
+    }
+
+    private static void assertSameAlignment(final SmithWatermanAlignment actual, final SmithWatermanAlignment expected) {
+        Assert.assertEquals(actual.getCigar(), expected.getCigar());
+        Assert.assertEquals(actual.getAlignmentOffset(), expected.getAlignmentOffset());
+    }
+
+    @DataProvider
+    public Object[][] getRandomAlignments() {
+        final List<Object[]> tests = new ArrayList<>();
+        for (final SWOverhangStrategy strategy : SWOverhangStrategy.values()) {
+            for (final SWParameters parameters : new SWParameters[]{SmithWatermanAligner.ORIGINAL_DEFAULT, SmithWatermanAligner.STANDARD_NGS}) {
+                for (final int maximumEditDistance : new int[]{0, 3, 20}) {
+                    tests.add(new Object[]{strategy, parameters, maximumEditDistance});
+                }
+            }
+        }
+        return tests.toArray(new Object[][]{});
+    }
+
+    @Test(dataProvider = "getRandomAlignments")
+    public void testBandedAlignmentMatchesFullAlignment(final SWOverhangStrategy strategy, final SWParameters parameters, final int maximumEditDistance) {
+        final Random random = new Random(maximumEditDistance);
+        final SmithWatermanJavaAligner banded = SmithWatermanJavaAligner.getBandedInstance(maximumEditDistance);
+        for (int n = 0; n < 200; n++) {
+            final byte[] ref = randomBases(20 + random.nextInt(200), random);
+            final byte[] alt = mutate(ref, random.nextInt(10), random);
+            assertSameAlignment(banded.align(ref, alt, parameters, strategy), getAligner().align(ref, alt, parameters, strategy));
+        }
+    }
+
+    @Test
+    public void testReusedWorkspaceGivesSameAlignments() {
+        final Random random = new Random(7);
+        final List<byte[]> refs = new ArrayList<>();
+        final List<byte[]> alts = new ArrayList<>();
+        for (final int length : new int[]{300, 10, 150, 1, 40}) {
+            final byte[] ref = randomBases(length, random);
+            refs.add(ref);
+            alts.add(mutate(randomBases(length, random), length / 5, random));
+        }
+        for (final SWOverhangStrategy strategy : SWOverhangStrategy.values()) {
+            final List<SmithWatermanAlignment> forward = new ArrayList<>();
+            for (int i = 0; i < refs.size(); i++) {
+                forward.add(getAligner().align(refs.get(i), alts.get(i), SmithWatermanAligner.STANDARD_NGS, strategy));
+            }
+            // aligning in the reverse order leaves different values in the workspace
+            for (int i = refs.size() - 1; i >= 0; i--) {
+                assertSameAlignment(getAligner().align(refs.get(i), alts.get(i), SmithWatermanAligner.STANDARD_NGS, strategy), forward.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testAlignAll() {
+        final Random random = new Random(11);
+        final byte[] ref = randomBases(100, random);
+        final List<byte[]> alts = new ArrayList<>();
+        for (int n = 0; n < 10; n++) {
+            alts.add(mutate(ref, n, random));
+        }
+        final List<SmithWatermanAlignment> alignments = getAligner().alignAll(ref, alts, SmithWatermanAligner.STANDARD_NGS, SWOverhangStrategy.SOFTCLIP);
+        Assert.assertEquals(alignments.size(), alts.size());
+        for (int n = 0; n < alts.size(); n++) {
+            assertSameAlignment(alignments.get(n), getAligner().align(ref, alts.get(n), SmithWatermanAligner.STANDARD_NGS, SWOverhangStrategy.SOFTCLIP));
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNegativeMaximumEditDistance() {
+        SmithWatermanJavaAligner.getBandedInstance(-1);
+    }
 }
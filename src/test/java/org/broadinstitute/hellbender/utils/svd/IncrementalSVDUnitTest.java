@@ -0,0 +1,118 @@
+package org.broadinstitute.hellbender.utils.svd;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.MatrixUtils;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.SingularValueDecomposition;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.random.Well19937c;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public final class IncrementalSVDUnitTest extends GATKBaseTest {
+    private static final double EPSILON = 1E-8;
+
+    private static RealMatrix randomMatrix(final int numRows, final int numColumns, final RandomGenerator rng) {
+        final RealMatrix m = new Array2DRowRealMatrix(numRows, numColumns);
+        for (int i = 0; i < numRows; i++) {
+            for (int j = 0; j < numColumns; j++) {
+                m.setEntry(i, j, rng.nextGaussian());
+            }
+        }
+        return m;
+    }
+
+    private static IncrementalSVD decompose(final RealMatrix m, final int rank) {
+        final SingularValueDecomposition svd = new SingularValueDecomposition(m);
+        final double[] singularValues = new double[rank];
+        System.arraycopy(svd.getSingularValues(), 0, singularValues, 0, rank);
+        return new IncrementalSVD(svd.getU().getSubMatrix(0, m.getRowDimension() - 1, 0, rank - 1), singularValues);
+    }
+
+    private static RealMatrix appendColumns(final RealMatrix m, final RealMatrix columns) {
+        final RealMatrix result = new Array2DRowRealMatrix(m.getRowDimension(), m.getColumnDimension() + columns.getColumnDimension());
+        result.setSubMatrix(m.getData(), 0, 0);
+        result.setSubMatrix(columns.getData(), 0, m.getColumnDimension());
+        return result;
+    }
+
+    //projectors onto the spans of the left singular vectors are unique even if the vectors are only defined up to sign
+    private static void assertSameLeftSingularSubspace(final RealMatrix actual, final RealMatrix expected) {
+        final RealMatrix actualProjector = actual.multiply(actual.transpose());
+        final RealMatrix expectedProjector = expected.multiply(expected.transpose());
+        Assert.assertEquals(actualProjector.subtract(expectedProjector).getNorm(), 0., EPSILON);
+    }
+
+    @DataProvider(name = "updates")
+    public Object[][] updates() {
+        return new Object[][]{
+                //numRows, numColumns, numNewColumns
+                {100, 10, 1},
+                {100, 10, 15},
+                {50, 30, 25},
+                {20, 8, 30}
+        };
+    }
+
+    @Test(dataProvider = "updates")
+    public void testUpdateIsExactWithoutTruncation(final int numRows, final int numColumns, final int numNewColumns) {
+        final RandomGenerator rng = new Well19937c(numRows + numColumns + numNewColumns);
+        final RealMatrix m = randomMatrix(numRows, numColumns, rng);
+        final RealMatrix newColumns = randomMatrix(numRows, numNewColumns, rng);
+        final int rank = Math.min(numRows, numColumns + numNewColumns);
+
+        final IncrementalSVD updated = decompose(m, numColumns).update(newColumns, rank);
+        final SingularValueDecomposition expected = new SingularValueDecomposition(appendColumns(m, newColumns));
+
+        Assert.assertEquals(updated.getSingularValues().length, rank);
+        Assert.assertEquals(updated.getU().getRowDimension(), numRows);
+        Assert.assertEquals(updated.getU().getColumnDimension(), rank);
+        for (int i = 0; i < rank; i++) {
+            Assert.assertEquals(updated.getSingularValues()[i], expected.getSingularValues()[i], EPSILON * expected.getSingularValues()[0]);
+        }
+        final RealMatrix u = updated.getU();
+        Assert.assertEquals(u.transpose().multiply(u).subtract(MatrixUtils.createRealIdentityMatrix(rank)).getNorm(), 0., EPSILON);
+        //compare leading subspaces with a gap in the singular values
+        final int numLeading = Math.min(5, rank);
+        assertSameLeftSingularSubspace(u.getSubMatrix(0, numRows - 1, 0, numLeading - 1),
+                expected.getU().getSubMatrix(0, numRows - 1, 0, numLeading - 1));
+    }
+
+    @Test
+    public void testUpdateWithColumnsInSpan() {
+        //columns in the span of the current basis do not add singular values, and repeated updates match a single one
+        final RandomGenerator rng = new Well19937c(11);
+        final RealMatrix basis = randomMatrix(40, 3, rng);
+        final RealMatrix m = basis.multiply(randomMatrix(3, 10, rng));
+        final RealMatrix newColumns = basis.multiply(randomMatrix(3, 6, rng));
+
+        final IncrementalSVD updated = decompose(m, 3)
+                .update(newColumns.getSubMatrix(0, 39, 0, 2), 10)
+                .update(newColumns.getSubMatrix(0, 39, 3, 5), 10);
+        final double[] expectedSingularValues = new SingularValueDecomposition(appendColumns(m, newColumns)).getSingularValues();
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(updated.getSingularValues()[i], expectedSingularValues[i], EPSILON * expectedSingularValues[0]);
+        }
+        for (int i = 3; i < updated.getSingularValues().length; i++) {
+            Assert.assertEquals(updated.getSingularValues()[i], 0., EPSILON * expectedSingularValues[0]);
+        }
+        assertSameLeftSingularSubspace(updated.getU().getSubMatrix(0, 39, 0, 2),
+                new SingularValueDecomposition(basis).getU());
+    }
+
+    @Test
+    public void testTruncation() {
+        final RandomGenerator rng = new Well19937c(13);
+        final IncrementalSVD updated = decompose(randomMatrix(30, 10, rng), 10).update(randomMatrix(30, 5, rng), 4);
+        Assert.assertEquals(updated.getSingularValues().length, 4);
+        Assert.assertEquals(updated.getU().getColumnDimension(), 4);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testMismatchedRows() {
+        final RandomGenerator rng = new Well19937c(17);
+        decompose(randomMatrix(30, 10, rng), 10).update(randomMatrix(20, 5, rng), 10);
+    }
+}
@@ -0,0 +1,124 @@
+package org.broadinstitute.hellbender.utils.svd;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.MatrixUtils;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.SingularValueDecomposition;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.random.Well19937c;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public final class RandomizedSingularValueDecomposerUnitTest extends GATKBaseTest {
+    private static final double EPSILON = 1E-8;
+
+    private static RealMatrix randomMatrix(final int numRows, final int numColumns, final RandomGenerator rng) {
+        final RealMatrix m = new Array2DRowRealMatrix(numRows, numColumns);
+        for (int i = 0; i < numRows; i++) {
+            for (int j = 0; j < numColumns; j++) {
+                m.setEntry(i, j, rng.nextGaussian());
+            }
+        }
+        return m;
+    }
+
+    private static RealMatrix lowRankMatrix(final int numRows, final int numColumns, final int rank, final RandomGenerator rng) {
+        return randomMatrix(numRows, rank, rng).multiply(randomMatrix(rank, numColumns, rng));
+    }
+
+    private static void assertEqualMatrices(final RealMatrix actual, final RealMatrix expected, final double tolerance) {
+        Assert.assertEquals(actual.getRowDimension(), expected.getRowDimension());
+        Assert.assertEquals(actual.getColumnDimension(), expected.getColumnDimension());
+        final double scale = Math.max(1., expected.getNorm());
+        Assert.assertEquals(actual.subtract(expected).getNorm() / scale, 0., tolerance);
+    }
+
+    @DataProvider(name = "lowRankMatrices")
+    public Object[][] lowRankMatrices() {
+        return new Object[][]{
+                {200, 50, 5, 5},
+                {50, 200, 5, 8},
+                {100, 100, 10, 10},
+                {30, 20, 20, 20},
+                {30, 20, 20, 40}
+        };
+    }
+
+    @Test(dataProvider = "lowRankMatrices")
+    public void testLowRankMatrixIsRecovered(final int numRows, final int numColumns, final int rank, final int numSingularValues) {
+        final RealMatrix m = lowRankMatrix(numRows, numColumns, rank, new Well19937c(numRows + numColumns));
+        final SVD svd = new RandomizedSingularValueDecomposer(numSingularValues).createSVD(m);
+        final int expectedNumSingularValues = Math.min(numSingularValues, Math.min(numRows, numColumns));
+
+        final RealMatrix u = svd.getU();
+        final RealMatrix v = svd.getV();
+        final double[] s = svd.getSingularValues();
+        Assert.assertEquals(s.length, expectedNumSingularValues);
+        Assert.assertEquals(u.getRowDimension(), numRows);
+        Assert.assertEquals(u.getColumnDimension(), expectedNumSingularValues);
+        Assert.assertEquals(v.getRowDimension(), numColumns);
+        Assert.assertEquals(v.getColumnDimension(), expectedNumSingularValues);
+
+        //the singular values are those of the exact SVD, and the leading singular vectors are orthonormal
+        final double[] expectedSingularValues = new SingularValueDecomposition(m).getSingularValues();
+        for (int i = 0; i < expectedNumSingularValues; i++) {
+            Assert.assertEquals(s[i], expectedSingularValues[i], EPSILON * expectedSingularValues[0]);
+        }
+        final int numNonZero = Math.min(rank, expectedNumSingularValues);
+        final RealMatrix leadingU = u.getSubMatrix(0, numRows - 1, 0, numNonZero - 1);
+        final RealMatrix leadingV = v.getSubMatrix(0, numColumns - 1, 0, numNonZero - 1);
+        assertEqualMatrices(leadingU.transpose().multiply(leadingU), MatrixUtils.createRealIdentityMatrix(numNonZero), EPSILON);
+        assertEqualMatrices(leadingV.transpose().multiply(leadingV), MatrixUtils.createRealIdentityMatrix(numNonZero), EPSILON);
+
+        //the matrix is reconstructed if all nonzero singular values were requested
+        if (numSingularValues >= rank) {
+            assertEqualMatrices(u.multiply(MatrixUtils.createRealDiagonalMatrix(s)).multiply(v.transpose()), m, EPSILON);
+        }
+    }
+
+    @Test
+    public void testTruncatedSingularValues() {
+        //with decaying singular values, the leading singular values are accurate after a few power iterations
+        final RandomGenerator rng = new Well19937c(3);
+        final int n = 80;
+        final SingularValueDecomposition random = new SingularValueDecomposition(randomMatrix(n, n, rng));
+        final double[] decaying = new double[n];
+        for (int i = 0; i < n; i++) {
+            decaying[i] = Math.pow(0.7, i);
+        }
+        final RealMatrix m = random.getU().multiply(MatrixUtils.createRealDiagonalMatrix(decaying)).multiply(random.getV().transpose());
+        final SVD svd = new RandomizedSingularValueDecomposer(5).createSVD(m);
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals(svd.getSingularValues()[i], decaying[i], 1E-6);
+        }
+    }
+
+    @Test
+    public void testStreamedMatrixGivesSameResult() {
+        final RealMatrix m = lowRankMatrix(60, 45, 6, new Well19937c(5));
+        final RandomizedSingularValueDecomposer decomposer = new RandomizedSingularValueDecomposer(6);
+        final SVD inMemory = decomposer.createSVD(m);
+        for (final int blockSize : new int[]{1, 7, 45, 100}) {
+            final SVD streamed = decomposer.createSVD(ColumnBlockMatrix.fromColumns(60, 45, m::getColumn, blockSize));
+            for (int i = 0; i < inMemory.getSingularValues().length; i++) {
+                Assert.assertEquals(streamed.getSingularValues()[i], inMemory.getSingularValues()[i], 1E-12);
+            }
+            assertEqualMatrices(streamed.getU(), inMemory.getU(), 1E-12);
+            assertEqualMatrices(streamed.getV(), inMemory.getV(), 1E-12);
+        }
+    }
+
+    @Test
+    public void testPseudoinverse() {
+        final RealMatrix m = randomMatrix(12, 8, new Well19937c(7));
+        final SVD svd = new RandomizedSingularValueDecomposer(8).createSVD(m);
+        assertEqualMatrices(svd.getPinv(), new SingularValueDecomposition(m).getSolver().getInverse(), EPSILON);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testBadNumberOfSingularValues() {
+        new RandomizedSingularValueDecomposer(0);
+    }
+}
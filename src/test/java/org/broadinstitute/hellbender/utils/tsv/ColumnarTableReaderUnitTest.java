@@ -0,0 +1,202 @@
+package org.broadinstitute.hellbender.utils.tsv;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Unit tests for {@link ColumnarTableReader}.
+ */
+public final class ColumnarTableReaderUnitTest extends GATKBaseTest {
+    private static final String[] COLUMN_NAMES = {"NAME", "UNUSED", "INT", "DOUBLE"};
+    private static final Map<String, ColumnarTableReader.ColumnType> COLUMNS_TO_READ = ColumnarTableReader.columnsToRead(
+            Arrays.asList("DOUBLE", "NAME", "INT"),
+            Arrays.asList(ColumnarTableReader.ColumnType.DOUBLE, ColumnarTableReader.ColumnType.STRING, ColumnarTableReader.ColumnType.INT));
+    private static final String[] DOUBLE_VALUES = {"0", "-0.0", "1.5", "-2.25", ".5", "5.", "+3.75", "1e-300", "2.5E10",
+            "NaN", "Infinity", "-Infinity", "0.1", "123456789012345678", "0.000000000000000000000001", "9007199254740993",
+            "3.141592653589793238", "1.7976931348623157E308", "4.9E-324", " 7.5 ", "1d", "0x1p3"};
+
+    private static final class Row {
+        private final String name;
+        private final int intValue;
+        private final double doubleValue;
+
+        private Row(final String name, final int intValue, final double doubleValue) {
+            this.name = name;
+            this.intValue = intValue;
+            this.doubleValue = doubleValue;
+        }
+    }
+
+    private static List<Row> readWithTableReader(final File file) throws IOException {
+        final List<Row> rows = new ArrayList<>();
+        try (final TableReader<Row> reader = TableUtils.reader(file,
+                (columns, exceptionFactory) -> dataLine -> new Row(dataLine.get("NAME"), dataLine.getInt("INT"), dataLine.getDouble("DOUBLE")))) {
+            reader.forEach(rows::add);
+        }
+        return rows;
+    }
+
+    private static void assertSameRows(final ColumnarTableReader.Table table, final List<Row> expected) {
+        Assert.assertEquals(table.size(), expected.size());
+        final int[] nameIndices = table.getStringIndices("NAME");
+        final List<String> names = table.getStringLevels("NAME");
+        final int[] ints = table.getInts("INT");
+        final double[] doubles = table.getDoubles("DOUBLE");
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(names.get(nameIndices[i]), expected.get(i).name);
+            Assert.assertEquals(ints[i], expected.get(i).intValue);
+            Assert.assertEquals(Double.doubleToLongBits(doubles[i]), Double.doubleToLongBits(expected.get(i).doubleValue), "Line " + i);
+        }
+    }
+
+    private static File writeTable(final List<String> lines, final String lineSeparator) throws IOException {
+        final File file = createTempFile("columnarTableReader", ".tsv");
+        Files.write(file.toPath(), (String.join(lineSeparator, lines) + lineSeparator).getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static List<String> randomTable(final int numLines, final Random random) {
+        final List<String> lines = new ArrayList<>();
+        lines.add("# a comment before the header");
+        lines.add(String.join("\t", COLUMN_NAMES));
+        for (int i = 0; i < numLines; i++) {
+            final int lineType = random.nextInt(50);
+            if (lineType == 0) {
+                lines.add("# a comment\twith tabs");
+            } else if (lineType == 1) {
+                lines.add(String.join("\t", COLUMN_NAMES));
+            } else if (lineType == 2) {
+                lines.add("\"quoted\tname\"\tx\t" + random.nextInt() + "\t\"1.25\"");
+            } else {
+                final String name = "chr" + (i * 5 / numLines + 1) + (random.nextInt(20) == 0 ? "_alt" : "");
+                final int intValue = random.nextInt(10) == 0 ? random.nextInt() : random.nextInt(1000000);
+                final String doubleValue;
+                switch (random.nextInt(4)) {
+                    case 0:
+                        doubleValue = DOUBLE_VALUES[random.nextInt(DOUBLE_VALUES.length)];
+                        break;
+                    case 1:
+                        doubleValue = Double.toString(random.nextGaussian() * Math.pow(10, random.nextInt(40) - 20));
+                        break;
+                    case 2:
+                        doubleValue = String.format("%.6f", random.nextGaussian());
+                        break;
+                    default:
+                        doubleValue = Long.toString(random.nextLong() >> random.nextInt(64)) + "." + Math.abs(random.nextLong() >> random.nextInt(64));
+                }
+                lines.add(String.join("\t", name, "unused", Integer.toString(intValue), doubleValue));
+            }
+        }
+        return lines;
+    }
+
+    @DataProvider(name = "tables")
+    public Object[][] tables() {
+        return new Object[][]{
+                {0, 1, "\n"},
+                {1, 1, "\n"},
+                {100, 1, "\n"},
+                {1000, 7, "\n"},
+                {1000, 64, "\r\n"},
+                {10000, 1000, "\n"},
+                {10000, ColumnarTableReader.DEFAULT_CHUNK_SIZE, "\n"}
+        };
+    }
+
+    @Test(dataProvider = "tables")
+    public void testSameValuesAsTableReader(final int numLines, final int chunkSize, final String lineSeparator) throws IOException {
+        final File file = writeTable(randomTable(numLines, new Random(numLines + chunkSize)), lineSeparator);
+        final ColumnarTableReader.Table table = new ColumnarTableReader(file.toPath(), TableUtils.COMMENT_PREFIX, COLUMNS_TO_READ, chunkSize).read();
+        Assert.assertEquals(table.columns().names(), Arrays.asList(COLUMN_NAMES));
+        assertSameRows(table, readWithTableReader(file));
+    }
+
+    @Test
+    public void testFileWithoutFinalNewLine() throws IOException {
+        final File file = createTempFile("columnarTableReader", ".tsv");
+        Files.write(file.toPath(), "NAME\tUNUSED\tINT\tDOUBLE\na\tb\t1\t2.5\nc\td\t3\t4.5".getBytes(StandardCharsets.UTF_8));
+        for (final int chunkSize : new int[]{1, 5, 100}) {
+            final ColumnarTableReader.Table table = new ColumnarTableReader(file.toPath(), TableUtils.COMMENT_PREFIX, COLUMNS_TO_READ, chunkSize).read();
+            assertSameRows(table, Arrays.asList(new Row("a", 1, 2.5), new Row("c", 3, 4.5)));
+        }
+    }
+
+    @Test
+    public void testParseDouble() {
+        final Random random = new Random(13);
+        for (int i = 0; i < 100000; i++) {
+            final String value = (random.nextBoolean() ? "-" : "") + Long.toString(Math.abs(random.nextLong()) >> random.nextInt(64))
+                    + (random.nextBoolean() ? "." + Long.toString(Math.abs(random.nextLong()) >> random.nextInt(64)) : "");
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            Assert.assertEquals(ColumnarTableReader.parseDouble(bytes, 0, bytes.length), Double.parseDouble(value), 0., value);
+        }
+        for (final String value : DOUBLE_VALUES) {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            Assert.assertEquals(ColumnarTableReader.parseDouble(bytes, 0, bytes.length), Double.parseDouble(value), 0., value);
+        }
+    }
+
+    @Test
+    public void testParseInt() {
+        for (final String value : new String[]{"0", "-0", "+7", "123456789", "-123456789", "2147483647", "-2147483648"}) {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            Assert.assertEquals(ColumnarTableReader.parseInt(bytes, 0, bytes.length), Integer.parseInt(value));
+        }
+        for (final String value : new String[]{"", "-", "+", "1.0", "2147483648", " 1", "1e3", "0x1"}) {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            Assert.assertEquals(ColumnarTableReader.parseInt(bytes, 0, bytes.length), Long.MIN_VALUE, value);
+        }
+    }
+
+    @DataProvider(name = "badTables")
+    public Object[][] badTables() {
+        return new Object[][]{
+                {""},
+                {"# only comments\n"},
+                {"NAME\tUNUSED\tDOUBLE\na\tb\t2.5\n"},
+                {"NAME\tUNUSED\tINT\tDOUBLE\na\tb\t1\n"},
+                {"NAME\tUNUSED\tINT\tDOUBLE\na\tb\t1\t2.5\textra\n"},
+                {"NAME\tUNUSED\tINT\tDOUBLE\na\tb\tone\t2.5\n"},
+                {"NAME\tUNUSED\tINT\tDOUBLE\na\tb\t1\t2.5.1\n"},
+                {"NAME\tUNUSED\tINT\tDOUBLE\na\tb\t1\t2.5\n\n"},
+        };
+    }
+
+    @Test(dataProvider = "badTables", expectedExceptions = UserException.BadInput.class)
+    public void testBadTable(final String content) throws IOException {
+        final File file = createTempFile("columnarTableReader", ".tsv");
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        new ColumnarTableReader(file.toPath(), TableUtils.COMMENT_PREFIX, COLUMNS_TO_READ, 4).read();
+    }
+
+    @Test
+    public void testErrorMessageHasLineNumber() throws IOException {
+        final File file = createTempFile("columnarTableReader", ".tsv");
+        Files.write(file.toPath(), "#comment\nNAME\tUNUSED\tINT\tDOUBLE\na\tb\t1\t2.5\na\tb\tone\t2.5\n".getBytes(StandardCharsets.UTF_8));
+        try {
+            new ColumnarTableReader(file.toPath(), TableUtils.COMMENT_PREFIX, COLUMNS_TO_READ, 4).read();
+            Assert.fail("Expected a format error");
+        } catch (final UserException.BadInput e) {
+            Assert.assertTrue(e.getMessage().contains("at line 4"), e.getMessage());
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testWrongColumnType() throws IOException {
+        final File file = writeTable(randomTable(10, new Random(1)), "\n");
+        new ColumnarTableReader(file.toPath(), TableUtils.COMMENT_PREFIX, COLUMNS_TO_READ).read().getInts("DOUBLE");
+    }
+}
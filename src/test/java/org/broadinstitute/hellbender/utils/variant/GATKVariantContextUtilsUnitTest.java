@@ -10,8 +10,10 @@ import htsjdk.tribble.FeatureReader;
 import htsjdk.tribble.util.TabixUtils;
 import htsjdk.variant.bcf2.BCF2Codec;
 import htsjdk.variant.variantcontext.*;
+import htsjdk.variant.variantcontext.writer.AsyncVariantContextWriter;
 import htsjdk.variant.variantcontext.writer.Options;
 import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.variantcontext.writer.VariantContextWriterBuilder;
 import htsjdk.variant.vcf.*;
 import org.apache.commons.lang3.tuple.Pair;
 import org.broadinstitute.hellbender.engine.FeatureManager;
@@ -26,6 +28,7 @@ import org.testng.annotations.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -1794,6 +1797,113 @@ public final class GATKVariantContextUtilsUnitTest extends GATKBaseTest {
         }
     }
 
+    @Test(dataProvider = "createVCFWriterData")
+    public void testCreateAsyncVCFWriter(
+            final String outputExtension,
+            final String indexExtension,
+            final boolean createIndex,
+            final boolean createMD5) throws IOException {
+
+        final File tmpDir = createTempDir("createVCFTest");
+        final File asyncFile = new File(tmpDir.getAbsolutePath(), "createVCFTestAsync" + outputExtension);
+        final File syncFile = new File(tmpDir.getAbsolutePath(), "createVCFTestSync" + outputExtension);
+
+        final Options options[] = createIndex ?
+                new Options[] {Options.USE_ASYNC_IO, Options.INDEX_ON_THE_FLY} :
+                new Options[] {Options.USE_ASYNC_IO};
+        try (final VariantContextWriter writer = GATKVariantContextUtils.createVCFWriter(
+                asyncFile, makeSimpleSequenceDictionary(), createMD5, options)) {
+            Assert.assertTrue(writer instanceof AsyncVariantContextWriter);
+            writeHeader(writer);
+            writeVariants(writer);
+        }
+
+        // the output must be the same as that of a writer that encodes on the calling thread
+        final VariantContextWriterBuilder builder = new VariantContextWriterBuilder().clearOptions()
+                .setOutputFile(syncFile)
+                .setReferenceDictionary(makeSimpleSequenceDictionary());
+        if (outputExtension.equals(".tmp")) {
+            builder.setOutputFileType(VariantContextWriterBuilder.OutputType.VCF);
+        }
+        if (createIndex) {
+            builder.setOption(Options.INDEX_ON_THE_FLY);
+        }
+        try (final VariantContextWriter writer = builder.build()) {
+            writeHeader(writer);
+            writeVariants(writer);
+        }
+
+        Assert.assertEquals(Files.readAllBytes(asyncFile.toPath()), Files.readAllBytes(syncFile.toPath()));
+        Assert.assertEquals(new File(asyncFile.getAbsolutePath() + indexExtension).exists(), createIndex);
+        Assert.assertEquals(new File(asyncFile.getAbsolutePath() + ".md5").exists(), createMD5);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testAsyncVCFWriterPropagatesErrors() {
+        final File outputFile = createTempFile("testAsyncVCFWriter", ".vcf");
+        try (final VariantContextWriter writer = GATKVariantContextUtils.createVCFWriter(
+                outputFile, makeSimpleSequenceDictionary(), false, Options.USE_ASYNC_IO)) {
+            writeHeader(writer);
+            // the encoder fails on the background thread, which must surface to the caller by the time it closes
+            writeBadVariant(writer);
+            writeVariants(writer);
+        }
+    }
+
+    @DataProvider(name = "parallelCompressionData")
+    public Object[][] parallelCompressionData() {
+        return new Object[][]{
+                // outputExtension, numVariants, compressionThreads, createIndex, createMD5
+                {".vcf.gz", 0, 1, true, false},
+                {".vcf.gz", 20_000, 1, true, false},
+                {".vcf.gz", 20_000, 4, true, true},
+                {".vcf.gz", 20_000, 4, false, false},
+                {".vcf.bgz", 20_000, 4, true, false},
+                // only block-compressed output is written by the parallel writer, but the threads must be harmless
+                {".vcf", 1000, 4, true, false},
+        };
+    }
+
+    @Test(dataProvider = "parallelCompressionData")
+    public void testCreateVCFWriterWithCompressionThreads(
+            final String outputExtension,
+            final int numVariants,
+            final int compressionThreads,
+            final boolean createIndex,
+            final boolean createMD5) throws IOException {
+
+        final File tmpDir = createTempDir("createVCFTest");
+        final File parallelFile = new File(tmpDir.getAbsolutePath(), "createVCFTestParallel" + outputExtension);
+        final File serialFile = new File(tmpDir.getAbsolutePath(), "createVCFTestSerial" + outputExtension);
+        final SAMSequenceDictionary dictionary = new SAMSequenceDictionary(
+                Collections.singletonList(new SAMSequenceRecord("chr1", 10 * numVariants + 1)));
+        final Options options[] = createIndex ? new Options[] {Options.INDEX_ON_THE_FLY} : new Options[] {};
+
+        for (final File outputFile : Arrays.asList(parallelFile, serialFile)) {
+            try (final VariantContextWriter writer = GATKVariantContextUtils.createVCFWriter(
+                    outputFile, dictionary, createMD5, outputFile == parallelFile ? compressionThreads : 0, options)) {
+                final VCFHeader vcfHeader = new VCFHeader(
+                        Collections.singleton(new VCFHeaderLine(VCFHeaderVersion.VCF4_2.getFormatString(), VCFHeaderVersion.VCF4_2.getVersionString())),
+                        Collections.emptyList());
+                vcfHeader.setSequenceDictionary(dictionary);
+                writer.writeHeader(vcfHeader);
+                for (int i = 0; i < numVariants; i++) {
+                    writer.add(new VariantContextBuilder("", "chr1", 10 * i + 1, 10 * i + 1, Arrays.asList(Aref, C)).make());
+                }
+            }
+        }
+
+        Assert.assertEquals(Files.readAllBytes(parallelFile.toPath()), Files.readAllBytes(serialFile.toPath()));
+        final String indexExtension = outputExtension.equals(".vcf") ? ".idx" : ".tbi";
+        final File parallelIndex = new File(parallelFile.getAbsolutePath() + indexExtension);
+        Assert.assertEquals(parallelIndex.exists(), createIndex);
+        if (createIndex && !outputExtension.equals(".vcf")) {
+            Assert.assertEquals(Files.readAllBytes(parallelIndex.toPath()),
+                    Files.readAllBytes(new File(serialFile.getAbsolutePath() + indexExtension).toPath()));
+        }
+        Assert.assertEquals(new File(parallelFile.getAbsolutePath() + ".md5").exists(), createMD5);
+    }
+
     @Test(expectedExceptions=IllegalArgumentException.class)
     public void testCreateVariantContextWriterNoReference() {
         // should throw due to lack of reference
@@ -1861,6 +1971,12 @@ public final class GATKVariantContextUtilsUnitTest extends GATKBaseTest {
         writer.writeHeader(vcfHeader);
     }
 
+    private void writeVariants(final VariantContextWriter writer) {
+        for (int start = 1; start <= 10; start++) {
+            writer.add(new VariantContextBuilder("", "chr1", start, start, Arrays.asList(Aref, C)).make());
+        }
+    }
+
     private void writeBadVariant(final VariantContextWriter writer) {
         //write a variant with a (bad) attribute that doesn't appear in the header to the output
         final VariantContextBuilder vcBuilder = new VariantContextBuilder("","chr1", 1, 1, Arrays.asList(Aref));
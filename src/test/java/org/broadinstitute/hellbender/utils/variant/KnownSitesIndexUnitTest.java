@@ -0,0 +1,83 @@
+package org.broadinstitute.hellbender.utils.variant;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.collections.IntervalsSkipList;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.stream.Collectors;
+
+public class KnownSitesIndexUnitTest extends GATKBaseTest {
+
+    private static List<GATKVariant> makeRandomVariants(final int count, final Random random) {
+        final List<GATKVariant> variants = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final String contig = random.nextBoolean() ? "1" : "2";
+            final int start = 1 + random.nextInt(10000);
+            // mostly single-base sites, with the occasional long one
+            final int length = random.nextInt(10) == 0 ? 1 + random.nextInt(200) : 1;
+            final boolean snp = length == 1 && random.nextBoolean();
+            variants.add(new MinimalVariant(new SimpleInterval(contig, start, start + length - 1), snp, !snp));
+        }
+        return variants;
+    }
+
+    private static KnownSitesIndex writeAndOpen(final List<GATKVariant> variants) {
+        final File indexFile = createTempFile("known_sites", KnownSitesIndex.FILE_EXTENSION);
+        KnownSitesIndex.write(indexFile.toPath(), variants.iterator());
+        return KnownSitesIndex.open(indexFile.toPath());
+    }
+
+    private static List<String> describe(final List<GATKVariant> variants) {
+        return variants.stream()
+                .map(v -> v.getContig() + ":" + v.getStart() + "-" + v.getEnd() + ":" + v.isSnp() + ":" + v.isIndel())
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    @DataProvider(name = "variantCounts")
+    public Object[][] getVariantCounts() {
+        return new Object[][] { {0}, {1}, {63}, {64}, {65}, {1000}, {20000} };
+    }
+
+    @Test(dataProvider = "variantCounts")
+    public void testOverlapsMatchIntervalsSkipList(final int count) {
+        final Random random = new Random(count);
+        final List<GATKVariant> variants = makeRandomVariants(count, random);
+        final IntervalsSkipList<GATKVariant> expected = new IntervalsSkipList<>(variants);
+        final KnownSitesIndex index = writeAndOpen(variants);
+
+        Assert.assertEquals(index.size(), count);
+        for (int i = 0; i < 500; i++) {
+            final int start = 1 + random.nextInt(10300);
+            final SimpleInterval query = new SimpleInterval(random.nextBoolean() ? "1" : "2", start, start + random.nextInt(300));
+            final List<GATKVariant> overlapping = index.getOverlapping(query);
+            Assert.assertEquals(describe(overlapping), describe(expected.getOverlapping(query)), query.toString());
+        }
+    }
+
+    @Test
+    public void testUnknownContig() {
+        final KnownSitesIndex index = writeAndOpen(makeRandomVariants(100, new Random(1)));
+        Assert.assertTrue(index.getOverlapping(new SimpleInterval("X", 1, 100000)).isEmpty());
+    }
+
+    @Test
+    public void testIsKnownSitesIndex() {
+        Assert.assertTrue(KnownSitesIndex.isKnownSitesIndex("dbsnp" + KnownSitesIndex.FILE_EXTENSION));
+        Assert.assertFalse(KnownSitesIndex.isKnownSitesIndex("dbsnp.vcf.gz"));
+    }
+
+    @Test(expectedExceptions = UserException.BadInput.class)
+    public void testNotAnIndex() throws Exception {
+        final File notAnIndex = createTempFile("not_an_index", KnownSitesIndex.FILE_EXTENSION);
+        Files.write(notAnIndex.toPath(), "##fileformat=VCFv4.2\n".getBytes());
+        KnownSitesIndex.open(notAnIndex.toPath());
+    }
+}